@@ -79,6 +79,12 @@ public final class ConnectionCoreConstants
     /** The constant used to identify the "masked attributes" preference  */
     public static final String PREFERENCE_MODIFICATIONLOGS_MASKED_ATTRIBUTES = "modificationLogsMaskedAttributes"; //$NON-NLS-1$
 
+    /** The constant used to identify the "log queue size" preference  */
+    public static final String PREFERENCE_LOGS_QUEUE_SIZE = "logsQueueSize"; //$NON-NLS-1$
+
+    /** The constant used to identify the "drop log records on full queue" preference  */
+    public static final String PREFERENCE_LOGS_DROP_ON_FULL_QUEUE = "logsDropOnFullQueue"; //$NON-NLS-1$
+
     /** The constant used to identify the "use KRB5 system properties" preference  */
     public static final String PREFERENCE_USE_KRB5_SYSTEM_PROPERTIES = "useKrb5SystemProperties"; //$NON-NLS-1$
 
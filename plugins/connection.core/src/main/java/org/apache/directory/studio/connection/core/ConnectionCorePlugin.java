@@ -30,6 +30,7 @@ import java.util.PropertyResourceBundle;
 import org.apache.directory.api.ldap.model.exception.LdapTlsHandshakeFailCause;
 import org.apache.directory.studio.connection.core.event.CoreEventRunner;
 import org.apache.directory.studio.connection.core.event.EventRunner;
+import org.apache.directory.studio.connection.core.io.api.AsyncLogWriter;
 import org.apache.directory.studio.connection.core.io.api.LdifModificationLogger;
 import org.apache.directory.studio.connection.core.io.api.LdifSearchLogger;
 import org.eclipse.core.runtime.FileLocator;
@@ -190,6 +191,9 @@ public class ConnectionCorePlugin extends Plugin
         {
             sessionTrustStoreManager = null;
         }
+
+        // write the queued log records, the writer thread is a daemon thread
+        AsyncLogWriter.getDefault().shutdown();
     }
 
 
@@ -667,4 +671,18 @@ public class ConnectionCorePlugin extends Plugin
             ConnectionCoreConstants.PREFERENCE_SEARCHRESULTENTRYLOGS_ENABLE, false, null );
     }
 
+
+    public int getLogsQueueSize()
+    {
+        return Platform.getPreferencesService().getInt( ConnectionCoreConstants.PLUGIN_ID,
+            ConnectionCoreConstants.PREFERENCE_LOGS_QUEUE_SIZE, 10000, null );
+    }
+
+
+    public boolean isLogsDropOnFullQueue()
+    {
+        return Platform.getPreferencesService().getBoolean( ConnectionCoreConstants.PLUGIN_ID,
+            ConnectionCoreConstants.PREFERENCE_LOGS_DROP_ON_FULL_QUEUE, false, null );
+    }
+
 }
@@ -59,6 +59,10 @@ public class ConnectionCorePreferencesInitializer extends AbstractPreferenceInit
         defaultPreferences.putInt( ConnectionCoreConstants.PREFERENCE_SEARCHLOGS_FILE_COUNT, 10 );
         defaultPreferences.putInt( ConnectionCoreConstants.PREFERENCE_SEARCHLOGS_FILE_SIZE, 100 );
 
+        // Log Writer
+        defaultPreferences.putInt( ConnectionCoreConstants.PREFERENCE_LOGS_QUEUE_SIZE, 10000 );
+        defaultPreferences.putBoolean( ConnectionCoreConstants.PREFERENCE_LOGS_DROP_ON_FULL_QUEUE, false );
+
         // Connections Passwords Keystore
         preferences.setDefault( ConnectionCoreConstants.PREFERENCE_CONNECTIONS_PASSWORDS_KEYSTORE,
             ConnectionCoreConstants.PREFERENCE_CONNECTIONS_PASSWORDS_KEYSTORE_OFF );
@@ -26,12 +26,21 @@ import org.apache.directory.api.asn1.util.Asn1Buffer;
 import org.apache.directory.api.ldap.codec.api.ControlFactory;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.codec.api.LdapApiServiceFactory;
+import org.apache.directory.api.ldap.extras.controls.vlv.VirtualListViewRequest;
+import org.apache.directory.api.ldap.extras.controls.vlv.VirtualListViewRequestImpl;
 import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.controls.ChangeType;
+import org.apache.directory.api.ldap.model.message.controls.EntryChange;
 import org.apache.directory.api.ldap.model.message.controls.ManageDsaIT;
 import org.apache.directory.api.ldap.model.message.controls.ManageDsaITImpl;
 import org.apache.directory.api.ldap.model.message.controls.OpaqueControl;
 import org.apache.directory.api.ldap.model.message.controls.PagedResults;
 import org.apache.directory.api.ldap.model.message.controls.PagedResultsImpl;
+import org.apache.directory.api.ldap.model.message.controls.PersistentSearch;
+import org.apache.directory.api.ldap.model.message.controls.PersistentSearchImpl;
+import org.apache.directory.api.ldap.model.message.controls.SortKey;
+import org.apache.directory.api.ldap.model.message.controls.SortRequest;
+import org.apache.directory.api.ldap.model.message.controls.SortRequestImpl;
 import org.apache.directory.api.ldap.model.message.controls.Subentries;
 import org.apache.directory.api.ldap.model.message.controls.SubentriesImpl;
 
@@ -53,6 +62,18 @@ public class Controls
 
     public static final Control TREEDELETE_CONTROL = new OpaqueControl( "1.2.840.113556.1.4.805", false );
 
+    /** The OID of the Server Side Sorting request control (RFC 2891) */
+    public static final String SORT_REQUEST_OID = SortRequest.OID;
+
+    /** The OID of the Virtual List View request control (draft-ietf-ldapext-ldapv3-vlv) */
+    public static final String VIRTUAL_LIST_VIEW_REQUEST_OID = VirtualListViewRequest.OID;
+
+    /** The OID of the Persistent Search request control (draft-ietf-ldapext-psearch) */
+    public static final String PERSISTENT_SEARCH_OID = PersistentSearch.OID;
+
+    /** The OID of the Entry Change Notification response control (draft-ietf-ldapext-psearch) */
+    public static final String ENTRY_CHANGE_OID = EntryChange.OID;
+
 
     public static final PagedResults newPagedResultsControl( int size )
     {
@@ -71,6 +92,105 @@ public class Controls
     }
 
 
+    /**
+     * Creates a server side sort request control.
+     *
+     * @param attributes the attribute descriptions to sort by, in ascending order
+     * @return the sort request control
+     */
+    public static final SortRequest newSortRequestControl( String... attributes )
+    {
+        SortRequest control = new SortRequestImpl();
+        for ( String attribute : attributes )
+        {
+            control.addSortKey( new SortKey( attribute ) );
+        }
+        return control;
+    }
+
+
+    /**
+     * Creates a server side sort request control with a single sort key.
+     *
+     * @param attribute the attribute description to sort by
+     * @param reverseOrder true to sort in descending order
+     * @return the sort request control
+     */
+    public static final SortRequest newSortRequestControl( String attribute, boolean reverseOrder )
+    {
+        SortRequest control = new SortRequestImpl();
+        control.addSortKey( new SortKey( attribute, null, reverseOrder ) );
+        return control;
+    }
+
+
+    /**
+     * Creates a virtual list view request control that positions by offset.
+     *
+     * @param beforeCount the number of entries before the target entry
+     * @param afterCount the number of entries after the target entry
+     * @param offset the offset of the target entry, starting at 1
+     * @param contentCount the estimated number of entries, 0 if unknown
+     * @param contextId the context ID of the previous response, may be null
+     * @return the virtual list view request control
+     */
+    public static final VirtualListViewRequest newVirtualListViewControl( int beforeCount, int afterCount,
+        int offset, int contentCount, byte[] contextId )
+    {
+        VirtualListViewRequest control = new VirtualListViewRequestImpl();
+        control.setCritical( true );
+        control.setBeforeCount( beforeCount );
+        control.setAfterCount( afterCount );
+        control.setOffset( offset );
+        control.setContentCount( contentCount );
+        control.setContextId( contextId );
+        return control;
+    }
+
+
+    /**
+     * Creates a virtual list view request control that positions by assertion value,
+     * the target entry is the first entry whose sort key value is greater than or
+     * equal to the assertion value.
+     *
+     * @param beforeCount the number of entries before the target entry
+     * @param afterCount the number of entries after the target entry
+     * @param assertionValue the assertion value
+     * @param contextId the context ID of the previous response, may be null
+     * @return the virtual list view request control
+     */
+    public static final VirtualListViewRequest newVirtualListViewControl( int beforeCount, int afterCount,
+        byte[] assertionValue, byte[] contextId )
+    {
+        VirtualListViewRequest control = new VirtualListViewRequestImpl();
+        control.setCritical( true );
+        control.setBeforeCount( beforeCount );
+        control.setAfterCount( afterCount );
+        control.setAssertionValue( assertionValue );
+        control.setContextId( contextId );
+        return control;
+    }
+
+
+    /**
+     * Creates a persistent search request control that notifies about
+     * all kinds of changes, each with an entry change notification control.
+     *
+     * @param changesOnly true to only return changed entries, false to return the initial search results too
+     * @return the persistent search request control
+     */
+    public static final PersistentSearch newPersistentSearchControl( boolean changesOnly )
+    {
+        PersistentSearch control = new PersistentSearchImpl();
+        control.setCritical( true );
+        control.setChangesOnly( changesOnly );
+        control.setReturnECs( true );
+        control.setChangeTypes( ChangeType.ADD.getValue() | ChangeType.DELETE.getValue()
+            | ChangeType.MODIFY.getValue() | ChangeType.MODDN.getValue() );
+        return control;
+    }
+
+
     public static Control create( String oid, boolean isCritical, byte[] value )
     {
         try
@@ -0,0 +1,153 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.event;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.apache.directory.studio.connection.core.ConnectionCoreConstants;
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+
+/**
+ * Collects {@link EventRunnable}s and executes them in batches, in the order they were added.
+ * <p>
+ * Only one batch is scheduled at a time, so a burst of events results in one scheduled
+ * task instead of one task per event. A runnable is dropped if a runnable with an equal
+ * {@link EventRunnable#getCoalescingKey() coalescing key} is already pending.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class CoalescingEventQueue
+{
+    /** The scheduler used to execute a batch, e.g. in the UI thread */
+    private final Consumer<Runnable> scheduler;
+
+    /** The pending runnables */
+    private List<EventRunnable> pending = new ArrayList<EventRunnable>();
+
+    /** The coalescing keys of the pending runnables */
+    private Set<Object> pendingKeys = new HashSet<Object>();
+
+    /** Flag indicating if a batch is scheduled */
+    private boolean scheduled;
+
+
+    /**
+     * Creates a new instance of CoalescingEventQueue.
+     *
+     * @param scheduler the scheduler used to execute a batch
+     */
+    public CoalescingEventQueue( Consumer<Runnable> scheduler )
+    {
+        this.scheduler = scheduler;
+    }
+
+
+    /**
+     * Adds the given runnable and schedules a batch if none is scheduled yet.
+     *
+     * @param runnable the runnable
+     */
+    public void add( EventRunnable runnable )
+    {
+        synchronized ( this )
+        {
+            Object key = runnable.getCoalescingKey();
+            if ( key != null && !pendingKeys.add( key ) )
+            {
+                // an equal notification is pending
+                return;
+            }
+
+            pending.add( runnable );
+
+            if ( scheduled )
+            {
+                return;
+            }
+            scheduled = true;
+        }
+
+        try
+        {
+            scheduler.accept( this::runBatch );
+        }
+        catch ( RuntimeException e )
+        {
+            // e.g. the display is disposed, schedule again with the next runnable
+            synchronized ( this )
+            {
+                scheduled = false;
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * Runs all pending runnables. Runnables added meanwhile are executed in the next batch.
+     */
+    private void runBatch()
+    {
+        List<EventRunnable> batch;
+        synchronized ( this )
+        {
+            batch = pending;
+            pending = new ArrayList<EventRunnable>();
+            pendingKeys.clear();
+            scheduled = false;
+        }
+
+        for ( EventRunnable runnable : batch )
+        {
+            try
+            {
+                runnable.run();
+            }
+            catch ( RuntimeException e )
+            {
+                logException( e );
+            }
+        }
+    }
+
+
+    /**
+     * Logs an exception thrown by a runnable. The following runnables of the batch are executed anyway.
+     *
+     * @param e the exception
+     */
+    protected void logException( RuntimeException e )
+    {
+        ConnectionCorePlugin plugin = ConnectionCorePlugin.getDefault();
+        if ( plugin != null )
+        {
+            plugin.getLog().log( new Status( IStatus.ERROR, ConnectionCoreConstants.PLUGIN_ID, e.getMessage(), e ) );
+        }
+    }
+}
@@ -21,11 +21,11 @@
 package org.apache.directory.studio.connection.core.event;
 
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.ConnectionCoreConstants;
@@ -44,17 +44,31 @@ import org.eclipse.core.runtime.Status;
 public class ConnectionEventRegistry
 {
 
-    /** The list of threads with suspended event firing. */
-    private static List<Long> suspendedEventFiringThreads = new ArrayList<Long>();
+    /** The maximum number of events fired per second without a warning */
+    private static final int MAX_EVENTS_PER_SECOND = 10;
 
-    /** The lock used to synchronize event firings */
-    protected static Object lock = new Object();
+    /** The number of nested suspensions of event firing in the current thread. */
+    private static final ThreadLocal<int[]> suspendedEventFiring = ThreadLocal.withInitial( () -> new int[1] );
+
+    /** The start time of the current one second window of event firings */
+    private static final AtomicLong fireWindowStart = new AtomicLong();
 
-    /** The list with time stamps of recent event firings */
-    private static List<Long> fireTimeStamps = new ArrayList<Long>();
+    /** The number of fired events in the current one second window */
+    private static final AtomicInteger fireWindowCount = new AtomicInteger();
 
     /** A counter for fired events */
-    private static long fireCount = 0L;
+    private static final AtomicLong fireCount = new AtomicLong();
+
+    /**
+     * The lock that was used to synchronize event firings.
+     *
+     * @deprecated events are no longer fired while holding this lock, so a listener
+     * with a synchronous {@link EventRunner} may be called concurrently by events fired
+     * in different threads. A listener that isn't thread safe must synchronize itself,
+     * it may still use this lock for that.
+     */
+    @Deprecated
+    protected static Object lock = new Object();
 
 
     /**
@@ -64,41 +78,27 @@ public class ConnectionEventRegistry
      */
     protected static boolean isEventFiringSuspendedInCurrentThread()
     {
-        boolean suspended = suspendedEventFiringThreads.contains( Thread.currentThread().getId() );
+        boolean suspended = suspendedEventFiring.get()[0] > 0;
 
         // count the number of fired event in the last second
-        // if more then five per second: print a warning
+        // if more then ten per second: print a warning, once per second
         if ( !suspended )
         {
-            fireCount++;
+            fireCount.incrementAndGet();
 
-            synchronized ( fireTimeStamps )
+            long now = System.currentTimeMillis();
+            long windowStart = fireWindowStart.get();
+            if ( windowStart + 1000 < now && fireWindowStart.compareAndSet( windowStart, now ) )
             {
-                long now = System.currentTimeMillis();
-
-                // remove all time stamps older than one second
-                for ( Iterator<Long> it = fireTimeStamps.iterator(); it.hasNext(); )
-                {
-                    Long ts = it.next();
-                    if ( ts + 1000 < now )
-                    {
-                        it.remove();
-                    }
-                    else
-                    {
-                        break;
-                    }
-                }
-
-                fireTimeStamps.add( now );
+                fireWindowCount.set( 0 );
+            }
 
-                if ( fireTimeStamps.size() > 10 )
-                {
-                    String message = "Warning: More then " + fireTimeStamps.size() + " events were fired per second!"; //$NON-NLS-1$ //$NON-NLS-2$
-                    ConnectionCorePlugin.getDefault().getLog().log(
-                        new Status( IStatus.WARNING, ConnectionCoreConstants.PLUGIN_ID, message,
-                            new Exception( message ) ) );
-                }
+            if ( fireWindowCount.incrementAndGet() == MAX_EVENTS_PER_SECOND + 1 )
+            {
+                String message = "Warning: More then " + MAX_EVENTS_PER_SECOND + " events were fired per second!"; //$NON-NLS-1$ //$NON-NLS-2$
+                ConnectionCorePlugin.getDefault().getLog().log(
+                    new Status( IStatus.WARNING, ConnectionCoreConstants.PLUGIN_ID, message,
+                        new Exception( message ) ) );
             }
         }
 
@@ -113,7 +113,7 @@ public class ConnectionEventRegistry
      */
     public static long getFireCount()
     {
-        return fireCount;
+        return fireCount.get();
     }
 
 
@@ -122,9 +122,10 @@ public class ConnectionEventRegistry
      */
     public static void resumeEventFiringInCurrentThread()
     {
-        synchronized ( suspendedEventFiringThreads )
+        int[] suspensions = suspendedEventFiring.get();
+        if ( suspensions[0] > 0 )
         {
-            suspendedEventFiringThreads.remove( Thread.currentThread().getId() );
+            suspensions[0]--;
         }
     }
 
@@ -134,10 +135,7 @@ public class ConnectionEventRegistry
      */
     public static void suspendEventFiringInCurrentThread()
     {
-        synchronized ( suspendedEventFiringThreads )
-        {
-            suspendedEventFiringThreads.add( Thread.currentThread().getId() );
-        }
+        suspendedEventFiring.get()[0]++;
     }
 
     private static final EventManager<ConnectionUpdateListener, EventRunner> connectionUpdateEventManager = new EventManager<ConnectionUpdateListener, EventRunner>();
@@ -373,9 +371,17 @@ public class ConnectionEventRegistry
         connectionUpdateEventManager.fire( factory );
     }
 
+
+    /**
+     * Manages the listeners of one event type. The listeners are kept in a copy-on-write
+     * map that is only modified under the lock of the manager. An event is fired to a
+     * snapshot of the listeners without holding any lock, so a listener may add or remove
+     * listeners or fire further events. Events fired in different threads are not serialized,
+     * see {@link ConnectionEventRegistry#lock}.
+     */
     public static class EventManager<L, R extends EventRunner>
     {
-        private Map<L, EventRunner> listeners = new HashMap<L, EventRunner>();
+        private volatile Map<L, EventRunner> listeners = Collections.emptyMap();
 
 
         /**
@@ -384,17 +390,16 @@ public class ConnectionEventRegistry
          * @param listener the listener
          * @param runner the runner
          */
-        public void addListener( L listener, R runner )
+        public synchronized void addListener( L listener, R runner )
         {
             assert listener != null;
             assert runner != null;
 
-            synchronized ( listeners )
+            if ( !listeners.containsKey( listener ) )
             {
-                if ( !listeners.containsKey( listener ) )
-                {
-                    listeners.put( listener, runner );
-                }
+                Map<L, EventRunner> copy = new HashMap<L, EventRunner>( listeners );
+                copy.put( listener, runner );
+                listeners = copy;
             }
         }
 
@@ -404,24 +409,22 @@ public class ConnectionEventRegistry
          *
          * @param listener the listener
          */
-        public void removeListener( L listener )
+        public synchronized void removeListener( L listener )
         {
-            synchronized ( listeners )
+            if ( listeners.containsKey( listener ) )
             {
-                if ( listeners.containsKey( listener ) )
-                {
-                    listeners.remove( listener );
-                }
+                Map<L, EventRunner> copy = new HashMap<L, EventRunner>( listeners );
+                copy.remove( listener );
+                listeners = copy;
             }
         }
 
 
         /**
-         * Notifies each {@link ConnectionUpdateListener} about the removed connection.
+         * Notifies each listener about an event.
          * Uses the {@link EventRunner}s.
          *
-         * @param connection the removed connection
-         * @param source the source
+         * @param factory the factory creating the event runnable for each listener
          */
         public void fire( EventRunnableFactory<L> factory )
         {
@@ -430,15 +433,16 @@ public class ConnectionEventRegistry
                 return;
             }
 
-            Map<L, EventRunner> clone = new HashMap<L, EventRunner>( listeners );
-            for ( final L listener : clone.keySet() )
+            Map<L, EventRunner> snapshot = listeners;
+            if ( snapshot.isEmpty() )
             {
-                EventRunner runner = clone.get( listener );
-                synchronized ( lock )
-                {
-                    EventRunnable runnable = factory.createEventRunnable( listener );
-                    runner.execute( runnable );
-                }
+                return;
+            }
+
+            for ( Map.Entry<L, EventRunner> entry : snapshot.entrySet() )
+            {
+                EventRunnable runnable = factory.createEventRunnable( entry.getKey() );
+                entry.getValue().execute( runnable );
             }
         }
     }
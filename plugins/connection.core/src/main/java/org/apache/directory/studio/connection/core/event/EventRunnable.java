@@ -29,4 +29,16 @@ package org.apache.directory.studio.connection.core.event;
  */
 public interface EventRunnable extends Runnable
 {
+    /**
+     * Gets the key used to coalesce notifications. If an asynchronous {@link EventRunner}
+     * still has a pending runnable with an equal key, this runnable may be dropped.
+     * So the key must identify the listener and the event, and equal runnables must
+     * be idempotent.
+     *
+     * @return the key, or null if the notification must not be coalesced
+     */
+    default Object getCoalescingKey()
+    {
+        return null;
+    }
 }
@@ -35,6 +35,7 @@ import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.ReferralsInfo;
+import org.apache.directory.studio.connection.core.io.api.StudioOperationFuture;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 
 
@@ -105,6 +106,14 @@ public interface ConnectionWrapper
     void setBinaryAttributes( Collection<String> binaryAttributes );
 
 
+    /**
+     * Gets the binary attributes set by {@link #setBinaryAttributes(Collection)}.
+     * 
+     * @return the binary attributes, null if not set
+     */
+    Collection<String> getBinaryAttributes();
+
+
     /**
      * Search.
      * 
@@ -176,6 +185,46 @@ public interface ConnectionWrapper
         final ReferralsInfo referralsInfo );
 
 
+    /**
+     * Sends a request to create an entry without waiting for the response.
+     * 
+     * @param entry the entry
+     * @param controls the controls
+     * @param monitor the progress monitor
+     * 
+     * @return the future of the operation
+     */
+    StudioOperationFuture createEntryAsync( final Entry entry, final Control[] controls,
+        final StudioProgressMonitor monitor );
+
+
+    /**
+     * Sends a request to delete an entry without waiting for the response.
+     * 
+     * @param dn the Dn of the entry to delete
+     * @param controls the controls
+     * @param monitor the progress monitor
+     * 
+     * @return the future of the operation
+     */
+    StudioOperationFuture deleteEntryAsync( final Dn dn, final Control[] controls,
+        final StudioProgressMonitor monitor );
+
+
+    /**
+     * Sends a request to modify attributes of an entry without waiting for the response.
+     * 
+     * @param dn the Dn
+     * @param modifications the modification items
+     * @param controls the controls
+     * @param monitor the progress monitor
+     * 
+     * @return the future of the operation
+     */
+    StudioOperationFuture modifyEntryAsync( final Dn dn, final Collection<Modification> modifications,
+        final Control[] controls, final StudioProgressMonitor monitor );
+
+
     ExtendedResponse extended( ExtendedRequest request, final StudioProgressMonitor monitor );
 
 }
@@ -0,0 +1,188 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.connection.core.io;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.ICredentials;
+import org.apache.directory.studio.connection.core.io.api.DirectoryApiConnectionWrapper;
+
+
+/**
+ * A small pool of connection wrappers to the same directory server, used
+ * by bulk operations to spread their requests over several connections.
+ * <p>
+ * The first wrapper is the one of the given connection, the other wrappers
+ * belong to additional connections with copies of the connection parameter
+ * of the given connection. The additional connections are opened by
+ * {@link #connect(StudioProgressMonitor)} and must be closed with
+ * {@link #close()}. They are bound with the credentials the given connection
+ * was bound with, so the user isn't asked for credentials again.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConnectionWrapperPool
+{
+    /** The connection */
+    private Connection connection;
+
+    /** The additional connections */
+    private List<Connection> additionalConnections = new ArrayList<>();
+
+
+    /**
+     * Creates a new instance of ConnectionWrapperPool.
+     *
+     * @param connection the connection
+     * @param size the number of connection wrappers, including the one of the given connection
+     */
+    public ConnectionWrapperPool( Connection connection, int size )
+    {
+        this.connection = connection;
+
+        for ( int i = 1; i < size; i++ )
+        {
+            additionalConnections.add( ( Connection ) connection.clone() );
+        }
+    }
+
+
+    /**
+     * Opens and binds the additional connections. Additional connections
+     * that couldn't be opened are removed from the pool, their errors
+     * are not reported to the given monitor. The binary attributes of the
+     * pool's connection are copied to the additional connections, so that
+     * values are decoded the same way by all connection wrappers.
+     *
+     * @param monitor the progress monitor
+     */
+    public void connect( StudioProgressMonitor monitor )
+    {
+        List<Connection> connected = new ArrayList<>();
+        ICredentials credentials = getBindCredentials( connection );
+
+        for ( Connection additionalConnection : additionalConnections )
+        {
+            if ( monitor.isCanceled() )
+            {
+                break;
+            }
+
+            StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
+            ConnectionWrapper connectionWrapper = additionalConnection.getConnectionWrapper();
+            connectionWrapper.connect( dummyMonitor );
+
+            if ( !dummyMonitor.errorsReported() )
+            {
+                if ( credentials != null && connectionWrapper instanceof DirectoryApiConnectionWrapper )
+                {
+                    ( ( DirectoryApiConnectionWrapper ) connectionWrapper ).bind( credentials, dummyMonitor );
+                }
+                else
+                {
+                    connectionWrapper.bind( dummyMonitor );
+                }
+            }
+
+            if ( !dummyMonitor.errorsReported() && connectionWrapper.isConnected() )
+            {
+                Collection<String> binaryAttributes = connection.getConnectionWrapper().getBinaryAttributes();
+                if ( binaryAttributes != null )
+                {
+                    connectionWrapper.setBinaryAttributes( binaryAttributes );
+                }
+                connected.add( additionalConnection );
+            }
+            else
+            {
+                connectionWrapper.disconnect();
+            }
+        }
+
+        additionalConnections = connected;
+    }
+
+
+    /**
+     * Gets the credentials the given connection was bound with.
+     *
+     * @param connection the connection
+     * @return the credentials, null if unknown or bound without authentication
+     */
+    private static ICredentials getBindCredentials( Connection connection )
+    {
+        ConnectionWrapper connectionWrapper = connection.getConnectionWrapper();
+        if ( connectionWrapper instanceof DirectoryApiConnectionWrapper )
+        {
+            return ( ( DirectoryApiConnectionWrapper ) connectionWrapper ).getBindCredentials();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Gets the number of connection wrappers in this pool.
+     *
+     * @return the number of connection wrappers
+     */
+    public int size()
+    {
+        return additionalConnections.size() + 1;
+    }
+
+
+    /**
+     * Gets the connection wrapper with the given index.
+     *
+     * @param index the index, 0 is the connection wrapper of the pool's connection
+     * @return the connection wrapper
+     */
+    public ConnectionWrapper get( int index )
+    {
+        if ( index == 0 )
+        {
+            return connection.getConnectionWrapper();
+        }
+
+        return additionalConnections.get( index - 1 ).getConnectionWrapper();
+    }
+
+
+    /**
+     * Closes the additional connections. The connection of the pool
+     * is not closed.
+     */
+    public void close()
+    {
+        for ( Connection additionalConnection : additionalConnections )
+        {
+            additionalConnection.getConnectionWrapper().disconnect();
+        }
+
+        additionalConnections.clear();
+    }
+
+}
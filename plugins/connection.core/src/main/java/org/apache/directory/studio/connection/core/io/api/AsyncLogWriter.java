@@ -0,0 +1,380 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.io.api;
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.directory.studio.connection.core.ConnectionCoreConstants;
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+
+/**
+ * Writes the formatted log records of the {@link LdifSearchLogger} and the
+ * {@link LdifModificationLogger} asynchronously, so that the threads executing
+ * LDAP operations don't wait for the file I/O.
+ * <p>
+ * The records are put into a bounded non-blocking queue that is drained by a
+ * background thread. Consecutive records of the same logger are written as one
+ * batch. If the queue is full the record is either dropped or the caller waits
+ * until the queue has space again, depending on the
+ * {@link ConnectionCoreConstants#PREFERENCE_LOGS_DROP_ON_FULL_QUEUE} preference.
+ * The number of dropped records is noted in the log of the logger that lost them.
+ * The preferences are read once and refreshed when they are changed.
+ * <p>
+ * When the plugin is stopped the queued records are written and the writer
+ * thread is stopped, see {@link #shutdown()}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class AsyncLogWriter
+{
+    /** The maximum number of characters written in one batch */
+    private static final int MAX_BATCH_LENGTH = 64 * 1024;
+
+    /** The time in nanoseconds a caller waits if the queue is full */
+    private static final long FULL_QUEUE_NANOS = TimeUnit.MICROSECONDS.toNanos( 100 );
+
+    /** The maximum time in milliseconds to wait in {@link #flush()} */
+    private static final long FLUSH_TIMEOUT = 5000L;
+
+    /** The default instance */
+    private static final AsyncLogWriter DEFAULT = new AsyncLogWriter();
+
+    /** The queue of records to write */
+    private final ConcurrentLinkedQueue<QueuedRecord> queue = new ConcurrentLinkedQueue<QueuedRecord>();
+
+    /** The number of records in the queue */
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    /** The number of records put to the queue */
+    private final AtomicLong offeredCount = new AtomicLong();
+
+    /** The number of records written */
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    /** The number of records dropped since the last notice in the log, per logger */
+    private final Map<Logger, Long> droppedCounts = new ConcurrentHashMap<Logger, Long>();
+
+    /** The writer thread */
+    private volatile Thread writerThread;
+
+    /** Flag indicating if the writer thread waits for new records */
+    private volatile boolean writerIdle;
+
+    /** Flag indicating that the writer was shut down, records are written synchronously then */
+    private volatile boolean stopped;
+
+    /** Flag indicating that the preferences were read and the preference change listener is registered */
+    private volatile boolean preferencesLoaded;
+
+    /** The maximum number of queued records, see {@link ConnectionCoreConstants#PREFERENCE_LOGS_QUEUE_SIZE} */
+    private volatile int capacity = 10000;
+
+    /** Flag indicating to drop records if the queue is full, see {@link ConnectionCoreConstants#PREFERENCE_LOGS_DROP_ON_FULL_QUEUE} */
+    private volatile boolean dropOnFullQueue;
+
+
+    private AsyncLogWriter()
+    {
+    }
+
+
+    /**
+     * Gets the default instance.
+     *
+     * @return the default instance
+     */
+    public static AsyncLogWriter getDefault()
+    {
+        return DEFAULT;
+    }
+
+
+    /**
+     * Queues the given text to be written to the given logger.
+     *
+     * @param logger the logger
+     * @param text the formatted log record
+     */
+    public void write( Logger logger, String text )
+    {
+        if ( stopped )
+        {
+            writeSynchronously( logger, text );
+            return;
+        }
+
+        if ( !preferencesLoaded )
+        {
+            loadPreferences();
+        }
+
+        int capacity = this.capacity;
+        boolean dropOnFullQueue = this.dropOnFullQueue;
+
+        while ( true )
+        {
+            int size = queueSize.get();
+
+            if ( size < capacity )
+            {
+                if ( queueSize.compareAndSet( size, size + 1 ) )
+                {
+                    break;
+                }
+            }
+            else if ( dropOnFullQueue )
+            {
+                droppedCounts.merge( logger, 1L, Long::sum );
+                return;
+            }
+            else
+            {
+                startOrWakeWriter();
+                LockSupport.parkNanos( this, FULL_QUEUE_NANOS );
+            }
+        }
+
+        queue.offer( new QueuedRecord( logger, text ) );
+        offeredCount.incrementAndGet();
+
+        if ( writerIdle || writerThread == null )
+        {
+            startOrWakeWriter();
+        }
+    }
+
+
+    /**
+     * Waits until all records that were queued before are written, at most
+     * a few seconds.
+     */
+    public void flush()
+    {
+        long target = offeredCount.get();
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT;
+
+        while ( writtenCount.get() < target && System.currentTimeMillis() < deadline )
+        {
+            startOrWakeWriter();
+            LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( 1 ) );
+        }
+    }
+
+
+    /**
+     * Writes the queued records and stops the writer thread, called when the plugin
+     * is stopped. Records written afterwards are written synchronously.
+     */
+    public void shutdown()
+    {
+        flush();
+        stopped = true;
+
+        Thread thread = writerThread;
+        if ( thread != null )
+        {
+            LockSupport.unpark( thread );
+            try
+            {
+                thread.join( FLUSH_TIMEOUT );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
+    private void writeSynchronously( Logger logger, String text )
+    {
+        try
+        {
+            logger.log( Level.ALL, text );
+        }
+        catch ( RuntimeException e )
+        {
+            // the handler may have been closed in the meantime, the record is lost
+        }
+    }
+
+
+    /**
+     * Reads the preferences and registers a listener to refresh them when they are changed.
+     */
+    private synchronized void loadPreferences()
+    {
+        if ( preferencesLoaded )
+        {
+            return;
+        }
+
+        readPreferences();
+        InstanceScope.INSTANCE.getNode( ConnectionCoreConstants.PLUGIN_ID ).addPreferenceChangeListener( event -> {
+            if ( ConnectionCoreConstants.PREFERENCE_LOGS_QUEUE_SIZE.equals( event.getKey() )
+                || ConnectionCoreConstants.PREFERENCE_LOGS_DROP_ON_FULL_QUEUE.equals( event.getKey() ) )
+            {
+                readPreferences();
+            }
+        } );
+        preferencesLoaded = true;
+    }
+
+
+    private void readPreferences()
+    {
+        ConnectionCorePlugin plugin = ConnectionCorePlugin.getDefault();
+        if ( plugin != null )
+        {
+            capacity = Math.max( 1, plugin.getLogsQueueSize() );
+            dropOnFullQueue = plugin.isLogsDropOnFullQueue();
+        }
+    }
+
+
+    private synchronized void startOrWakeWriter()
+    {
+        if ( writerThread == null || !writerThread.isAlive() )
+        {
+            writerThread = new Thread( this::drain, "LDAP Log Writer" ); //$NON-NLS-1$
+            writerThread.setDaemon( true );
+            writerThread.start();
+        }
+        else
+        {
+            LockSupport.unpark( writerThread );
+        }
+    }
+
+
+    /**
+     * Drains the queue, runs in the writer thread.
+     */
+    private void drain()
+    {
+        while ( true )
+        {
+            QueuedRecord first = queue.poll();
+
+            if ( first == null )
+            {
+                writeDroppedNotices();
+
+                if ( stopped )
+                {
+                    return;
+                }
+
+                writerIdle = true;
+
+                // write() unparks the thread when it is idle
+                if ( queue.isEmpty() )
+                {
+                    LockSupport.park( this );
+                }
+
+                writerIdle = false;
+                continue;
+            }
+
+            StringBuilder batch = new StringBuilder( first.text.length() );
+            Long dropped = droppedCounts.remove( first.logger );
+
+            if ( dropped != null )
+            {
+                batch.append( createDroppedNotice( dropped ) );
+            }
+
+            batch.append( first.text );
+            int count = 1;
+
+            for ( QueuedRecord next = queue.peek(); next != null && next.logger == first.logger
+                && batch.length() + next.text.length() <= MAX_BATCH_LENGTH; next = queue.peek() )
+            {
+                queue.poll();
+                batch.append( next.text );
+                count++;
+            }
+
+            queueSize.addAndGet( -count );
+
+            writeSynchronously( first.logger, batch.toString() );
+
+            writtenCount.addAndGet( count );
+        }
+    }
+
+
+    /**
+     * Writes the notices of dropped records to the logs that didn't get another
+     * record since, runs in the writer thread.
+     */
+    private void writeDroppedNotices()
+    {
+        for ( Logger logger : droppedCounts.keySet() )
+        {
+            Long dropped = droppedCounts.remove( logger );
+
+            if ( dropped != null )
+            {
+                writeSynchronously( logger, createDroppedNotice( dropped ) );
+            }
+        }
+    }
+
+
+    private static String createDroppedNotice( long dropped )
+    {
+        return LdifCommentLine.create( "#!DROPPED " + dropped + " log records" ) //$NON-NLS-1$ //$NON-NLS-2$
+            .toFormattedString( LdifFormatParameters.DEFAULT );
+    }
+
+    /**
+     * A queued log record.
+     */
+    private static class QueuedRecord
+    {
+        private final Logger logger;
+
+        private final String text;
+
+
+        private QueuedRecord( Logger logger, String text )
+        {
+            this.logger = logger;
+            this.text = text;
+        }
+    }
+
+}
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import javax.naming.directory.SearchControls;
 import javax.net.ssl.SSLSession;
@@ -77,6 +78,7 @@ import org.apache.directory.ldap.client.api.SaslCramMd5Request;
 import org.apache.directory.ldap.client.api.SaslDigestMd5Request;
 import org.apache.directory.ldap.client.api.SaslGssApiRequest;
 import org.apache.directory.ldap.client.api.exception.InvalidConnectionException;
+import org.apache.directory.ldap.client.api.future.ResultResponseFuture;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
@@ -117,9 +119,18 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     /** The binary attribute detector */
     private DefaultConfigurableBinaryAttributeDetector binaryAttributeDetector;
 
+    /** The binary attributes */
+    private Collection<String> binaryAttributes;
+
     /** The current job thread */
     private Thread jobThread;
 
+    /** The credentials of the last successful bind, null if not bound with credentials */
+    private volatile ICredentials bindCredentials;
+
+    /** The credentials to bind with instead of asking the authentication handler, also when reconnecting */
+    private volatile ICredentials givenCredentials;
+
     /**
      * Creates a new instance of DirectoryApiConnectionWrapper.
      * 
@@ -310,6 +321,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             ldapConnection = null;
             binaryAttributeDetector = null;
         }
+        bindCredentials = null;
     }
 
 
@@ -318,6 +330,22 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
      */
     public void bind( StudioProgressMonitor monitor )
     {
+        bind( null, monitor );
+    }
+
+
+    /**
+     * Binds to the directory server with the given credentials, e.g. the credentials
+     * another connection to the same server was bound with. The authentication
+     * handler isn't asked for credentials then, also not when reconnecting, so the
+     * user isn't prompted again.
+     *
+     * @param credentials the credentials, null to ask the authentication handler
+     * @param monitor the progress monitor
+     */
+    public void bind( ICredentials credentials, StudioProgressMonitor monitor )
+    {
+        givenCredentials = credentials;
         try
         {
             doBind( monitor );
@@ -351,6 +379,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     try
                     {
                         BindResponse bindResponse = null;
+                        ICredentials credentials = null;
 
                         // No Authentication
                         if ( connection.getConnectionParameter()
@@ -362,16 +391,19 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                         else
                         {
                             // Setup credentials
-                            IAuthHandler authHandler = ConnectionCorePlugin.getDefault().getAuthHandler();
-                            if ( authHandler == null )
+                            credentials = givenCredentials;
+                            if ( credentials == null )
                             {
-                                Exception exception = new Exception( Messages.model__no_auth_handler );
-                                monitor.setCanceled( true );
-                                monitor.reportError( Messages.model__no_auth_handler, exception );
-                                throw exception;
+                                IAuthHandler authHandler = ConnectionCorePlugin.getDefault().getAuthHandler();
+                                if ( authHandler == null )
+                                {
+                                    Exception exception = new Exception( Messages.model__no_auth_handler );
+                                    monitor.setCanceled( true );
+                                    monitor.reportError( Messages.model__no_auth_handler, exception );
+                                    throw exception;
+                                }
+                                credentials = authHandler.getCredentials( connection.getConnectionParameter() );
                             }
-                            ICredentials credentials = authHandler
-                                .getCredentials( connection.getConnectionParameter() );
                             if ( credentials == null )
                             {
                                 Exception exception = new Exception();
@@ -477,6 +509,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                         }
 
                         checkResponse( bindResponse );
+                        bindCredentials = credentials;
                     }
                     catch ( Exception e )
                     {
@@ -508,6 +541,19 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     }
 
 
+    /**
+     * Gets the credentials of the last successful bind. They are dropped when
+     * the connection is closed.
+     *
+     * @return the credentials of the last successful bind, null if not bound
+     *         or bound without authentication
+     */
+    public ICredentials getBindCredentials()
+    {
+        return bindCredentials;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -538,6 +584,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
      */
     public void setBinaryAttributes( Collection<String> binaryAttributes )
     {
+        this.binaryAttributes = binaryAttributes;
+
         if ( binaryAttributeDetector != null )
         {
             // Clear the initial list
@@ -552,6 +600,15 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public Collection<String> getBinaryAttributes()
+    {
+        return binaryAttributes;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -1015,6 +1072,207 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public StudioOperationFuture createEntryAsync( final Entry entry, final Control[] controls,
+        final StudioProgressMonitor monitor )
+    {
+        // Preparing the add request
+        AddRequest request = new AddRequestImpl();
+        request.setEntry( entry );
+        if ( controls != null )
+        {
+            request.addAllControls( controls );
+        }
+
+        // Handle referral, errors of the referral operation are reported to the referral monitor
+        StudioProgressMonitor referralMonitor = new StudioProgressMonitor( monitor );
+        ReferralHandlingDataConsumer consumer = referralHandlingData -> {
+            Entry entryWithReferralDn = entry.clone();
+            entryWithReferralDn.setDn( referralHandlingData.referralDn );
+            referralHandlingData.connectionWrapper.createEntry( entryWithReferralDn,
+                controls, referralMonitor, referralHandlingData.newReferralsInfo );
+        };
+
+        return sendAsync( () -> ldapConnection.addAsync( request ),
+            ( response, exception ) -> processAsyncResponse( response, exception, consumer, referralMonitor, e -> {
+                for ( ILdapLogger logger : getLdapLoggers() )
+                {
+                    logger.logChangetypeAdd( connection, entry, controls, e );
+                }
+            } ), monitor );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public StudioOperationFuture deleteEntryAsync( final Dn dn, final Control[] controls,
+        final StudioProgressMonitor monitor )
+    {
+        // Preparing the delete request
+        DeleteRequest request = new DeleteRequestImpl();
+        request.setName( dn );
+        if ( controls != null )
+        {
+            request.addAllControls( controls );
+        }
+
+        // Handle referral, errors of the referral operation are reported to the referral monitor
+        StudioProgressMonitor referralMonitor = new StudioProgressMonitor( monitor );
+        ReferralHandlingDataConsumer consumer = referralHandlingData -> referralHandlingData.connectionWrapper
+            .deleteEntry( new Dn( referralHandlingData.referralDn ), controls, referralMonitor,
+                referralHandlingData.newReferralsInfo );
+
+        return sendAsync( () -> ldapConnection.deleteAsync( request ),
+            ( response, exception ) -> processAsyncResponse( response, exception, consumer, referralMonitor, e -> {
+                for ( ILdapLogger logger : getLdapLoggers() )
+                {
+                    logger.logChangetypeDelete( connection, dn, controls, e );
+                }
+            } ), monitor );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public StudioOperationFuture modifyEntryAsync( final Dn dn, final Collection<Modification> modifications,
+        final Control[] controls, final StudioProgressMonitor monitor )
+    {
+        // Preparing the modify request
+        ModifyRequest request = new ModifyRequestImpl();
+        request.setName( dn );
+        if ( modifications != null )
+        {
+            for ( Modification modification : modifications )
+            {
+                request.addModification( modification );
+            }
+        }
+        if ( controls != null )
+        {
+            request.addAllControls( controls );
+        }
+
+        // Handle referral, errors of the referral operation are reported to the referral monitor
+        StudioProgressMonitor referralMonitor = new StudioProgressMonitor( monitor );
+        ReferralHandlingDataConsumer consumer = referralHandlingData -> referralHandlingData.connectionWrapper
+            .modifyEntry( new Dn( referralHandlingData.referralDn ), modifications, controls, referralMonitor,
+                referralHandlingData.newReferralsInfo );
+
+        return sendAsync( () -> ldapConnection.modifyAsync( request ),
+            ( response, exception ) -> processAsyncResponse( response, exception, consumer, referralMonitor, e -> {
+                for ( ILdapLogger logger : getLdapLoggers() )
+                {
+                    logger.logChangetypeModify( connection, dn, modifications, controls, e );
+                }
+            } ), monitor );
+    }
+
+
+    @FunctionalInterface
+    private interface AsyncOperation
+    {
+
+        ResultResponseFuture<? extends ResultResponse> send() throws LdapException;
+
+    }
+
+
+    /**
+     * Sends an asynchronous operation without waiting for the response.
+     * Connects and binds if necessary.
+     *
+     * @param operation the operation to send
+     * @param handler the handler that processes the response
+     * @param monitor the progress monitor
+     * @return the future of the operation
+     */
+    private StudioOperationFuture sendAsync( AsyncOperation operation, StudioOperationFuture.ResponseHandler handler,
+        StudioProgressMonitor monitor )
+    {
+        if ( connection.isReadOnly() )
+        {
+            return new StudioOperationFuture( new StudioLdapException(
+                new Exception( NLS.bind( Messages.error__connection_is_readonly, connection.getName() ) ) ),
+                ( response, exception ) -> exception );
+        }
+
+        try
+        {
+            // check connection
+            if ( !isConnected() )
+            {
+                doConnect( monitor );
+                doBind( monitor );
+            }
+            if ( ldapConnection == null )
+            {
+                throw new InvalidConnectionException( Messages.DirectoryApiConnectionWrapper_NoConnection );
+            }
+
+            long timeoutMillis = connection.getTimeoutMillis();
+
+            if ( timeoutMillis < 0 )
+            {
+                timeoutMillis = 30000L;
+            }
+            else if ( timeoutMillis == 0 )
+            {
+                timeoutMillis = Long.MAX_VALUE;
+            }
+
+            return new StudioOperationFuture( operation.send(), timeoutMillis, handler );
+        }
+        catch ( Exception e )
+        {
+            return new StudioOperationFuture( toStudioLdapException( e ), handler );
+        }
+    }
+
+
+    /**
+     * Processes the response of an asynchronous operation: follows referrals,
+     * checks the response and logs the operation.
+     *
+     * @param response the response, may be null
+     * @param exception the exception if the operation couldn't be performed
+     * @param consumer the consumer that re-sends the operation to a referral connection
+     * @param referralMonitor the progress monitor the referral operation reports to
+     * @param log the logging callback
+     * @return the exception if the operation failed, null otherwise
+     */
+    private StudioLdapException processAsyncResponse( ResultResponse response, StudioLdapException exception,
+        ReferralHandlingDataConsumer consumer, StudioProgressMonitor referralMonitor,
+        Consumer<StudioLdapException> log )
+    {
+        if ( exception == null )
+        {
+            try
+            {
+                if ( checkAndHandleReferral( response, referralMonitor, null, consumer ) )
+                {
+                    // the operation was already logged by the referral connection
+                    return toStudioLdapException( referralMonitor.getException() );
+                }
+
+                // Checking the response
+                checkResponse( response );
+            }
+            catch ( Exception e )
+            {
+                exception = toStudioLdapException( e );
+            }
+        }
+
+        log.accept( exception );
+
+        return exception;
+    }
+
+
     @Override
     public ExtendedResponse extended( ExtendedRequest request, StudioProgressMonitor monitor )
     {
@@ -28,10 +28,10 @@ import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.FileHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
@@ -94,10 +94,10 @@ public class LdifModificationLogger implements ILdapLogger
     private String description;
 
     /** The file handlers. */
-    private Map<String, FileHandler> fileHandlers = new HashMap<String, FileHandler>();
+    private Map<String, FileHandler> fileHandlers = new ConcurrentHashMap<String, FileHandler>();
 
     /** The loggers. */
-    private Map<String, Logger> loggers = new HashMap<String, Logger>();
+    private Map<String, Logger> loggers = new ConcurrentHashMap<String, Logger>();
 
     /**
      * Creates a new instance of LdifModificationLogger.
@@ -109,7 +109,8 @@ public class LdifModificationLogger implements ILdapLogger
             if ( ConnectionCoreConstants.PREFERENCE_MODIFICATIONLOGS_FILE_COUNT.equals( event.getKey() )
                 || ConnectionCoreConstants.PREFERENCE_MODIFICATIONLOGS_FILE_SIZE.equals( event.getKey() ) )
             {
-                // dispose all loggers/handlers
+                // write pending records, then dispose all loggers/handlers
+                AsyncLogWriter.getDefault().flush();
                 for ( Logger logger : loggers.values() )
                 {
                     for ( Handler handler : logger.getHandlers() )
@@ -147,8 +148,13 @@ public class LdifModificationLogger implements ILdapLogger
     /**
      * Inits the modification logger.
      */
-    private void initModificationLogger( Connection connection )
+    private synchronized void initModificationLogger( Connection connection )
     {
+        if ( loggers.containsKey( connection.getId() ) )
+        {
+            return;
+        }
+
         Logger logger = Logger.getAnonymousLogger();
         loggers.put( connection.getId(), logger );
         logger.setLevel( Level.ALL );
@@ -188,6 +194,7 @@ public class LdifModificationLogger implements ILdapLogger
         String id = connection.getId();
         if ( loggers.containsKey( id ) )
         {
+            AsyncLogWriter.getDefault().flush();
             Handler[] handlers = loggers.get( id ).getHandlers();
             for ( Handler handler : handlers )
             {
@@ -251,7 +258,7 @@ public class LdifModificationLogger implements ILdapLogger
 
             lines.add( text );
             Logger logger = loggers.get( id );
-            logger.log( Level.ALL, lines.toString() );
+            AsyncLogWriter.getDefault().write( logger, lines.toString() );
         }
     }
 
@@ -450,6 +457,8 @@ public class LdifModificationLogger implements ILdapLogger
             }
         }
 
+        AsyncLogWriter.getDefault().flush();
+
         try
         {
             return getLogFiles( connection );
@@ -29,10 +29,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.FileHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
@@ -88,10 +88,10 @@ public class LdifSearchLogger implements ILdapLogger
     private String description;
 
     /** The file handlers. */
-    private Map<String, FileHandler> fileHandlers = new HashMap<String, FileHandler>();
+    private Map<String, FileHandler> fileHandlers = new ConcurrentHashMap<String, FileHandler>();
 
     /** The loggers. */
-    private Map<String, Logger> loggers = new HashMap<String, Logger>();
+    private Map<String, Logger> loggers = new ConcurrentHashMap<String, Logger>();
 
     /**
      * Creates a new instance of LdifSearchLogger.
@@ -103,7 +103,8 @@ public class LdifSearchLogger implements ILdapLogger
             if ( ConnectionCoreConstants.PREFERENCE_SEARCHLOGS_FILE_COUNT.equals( event.getKey() )
                 || ConnectionCoreConstants.PREFERENCE_SEARCHLOGS_FILE_SIZE.equals( event.getKey() ) )
             {
-                // dispose all loggers/handlers
+                // write pending records, then dispose all loggers/handlers
+                AsyncLogWriter.getDefault().flush();
                 for ( Logger logger : loggers.values() )
                 {
                     for ( Handler handler : logger.getHandlers() )
@@ -141,8 +142,13 @@ public class LdifSearchLogger implements ILdapLogger
     /**
      * Inits the search logger.
      */
-    private void initSearchLogger( Connection connection )
+    private synchronized void initSearchLogger( Connection connection )
     {
+        if ( loggers.containsKey( connection.getId() ) )
+        {
+            return;
+        }
+
         Logger logger = Logger.getAnonymousLogger();
         loggers.put( connection.getId(), logger );
         logger.setLevel( Level.ALL );
@@ -182,6 +188,7 @@ public class LdifSearchLogger implements ILdapLogger
         String id = connection.getId();
         if ( loggers.containsKey( id ) )
         {
+            AsyncLogWriter.getDefault().flush();
             Handler[] handlers = loggers.get( id ).getHandlers();
             for ( Handler handler : handlers )
             {
@@ -245,7 +252,7 @@ public class LdifSearchLogger implements ILdapLogger
 
             lines.add( text );
             Logger logger = loggers.get( id );
-            logger.log( Level.ALL, lines.toString() );
+            AsyncLogWriter.getDefault().write( logger, lines.toString() );
         }
     }
 
@@ -304,13 +311,13 @@ public class LdifSearchLogger implements ILdapLogger
         }
         lines.add( LdifSepLine.create() );
 
-        String formattedString = ""; //$NON-NLS-1$
+        StringBuilder formattedString = new StringBuilder();
         for ( LdifLineBase line : lines )
         {
-            formattedString += line.toFormattedString( LdifFormatParameters.DEFAULT );
+            formattedString.append( line.toFormattedString( LdifFormatParameters.DEFAULT ) );
         }
 
-        log( formattedString, "SEARCH REQUEST (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
+        log( formattedString.toString(), "SEARCH REQUEST (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
 
@@ -382,12 +389,12 @@ public class LdifSearchLogger implements ILdapLogger
             .add( LdifCommentLine.create( "# reference : " + ( referral != null ? referral.getLdapUrls() : "null" ) ) ); //$NON-NLS-1$ //$NON-NLS-2$
         lines.add( LdifSepLine.create() );
 
-        String formattedString = ""; //$NON-NLS-1$
+        StringBuilder formattedString = new StringBuilder();
         for ( LdifLineBase line : lines )
         {
-            formattedString += line.toFormattedString( LdifFormatParameters.DEFAULT );
+            formattedString.append( line.toFormattedString( LdifFormatParameters.DEFAULT ) );
         }
-        log( formattedString, "SEARCH RESULT REFERENCE (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
+        log( formattedString.toString(), "SEARCH RESULT REFERENCE (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
 
@@ -405,12 +412,12 @@ public class LdifSearchLogger implements ILdapLogger
         lines.add( LdifCommentLine.create( "# numEntries : " + count ) ); //$NON-NLS-1$
         lines.add( LdifSepLine.create() );
 
-        String formattedString = ""; //$NON-NLS-1$
+        StringBuilder formattedString = new StringBuilder();
         for ( LdifLineBase line : lines )
         {
-            formattedString += line.toFormattedString( LdifFormatParameters.DEFAULT );
+            formattedString.append( line.toFormattedString( LdifFormatParameters.DEFAULT ) );
         }
-        log( formattedString, "SEARCH RESULT DONE (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
+        log( formattedString.toString(), "SEARCH RESULT DONE (" + requestNum + ")", ex, connection ); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
 
@@ -432,6 +439,8 @@ public class LdifSearchLogger implements ILdapLogger
             }
         }
 
+        AsyncLogWriter.getDefault().flush();
+
         try
         {
             return getLogFiles( connection );
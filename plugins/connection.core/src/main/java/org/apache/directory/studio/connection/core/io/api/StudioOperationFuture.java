@@ -0,0 +1,170 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.connection.core.io.api;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.ResultResponse;
+import org.apache.directory.ldap.client.api.future.ResultResponseFuture;
+import org.apache.directory.studio.connection.core.io.StudioLdapException;
+
+
+/**
+ * The future of an asynchronously sent add, delete or modify operation.
+ * <p>
+ * The response is processed, i.e. checked, logged and referrals are followed,
+ * by the thread that calls {@link #get()} the first time. This way the caller
+ * may send several operations before waiting for the first response.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class StudioOperationFuture
+{
+    /**
+     * Processes the response of an asynchronous operation.
+     */
+    @FunctionalInterface
+    interface ResponseHandler
+    {
+        /**
+         * Processes the response.
+         *
+         * @param response the response, null if the operation failed
+         * @param exception the exception if the operation failed, null otherwise
+         * @return the exception if the operation failed, null otherwise
+         */
+        StudioLdapException handle( ResultResponse response, StudioLdapException exception );
+    }
+
+    /** The future of the sent request, null if the request couldn't be sent */
+    private final ResultResponseFuture<? extends ResultResponse> future;
+
+    /** The timeout in milliseconds to wait for the response */
+    private final long timeout;
+
+    /** The response handler */
+    private final ResponseHandler handler;
+
+    /** The exception, null if the operation succeeded */
+    private StudioLdapException exception;
+
+    /** Flag indicating if the response was already processed */
+    private boolean processed;
+
+
+    /**
+     * Creates a new instance of StudioOperationFuture for a sent request.
+     *
+     * @param future the future of the sent request
+     * @param timeout the timeout in milliseconds to wait for the response
+     * @param handler the response handler
+     */
+    StudioOperationFuture( ResultResponseFuture<? extends ResultResponse> future, long timeout,
+        ResponseHandler handler )
+    {
+        this.future = future;
+        this.timeout = timeout;
+        this.handler = handler;
+    }
+
+
+    /**
+     * Creates a new instance of StudioOperationFuture for a request
+     * that couldn't be sent.
+     *
+     * @param exception the exception
+     * @param handler the response handler
+     */
+    StudioOperationFuture( StudioLdapException exception, ResponseHandler handler )
+    {
+        this.future = null;
+        this.timeout = 0L;
+        this.handler = handler;
+        this.exception = exception;
+    }
+
+
+    /**
+     * Waits for the response and processes it.
+     *
+     * @return the exception if the operation failed, null if it succeeded
+     */
+    public synchronized StudioLdapException get()
+    {
+        if ( !processed )
+        {
+            ResultResponse response = null;
+
+            if ( future != null )
+            {
+                try
+                {
+                    response = future.get( timeout, TimeUnit.MILLISECONDS );
+
+                    if ( response == null )
+                    {
+                        exception = new StudioLdapException( new LdapException( "TimeOut occurred" ) ); //$NON-NLS-1$
+                    }
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    exception = new StudioLdapException( e );
+                }
+                catch ( Exception e )
+                {
+                    exception = new StudioLdapException( e );
+                }
+            }
+
+            exception = handler.handle( response, exception );
+            processed = true;
+        }
+
+        return exception;
+    }
+
+
+    /**
+     * Checks if the response is available, i.e. if {@link #get()}
+     * won't block.
+     *
+     * @return true, if the response is available
+     */
+    public synchronized boolean isDone()
+    {
+        return processed || future == null || future.isDone();
+    }
+
+
+    /**
+     * Abandons the operation if the response wasn't processed yet.
+     */
+    public synchronized void cancel()
+    {
+        if ( !processed && future != null )
+        {
+            future.cancel( true );
+        }
+    }
+
+}
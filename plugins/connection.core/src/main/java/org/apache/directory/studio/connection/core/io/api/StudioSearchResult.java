@@ -21,6 +21,7 @@ package org.apache.directory.studio.connection.core.io.api;
 
 
 import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchResultEntry;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.url.LdapUrl;
@@ -84,6 +85,18 @@ public class StudioSearchResult
     }
 
 
+    /**
+     * Gets the response control with the given OID that was sent along with this search result.
+     * 
+     * @param oid the OID of the control
+     * @return the control, null if the search result has no such control
+     */
+    public Control getControl( String oid )
+    {
+        return searchResultEntry.getControl( oid );
+    }
+
+
     /**
      * Gets the connection.
      * 
@@ -0,0 +1,252 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.connection.core.event;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link CoalescingEventQueue}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class CoalescingEventQueueTest
+{
+    /** The scheduled batches, not executed until {@link #runScheduled()} is called */
+    private List<Runnable> scheduled;
+
+    /** The names of the executed runnables */
+    private List<String> executed;
+
+    /** The logged exceptions */
+    private List<RuntimeException> logged;
+
+    private CoalescingEventQueue queue;
+
+
+    @BeforeEach
+    public void setup()
+    {
+        scheduled = new ArrayList<>();
+        executed = new ArrayList<>();
+        logged = new ArrayList<>();
+        queue = new CoalescingEventQueue( scheduled::add )
+        {
+            protected void logException( RuntimeException e )
+            {
+                logged.add( e );
+            }
+        };
+    }
+
+
+    @Test
+    public void testRunnablesAreExecutedInOrder()
+    {
+        queue.add( runnable( "a", null ) );
+        queue.add( runnable( "b", null ) );
+        queue.add( runnable( "c", null ) );
+
+        runScheduled();
+
+        assertEquals( Arrays.asList( "a", "b", "c" ), executed );
+    }
+
+
+    @Test
+    public void testOneBatchIsScheduledAtATime()
+    {
+        queue.add( runnable( "a", null ) );
+        queue.add( runnable( "b", null ) );
+        assertEquals( 1, scheduled.size() );
+
+        runScheduled();
+        assertEquals( Arrays.asList( "a", "b" ), executed );
+
+        // the next runnable schedules a new batch
+        queue.add( runnable( "c", null ) );
+        assertEquals( 1, scheduled.size() );
+
+        runScheduled();
+        assertEquals( Arrays.asList( "a", "b", "c" ), executed );
+    }
+
+
+    @Test
+    public void testFirstRunnablePerKeyIsKept()
+    {
+        queue.add( runnable( "a1", "a" ) );
+        queue.add( runnable( "b1", "b" ) );
+        queue.add( runnable( "a2", "a" ) );
+        queue.add( runnable( "x", null ) );
+        queue.add( runnable( "b2", "b" ) );
+        queue.add( runnable( "y", null ) );
+
+        runScheduled();
+
+        // later runnables with a pending key are dropped, the first keeps its position
+        assertEquals( Arrays.asList( "a1", "b1", "x", "y" ), executed );
+    }
+
+
+    @Test
+    public void testKeyIsReleasedWhenBatchRuns()
+    {
+        queue.add( runnable( "a1", "a" ) );
+        runScheduled();
+
+        queue.add( runnable( "a2", "a" ) );
+        runScheduled();
+
+        assertEquals( Arrays.asList( "a1", "a2" ), executed );
+    }
+
+
+    @Test
+    public void testRunnablesAddedDuringBatchRunInNextBatch()
+    {
+        queue.add( new TestRunnable( "a", "a" )
+        {
+            public void run()
+            {
+                super.run();
+                queue.add( runnable( "a2", "a" ) );
+                queue.add( runnable( "b", null ) );
+            }
+        } );
+
+        runScheduled();
+        assertEquals( Arrays.asList( "a" ), executed );
+
+        runScheduled();
+        assertEquals( Arrays.asList( "a", "a2", "b" ), executed );
+    }
+
+
+    @Test
+    public void testExceptionIsLoggedAndBatchContinues()
+    {
+        RuntimeException exception = new IllegalStateException( "failed" );
+        queue.add( runnable( "a", null ) );
+        queue.add( new TestRunnable( "fail", null )
+        {
+            public void run()
+            {
+                super.run();
+                throw exception;
+            }
+        } );
+        queue.add( runnable( "b", null ) );
+
+        runScheduled();
+
+        assertEquals( Arrays.asList( "a", "fail", "b" ), executed );
+        assertEquals( 1, logged.size() );
+        assertSame( exception, logged.get( 0 ) );
+    }
+
+
+    @Test
+    public void testFailedSchedulingIsRetried()
+    {
+        List<Runnable> accepted = new ArrayList<>();
+        boolean[] fail = new boolean[]
+            { true };
+        CoalescingEventQueue failingQueue = new CoalescingEventQueue( runnable -> {
+            if ( fail[0] )
+            {
+                throw new IllegalStateException( "disposed" );
+            }
+            accepted.add( runnable );
+        } );
+
+        assertThrows( IllegalStateException.class, () -> failingQueue.add( runnable( "a", null ) ) );
+        assertTrue( accepted.isEmpty() );
+
+        fail[0] = false;
+        failingQueue.add( runnable( "b", null ) );
+        assertEquals( 1, accepted.size() );
+
+        accepted.get( 0 ).run();
+        assertEquals( Arrays.asList( "a", "b" ), executed );
+    }
+
+
+    /**
+     * Runs the scheduled batches, batches scheduled meanwhile are kept for the next call.
+     */
+    private void runScheduled()
+    {
+        List<Runnable> batches = new ArrayList<>( scheduled );
+        scheduled.clear();
+        for ( Runnable batch : batches )
+        {
+            batch.run();
+        }
+    }
+
+
+    private EventRunnable runnable( String name, Object key )
+    {
+        return new TestRunnable( name, key );
+    }
+
+
+    /**
+     * Records its name when executed.
+     */
+    private class TestRunnable implements EventRunnable
+    {
+        private final String name;
+
+        private final Object key;
+
+
+        TestRunnable( String name, Object key )
+        {
+            this.name = name;
+            this.key = key;
+        }
+
+
+        public void run()
+        {
+            executed.add( name );
+        }
+
+
+        public Object getCoalescingKey()
+        {
+            return key;
+        }
+    }
+}
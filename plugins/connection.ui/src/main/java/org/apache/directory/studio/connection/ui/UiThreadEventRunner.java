@@ -20,6 +20,7 @@
 package org.apache.directory.studio.connection.ui;
 
 
+import org.apache.directory.studio.connection.core.event.CoalescingEventQueue;
 import org.apache.directory.studio.connection.core.event.EventRunnable;
 import org.apache.directory.studio.connection.core.event.EventRunner;
 import org.eclipse.swt.widgets.Display;
@@ -28,11 +29,19 @@ import org.eclipse.swt.widgets.Display;
 /**
  * Implementation of {@link EventRunner} that executes an {@link EventRunnable}
  * withing the SWT UI thread.
+ * <p>
+ * The runnables of all instances are queued in one {@link CoalescingEventQueue}, so a
+ * burst of events is executed in one UI runnable, in the order the events were fired.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class UiThreadEventRunner implements EventRunner
 {
+    /** The queue shared by all instances, to keep the order of the events */
+    private static final CoalescingEventQueue QUEUE = new CoalescingEventQueue(
+        runnable -> Display.getDefault().asyncExec( runnable ) );
+
+
     /**
      * {@inheritDoc}
      *
@@ -41,6 +50,6 @@ public class UiThreadEventRunner implements EventRunner
      */
     public void execute( EventRunnable runnable )
     {
-        Display.getDefault().asyncExec( runnable );
+        QUEUE.add( runnable );
     }
 }
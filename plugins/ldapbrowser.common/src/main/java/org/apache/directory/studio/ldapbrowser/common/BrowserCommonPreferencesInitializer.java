@@ -128,7 +128,7 @@ public class BrowserCommonPreferencesInitializer extends AbstractPreferenceIniti
             BrowserCoreConstants.SORT_ORDER_ASCENDING );
         store.setDefault( BrowserCommonConstants.PREFERENCE_BROWSER_SORT_BOOKMARKS_ORDER,
             BrowserCoreConstants.SORT_ORDER_ASCENDING );
-        store.setDefault( BrowserCommonConstants.PREFERENCE_BROWSER_SORT_LIMIT, 10000 );
+        store.setDefault( BrowserCommonConstants.PREFERENCE_BROWSER_SORT_LIMIT, 1000000 );
         store.setDefault( BrowserCommonConstants.PREFERENCE_BROWSER_LEAF_ENTRIES_FIRST, true );
         store.setDefault( BrowserCommonConstants.PREFERENCE_BROWSER_CONTAINER_ENTRIES_FIRST, false );
         store.setDefault( BrowserCommonConstants.PREFERENCE_BROWSER_META_ENTRIES_LAST, true );
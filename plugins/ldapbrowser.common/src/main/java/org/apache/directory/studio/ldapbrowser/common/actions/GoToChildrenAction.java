@@ -0,0 +1,107 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.common.actions;
+
+
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeChildrenRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.StudioBrowserJob;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.InputDialog;
+import org.eclipse.jface.resource.ImageDescriptor;
+
+
+/**
+ * This action asks for a value and shows the children of the currently selected entry
+ * starting at the first child whose Rdn value is greater than or equal to that value.
+ * The children are sorted and positioned by the server with the virtual list view control,
+ * so it is useful when browsing entries with a huge number of child nodes.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class GoToChildrenAction extends BrowserAction
+{
+
+    /**
+     * Creates a new instance of GoToChildrenAction.
+     */
+    public GoToChildrenAction()
+    {
+        super();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run()
+    {
+        if ( getSelectedEntries().length == 1 )
+        {
+            IEntry entry = getSelectedEntries()[0];
+            InputDialog dialog = new InputDialog( getShell(),
+                Messages.getString( "GoToChildrenAction.GoToChildren" ), //$NON-NLS-1$
+                Messages.getString( "GoToChildrenAction.EnterValue" ), "", null ); //$NON-NLS-1$ //$NON-NLS-2$
+            if ( dialog.open() == Dialog.OK )
+            {
+                new StudioBrowserJob( new InitializeChildrenRunnable( entry, dialog.getValue() ) ).execute();
+            }
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getText()
+    {
+        return Messages.getString( "GoToChildrenAction.GoToChildrenLabel" ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public ImageDescriptor getImageDescriptor()
+    {
+        return null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getCommandId()
+    {
+        return null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEnabled()
+    {
+        return getSelectedSearches().length + getSelectedSearchResults().length + getSelectedBookmarks().length == 0
+            && getSelectedEntries().length == 1 && getSelectedEntries()[0].hasChildren()
+            && InitializeChildrenRunnable.isSeekSupported( getSelectedEntries()[0].getBrowserConnection() );
+    }
+}
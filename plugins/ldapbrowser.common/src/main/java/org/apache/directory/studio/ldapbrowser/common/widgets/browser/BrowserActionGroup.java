@@ -27,6 +27,7 @@ import java.util.Map;
 import org.apache.directory.studio.connection.ui.actions.CollapseAllAction;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonConstants;
 import org.apache.directory.studio.ldapbrowser.common.actions.FilterChildrenAction;
+import org.apache.directory.studio.ldapbrowser.common.actions.GoToChildrenAction;
 import org.apache.directory.studio.ldapbrowser.common.actions.OpenQuickSearchAction;
 import org.apache.directory.studio.ldapbrowser.common.actions.PropertiesAction;
 import org.apache.directory.studio.ldapbrowser.common.actions.RefreshAction;
@@ -79,6 +80,9 @@ public class BrowserActionGroup implements ActionHandlerManager, IMenuListener
     /** The Constant unfilterChildrenAction. */
     protected static final String UNFILTER_CHILDREN_ACTION = "unfilterChildrenAction"; //$NON-NLS-1$
 
+    /** The Constant goToChildrenAction. */
+    protected static final String GO_TO_CHILDREN_ACTION = "goToChildrenAction"; //$NON-NLS-1$
+
     /** The Constant propertyDialogAction. */
     protected static final String PROPERTY_DIALOG_ACTION = "propertyDialogAction"; //$NON-NLS-1$
 
@@ -114,6 +118,7 @@ public class BrowserActionGroup implements ActionHandlerManager, IMenuListener
         browserActionMap.put( FILTER_CHILDREN_ACTION, new BrowserViewActionProxy( viewer, new FilterChildrenAction() ) );
         browserActionMap
             .put( UNFILTER_CHILDREN_ACTION, new BrowserViewActionProxy( viewer, new UnfilterChildrenAction() ) );
+        browserActionMap.put( GO_TO_CHILDREN_ACTION, new BrowserViewActionProxy( viewer, new GoToChildrenAction() ) );
         browserActionMap.put( PROPERTY_DIALOG_ACTION, new BrowserViewActionProxy( viewer, new PropertiesAction() ) );
     }
 
@@ -216,6 +221,10 @@ public class BrowserActionGroup implements ActionHandlerManager, IMenuListener
         {
             menuManager.add( browserActionMap.get( UNFILTER_CHILDREN_ACTION ) );
         }
+        if ( ( browserActionMap.get( GO_TO_CHILDREN_ACTION ) ).isEnabled() )
+        {
+            menuManager.add( browserActionMap.get( GO_TO_CHILDREN_ACTION ) );
+        }
         menuManager.add( browserActionMap.get( OPEN_QUICK_SEARCH_ACTION ) );
         menuManager.add( new Separator() );
 
@@ -33,6 +33,7 @@ import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.DirectoryMetadataEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.RootDSE;
+import org.apache.directory.studio.ldapbrowser.core.utils.SortKeys;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerSorter;
@@ -75,14 +76,182 @@ public class BrowserSorter extends ViewerSorter
      * {@inheritDoc}
      * 
      * For performance reasons this implementation first checks if sorting is enabled 
-     * and if the number of elements is less than the sort limit.
+     * and if the number of elements is less than the sort limit. Entries and search 
+     * results are sorted by precomputed sort keys, the order is the same as defined
+     * by {@link #compare(Viewer, Object, Object)}.
      */
     public void sort( final Viewer viewer, final Object[] elements )
     {
         if ( elements != null && ( preferences.getSortLimit() <= 0 || elements.length < preferences.getSortLimit() ) )
         {
-            BrowserSorter.super.sort( viewer, elements );
+            if ( isSortableByKeys( elements ) )
+            {
+                int sortBy = preferences.getSortEntriesBy();
+                boolean ascending = preferences.getSortEntriesOrder() == BrowserCoreConstants.SORT_ORDER_ASCENDING;
+                SortKeys.sort( elements, element -> getSortKey( element, sortBy ),
+                    ( key1, key2 ) -> compareSortKeys( key1, key2, sortBy, ascending ) );
+            }
+            else
+            {
+                BrowserSorter.super.sort( viewer, elements );
+            }
+        }
+    }
+
+
+    /**
+     * Checks if the given elements could be sorted by precomputed sort keys. That is 
+     * the case if all elements are entries or if all elements are search results,
+     * optionally with the runnables to fetch the top and next page.
+     *
+     * @param elements the elements
+     * @return true, if the elements could be sorted by precomputed sort keys
+     */
+    private boolean isSortableByKeys( Object[] elements )
+    {
+        boolean entries = false;
+        boolean searchResults = false;
+
+        for ( Object element : elements )
+        {
+            if ( element instanceof IEntry )
+            {
+                entries = true;
+            }
+            else if ( element instanceof ISearchResult )
+            {
+                searchResults = true;
+            }
+            else if ( !( element instanceof StudioConnectionRunnableWithProgress ) )
+            {
+                return false;
+            }
+        }
+
+        return !( entries && searchResults );
+    }
+
+
+    /**
+     * Gets the sort key of an entry, a search result or a runnable.
+     *
+     * @param element the element
+     * @param sortBy the sort entries by preference
+     * @return the sort key
+     */
+    private EntrySortKey getSortKey( Object element, int sortBy )
+    {
+        if ( element instanceof StudioConnectionRunnableWithProgress )
+        {
+            return new EntrySortKey( getPosition( ( StudioConnectionRunnableWithProgress ) element ), 0,
+                EntrySortKey.NO_RDN, null, null );
+        }
+
+        IEntry entry = element instanceof IEntry ? ( IEntry ) element : ( ( ISearchResult ) element ).getEntry();
+        int category = category( element );
+
+        if ( entry == null )
+        {
+            // only compareRdnValues() sorts search results without entry first
+            return new EntrySortKey( 0, category,
+                sortBy == BrowserCoreConstants.SORT_BY_RDN_VALUE ? EntrySortKey.NO_ENTRY : EntrySortKey.NO_RDN, null,
+                null );
+        }
+
+        Rdn rdn = entry.getRdn();
+
+        if ( rdn == null || rdn.getName() == null || "".equals( rdn.getName() ) ) //$NON-NLS-1$
+        {
+            // compareRdns() sorts an empty Rdn like any other Rdn
+            return sortBy == BrowserCoreConstants.SORT_BY_RDN && rdn != null && rdn.getName() != null
+                ? new EntrySortKey( 0, category, EntrySortKey.RDN, "", null ) //$NON-NLS-1$
+                : new EntrySortKey( 0, category, EntrySortKey.NO_RDN, null, null );
+        }
+
+        String rdnValue = rdn.getName();
+        BigInteger number = sortBy == BrowserCoreConstants.SORT_BY_RDN_VALUE && rdnValue.matches( "\\d*" ) //$NON-NLS-1$
+            ? new BigInteger( rdnValue )
+            : null;
+
+        return new EntrySortKey( 0, category, EntrySortKey.RDN, SortKeys.ignoreCase( rdnValue ), number );
+    }
+
+
+    /**
+     * Gets the position of a runnable relative to the entries, 
+     * see {@link #compare(Viewer, Object, Object)}.
+     *
+     * @param runnable the runnable
+     * @return 1 for the next page runnable, -1 otherwise
+     */
+    private int getPosition( StudioConnectionRunnableWithProgress runnable )
+    {
+        for ( Object lockedObject : runnable.getLockedObjects() )
+        {
+            if ( lockedObject instanceof ISearch && runnable == ( ( ISearch ) lockedObject ).getNextSearchRunnable() )
+            {
+                return 1;
+            }
+            else if ( lockedObject instanceof IEntry
+                && runnable == ( ( IEntry ) lockedObject ).getNextPageChildrenRunnable() )
+            {
+                return 1;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Compares two sort keys. The sort settings are passed in, the sort keys 
+     * could be compared in parallel.
+     *
+     * @param key1 the first sort key
+     * @param key2 the second sort key
+     * @param sortBy the sort entries by preference
+     * @param ascending true if the sort entries order is ascending
+     * @return a negative integer, zero, or a positive integer
+     */
+    private static int compareSortKeys( EntrySortKey key1, EntrySortKey key2, int sortBy, boolean ascending )
+    {
+        int result;
+
+        if ( key1.position != key2.position )
+        {
+            result = key1.position - key2.position;
+        }
+        else if ( key1.position != 0 )
+        {
+            return 0;
+        }
+        else if ( key1.category != key2.category )
+        {
+            // the categories don't depend on the sort order
+            return key1.category - key2.category;
+        }
+        else if ( sortBy != BrowserCoreConstants.SORT_BY_RDN && sortBy != BrowserCoreConstants.SORT_BY_RDN_VALUE )
+        {
+            return 0;
+        }
+        else if ( key1.rank != key2.rank )
+        {
+            result = key1.rank - key2.rank;
+        }
+        else if ( key1.rank != EntrySortKey.RDN )
+        {
+            return 0;
         }
+        else if ( key1.number != null && key2.number != null )
+        {
+            result = key1.number.compareTo( key2.number );
+        }
+        else
+        {
+            result = key1.rdn.compareTo( key2.rdn );
+        }
+
+        return ascending ? result : -result;
     }
 
 
@@ -648,4 +817,44 @@ public class BrowserSorter extends ViewerSorter
         return preferences.getSortEntriesOrder() == BrowserCoreConstants.SORT_ORDER_ASCENDING ? bi1.compareTo( bi2 )
             : bi2.compareTo( bi1 );
     }
+
+    /**
+     * The precomputed sort key of an entry, a search result or a runnable.
+     */
+    private static final class EntrySortKey
+    {
+        /** The rank of a search result without entry */
+        private static final int NO_ENTRY = 0;
+
+        /** The rank of an entry with Rdn */
+        private static final int RDN = 1;
+
+        /** The rank of an entry without Rdn */
+        private static final int NO_RDN = 2;
+
+        /** The position relative to the entries, -1 before, 0 for entries, 1 after */
+        private final int position;
+
+        /** The category, see {@link BrowserSorter#category(Object)} */
+        private final int category;
+
+        /** The rank */
+        private final int rank;
+
+        /** The case insensitive sort key of the Rdn, null if there is no Rdn */
+        private final String rdn;
+
+        /** The numeric Rdn, null if the Rdn isn't numeric */
+        private final BigInteger number;
+
+
+        private EntrySortKey( int position, int category, int rank, String rdn, BigInteger number )
+        {
+            this.position = position;
+            this.category = category;
+            this.rank = rank;
+            this.rdn = rdn;
+            this.number = number;
+        }
+    }
 }
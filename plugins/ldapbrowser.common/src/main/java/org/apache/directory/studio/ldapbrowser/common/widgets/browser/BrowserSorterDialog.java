@@ -396,7 +396,7 @@ public class BrowserSorterDialog extends Dialog
         Label sortLimitLabel = BaseWidgetUtils.createLabel( sortLimitComposite, Messages
             .getString( "BrowserSorterDialog.SortLimitColon" ), 1 ); //$NON-NLS-1$
         sortLimitLabel.setToolTipText( sortLimitTooltip );
-        sortLimitText = BaseWidgetUtils.createText( sortLimitComposite, "" + preferences.getSortLimit(), 5, 1 ); //$NON-NLS-1$
+        sortLimitText = BaseWidgetUtils.createText( sortLimitComposite, "" + preferences.getSortLimit(), 7, 1 ); //$NON-NLS-1$
         sortLimitText.setToolTipText( sortLimitTooltip );
         sortLimitText.addVerifyListener( new VerifyListener()
         {
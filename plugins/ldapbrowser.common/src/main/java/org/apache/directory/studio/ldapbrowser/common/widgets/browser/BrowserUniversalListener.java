@@ -21,6 +21,10 @@
 package org.apache.directory.studio.ldapbrowser.common.widgets.browser;
 
 
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.ConnectionFolder;
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
@@ -68,9 +72,10 @@ public class BrowserUniversalListener implements ConnectionUpdateListener, Entry
         /**
          * {@inheritDoc}
          *
-         * This implementation checks if the collapsed entry more children
-         * than currently fetched. If this is the case cached children are
-         * cleared an must be fetched newly when expanding the tree.
+         * This implementation updates the pinned entries and checks if the
+         * collapsed entry has more children than currently fetched. If this is
+         * the case cached children are cleared and must be fetched newly when
+         * expanding the tree.
          *
          * This could happen when first using a search that returns
          * only some of an entry's children.
@@ -86,17 +91,38 @@ public class BrowserUniversalListener implements ConnectionUpdateListener, Entry
                     entry.setChildrenInitialized( false );
                 }
             }
+
+            schedulePinnedEntriesUpdate();
         }
 
 
         /**
          * {@inheritDoc}
+         *
+         * This implementation pins the expanded entry, so that its
+         * children are not evicted from the cache while displayed.
          */
         public void treeExpanded( TreeExpansionEvent event )
         {
+            if ( event.getElement() instanceof IEntry )
+            {
+                pin( ( IEntry ) event.getElement() );
+            }
+
+            schedulePinnedEntriesUpdate();
         }
     };
 
+    /**
+     * The entries pinned by this listener. Each entry is pinned once while it is
+     * expanded in the viewer, so expansions without tree events, collapsed ancestors
+     * and the disposal of the viewer can't unbalance the pin counts.
+     */
+    private final Set<IEntry> pinnedEntries = new HashSet<IEntry>();
+
+    /** The flag whether an update of the pinned entries is already scheduled. */
+    private boolean pinnedEntriesUpdateScheduled;
+
     /** The double click listener. */
     private IDoubleClickListener doubleClickListener = new IDoubleClickListener()
     {
@@ -153,11 +179,91 @@ public class BrowserUniversalListener implements ConnectionUpdateListener, Entry
             EventRegistry.removeEntryUpdateListener( this );
             EventRegistry.removeSearchUpdateListener( this );
 
+            for ( IEntry entry : pinnedEntries )
+            {
+                entry.getBrowserConnection().unpinEntry( entry );
+            }
+            pinnedEntries.clear();
+
             viewer = null;
         }
     }
 
 
+    /**
+     * Schedules an update of the pinned entries. The update runs after the
+     * current tree event, when the viewer reports the new expanded state.
+     */
+    protected void schedulePinnedEntriesUpdate()
+    {
+        if ( viewer == null || viewer.getControl().isDisposed() || pinnedEntriesUpdateScheduled )
+        {
+            return;
+        }
+
+        pinnedEntriesUpdateScheduled = true;
+        viewer.getControl().getDisplay().asyncExec( new Runnable()
+        {
+            public void run()
+            {
+                pinnedEntriesUpdateScheduled = false;
+                updatePinnedEntries();
+            }
+        } );
+    }
+
+
+    /**
+     * Pins the entries expanded in the viewer and unpins the entries
+     * that are not expanded anymore.
+     */
+    private void updatePinnedEntries()
+    {
+        if ( viewer == null || viewer.getControl().isDisposed() )
+        {
+            return;
+        }
+
+        Set<IEntry> expandedEntries = new HashSet<IEntry>();
+        for ( Object element : viewer.getExpandedElements() )
+        {
+            if ( element instanceof IEntry )
+            {
+                expandedEntries.add( ( IEntry ) element );
+            }
+        }
+
+        for ( Iterator<IEntry> it = pinnedEntries.iterator(); it.hasNext(); )
+        {
+            IEntry entry = it.next();
+            if ( !expandedEntries.contains( entry ) )
+            {
+                it.remove();
+                entry.getBrowserConnection().unpinEntry( entry );
+            }
+        }
+
+        for ( IEntry entry : expandedEntries )
+        {
+            pin( entry );
+        }
+    }
+
+
+    /**
+     * Pins the given entry, unless it is already pinned by this listener.
+     *
+     * @param entry the entry
+     */
+    private void pin( IEntry entry )
+    {
+        if ( pinnedEntries.add( entry ) )
+        {
+            entry.getBrowserConnection().pinEntry( entry );
+        }
+    }
+
+
     /**
      * @see org.apache.directory.studio.connection.core.event.ConnectionUpdateListener#connectionOpened(org.apache.directory.studio.connection.core.Connection)
      */
@@ -173,6 +279,7 @@ public class BrowserUniversalListener implements ConnectionUpdateListener, Entry
     public void connectionClosed( Connection connection )
     {
         viewer.collapseAll();
+        schedulePinnedEntriesUpdate();
     }
 
 
@@ -263,6 +370,8 @@ public class BrowserUniversalListener implements ConnectionUpdateListener, Entry
         {
             viewer.refresh( event.getModifiedEntry(), true );
         }
+
+        schedulePinnedEntriesUpdate();
     }
 
 
@@ -275,6 +384,13 @@ public class BrowserUniversalListener implements ConnectionUpdateListener, Entry
     {
         ISearch search = searchUpdateEvent.getSearch();
 
+        if ( searchUpdateEvent.getDetail() == EventDetail.SEARCH_RESULTS_ADDED )
+        {
+            // search is still running, just update the search results
+            viewer.refresh( search );
+            return;
+        }
+
         if ( ( search instanceof IQuickSearch ) && ( searchUpdateEvent.getDetail() == EventDetail.SEARCH_REMOVED ) )
         {
             if ( search.getBrowserConnection().getQuickSearch() == search )
@@ -290,5 +406,7 @@ public class BrowserUniversalListener implements ConnectionUpdateListener, Entry
             viewer.setSelection( new StructuredSelection( search ), true );
             viewer.expandToLevel( search, 1 );
         }
+
+        schedulePinnedEntriesUpdate();
     }
 }
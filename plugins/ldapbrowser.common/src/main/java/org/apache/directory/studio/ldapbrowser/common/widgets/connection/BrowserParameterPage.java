@@ -98,6 +98,8 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
 
     private static final String X_PAGED_SEARCH_SCROLL_MODE = "X-PAGED-SEARCH-SCROLL-MODE"; //$NON-NLS-1$
 
+    private static final String X_LIVE_UPDATE = "X-LIVE-UPDATE"; //$NON-NLS-1$
+
     /** The checkbox to fetch the base Dn's from namingContexts whenever opening the connection */
     private Button autoFetchBaseDnsButton;
 
@@ -137,6 +139,9 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
     /** The fetch operational attributes button. */
     private Button fetchOperationalAttributesButton;
 
+    /** The live update button. */
+    private Button liveUpdateButton;
+
 
     /**
      * Creates a new instance of BrowserParameterPage.
@@ -294,6 +299,17 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
     }
 
 
+    /**
+     * Returns true if the cached entries should be updated live.
+     * 
+     * @return true, if the cached entries should be updated live
+     */
+    private boolean isLiveUpdate()
+    {
+        return liveUpdateButton.getSelection();
+    }
+
+
     /**
      * Gets a temporary connection with all connection parameter 
      * entered in this page. 
@@ -409,6 +425,12 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         fetchOperationalAttributesButton.setToolTipText( Messages
             .getString( "BrowserParameterPage.FetchOperationalAttributesWhileBrowsingTooltip" ) ); //$NON-NLS-1$
         fetchOperationalAttributesButton.setSelection( false );
+
+        // live update feature
+        liveUpdateButton = BaseWidgetUtils.createCheckbox( groupComposite, Messages
+            .getString( "BrowserParameterPage.LiveUpdate" ), 1 ); //$NON-NLS-1$
+        liveUpdateButton.setToolTipText( Messages.getString( "BrowserParameterPage.LiveUpdateTooltip" ) ); //$NON-NLS-1$
+        liveUpdateButton.setSelection( false );
     }
 
 
@@ -506,6 +528,9 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         boolean fetchOperationalAttributes = parameter
             .getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES );
         fetchOperationalAttributesButton.setSelection( fetchOperationalAttributes );
+
+        boolean liveUpdate = parameter.getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_LIVE_UPDATE );
+        liveUpdateButton.setSelection( liveUpdate );
     }
 
 
@@ -614,6 +639,14 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
                 connectionPageModified();
             }
         } );
+
+        liveUpdateButton.addSelectionListener( new SelectionAdapter()
+        {
+            public void widgetSelected( SelectionEvent arg0 )
+            {
+                connectionPageModified();
+            }
+        } );
     }
 
 
@@ -642,6 +675,7 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
             isPagedSearchScrollMode() );
         parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES,
             isFetchOperationalAttributes() );
+        parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_LIVE_UPDATE, isLiveUpdate() );
     }
 
 
@@ -711,11 +745,13 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
             .getByOrdinal( aliasesDereferencingMethodOrdinal );
         boolean fetchOperationalAttributes = connectionParameter
             .getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES );
+        boolean liveUpdate = connectionParameter
+            .getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_LIVE_UPDATE );
 
         return fetchBaseDns != isAutoFetchBaseDns() || !StringUtils.equals( baseDn, getBaseDN() )
             || referralsHandlingMethod != getReferralsHandlingMethod()
             || aliasesDereferencingMethod != getAliasesDereferencingMethod()
-            || fetchOperationalAttributes != isFetchOperationalAttributes();
+            || fetchOperationalAttributes != isFetchOperationalAttributes() || liveUpdate != isLiveUpdate();
     }
 
 
@@ -823,6 +859,13 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         {
             ldapUrl.getExtensions().add( new Extension( false, X_FETCH_OPERATIONAL_ATTRIBUTES, null ) );
         }
+
+        // live update
+        boolean liveUpdate = parameter.getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_LIVE_UPDATE );
+        if ( liveUpdate )
+        {
+            ldapUrl.getExtensions().add( new Extension( false, X_LIVE_UPDATE, null ) );
+        }
     }
 
 
@@ -943,5 +986,9 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         Extension fetchOperationalAttributes = ldapUrl.getExtension( X_FETCH_OPERATIONAL_ATTRIBUTES );
         parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES,
             fetchOperationalAttributes != null );
+
+        // live update
+        Extension liveUpdate = ldapUrl.getExtension( X_LIVE_UPDATE );
+        parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_LIVE_UPDATE, liveUpdate != null );
     }
 }
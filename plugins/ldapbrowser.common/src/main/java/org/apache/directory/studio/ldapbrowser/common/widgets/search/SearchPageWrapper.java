@@ -34,6 +34,8 @@ import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.api.ldap.model.message.controls.ManageDsaIT;
 import org.apache.directory.api.ldap.model.message.controls.PagedResults;
 import org.apache.directory.api.ldap.model.message.controls.PagedResultsImpl;
+import org.apache.directory.api.ldap.model.message.controls.SortKey;
+import org.apache.directory.api.ldap.model.message.controls.SortRequest;
 import org.apache.directory.api.ldap.model.message.controls.Subentries;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
@@ -220,6 +222,15 @@ public class SearchPageWrapper extends AbstractWidget
     /** The paged search control scroll button. */
     protected Button pagedSearchControlScrollButton;
 
+    /** The server side sort control button. */
+    protected Button sortControlButton;
+
+    /** The server side sort control attribute text. */
+    protected Text sortControlAttributeText;
+
+    /** The server side sort control reverse order button. */
+    protected Button sortControlReverseButton;
+
 
     /**
      * Creates a new instance of SearchPageWrapper.
@@ -613,6 +624,36 @@ public class SearchPageWrapper extends AbstractWidget
                 validate();
             }
         } );
+
+        // server side sort control
+        Composite sscComposite = BaseWidgetUtils.createColumnContainer( controlGroup, 3, 1 );
+        sortControlButton = BaseWidgetUtils.createCheckbox( sscComposite, Messages
+            .getString( "SearchPageWrapper.ServerSideSort" ), 1 ); //$NON-NLS-1$
+        sortControlButton.setToolTipText( Messages.getString( "SearchPageWrapper.ServerSideSortToolTip" ) ); //$NON-NLS-1$
+        sortControlButton.addSelectionListener( new SelectionAdapter()
+        {
+            public void widgetSelected( SelectionEvent e )
+            {
+                validate();
+            }
+        } );
+        sortControlAttributeText = BaseWidgetUtils.createText( sscComposite, "", 15, 1 ); //$NON-NLS-1$
+        sortControlAttributeText.addModifyListener( new ModifyListener()
+        {
+            public void modifyText( ModifyEvent e )
+            {
+                validate();
+            }
+        } );
+        sortControlReverseButton = BaseWidgetUtils.createCheckbox( sscComposite, Messages
+            .getString( "SearchPageWrapper.ReverseOrder" ), 1 ); //$NON-NLS-1$
+        sortControlReverseButton.addSelectionListener( new SelectionAdapter()
+        {
+            public void widgetSelected( SelectionEvent e )
+            {
+                validate();
+            }
+        } );
     }
 
 
@@ -635,6 +676,8 @@ public class SearchPageWrapper extends AbstractWidget
         pagedSearchControlSizeLabel.setEnabled( pagedSearchControlButton.getSelection() );
         pagedSearchControlSizeText.setEnabled( pagedSearchControlButton.getSelection() );
         pagedSearchControlScrollButton.setEnabled( pagedSearchControlButton.getSelection() );
+        sortControlAttributeText.setEnabled( sortControlButton.getSelection() );
+        sortControlReverseButton.setEnabled( sortControlButton.getSelection() );
 
         super.notifyListeners();
     }
@@ -728,6 +771,13 @@ public class SearchPageWrapper extends AbstractWidget
                             pagedSearchControlSizeText.setText( "" + ( ( PagedResults ) c ).getSize() ); //$NON-NLS-1$
                             pagedSearchControlScrollButton.setSelection( search.isPagedSearchScrollMode() );
                         }
+                        else if ( c instanceof SortRequest && !( ( SortRequest ) c ).getSortKeys().isEmpty() )
+                        {
+                            SortKey sortKey = ( ( SortRequest ) c ).getSortKeys().get( 0 );
+                            sortControlButton.setSelection( true );
+                            sortControlAttributeText.setText( sortKey.getAttributeTypeDesc() );
+                            sortControlReverseButton.setSelection( sortKey.isReverseOrder() );
+                        }
                     }
                 }
             }
@@ -894,6 +944,13 @@ public class SearchPageWrapper extends AbstractWidget
                 search.getSearchParameter().getControls().add( control );
                 search.getSearchParameter().setPagedSearchScrollMode( isScrollMode );
             }
+            String sortAttribute = sortControlAttributeText.getText().trim();
+            if ( sortControlButton.getSelection() && !"".equals( sortAttribute ) ) //$NON-NLS-1$
+            {
+                SortRequest control = Controls.newSortRequestControl( sortAttribute,
+                    sortControlReverseButton.getSelection() );
+                search.getSearchParameter().getControls().add( control );
+            }
 
             Set<Control> newControls = new HashSet<>();
             newControls.addAll( search.getSearchParameter().getControls() );
@@ -1057,6 +1114,7 @@ public class SearchPageWrapper extends AbstractWidget
             controlGroup.setEnabled( b );
             manageDsaItControlButton.setEnabled( b );
             subentriesControlButton.setEnabled( b );
+            sortControlButton.setEnabled( b );
         }
     }
 
@@ -23,8 +23,12 @@ package org.apache.directory.studio.ldapbrowser.core;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.ldapbrowser.core.events.BookmarkUpdateEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBookmark;
@@ -45,6 +49,9 @@ public class BookmarkManager implements Serializable
 
     private IBrowserConnection connection;
 
+    /** The Dns of all Bookmarks, null if it must be rebuilt. */
+    private transient volatile Set<Dn> bookmarkDns;
+
 
     /**
      * Creates a new instance of BookmarkManager.
@@ -106,6 +113,7 @@ public class BookmarkManager implements Serializable
         }
 
         bookmarkList.add( index, bookmark );
+        bookmarkDns = null;
         EventRegistry.fireBookmarkUpdated(
             new BookmarkUpdateEvent( bookmark, BookmarkUpdateEvent.Detail.BOOKMARK_ADDED ), this );
     }
@@ -156,6 +164,7 @@ public class BookmarkManager implements Serializable
     public void removeBookmark( IBookmark bookmark )
     {
         bookmarkList.remove( bookmark );
+        bookmarkDns = null;
         EventRegistry.fireBookmarkUpdated( new BookmarkUpdateEvent( bookmark,
             BookmarkUpdateEvent.Detail.BOOKMARK_REMOVED ), this );
     }
@@ -185,6 +194,41 @@ public class BookmarkManager implements Serializable
     }
 
 
+    /**
+     * Gets the Dns of all Bookmarks. The set is built once and
+     * reused until a Bookmark is added, removed or its Dn is changed.
+     *
+     * @return
+     *      an unmodifiable set containing the Dns of all Bookmarks
+     */
+    public Set<Dn> getBookmarkDns()
+    {
+        Set<Dn> dns = bookmarkDns;
+
+        if ( dns == null )
+        {
+            dns = new HashSet<Dn>();
+            for ( IBookmark bookmark : getBookmarks() )
+            {
+                dns.add( bookmark.getDn() );
+            }
+            dns = Collections.unmodifiableSet( dns );
+            bookmarkDns = dns;
+        }
+
+        return dns;
+    }
+
+
+    /**
+     * Called when the Dn of a Bookmark was changed.
+     */
+    public void bookmarkDnChanged()
+    {
+        bookmarkDns = null;
+    }
+
+
     /**
      * Gets the number of Bookmarks
      *
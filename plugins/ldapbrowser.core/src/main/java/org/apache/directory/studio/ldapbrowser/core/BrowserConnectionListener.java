@@ -32,6 +32,7 @@ import org.apache.directory.studio.connection.core.IConnectionListener;
 import org.apache.directory.studio.ldapbrowser.core.events.BrowserConnectionUpdateEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeAttributesRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.LiveCacheUpdater;
 import org.apache.directory.studio.ldapbrowser.core.jobs.ReloadSchemaRunnable;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IRootDSE;
@@ -42,7 +43,8 @@ import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
 /**
  * The {@link BrowserConnectionListener} opens and closes the 
  * {@link IBrowserConnection} if the underlying {@link Connection}
- * is opened and closed.
+ * is opened and closed. It also starts and stops the {@link LiveCacheUpdater}
+ * of the browser connection.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -74,6 +76,8 @@ public class BrowserConnectionListener implements IConnectionListener
                     BrowserConnectionUpdateEvent.Detail.SCHEMA_UPDATED );
                 EventRegistry.fireBrowserConnectionUpdated( schemaUpdateEvent, this );
             }
+
+            LiveCacheUpdater.start( browserConnection );
         }
     }
 
@@ -87,6 +91,8 @@ public class BrowserConnectionListener implements IConnectionListener
             .getBrowserConnection( connection );
         if ( browserConnection != null )
         {
+            LiveCacheUpdater.stop( browserConnection );
+
             try
             {
                 EventRegistry.suspendEventFiringInCurrentThread();
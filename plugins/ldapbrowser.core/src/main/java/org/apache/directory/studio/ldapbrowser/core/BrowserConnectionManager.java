@@ -26,6 +26,7 @@ import java.beans.Expression;
 import java.beans.PersistenceDelegate;
 import java.beans.XMLDecoder;
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -62,6 +63,8 @@ import org.apache.directory.studio.ldapbrowser.core.model.impl.Bookmark;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.BrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 
 
 /**
@@ -111,6 +114,23 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
     }
 
 
+    /**
+     * Gets the filename of the binary Schema Cache for the corresponding browser connection.
+     * The binary Schema Cache is a snapshot of the parsed schema, it is only valid if it is
+     * not older than the Schema Cache file.
+     *
+     * @param id
+     *      the ID of the browser connection
+     * @return
+     *      the binary Schema Cache filename for the corresponding browser connection
+     */
+    public static final String getSchemaSnapshotFileName( String id )
+    {
+        return BrowserCorePlugin.getDefault().getStateLocation().append(
+            "schema-" + Utils.getFilenameString( id ) + ".bin" ).toOSString(); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
     /**
      * Gets the filename of the Connection Store.
      *
@@ -219,12 +239,17 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
         // update connection list
         connectionMap.remove( connection.getId() );
 
-        // remove schema file
+        // remove schema files
         File schemaFile = new File( getSchemaCacheFileName( connection.getId() ) );
         if ( schemaFile.exists() )
         {
             schemaFile.delete();
         }
+        File snapshotFile = new File( getSchemaSnapshotFileName( connection.getId() ) );
+        if ( snapshotFile.exists() )
+        {
+            snapshotFile.delete();
+        }
 
         // make persistent
         saveBrowserConnections();
@@ -415,17 +440,107 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
             return;
         }
 
+        if ( browserConnection instanceof BrowserConnection
+            && !( ( BrowserConnection ) browserConnection ).isSchemaLoaded() )
+        {
+            // the cached schema wasn't loaded yet, so it is unchanged
+            return;
+        }
+
+        String id = browserConnection.getConnection().getId();
+        Schema schema = browserConnection.getSchema();
         try
         {
-            String filename = getSchemaCacheFileName( browserConnection.getConnection().getId() );
+            String filename = getSchemaCacheFileName( id );
             FileWriter writer = new FileWriter( filename );
-            browserConnection.getSchema().saveToLdif( writer );
+            schema.saveToLdif( writer );
             writer.close();
         }
         catch ( Exception e )
         {
             e.printStackTrace();
         }
+
+        saveSchemaSnapshot( id, schema );
+    }
+
+
+    /**
+     * Saves the binary snapshot of the schema. If saving fails the snapshot is
+     * deleted, the schema is then parsed from the Schema Cache file.
+     *
+     * @param id
+     *      the ID of the browser connection
+     * @param schema
+     *      the schema
+     */
+    private void saveSchemaSnapshot( String id, Schema schema )
+    {
+        File snapshotFile = new File( getSchemaSnapshotFileName( id ) );
+        try ( BufferedOutputStream out = new BufferedOutputStream( new FileOutputStream( snapshotFile ) ) )
+        {
+            schema.saveToBinary( out );
+        }
+        catch ( Exception e )
+        {
+            BrowserCorePlugin.getDefault().getLog().log(
+                new Status( IStatus.WARNING, BrowserCoreConstants.PLUGIN_ID,
+                    "Unable to save the schema snapshot " + snapshotFile, e ) ); //$NON-NLS-1$
+            snapshotFile.delete();
+        }
+    }
+
+
+    /**
+     * Loads the cached schema of the given browser connection. The binary snapshot
+     * is used if it is not older than the Schema Cache file, otherwise the Schema
+     * Cache file is parsed and a new snapshot is written.
+     *
+     * @param id
+     *      the ID of the browser connection
+     * @return
+     *      the schema, null if there is no cached schema
+     */
+    private Schema loadSchema( String id )
+    {
+        File schemaFile = new File( getSchemaCacheFileName( id ) );
+        File snapshotFile = new File( getSchemaSnapshotFileName( id ) );
+
+        if ( snapshotFile.exists() && snapshotFile.lastModified() >= schemaFile.lastModified() )
+        {
+            try ( BufferedInputStream in = new BufferedInputStream( new FileInputStream( snapshotFile ) ) )
+            {
+                return Schema.loadFromBinary( in );
+            }
+            catch ( Exception e )
+            {
+                // invalid or outdated format, parse the Schema Cache file
+                BrowserCorePlugin.getDefault().getLog().log(
+                    new Status( IStatus.WARNING, BrowserCoreConstants.PLUGIN_ID,
+                        "Unable to load the schema snapshot " + snapshotFile //$NON-NLS-1$
+                            + ", the Schema Cache file is parsed instead", e ) ); //$NON-NLS-1$
+            }
+        }
+
+        if ( !schemaFile.exists() )
+        {
+            return null;
+        }
+
+        try ( FileReader reader = new FileReader( schemaFile ) )
+        {
+            Schema schema = new Schema();
+            schema.loadFromLdif( reader );
+            saveSchemaSnapshot( id, schema );
+            return schema;
+        }
+        catch ( Exception e )
+        {
+            BrowserCorePlugin.getDefault().getLog().log(
+                new Status( IStatus.WARNING, BrowserCoreConstants.PLUGIN_ID,
+                    "Unable to load the Schema Cache file " + schemaFile, e ) ); //$NON-NLS-1$
+            return null;
+        }
     }
 
 
@@ -441,17 +556,9 @@ public class BrowserConnectionManager implements ConnectionUpdateListener, Brows
             BrowserConnection browserConnection = new BrowserConnection( connection );
             connectionMap.put( connection.getId(), browserConnection );
 
-            try
-            {
-                String schemaFilename = getSchemaCacheFileName( connection.getId() );
-                FileReader reader = new FileReader( schemaFilename );
-                Schema schema = new Schema();
-                schema.loadFromLdif( reader );
-                browserConnection.setSchema( schema );
-            }
-            catch ( Exception e )
-            {
-            }
+            // the cached schema is loaded on first access
+            String id = connection.getId();
+            browserConnection.setSchemaLoader( () -> loadSchema( id ) );
         }
 
         // java.beans.XMLDecoder
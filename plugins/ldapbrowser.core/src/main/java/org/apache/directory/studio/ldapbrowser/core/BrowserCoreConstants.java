@@ -59,6 +59,8 @@ public final class BrowserCoreConstants
 
     public static final String PREFERENCE_CHECK_FOR_CHILDREN = "checkForChildren"; //$NON-NLS-1$
 
+    public static final String PREFERENCE_ENTRY_CACHE_SIZE = "entryCacheSize"; //$NON-NLS-1$
+
     public static final String PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER = "formatCsvAttributeDelimiter"; //$NON-NLS-1$
 
     public static final String PREFERENCE_FORMAT_CSV_VALUEDELIMITER = "formatCsvValueDelimiter"; //$NON-NLS-1$
@@ -87,6 +89,16 @@ public final class BrowserCoreConstants
 
     public static final String PREFERENCE_LDIF_INCLUDE_VERSION_LINE = "ldifIncludeVersionLine"; //$NON-NLS-1$
 
+    public static final String PREFERENCE_LDIF_IMPORT_WINDOW_SIZE = "ldifImportWindowSize"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_IMPORT_EXPORT_CONNECTIONS = "importExportConnections"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_DELETE_WINDOW_SIZE = "deleteWindowSize"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_COPY_WINDOW_SIZE = "copyWindowSize"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_PAGED_SEARCH_READ_AHEAD_PAGES = "pagedSearchReadAheadPages"; //$NON-NLS-1$
+
     public static final int BINARYENCODING_IGNORE = 0;
 
     public static final int BINARYENCODING_BASE64 = 1;
@@ -133,6 +133,8 @@ public class BrowserCoreMessages extends NLS
 
     public static String model__deleted_n_entries;
 
+    public static String model__deleted_n_entries_rate;
+
     public static String model__retrieved_n_entries;
 
     public static String model__retrieved_1_entry;
@@ -371,6 +373,10 @@ public class BrowserCoreMessages extends NLS
 
     public static String jobs__read_entry_error;
 
+    public static String jobs__live_update_name;
+
+    public static String jobs__live_update_error;
+
     public static String jobs__reload_schemas_name_1;
 
     public static String jobs__reload_schemas_name_n;
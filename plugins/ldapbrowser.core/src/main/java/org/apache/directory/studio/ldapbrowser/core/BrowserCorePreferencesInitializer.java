@@ -42,6 +42,7 @@ public class BrowserCorePreferencesInitializer extends AbstractPreferenceInitial
         Preferences store = BrowserCorePlugin.getDefault().getPluginPreferences();
 
         store.setDefault( BrowserCoreConstants.PREFERENCE_CHECK_FOR_CHILDREN, true );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_ENTRY_CACHE_SIZE, 100000 );
 
         store.setDefault( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER, "," ); //$NON-NLS-1$
         store.setDefault( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_VALUEDELIMITER, "|" ); //$NON-NLS-1$
@@ -64,6 +65,11 @@ public class BrowserCorePreferencesInitializer extends AbstractPreferenceInitial
         store.setDefault( BrowserCoreConstants.PREFERENCE_LDIF_LINE_SEPARATOR, BrowserCoreConstants.LINE_SEPARATOR );
         store.setDefault( BrowserCoreConstants.PREFERENCE_LDIF_SPACE_AFTER_COLON, true );
         store.setDefault( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE, true );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_LDIF_IMPORT_WINDOW_SIZE, 16 );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_IMPORT_EXPORT_CONNECTIONS, 1 );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_DELETE_WINDOW_SIZE, 16 );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_COPY_WINDOW_SIZE, 16 );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_PAGED_SEARCH_READ_AHEAD_PAGES, 4 );
 
         // default binary attributes
         BinaryAttribute[] defaultBinaryAttributes = new BinaryAttribute[]
@@ -29,6 +29,7 @@ import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
 import org.eclipse.osgi.util.NLS;
 
 
@@ -118,6 +119,11 @@ public class SearchManager implements Serializable
         }
 
         searchList.add( index, search );
+        if ( search instanceof Search )
+        {
+            ( ( Search ) search ).updateSearchResultsPinned();
+        }
+
         EventRegistry.fireSearchUpdated( new SearchUpdateEvent( search, SearchUpdateEvent.EventDetail.SEARCH_ADDED ),
             this );
     }
@@ -169,6 +175,12 @@ public class SearchManager implements Serializable
     {
         searchList.remove( search );
 
+        // release the pinned entries of the search results
+        if ( search instanceof Search )
+        {
+            ( ( Search ) search ).updateSearchResultsPinned();
+        }
+
         EventRegistry.fireSearchUpdated( new SearchUpdateEvent( search, SearchUpdateEvent.EventDetail.SEARCH_REMOVED ),
             this );
     }
@@ -21,6 +21,8 @@
 package org.apache.directory.studio.ldapbrowser.core.events;
 
 
+import java.util.Arrays;
+
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.connection.core.event.EventRunnable;
 import org.apache.directory.studio.connection.core.event.EventRunnableFactory;
@@ -81,6 +83,18 @@ public class EventRegistry extends ConnectionEventRegistry
                     {
                         listener.searchUpdated( searchUpdateEvent );
                     }
+
+
+                    public Object getCoalescingKey()
+                    {
+                        // the listeners read the results from the search, one pending notification is enough
+                        if ( searchUpdateEvent.getDetail() == SearchUpdateEvent.EventDetail.SEARCH_RESULTS_ADDED )
+                        {
+                            return Arrays.asList( listener, searchUpdateEvent.getSearch(),
+                                searchUpdateEvent.getDetail() );
+                        }
+                        return null;
+                    }
                 };
             }
         };
@@ -236,6 +250,19 @@ public class EventRegistry extends ConnectionEventRegistry
                     {
                         listener.entryUpdated( entryUpdateEvent );
                     }
+
+
+                    public Object getCoalescingKey()
+                    {
+                        // the listeners reload the initialized attributes or children from the entry
+                        if ( entryUpdateEvent instanceof AttributesInitializedEvent
+                            || entryUpdateEvent instanceof ChildrenInitializedEvent )
+                        {
+                            return Arrays.asList( listener, entryUpdateEvent.getClass(),
+                                entryUpdateEvent.getModifiedEntry(), entryUpdateEvent.getSource() );
+                        }
+                        return null;
+                    }
                 };
             }
 
@@ -47,6 +47,9 @@ public class SearchUpdateEvent
         /** Indicates that the search was performed. */
         SEARCH_PERFORMED,
 
+        /** Indicates that further search results were added while the search is still running. */
+        SEARCH_RESULTS_ADDED,
+
         /**
          * Indicates that the search parameters were updated.
          * Note: This event detail doesn't include the renaming of a search!
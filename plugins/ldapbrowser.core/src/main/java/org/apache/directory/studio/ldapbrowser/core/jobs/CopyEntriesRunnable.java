@@ -23,19 +23,12 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
 
 import javax.naming.directory.SearchControls;
 
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
-import org.apache.directory.api.ldap.model.entry.Entry;
-import org.apache.directory.api.ldap.model.entry.Modification;
-import org.apache.directory.api.ldap.model.exception.LdapEntryAlreadyExistsException;
-import org.apache.directory.api.ldap.model.exception.LdapException;
-import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchScope;
-import org.apache.directory.api.ldap.model.name.Ava;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.name.Rdn;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
@@ -43,17 +36,13 @@ import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.Controls;
-import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
-import org.apache.directory.studio.ldapbrowser.core.jobs.EntryExistsCopyStrategyDialog.EntryExistsCopyStrategy;
-import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
-import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
 
 
 /**
@@ -198,7 +187,7 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
 
     /**
      * Copy entry. If scope is SearchControls.SUBTREE_SCOPE the entry is copied
-     * recursively.
+     * recursively, see {@link SubtreeCopier}.
      * 
      * @param browserConnection the browser connection
      * @param dnToCopy the Dn to copy
@@ -251,199 +240,10 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
         {
             parentDn = entryToCopy.getDn().getParent();
         }
-        numberOfCopiedEntries = copyEntryRecursive( entryToCopy.getBrowserConnection(), result,
-            parent.getBrowserConnection(), parentDn, newRdn, scope, numberOfCopiedEntries, dialog, dummyMonitor,
-            monitor );
+        SubtreeCopier copier = new SubtreeCopier( entryToCopy.getBrowserConnection(), parent.getBrowserConnection(),
+            scope, numberOfCopiedEntries, dialog, dummyMonitor, monitor );
+        copier.copy( result, parentDn, newRdn );
 
-        return numberOfCopiedEntries;
-    }
-
-
-    /**
-     * Copy the entries. If scope is SearchControls.SUBTREE_SCOPE the entries are copied
-     * recursively.
-     * 
-     * @param sourceBrowserConnection the source browser connection
-     * @param entries the source entries to copy
-     * @param targetBrowserConnection the target browser connection
-     * @param parentDn the target parent Dn
-     * @param newRdn the new Rdn, if null the original Rdn of each entry is used
-     * @param scope the copy scope
-     * @param numberOfCopiedEntries the number of copied entries
-     * @param dialog the dialog to ask for the copy strategy, if null the user won't be
-     *        asked instead the NameAlreadyBoundException it reported to the monitor
-     * @param dummyMonitor the dummy monitor, used for I/O that causes exceptions that 
-     *        should be handled
-     * @param monitor the real monitor
-     * 
-     * @return the number of copied entries
-     */
-    static int copyEntryRecursive( IBrowserConnection sourceBrowserConnection, StudioSearchResultEnumeration entries,
-        IBrowserConnection targetBrowserConnection, Dn parentDn, Rdn forceNewRdn, int scope,
-        int numberOfCopiedEntries, EntryExistsCopyStrategyDialog dialog, StudioProgressMonitor dummyMonitor,
-        StudioProgressMonitor monitor )
-    {
-        try
-        {
-            while ( !monitor.isCanceled() && entries.hasMore() )
-            {
-                // get next entry to copy
-                Entry entry = entries.next().getEntry();
-                Dn oldLdapDn = entry.getDn();
-                Rdn oldRdn = oldLdapDn.getRdn();
-
-                // compose new Dn
-                Rdn newRdn = oldLdapDn.getRdn();
-                if ( forceNewRdn != null )
-                {
-                    newRdn = forceNewRdn;
-                }
-                Dn newLdapDn = parentDn.add( newRdn );
-                entry.setDn( newLdapDn );
-
-                // apply new Rdn to the attributes
-                applyNewRdn( entry, oldRdn, newRdn );
-
-                // ManageDsaIT control
-                Control[] controls = null;
-                if ( entry.hasObjectClass( SchemaConstants.REFERRAL_OC ) )
-                {
-                    controls = new Control[]
-                        { Controls.MANAGEDSAIT_CONTROL };
-                }
-
-                // create entry
-                targetBrowserConnection.getConnection().getConnectionWrapper()
-                    .createEntry( entry, controls, dummyMonitor, null );
-
-                while ( dummyMonitor.errorsReported() )
-                {
-                    if ( dialog != null
-                        && StudioLdapException.isEntryAlreadyExistsException( dummyMonitor.getException() ) )
-                    {
-                        // open dialog
-                        dialog.setExistingEntry( targetBrowserConnection, newLdapDn );
-                        dialog.open();
-                        EntryExistsCopyStrategy strategy = dialog.getStrategy();
-
-                        if ( strategy != null )
-                        {
-                            dummyMonitor.reset();
-
-                            switch ( strategy )
-                            {
-                                case BREAK:
-                                    monitor.setCanceled( true );
-                                    break;
-
-                                case IGNORE_AND_CONTINUE:
-                                    break;
-
-                                case OVERWRITE_AND_CONTINUE:
-                                    // create modifications
-                                    Collection<Modification> modifications = ModelConverter
-                                        .toReplaceModifications( entry );
-
-                                    // modify entry
-                                    targetBrowserConnection
-                                        .getConnection()
-                                        .getConnectionWrapper()
-                                        .modifyEntry( newLdapDn, modifications, null, dummyMonitor, null );
-
-                                    // force reload of attributes
-                                    IEntry newEntry = targetBrowserConnection.getEntryFromCache( newLdapDn );
-                                    if ( newEntry != null )
-                                    {
-                                        newEntry.setAttributesInitialized( false );
-                                    }
-
-                                    break;
-
-                                case RENAME_AND_CONTINUE:
-                                    Rdn renamedRdn = dialog.getRdn();
-
-                                    // apply renamed Rdn to the attributes
-                                    applyNewRdn( entry, newRdn, renamedRdn );
-
-                                    // compose new Dn
-                                    newLdapDn = parentDn.add( renamedRdn );
-                                    entry.setDn( newLdapDn );
-
-                                    // create entry
-                                    targetBrowserConnection.getConnection().getConnectionWrapper()
-                                        .createEntry( entry, null, dummyMonitor, null );
-
-                                    break;
-                            }
-                        }
-                        else
-                        {
-                            monitor.reportError( dummyMonitor.getException() );
-                            break;
-                        }
-                    }
-                    else
-                    {
-                        monitor.reportError( dummyMonitor.getException() );
-                        break;
-                    }
-                }
-
-                if ( !monitor.isCanceled() && !monitor.errorsReported() )
-                {
-                    numberOfCopiedEntries++;
-
-                    monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__copied_n_entries,
-                        new String[]
-                            { Integer.toString( numberOfCopiedEntries ) } ) ); //$NON-NLS-1$
-
-                    // copy recursively
-                    if ( scope == SearchControls.ONELEVEL_SCOPE || scope == SearchControls.SUBTREE_SCOPE )
-                    {
-                        SearchControls searchControls = new SearchControls();
-                        searchControls.setCountLimit( 0 );
-                        searchControls.setReturningAttributes( new String[]
-                            { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.REF_AT } );
-                        searchControls.setSearchScope( SearchControls.ONELEVEL_SCOPE );
-                        StudioSearchResultEnumeration childEntries = sourceBrowserConnection
-                            .getConnection()
-                            .getConnectionWrapper()
-                            .search( oldLdapDn.getName(), ISearch.FILTER_TRUE, searchControls,
-                                AliasDereferencingMethod.NEVER, ReferralHandlingMethod.IGNORE, null, monitor, null );
-
-                        if ( scope == SearchControls.ONELEVEL_SCOPE )
-                        {
-                            scope = SearchControls.OBJECT_SCOPE;
-                        }
-
-                        numberOfCopiedEntries = copyEntryRecursive( sourceBrowserConnection, childEntries,
-                            targetBrowserConnection, newLdapDn, null, scope, numberOfCopiedEntries, dialog,
-                            dummyMonitor, monitor );
-                    }
-                }
-            }
-        }
-        catch ( Exception e )
-        {
-            monitor.reportError( e );
-        }
-
-        return numberOfCopiedEntries;
-    }
-
-
-    private static void applyNewRdn( Entry entry, Rdn oldRdn, Rdn newRdn ) throws LdapException
-    {
-        // remove old Rdn attributes and values
-        for ( Ava atav : oldRdn )
-        {
-            entry.remove( atav.getType(), atav.getValue() );
-        }
-
-        // add new Rdn attributes and values
-        for ( Ava atav : newRdn )
-        {
-            entry.add( atav.getType(), atav.getValue() );
-        }
+        return copier.getNumberOfCopiedEntries();
     }
 }
@@ -0,0 +1,303 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.text.translate.CharSequenceTranslator;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
+import org.apache.directory.studio.ldifparser.LdifUtils;
+
+
+/**
+ * Writes entries as CSV rows directly to a writer.
+ * <p>
+ * The columns of each attribute description and the postal address decoding are determined
+ * once, and the value buffers are reused for all rows. Values that can't be encoded with the
+ * file encoding are written with the configured binary encoding.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class CsvStreamWriter
+{
+    private static final int[] NO_COLUMNS = new int[0];
+
+    /** The writer */
+    private Writer writer;
+
+    /** The schema */
+    private Schema schema;
+
+    /** The OID strings of the exported attributes */
+    private String[] columnOids;
+
+    /** The flags indicating which columns have the postal address syntax */
+    private boolean[] postalAddressColumns;
+
+    /** The columns of each attribute description of the entries */
+    private Map<String, int[]> columnsByAttribute = new HashMap<>();
+
+    /** The values of the current row, by column */
+    private StringBuilder[] values;
+
+    /** The flags indicating which columns of the current row have a value */
+    private boolean[] present;
+
+    /** The buffer used to copy values to the writer */
+    private char[] buffer = new char[256];
+
+    private String attributeDelimiter;
+    private String valueDelimiter;
+    private String quoteCharacter;
+    private String lineSeparator;
+    private int binaryEncoding;
+    private boolean exportDn;
+    private CharsetEncoder encoder;
+    private CharSequenceTranslator postalAddressDecoder;
+
+
+    /**
+     * Creates a new instance of CsvStreamWriter.
+     *
+     * @param writer the writer
+     * @param schema the schema
+     * @param attributes the exported attributes, one column each
+     * @param attributeDelimiter the attribute delimiter
+     * @param valueDelimiter the value delimiter
+     * @param quoteCharacter the quote character
+     * @param lineSeparator the line separator
+     * @param encoding the encoding
+     * @param binaryEncoding the binary encoding
+     * @param exportDn true to export the Dn in the first column
+     */
+    CsvStreamWriter( Writer writer, Schema schema, String[] attributes, String attributeDelimiter,
+        String valueDelimiter, String quoteCharacter, String lineSeparator, String encoding, int binaryEncoding,
+        boolean exportDn )
+    {
+        this.writer = writer;
+        this.schema = schema;
+        this.attributeDelimiter = attributeDelimiter;
+        this.valueDelimiter = valueDelimiter;
+        this.quoteCharacter = quoteCharacter;
+        this.lineSeparator = lineSeparator;
+        this.binaryEncoding = binaryEncoding;
+        this.exportDn = exportDn;
+        this.encoder = Charset.forName( encoding ).newEncoder();
+        this.postalAddressDecoder = Utils.createPostalAddressDecoder( lineSeparator );
+
+        columnOids = new String[attributes.length];
+        postalAddressColumns = new boolean[attributes.length];
+        values = new StringBuilder[attributes.length];
+        present = new boolean[attributes.length];
+        for ( int i = 0; i < attributes.length; i++ )
+        {
+            columnOids[i] = new AttributeDescription( attributes[i] ).toOidString( schema );
+            AttributeType type = schema.getAttributeTypeDescription( attributes[i] );
+            postalAddressColumns[i] = SchemaConstants.POSTAL_ADDRESS_SYNTAX.equals( type.getSyntaxOid() );
+            values[i] = new StringBuilder();
+        }
+    }
+
+
+    /**
+     * Writes the given entry as row.
+     *
+     * @param entry the entry
+     * @throws IOException if an I/O error occurs
+     */
+    void write( Entry entry ) throws IOException
+    {
+        // group multi-valued attributes
+        for ( int i = 0; i < values.length; i++ )
+        {
+            values[i].setLength( 0 );
+            present[i] = false;
+        }
+        for ( Attribute attribute : entry )
+        {
+            int[] columns = getColumns( attribute.getUpId() );
+            if ( columns.length > 0 )
+            {
+                for ( Value value : attribute )
+                {
+                    String string = encode( value );
+                    for ( int column : columns )
+                    {
+                        if ( present[column] )
+                        {
+                            values[column].append( valueDelimiter );
+                        }
+                        values[column].append( string );
+                        present[column] = true;
+                    }
+                }
+            }
+        }
+
+        // print attributes
+        if ( exportDn )
+        {
+            writeValue( entry.getDn().getName() );
+            if ( values.length > 0 )
+            {
+                writer.write( attributeDelimiter );
+            }
+        }
+        for ( int i = 0; i < values.length; i++ )
+        {
+            if ( present[i] )
+            {
+                writeValue( postalAddressColumns[i] ? postalAddressDecoder.translate( values[i] ) : values[i] );
+            }
+
+            // delimiter
+            if ( i + 1 < values.length )
+            {
+                writer.write( attributeDelimiter );
+            }
+        }
+        writer.write( lineSeparator );
+    }
+
+
+    private int[] getColumns( String attributeDescription )
+    {
+        int[] columns = columnsByAttribute.get( attributeDescription );
+        if ( columns == null )
+        {
+            String oidString = new AttributeDescription( attributeDescription ).toOidString( schema );
+            List<Integer> matches = new ArrayList<>();
+            for ( int i = 0; i < columnOids.length; i++ )
+            {
+                if ( columnOids[i].equals( oidString ) )
+                {
+                    matches.add( i );
+                }
+            }
+            columns = matches.isEmpty() ? NO_COLUMNS : matches.stream().mapToInt( Integer::intValue ).toArray();
+            columnsByAttribute.put( attributeDescription, columns );
+        }
+        return columns;
+    }
+
+
+    /**
+     * Gets the string representation of the value, or its binary encoding if it can't
+     * be encoded with the file encoding.
+     */
+    private String encode( Value value )
+    {
+        String string = value.isHumanReadable() ? value.getString() : LdifUtils.utf8decode( value.getBytes() );
+        if ( encoder.canEncode( string ) )
+        {
+            return string;
+        }
+
+        byte[] bytes = value.isHumanReadable() ? LdifUtils.utf8encode( string ) : value.getBytes();
+        if ( binaryEncoding == BrowserCoreConstants.BINARYENCODING_BASE64 )
+        {
+            return LdifUtils.base64encode( bytes );
+        }
+        else if ( binaryEncoding == BrowserCoreConstants.BINARYENCODING_HEX )
+        {
+            return LdifUtils.hexEncode( bytes );
+        }
+        else
+        {
+            return BrowserCoreConstants.BINARY;
+        }
+    }
+
+
+    /**
+     * Writes the value, always quoted. Quote characters are doubled, values starting
+     * with '=' are prefixed with a single quote to avoid interpretation as formula.
+     */
+    private void writeValue( CharSequence value ) throws IOException
+    {
+        writer.write( quoteCharacter );
+        if ( value.length() > 0 && value.charAt( 0 ) == '=' )
+        {
+            writer.write( '\'' );
+        }
+
+        if ( quoteCharacter.length() == 1 )
+        {
+            char quote = quoteCharacter.charAt( 0 );
+            int start = 0;
+            for ( int i = 0; i < value.length(); i++ )
+            {
+                if ( value.charAt( i ) == quote )
+                {
+                    // write the quote character twice
+                    write( value, start, i + 1 );
+                    start = i;
+                }
+            }
+            write( value, start, value.length() );
+        }
+        else if ( quoteCharacter.isEmpty() )
+        {
+            write( value, 0, value.length() );
+        }
+        else
+        {
+            writer.write( value.toString().replace( quoteCharacter, quoteCharacter + quoteCharacter ) );
+        }
+
+        writer.write( quoteCharacter );
+    }
+
+
+    private void write( CharSequence value, int start, int end ) throws IOException
+    {
+        if ( value instanceof String )
+        {
+            writer.write( ( String ) value, start, end - start );
+            return;
+        }
+
+        int length = end - start;
+        if ( buffer.length < length )
+        {
+            buffer = new char[Math.max( length, buffer.length * 2 )];
+        }
+        ( ( StringBuilder ) value ).getChars( start, end, buffer, 0 );
+        writer.write( buffer, 0, length );
+    }
+
+}
@@ -29,18 +29,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
-import javax.naming.directory.SearchControls;
-
 import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Controls;
-import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
-import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.StudioControl;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
-import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
@@ -50,7 +45,6 @@ import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
-import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 
 
 /**
@@ -59,8 +53,8 @@ import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
  * Deletes the entry recursively in a optimistic way:
  * <ol>
  * <li>Delete the entry
- * <li>If that fails with error code 66 then perform a one-level search
- *     and start from 1. for each entry. 
+ * <li>If that fails with error code 66 then delete the subtree using
+ *     {@link SubtreeDeleter} and delete the entry again.
  * </ol>
  *
  * TODO: delete subentries?
@@ -247,8 +241,8 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
      * Deletes the entry recursively in a optimistic way:
      * <ol>
      * <li>Deletes the entry
-     * <li>If that fails then perform a one-level search and call the 
-     * method for each found entry
+     * <li>If that fails because the entry has children then list the subtree
+     * and delete it deepest level first, see {@link SubtreeDeleter}
      * </ol>
      * 
      * @param browserConnection the browser connection
@@ -278,59 +272,22 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
         }
         else if ( StudioLdapException.isContextNotEmptyException( dummyMonitor.getException() ) )
         {
-            // do not follow referrals or dereference aliases when deleting entries
-            AliasDereferencingMethod aliasDereferencingMethod = AliasDereferencingMethod.NEVER;
-            ReferralHandlingMethod referralsHandlingMethod = ReferralHandlingMethod.IGNORE;
-
-            // perform one-level search and delete recursively
-            int numberInBatch;
+            // list the subtree once and delete it deepest level first
             dummyMonitor.reset();
-            do
-            {
-                numberInBatch = 0;
-
-                SearchControls searchControls = new SearchControls();
-                searchControls.setCountLimit( 1000 );
-                searchControls.setReturningAttributes( new String[0] );
-                searchControls.setSearchScope( SearchControls.ONELEVEL_SCOPE );
-                StudioSearchResultEnumeration result = browserConnection
-                    .getConnection()
-                    .getConnectionWrapper()
-                    .search( dn.getName(), ISearch.FILTER_TRUE, searchControls, aliasDereferencingMethod,
-                        referralsHandlingMethod, null, dummyMonitor, null );
-
-                try
-                {
-                    // delete all child entries
-                    while ( !dummyMonitor.isCanceled() && !dummyMonitor.errorsReported() && result.hasMore() )
-                    {
-                        Dn childDn = result.next().getDn();
-
-                        numberOfDeletedEntries = optimisticDeleteEntryRecursive( browserConnection, childDn, false,
-                            false, numberOfDeletedEntries, dummyMonitor, monitor );
-                        numberInBatch++;
-                    }
-                }
-                catch ( Exception e )
-                {
-                    int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
-                    if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
-                    {
-                        // continue with search
-                    }
-                    else
-                    {
-                        dummyMonitor.reportError( e );
-                        break;
-                    }
-                }
-            }
-            while ( numberInBatch > 0 && !monitor.isCanceled() && !dummyMonitor.errorsReported() );
+            SubtreeDeleter subtreeDeleter = new SubtreeDeleter( browserConnection, numberOfDeletedEntries,
+                dummyMonitor, monitor );
+            subtreeDeleter.deleteChildren( dn );
+            numberOfDeletedEntries = subtreeDeleter.getNumberOfDeletedEntries();
 
             // try to delete the entry again 
             if ( !dummyMonitor.errorsReported() )
             {
                 deleteEntry( browserConnection, dn, false, false, dummyMonitor );
+                if ( dummyMonitor.errorsReported() )
+                {
+                    // e.g. not all children could be deleted
+                    monitor.reportError( dummyMonitor.getException() );
+                }
             }
             if ( !dummyMonitor.errorsReported() )
             {
@@ -0,0 +1,188 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.directory.api.dsmlv2.DsmlDecorator;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.io.OutputFormat;
+import org.dom4j.io.XMLWriter;
+
+
+/**
+ * Writes a DSML document incrementally, one request or response at a time.
+ * Each element starts on a new line, indented by its depth.
+ * <p>
+ * Unlike {@link org.apache.directory.api.dsmlv2.response.BatchResponseDsml#toDsml()} or
+ * {@link org.apache.directory.api.dsmlv2.request.BatchRequestDsml#toDsml()}, which build
+ * the whole document in memory, only the element of the currently written request
+ * or response is kept in memory.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class DsmlStreamWriter
+{
+    private static final String DSML_NAMESPACE_URI = "urn:oasis:names:tc:DSML:2:0:core"; //$NON-NLS-1$
+    private static final String XSD_NAMESPACE_URI = "http://www.w3.org/2001/XMLSchema"; //$NON-NLS-1$
+    private static final String XSI_NAMESPACE_URI = "http://www.w3.org/2001/XMLSchema-instance"; //$NON-NLS-1$
+
+    private static final String BATCH_RESPONSE_TAG = "batchResponse"; //$NON-NLS-1$
+    private static final String BATCH_REQUEST_TAG = "batchRequest"; //$NON-NLS-1$
+    private static final String SEARCH_RESPONSE_TAG = "searchResponse"; //$NON-NLS-1$
+
+    private static final String INDENT = "    "; //$NON-NLS-1$
+    private static final String LINE_SEPARATOR = "\n"; //$NON-NLS-1$
+
+    /** The underlying writer */
+    private Writer writer;
+
+    /** The writer used to serialize the elements of the requests and responses */
+    private XMLWriter xmlWriter;
+
+    /** The names of the currently opened elements */
+    private Deque<String> openElements = new ArrayDeque<>();
+
+
+    /**
+     * Creates a new instance of DsmlStreamWriter.
+     *
+     * @param writer the writer, the document is written in UTF-8
+     */
+    DsmlStreamWriter( Writer writer )
+    {
+        this.writer = writer;
+
+        // trimming text would modify attribute values
+        OutputFormat format = new OutputFormat( INDENT, true );
+        format.setLineSeparator( LINE_SEPARATOR );
+        this.xmlWriter = new XMLWriter( writer, format );
+    }
+
+
+    /**
+     * Writes the XML declaration and opens the batchResponse element.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void startBatchResponse() throws IOException
+    {
+        startDocument( BATCH_RESPONSE_TAG );
+    }
+
+
+    /**
+     * Writes the XML declaration and opens the batchRequest element.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void startBatchRequest() throws IOException
+    {
+        startDocument( BATCH_REQUEST_TAG );
+    }
+
+
+    /**
+     * Opens a searchResponse element.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void startSearchResponse() throws IOException
+    {
+        writer.write( LINE_SEPARATOR );
+        writeIndent();
+        writer.write( "<" + SEARCH_RESPONSE_TAG + ">" ); //$NON-NLS-1$ //$NON-NLS-2$
+        openElements.push( SEARCH_RESPONSE_TAG );
+    }
+
+
+    /**
+     * Writes the given request or response into the currently opened element.
+     *
+     * @param decorator the request or response
+     * @throws IOException if an I/O error occurs
+     */
+    void write( DsmlDecorator<?> decorator ) throws IOException
+    {
+        // the decorators expect to be added to a parent within a batch element
+        Element parent = DocumentHelper.createElement( BATCH_RESPONSE_TAG ).addElement( SEARCH_RESPONSE_TAG );
+        Element element = decorator.toDsml( parent );
+
+        xmlWriter.setIndentLevel( openElements.size() );
+        xmlWriter.write( element );
+    }
+
+
+    /**
+     * Closes the innermost opened element.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void endElement() throws IOException
+    {
+        String name = openElements.pop();
+        writer.write( LINE_SEPARATOR );
+        writeIndent();
+        writer.write( "</" + name + ">" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    /**
+     * Closes all opened elements and flushes the underlying writer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void endDocument() throws IOException
+    {
+        while ( !openElements.isEmpty() )
+        {
+            endElement();
+        }
+
+        writer.write( LINE_SEPARATOR );
+        writer.flush();
+    }
+
+
+    private void startDocument( String name ) throws IOException
+    {
+        writer.write( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + LINE_SEPARATOR ); //$NON-NLS-1$
+        writer.write( "<" + name //$NON-NLS-1$
+            + " xmlns=\"" + DSML_NAMESPACE_URI + "\"" //$NON-NLS-1$ //$NON-NLS-2$
+            + " xmlns:xsd=\"" + XSD_NAMESPACE_URI + "\"" //$NON-NLS-1$ //$NON-NLS-2$
+            + " xmlns:xsi=\"" + XSI_NAMESPACE_URI + "\">" ); //$NON-NLS-1$ //$NON-NLS-2$
+        openElements.push( name );
+    }
+
+
+    private void writeIndent() throws IOException
+    {
+        for ( int i = 0; i < openElements.size(); i++ )
+        {
+            writer.write( INDENT );
+        }
+    }
+}
@@ -26,28 +26,24 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.text.translate.CharSequenceTranslator;
-import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.exception.LdapException;
-import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExportLdifRunnable.DefaultLdifEnumeration;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
-import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 import org.apache.directory.studio.ldifparser.LdifUtils;
-import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
-import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
 import org.eclipse.core.runtime.Preferences;
@@ -214,23 +210,21 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
     {
         try
         {
-            LdifEnumeration enumeration = ExportLdifRunnable.search( browserConnection, searchParameter, monitor );
+            // write the entries without creating intermediate records
+            CsvStreamWriter csvWriter = new CsvStreamWriter( bufferedWriter, browserConnection.getSchema(),
+                attributes, attributeDelimiter, valueDelimiter, quoteCharacter, lineSeparator, encoding,
+                binaryEncoding, exportDn );
+
+            DefaultLdifEnumeration enumeration = ExportLdifRunnable.search( browserConnection, searchParameter,
+                monitor );
             while ( !monitor.isCanceled() && !monitor.errorsReported() && enumeration.hasNext() )
             {
-                LdifContainer container = enumeration.next();
-
-                if ( container instanceof LdifContentRecord )
-                {
+                csvWriter.write( enumeration.nextEntry() );
 
-                    LdifContentRecord record = ( LdifContentRecord ) container;
-                    bufferedWriter.write( recordToCsv( browserConnection, record, attributes, attributeDelimiter,
-                        valueDelimiter, quoteCharacter, lineSeparator, encoding, binaryEncoding, exportDn ) );
-
-                    count++;
-                    monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
-                        new String[]
-                            { Integer.toString( count ) } ) );
-                }
+                count++;
+                monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
+                    new String[]
+                        { Integer.toString( count ) } ) );
             }
         }
         catch ( LdapException ce )
@@ -248,90 +242,6 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
-    /**
-     * Transforms an LDIF rRecord to CSV.
-     * 
-     * @param browserConnection the browser connection
-     * @param record the record
-     * @param attributes the attributes
-     * @param attributeDelimiter the attribute delimiter
-     * @param valueDelimiter the value delimiter
-     * @param quoteCharacter the quote character
-     * @param lineSeparator the line separator
-     * @param encoding the encoding
-     * @param binaryEncoding the binary encoding
-     * @param exportDn the export dn
-     * 
-     * @return the string
-     */
-    private static String recordToCsv( IBrowserConnection browserConnection, LdifContentRecord record,
-        String[] attributes, String attributeDelimiter, String valueDelimiter, String quoteCharacter,
-        String lineSeparator, String encoding, int binaryEncoding, boolean exportDn )
-    {
-        CharSequenceTranslator decoder = Utils.createPostalAddressDecoder( lineSeparator );
-
-        // group multi-valued attributes
-        Map<String, String> attributeMap = getAttributeMap( browserConnection, record, valueDelimiter, encoding,
-            binaryEncoding );
-
-        // print attributes
-        StringBuffer sb = new StringBuffer();
-        if ( exportDn )
-        {
-            String value = record.getDnLine().getValueAsString();
-            appendValue( quoteCharacter, sb, value );
-
-            if ( attributes == null || attributes.length > 0 )
-                sb.append( attributeDelimiter );
-        }
-        for ( int i = 0; i < attributes.length; i++ )
-        {
-
-            String attributeName = attributes[i];
-            AttributeDescription ad = new AttributeDescription( attributeName );
-            String oidString = ad.toOidString( browserConnection.getSchema() );
-            if ( attributeMap.containsKey( oidString ) )
-            {
-                String value = attributeMap.get( oidString );
-                AttributeType type = browserConnection.getSchema().getAttributeTypeDescription( attributeName );
-                if ( SchemaConstants.POSTAL_ADDRESS_SYNTAX.equals( type.getSyntaxOid() ) )
-                {
-                    value = decoder.translate( value );
-                }
-                appendValue( quoteCharacter, sb, value );
-            }
-
-            // delimiter
-            if ( i + 1 < attributes.length )
-            {
-                sb.append( attributeDelimiter );
-            }
-
-        }
-        sb.append( lineSeparator );
-
-        return sb.toString();
-    }
-
-
-    private static void appendValue( String quoteCharacter, StringBuffer sb, String value )
-    {
-        // escape quote character
-        value = value.replaceAll( quoteCharacter, quoteCharacter + quoteCharacter );
-
-        // prefix values starting with '=' with a single quote to avoid interpretation as formula
-        if ( value.startsWith( "=" ) )
-        {
-            value = "'" + value;
-        }
-
-        // always quote
-        sb.append( quoteCharacter );
-        sb.append( value );
-        sb.append( quoteCharacter );
-    }
-
-
     /**
      * Gets the attribute map.
      * 
@@ -347,6 +257,7 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
         String valueDelimiter, String encoding, int binaryEncoding )
     {
         Map<String, String> attributeMap = new HashMap<String, String>();
+        CharsetEncoder encoder = Charset.forName( encoding ).newEncoder();
         LdifAttrValLine[] lines = record.getAttrVals();
         for ( int i = 0; i < lines.length; i++ )
         {
@@ -358,7 +269,7 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
                 attributeName = ad.toOidString( browserConnection.getSchema() );
             }
             String value = lines[i].getValueAsString();
-            if ( !Charset.forName( encoding ).newEncoder().canEncode( value ) )
+            if ( !encoder.canEncode( value ) )
             {
                 if ( binaryEncoding == BrowserCoreConstants.BINARYENCODING_BASE64 )
                 {
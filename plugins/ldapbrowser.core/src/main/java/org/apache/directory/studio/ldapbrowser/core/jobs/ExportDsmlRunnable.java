@@ -23,17 +23,17 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 import java.io.BufferedWriter;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.directory.api.dsmlv2.DsmlDecorator;
 import org.apache.directory.api.dsmlv2.request.AddRequestDsml;
-import org.apache.directory.api.dsmlv2.request.BatchRequestDsml;
-import org.apache.directory.api.dsmlv2.response.BatchResponseDsml;
-import org.apache.directory.api.dsmlv2.response.SearchResponseDsml;
 import org.apache.directory.api.dsmlv2.response.SearchResultDoneDsml;
 import org.apache.directory.api.dsmlv2.response.SearchResultEntryDsml;
 import org.apache.directory.api.dsmlv2.response.SearchResultReferenceDsml;
@@ -43,7 +43,6 @@ import org.apache.directory.api.ldap.model.entry.Attribute;
 import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Value;
 import org.apache.directory.api.ldap.model.exception.LdapException;
-import org.apache.directory.api.ldap.model.exception.LdapURLEncodingException;
 import org.apache.directory.api.ldap.model.message.LdapResult;
 import org.apache.directory.api.ldap.model.message.MessageTypeEnum;
 import org.apache.directory.api.ldap.model.message.Response;
@@ -194,37 +193,33 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
             StudioSearchResultEnumeration ne = SearchRunnable.search( browserConnection, searchParameter, dummyMonitor );
             monitor.worked( 1 );
 
-            // Getting the DSML string associated to the search
-            // and the type of answer the user is expecting
-            String dsmlExportString = null;
-            
-            switch ( type )
+            // Writing the DSML associated to the search and the type of answer
+            // the user is expecting to the final destination file, entry by entry.
+            try ( FileOutputStream fos = new FileOutputStream( exportDsmlFilename ) )
             {
-                case RESPONSE:
-                    dsmlExportString = processAsDsmlResponse( ne, dummyMonitor );
-                    break;
-                case REQUEST:
-                    dsmlExportString = processAsDsmlRequest( ne, dummyMonitor );
-                    break;
-            }
-            
-            monitor.worked( 1 );
-
-            // Writing the DSML string to the final destination file.
-            if ( dsmlExportString != null )
-            {
-                try ( FileOutputStream fos = new FileOutputStream( exportDsmlFilename ) )
+                try ( OutputStreamWriter osw = new OutputStreamWriter( fos, "UTF-8" ) ) //$NON-NLS-1$
                 {
-                    try ( OutputStreamWriter osw = new OutputStreamWriter( fos, "UTF-8" ) ) //$NON-NLS-1$
+                    try ( BufferedWriter bufferedWriter = new BufferedWriter( osw ) )
                     {
-                        try ( BufferedWriter bufferedWriter = new BufferedWriter( osw ) )
+                        DsmlStreamWriter dsmlWriter = new DsmlStreamWriter( bufferedWriter );
+
+                        switch ( type )
                         {
-                            bufferedWriter.write( dsmlExportString );
+                            case RESPONSE:
+                                dsmlWriter.startBatchResponse();
+                                processAsDsmlResponse( ne, dsmlWriter, dummyMonitor );
+                                break;
+                            case REQUEST:
+                                dsmlWriter.startBatchRequest();
+                                processAsDsmlRequest( ne, dsmlWriter, dummyMonitor );
+                                break;
                         }
+
+                        dsmlWriter.endDocument();
                     }
                 }
             }
-            monitor.worked( 1 );
+            monitor.worked( 2 );
         }
         catch ( Exception e )
         {
@@ -234,44 +229,62 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
 
 
     /**
-     * Processes the {@link StudioSearchResultEnumeration} as a DSML response.
+     * Processes the {@link StudioSearchResultEnumeration} as a DSML search response
+     * and writes the response to the given DSML writer.
      *
-     * @param sre the search result enumeration
-     * @param monitor the monitor
-     * @return the associated DSML
-     * @throws LdapException
+     * @param sre
+     *      the search result enumeration
+     * @param dsmlWriter
+     *      the DSML writer
+     * @param monitor 
+     *      the monitor
+     * @throws org.apache.directory.api.ldap.model.exception.LdapException
+     * @throws IOException
      */
-    private String processAsDsmlResponse( StudioSearchResultEnumeration sre, StudioProgressMonitor monitor ) throws LdapException
+    static void processAsDsmlResponse( StudioSearchResultEnumeration sre, DsmlStreamWriter dsmlWriter,
+        StudioProgressMonitor monitor ) throws LdapException, IOException
     {
-        // Creating the batch reponse
-        BatchResponseDsml batchResponse = new BatchResponseDsml();
+        dsmlWriter.startSearchResponse();
 
-        processAsDsmlResponse( sre, batchResponse, monitor, searchParameter );
+        try
+        {
+            processAsDsmlResponse( sre, response -> {
+                try
+                {
+                    dsmlWriter.write( response );
+                }
+                catch ( IOException e )
+                {
+                    throw new UncheckedIOException( e );
+                }
+            }, monitor );
+        }
+        catch ( UncheckedIOException e )
+        {
+            throw e.getCause();
+        }
 
-        // Returning the associated DSML
-        return batchResponse.toDsml();
+        dsmlWriter.endElement();
     }
 
 
     /**
-     * Processes the {@link StudioSearchResultEnumeration} as a DSML response.
+     * Processes the {@link StudioSearchResultEnumeration} as a DSML response, passing
+     * a search result entry or reference for each result and a search result done
+     * at the end to the given consumer.
      *
      * @param sre
      *      the search result enumeration
+     * @param responseConsumer
+     *      the consumer of the responses
      * @param monitor 
      *      the monitor
-     * @param searchParameter 
-     *      the search parameter
-     * @throws LdapURLEncodingException 
      * @throws org.apache.directory.api.ldap.model.exception.LdapException
      */
-    public static void processAsDsmlResponse( StudioSearchResultEnumeration sre, BatchResponseDsml batchResponse,
-        StudioProgressMonitor monitor, SearchParameter searchParameter ) throws LdapException
+    private static void processAsDsmlResponse( StudioSearchResultEnumeration sre,
+        Consumer<DsmlDecorator<? extends Response>> responseConsumer, StudioProgressMonitor monitor )
+        throws LdapException
     {
-        // Creating and adding the search response
-        SearchResponseDsml sr = new SearchResponseDsml( codec );
-        batchResponse.addResponse( sr );
-
         try
         {
             int count = 0;
@@ -282,7 +295,7 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
                 while ( sre.hasMore() )
                 {
                     Entry entry = sre.next().getEntry();
-                    sr.addResponse( convertSearchResultToDsml( entry ) );
+                    responseConsumer.accept( convertSearchResultToDsml( entry ) );
 
                     count++;
                     monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
@@ -325,7 +338,7 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
                 ldapResult.setDiagnosticMessage( t.getMessage() );
             }
         }
-        sr.addResponse( new SearchResultDoneDsml( codec, srd ) );
+        responseConsumer.accept( new SearchResultDoneDsml( codec, srd ) );
     }
 
 
@@ -407,22 +420,21 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
 
 
     /**
-     * Processes the {@link StudioSearchResultEnumeration} as a DSML request.
+     * Processes the {@link StudioSearchResultEnumeration} as a DSML request and
+     * writes the request to the given DSML writer.
      *
      * @param sre
      *      the search result enumeration
+     * @param dsmlWriter
+     *      the DSML writer
      * @param monitor 
      *      the monitor
-     * @return
-     *      the associated DSML
      * @throws LdapException
+     * @throws IOException
      */
-    private String processAsDsmlRequest( StudioSearchResultEnumeration sre, StudioProgressMonitor monitor )
-        throws LdapException
+    private void processAsDsmlRequest( StudioSearchResultEnumeration sre, DsmlStreamWriter dsmlWriter,
+        StudioProgressMonitor monitor ) throws LdapException, IOException
     {
-        // Creating the batch request
-        BatchRequestDsml batchRequest = new BatchRequestDsml();
-
         try
         {
             int count = 0;
@@ -434,7 +446,7 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
                 {
                     Entry entry = sre.next().getEntry();
                     AddRequestDsml arDsml = convertToAddRequestDsml( entry );
-                    batchRequest.addRequest( arDsml );
+                    dsmlWriter.write( arDsml );
 
                     count++;
                     monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
@@ -455,9 +467,6 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
                 monitor.reportError( e );
             }
         }
-
-        // Returning the associated DSML
-        return batchRequest.toDsml();
     }
 
 
@@ -22,43 +22,59 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.entry.Attribute;
 import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Value;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.api.ldap.model.message.controls.PagedResults;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapperPool;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
-import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
-import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
-import org.apache.directory.studio.ldapbrowser.core.utils.AttributeComparator;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
-import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifVersionLine;
+import org.eclipse.core.runtime.NullProgressMonitor;
 
 
 /**
@@ -77,6 +93,9 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     /** The search parameter. */
     private SearchParameter searchParameter;
 
+    /** The maximum number of partitions of a parallel export. */
+    private static final int MAX_PARTITIONS = 1000;
+
 
     /**
      * Creates a new instance of ExportLdifRunnable.
@@ -150,7 +169,15 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
 
             // export
             int count = 0;
-            export( browserConnection, searchParameter, bufferedWriter, count, monitor );
+            int connections = ImportLdifRunnable.getImportExportConnections();
+            if ( connections > 1 )
+            {
+                exportParallel( browserConnection, searchParameter, bufferedWriter, connections, monitor );
+            }
+            else
+            {
+                export( browserConnection, searchParameter, bufferedWriter, count, monitor );
+            }
 
             // close file
             bufferedWriter.close();
@@ -167,53 +194,254 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     private static void export( IBrowserConnection browserConnection, SearchParameter searchParameter,
         BufferedWriter bufferedWriter, int count, StudioProgressMonitor monitor ) throws IOException
     {
-        try
+        DefaultLdifEnumeration enumeration = search( browserConnection, searchParameter, monitor );
+        writeVersionLine( bufferedWriter );
+        exportRecords( browserConnection, enumeration, bufferedWriter, new AtomicInteger( count ), monitor );
+    }
+
+
+    /**
+     * Exports a subtree search using several connections. The subtree is partitioned
+     * by the children of the search base, each partition is exported to a temporary
+     * file by the next idle connection. The files are appended in the order of the
+     * partitions, so the result doesn't depend on the timing of the connections.
+     * <p>
+     * Falls back to a sequential export if the search can't be partitioned.
+     * 
+     * @param browserConnection the browser connection
+     * @param searchParameter the search parameter
+     * @param bufferedWriter the writer
+     * @param connections the maximum number of connections
+     * @param monitor the progress monitor
+     * @throws Exception
+     */
+    private static void exportParallel( IBrowserConnection browserConnection, SearchParameter searchParameter,
+        BufferedWriter bufferedWriter, int connections, StudioProgressMonitor monitor ) throws Exception
+    {
+        List<SearchParameter> partitions = getPartitions( browserConnection, searchParameter, monitor );
+        if ( partitions == null )
         {
-            LdifEnumeration enumeration = search( browserConnection, searchParameter, monitor );
-            LdifFormatParameters ldifFormatParameters = Utils.getLdifFormatParameters();
+            export( browserConnection, searchParameter, bufferedWriter, 0, monitor );
+            return;
+        }
 
-            // add version spec
-            if ( BrowserCorePlugin.getDefault().getPluginPreferences()
-                .getBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE ) )
+        ConnectionWrapperPool pool = new ConnectionWrapperPool( browserConnection.getConnection(),
+            Math.min( connections, partitions.size() ) );
+        ExecutorService executor = null;
+        List<PartitionExport> partitionExports = new ArrayList<>();
+
+        try
+        {
+            pool.connect( monitor );
+            BlockingQueue<ConnectionWrapper> idleConnectionWrappers = new LinkedBlockingQueue<>();
+            for ( int i = 0; i < pool.size(); i++ )
             {
-                LdifVersionLine ldifVersionLine = LdifVersionLine.create();
-                String ldifVersionLineString = ldifVersionLine.toFormattedString( ldifFormatParameters );
-                bufferedWriter.write( ldifVersionLineString );
-                LdifSepLine ldifSepLine = LdifSepLine.create();
-                String ldifSepLineString = ldifSepLine.toFormattedString( ldifFormatParameters );
-                bufferedWriter.write( ldifSepLineString );
+                idleConnectionWrappers.add( pool.get( i ) );
             }
 
-            // add the records
-            while ( !monitor.isCanceled() && !monitor.errorsReported() && enumeration.hasNext() )
+            executor = Executors.newFixedThreadPool( pool.size() );
+            AtomicInteger count = new AtomicInteger();
+            for ( SearchParameter partition : partitions )
             {
-                LdifContainer container = enumeration.next();
+                PartitionExport partitionExport = new PartitionExport( browserConnection, partition,
+                    idleConnectionWrappers, count );
+                partitionExport.future = executor.submit( partitionExport );
+                partitionExports.add( partitionExport );
+            }
+
+            writeVersionLine( bufferedWriter );
 
-                if ( container instanceof LdifContentRecord )
+            for ( PartitionExport partitionExport : partitionExports )
+            {
+                // wait for the partition, report the progress of all partitions meanwhile
+                while ( true )
                 {
-                    LdifContentRecord record = ( LdifContentRecord ) container;
-                    LdifDnLine dnLine = record.getDnLine();
-                    LdifSepLine sepLine = record.getSepLine();
-
-                    // sort and format
-                    DummyEntry entry = ModelConverter.ldifContentRecordToEntry( record, browserConnection );
-                    List<IValue> sortedValues = AttributeComparator.toSortedValues( entry );
-                    LdifContentRecord newRecord = new LdifContentRecord( dnLine );
-                    for ( IValue value : sortedValues )
+                    try
+                    {
+                        partitionExport.future.get( 500, TimeUnit.MILLISECONDS );
+                        break;
+                    }
+                    catch ( TimeoutException e )
+                    {
+                        monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
+                            new String[]
+                                { Integer.toString( count.get() ) } ) );
+
+                        if ( monitor.isCanceled() )
+                        {
+                            return;
+                        }
+                    }
+                    catch ( ExecutionException e )
                     {
-                        newRecord.addAttrVal( ModelConverter.valueToLdifAttrValLine( value ) );
+                        monitor.reportError( e );
+                        return;
                     }
-                    newRecord.finish( sepLine );
-                    String s = newRecord.toFormattedString( ldifFormatParameters );
+                }
 
-                    // String s = record.toFormattedString();
-                    bufferedWriter.write( s );
+                if ( partitionExport.monitor.errorsReported() )
+                {
+                    monitor.reportError( partitionExport.monitor.getErrorStatus( "" ).getMessage(), //$NON-NLS-1$
+                        partitionExport.monitor.getException() );
+                    return;
+                }
 
-                    count++;
-                    monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
-                        new String[]
-                            { Integer.toString( count ) } ) );
+                partitionExport.appendTo( bufferedWriter );
+            }
+        }
+        finally
+        {
+            if ( executor != null )
+            {
+                for ( PartitionExport partitionExport : partitionExports )
+                {
+                    partitionExport.monitor.setCanceled( true );
                 }
+                executor.shutdownNow();
+            }
+            for ( PartitionExport partitionExport : partitionExports )
+            {
+                partitionExport.deleteFile();
+            }
+            pool.close();
+        }
+    }
+
+
+    /**
+     * Partitions the given search: a search for the search base itself and a subtree
+     * search for each child of the search base.
+     * 
+     * @param browserConnection the browser connection
+     * @param searchParameter the search parameter
+     * @param monitor the progress monitor
+     * @return the partitions, null if the search can't be partitioned
+     */
+    private static List<SearchParameter> getPartitions( IBrowserConnection browserConnection,
+        SearchParameter searchParameter, StudioProgressMonitor monitor ) throws LdapException
+    {
+        // a count limit applies to the whole search, it can't be split
+        if ( searchParameter.getScope() != SearchScope.SUBTREE || searchParameter.getCountLimit() != 0 )
+        {
+            return null;
+        }
+
+        SearchParameter childrenParameter = createPartition( searchParameter, searchParameter.getSearchBase(),
+            SearchScope.ONELEVEL );
+        childrenParameter.setFilter( ISearch.FILTER_TRUE );
+        childrenParameter.setReturningAttributes( new String[]
+            { SchemaConstants.NO_ATTRIBUTE } );
+        childrenParameter.setCountLimit( MAX_PARTITIONS + 1 );
+        childrenParameter.getControls().removeIf( control -> control instanceof PagedResults );
+
+        List<SearchParameter> partitions = new ArrayList<>();
+        partitions.add( createPartition( searchParameter, searchParameter.getSearchBase(), SearchScope.OBJECT ) );
+
+        StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
+        StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, childrenParameter,
+            dummyMonitor );
+        if ( enumeration == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            while ( !dummyMonitor.errorsReported() && enumeration.hasMore() )
+            {
+                Dn dn = enumeration.next().getDn();
+                partitions.add( createPartition( searchParameter, dn, SearchScope.SUBTREE ) );
+            }
+        }
+        catch ( LdapException e )
+        {
+            // e.g. size limit exceeded
+            return null;
+        }
+        finally
+        {
+            enumeration.close();
+        }
+
+        // with less than two children the export can't be parallelized
+        if ( dummyMonitor.errorsReported() || monitor.isCanceled() || partitions.size() < 3
+            || partitions.size() > MAX_PARTITIONS + 1 )
+        {
+            return null;
+        }
+
+        return partitions;
+    }
+
+
+    /**
+     * Creates a copy of the given search parameter with another search base and scope.
+     * 
+     * @param searchParameter the search parameter
+     * @param searchBase the search base
+     * @param scope the scope
+     * @return the copy
+     */
+    private static SearchParameter createPartition( SearchParameter searchParameter, Dn searchBase,
+        SearchScope scope )
+    {
+        SearchParameter partition = ( SearchParameter ) searchParameter.clone();
+        partition.setSearchBase( searchBase );
+        partition.setScope( scope );
+
+        // the paged results control keeps the cookie, each partition needs its own control
+        partition.getControls().clear();
+        for ( Control control : searchParameter.getControls() )
+        {
+            if ( control instanceof PagedResults )
+            {
+                PagedResults pagedResults = Controls.newPagedResultsControl( ( ( PagedResults ) control ).getSize() );
+                pagedResults.setCritical( control.isCritical() );
+                partition.getControls().add( pagedResults );
+            }
+            else
+            {
+                partition.getControls().add( control );
+            }
+        }
+
+        return partition;
+    }
+
+
+    private static void writeVersionLine( BufferedWriter bufferedWriter ) throws IOException
+    {
+        if ( BrowserCorePlugin.getDefault().getPluginPreferences()
+            .getBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE ) )
+        {
+            LdifFormatParameters ldifFormatParameters = Utils.getLdifFormatParameters();
+            LdifVersionLine ldifVersionLine = LdifVersionLine.create();
+            String ldifVersionLineString = ldifVersionLine.toFormattedString( ldifFormatParameters );
+            bufferedWriter.write( ldifVersionLineString );
+            LdifSepLine ldifSepLine = LdifSepLine.create();
+            String ldifSepLineString = ldifSepLine.toFormattedString( ldifFormatParameters );
+            bufferedWriter.write( ldifSepLineString );
+        }
+    }
+
+
+    private static void exportRecords( IBrowserConnection browserConnection, DefaultLdifEnumeration enumeration,
+        BufferedWriter bufferedWriter, AtomicInteger count, StudioProgressMonitor monitor ) throws IOException
+    {
+        try
+        {
+            // sort and format the entries without creating intermediate records
+            LdifStreamWriter ldifWriter = new LdifStreamWriter( bufferedWriter, browserConnection.getSchema(),
+                Utils.getLdifFormatParameters() );
+
+            // add the records
+            while ( !monitor.isCanceled() && !monitor.errorsReported() && enumeration.hasNext() )
+            {
+                ldifWriter.write( enumeration.nextEntry() );
+
+                monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
+                    new String[]
+                        { Integer.toString( count.incrementAndGet() ) } ) );
             }
         }
         catch ( LdapException loe )
@@ -231,11 +459,94 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
-    static LdifEnumeration search( IBrowserConnection browserConnection, SearchParameter parameter,
+    static DefaultLdifEnumeration search( IBrowserConnection browserConnection, SearchParameter parameter,
+        StudioProgressMonitor monitor )
+    {
+        return search( browserConnection.getConnection().getConnectionWrapper(), parameter, monitor );
+    }
+
+
+    static DefaultLdifEnumeration search( ConnectionWrapper connectionWrapper, SearchParameter parameter,
         StudioProgressMonitor monitor )
     {
-        StudioSearchResultEnumeration result = SearchRunnable.search( browserConnection, parameter, monitor );
-        return new DefaultLdifEnumeration( result, browserConnection, parameter, monitor );
+        StudioSearchResultEnumeration result = SearchRunnable.search( connectionWrapper, parameter, monitor );
+        return new DefaultLdifEnumeration( result, connectionWrapper, parameter, monitor );
+    }
+
+
+    /**
+     * Exports a partition of a search to a temporary file.
+     */
+    private static class PartitionExport implements Callable<Void>
+    {
+        private final IBrowserConnection browserConnection;
+
+        private final SearchParameter searchParameter;
+
+        private final BlockingQueue<ConnectionWrapper> idleConnectionWrappers;
+
+        private final AtomicInteger count;
+
+        /** The monitor of this partition, the job's monitor must only be used by the job's thread */
+        private final StudioProgressMonitor monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+
+        private Future<Void> future;
+
+        private File file;
+
+
+        PartitionExport( IBrowserConnection browserConnection, SearchParameter searchParameter,
+            BlockingQueue<ConnectionWrapper> idleConnectionWrappers, AtomicInteger count )
+        {
+            this.browserConnection = browserConnection;
+            this.searchParameter = searchParameter;
+            this.idleConnectionWrappers = idleConnectionWrappers;
+            this.count = count;
+        }
+
+
+        public Void call() throws Exception
+        {
+            ConnectionWrapper connectionWrapper = idleConnectionWrappers.take();
+            try
+            {
+                file = File.createTempFile( "studio-export", ".ldif" ); //$NON-NLS-1$ //$NON-NLS-2$
+                try ( BufferedWriter writer = new BufferedWriter( new FileWriter( file ) ) )
+                {
+                    DefaultLdifEnumeration enumeration = search( connectionWrapper, searchParameter, monitor );
+                    exportRecords( browserConnection, enumeration, writer, count, monitor );
+                }
+            }
+            finally
+            {
+                idleConnectionWrappers.add( connectionWrapper );
+            }
+
+            return null;
+        }
+
+
+        void appendTo( Writer writer ) throws IOException
+        {
+            try ( Reader reader = new FileReader( file ) )
+            {
+                char[] buffer = new char[8192];
+                int length;
+                while ( ( length = reader.read( buffer ) ) != -1 )
+                {
+                    writer.write( buffer, 0, length );
+                }
+            }
+        }
+
+
+        void deleteFile()
+        {
+            if ( file != null )
+            {
+                file.delete();
+            }
+        }
     }
 
     static class DefaultLdifEnumeration implements LdifEnumeration
@@ -243,18 +554,18 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
 
         private StudioSearchResultEnumeration enumeration;
 
-        private IBrowserConnection browserConnection;
+        private ConnectionWrapper connectionWrapper;
 
         private SearchParameter parameter;
 
         private StudioProgressMonitor monitor;
 
 
-        public DefaultLdifEnumeration( StudioSearchResultEnumeration enumeration, IBrowserConnection browserConnection,
+        public DefaultLdifEnumeration( StudioSearchResultEnumeration enumeration, ConnectionWrapper connectionWrapper,
             SearchParameter parameter, StudioProgressMonitor monitor )
         {
             this.enumeration = enumeration;
-            this.browserConnection = browserConnection;
+            this.connectionWrapper = connectionWrapper;
             this.parameter = parameter;
             this.monitor = monitor;
         }
@@ -285,7 +596,7 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
                                     ( ( PagedResults ) requestControl ).setCookie( cookie );
                                 }
                             }
-                            enumeration = SearchRunnable.search( browserConnection, parameter, monitor );
+                            enumeration = SearchRunnable.search( connectionWrapper, parameter, monitor );
                             return enumeration != null && enumeration.hasMore();
                         }
                     }
@@ -296,9 +607,21 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
         }
 
 
+        /**
+         * Gets the next entry, without converting it to an LDIF record.
+         *
+         * @return the next entry
+         * @throws LdapException if an error occurs
+         */
+        public Entry nextEntry() throws LdapException
+        {
+            return enumeration.next().getEntry();
+        }
+
+
         public LdifContainer next() throws LdapException
         {
-            Entry entry = enumeration.next().getEntry();
+            Entry entry = nextEntry();
             Dn dn = entry.getDn();
             LdifContentRecord record = LdifContentRecord.create( dn.getName() );
 
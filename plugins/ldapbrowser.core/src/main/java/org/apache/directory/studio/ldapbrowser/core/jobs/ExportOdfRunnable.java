@@ -21,8 +21,12 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -44,11 +48,6 @@ import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.eclipse.core.runtime.Preferences;
-import org.odftoolkit.odfdom.type.ValueType;
-import org.odftoolkit.simple.SpreadsheetDocument;
-import org.odftoolkit.simple.table.Cell;
-import org.odftoolkit.simple.table.Row;
-import org.odftoolkit.simple.table.Table;
 
 
 /**
@@ -58,9 +57,6 @@ import org.odftoolkit.simple.table.Table;
  */
 public class ExportOdfRunnable implements StudioConnectionRunnableWithProgress
 {
-    /** The maximum count limit */
-    public static final int MAX_COUNT_LIMIT = 65000;
-
     /** The postal address decoder. */
     private static CharSequenceTranslator DECODER = Utils.createPostalAddressDecoder( "\n" ); //$NON-NLS-1$;
 
@@ -147,42 +143,23 @@ public class ExportOdfRunnable implements StudioConnectionRunnableWithProgress
         int binaryEncoding = coreStore.getInt( BrowserCoreConstants.PREFERENCE_FORMAT_ODF_BINARYENCODING );
 
         // export
-        try
+        try ( SpreadsheetStreamWriter odsWriter = new OdsStreamWriter( "Export" ) ) //$NON-NLS-1$
         {
-            SpreadsheetDocument doc = SpreadsheetDocument.newSpreadsheetDocument();
-
-            // Remove the default table added in construction
-            doc.removeSheet( 0 );
-
-            // create the table
-            Table table = doc.appendSheet( "Export" ); //$NON-NLS-1$
-
             // header
-            Row headerRow = table.appendRow();
-            LinkedHashMap<String, Short> attributeNameMap = new LinkedHashMap<String, Short>();
+            LinkedHashMap<String, Integer> attributeNameMap = new LinkedHashMap<String, Integer>();
             if ( this.exportDn )
             {
-                short cellNum = ( short ) 0;
-                attributeNameMap.put( "dn", new Short( cellNum ) ); //$NON-NLS-1$
-                Cell cell = headerRow.getCellByIndex( cellNum );
-                cell.setValueType( ValueType.STRING.name() );
-                cell.setStringValue( "dn" ); //$NON-NLS-1$
-            }
-
-            // max export
-            if ( searchParameter.getCountLimit() < 1 || searchParameter.getCountLimit() > MAX_COUNT_LIMIT )
-            {
-                searchParameter.setCountLimit( MAX_COUNT_LIMIT );
+                attributeNameMap.put( "dn", 0 ); //$NON-NLS-1$
             }
 
             int count = 0;
-            exportToOdf( browserConnection, searchParameter, table, headerRow, count, monitor,
-                attributeNameMap, valueDelimiter, binaryEncoding, this.exportDn );
+            exportToOdf( browserConnection, searchParameter, odsWriter, count, monitor, attributeNameMap,
+                valueDelimiter, binaryEncoding, this.exportDn );
 
-            // remove default rows
-            table.removeRowsByIndex( 0, 2 );
-
-            doc.save( exportOdfFilename );
+            try ( FileOutputStream fileOut = new FileOutputStream( exportOdfFilename ) )
+            {
+                odsWriter.finish( fileOut, new ArrayList<String>( attributeNameMap.keySet() ) );
+            }
         }
         catch ( Exception e )
         {
@@ -196,8 +173,7 @@ public class ExportOdfRunnable implements StudioConnectionRunnableWithProgress
      * 
      * @param browserConnection the browser connection
      * @param searchParameter the search parameter
-     * @param table the table
-     * @param headerRow the header row
+     * @param odsWriter the ODS writer
      * @param count the count
      * @param monitor the monitor
      * @param attributeNameMap the attribute name map
@@ -208,8 +184,8 @@ public class ExportOdfRunnable implements StudioConnectionRunnableWithProgress
      * @throws IOException Signals that an I/O exception has occurred.
      */
     private static void exportToOdf( IBrowserConnection browserConnection, SearchParameter searchParameter,
-        Table table, Row headerRow, int count, StudioProgressMonitor monitor,
-        LinkedHashMap<String, Short> attributeNameMap, String valueDelimiter, int binaryEncoding, boolean exportDn )
+        SpreadsheetStreamWriter odsWriter, int count, StudioProgressMonitor monitor,
+        LinkedHashMap<String, Integer> attributeNameMap, String valueDelimiter, int binaryEncoding, boolean exportDn )
         throws IOException
     {
         try
@@ -222,8 +198,8 @@ public class ExportOdfRunnable implements StudioConnectionRunnableWithProgress
                 if ( container instanceof LdifContentRecord )
                 {
                     LdifContentRecord record = ( LdifContentRecord ) container;
-                    recordToOdfRow( browserConnection, record, table, headerRow, attributeNameMap,
-                        valueDelimiter, binaryEncoding, exportDn );
+                    recordToOdfRow( browserConnection, record, odsWriter, attributeNameMap, valueDelimiter,
+                        binaryEncoding, exportDn );
 
                     count++;
                     monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
@@ -249,33 +225,32 @@ public class ExportOdfRunnable implements StudioConnectionRunnableWithProgress
 
 
     /**
-     * Transforms an LDIF record to an OdfTableRow.
+     * Transforms an LDIF record to an ODF table row and writes it.
      * 
      * @param browserConnection the browser connection
      * @param record the record
-     * @param table the table
-     * @param headerRow the header row
+     * @param odsWriter the ODS writer
      * @param headerRowAttributeNameMap the header row attribute name map
      * @param valueDelimiter the value delimiter
      * @param binaryEncoding the binary encoding
      * @param exportDn the export dn
+     * @throws IOException Signals that an I/O exception has occurred.
      */
     private static void recordToOdfRow( IBrowserConnection browserConnection, LdifContentRecord record,
-        Table table, Row headerRow, Map<String, Short> headerRowAttributeNameMap,
-        String valueDelimiter, int binaryEncoding, boolean exportDn )
+        SpreadsheetStreamWriter odsWriter, Map<String, Integer> headerRowAttributeNameMap,
+        String valueDelimiter, int binaryEncoding, boolean exportDn ) throws IOException
     {
         // group multi-valued attributes
         Map<String, String> attributeMap = ExportCsvRunnable.getAttributeMap( null, record, valueDelimiter, "UTF-16", //$NON-NLS-1$
             binaryEncoding );
 
         // output attributes
-        Row row = table.appendRow();
+        List<String> row = new ArrayList<String>();
+        BitSet wrapped = new BitSet();
 
         if ( exportDn )
         {
-            Cell cell = row.getCellByIndex( 0 );
-            cell.setValueType( ValueType.STRING.name() );
-            cell.setStringValue( record.getDnLine().getValueAsString() );
+            SpreadsheetStreamWriter.setCell( row, 0, record.getDnLine().getValueAsString() );
         }
         for ( String attributeName : attributeMap.keySet() )
         {
@@ -286,27 +261,21 @@ public class ExportOdfRunnable implements StudioConnectionRunnableWithProgress
             }
             if ( !headerRowAttributeNameMap.containsKey( attributeName ) )
             {
-                short cellNum = ( short ) headerRowAttributeNameMap.size();
-                headerRowAttributeNameMap.put( attributeName, new Short( cellNum ) );
-                Cell cell = headerRow.getCellByIndex( cellNum );
-                cell.setValueType( ValueType.STRING.name() );
-                cell.setStringValue( attributeName );
+                headerRowAttributeNameMap.put( attributeName, headerRowAttributeNameMap.size() );
             }
-            if ( headerRowAttributeNameMap.containsKey( attributeName ) )
+
+            int cellNum = headerRowAttributeNameMap.get( attributeName );
+            AttributeType type = browserConnection.getSchema().getAttributeTypeDescription( attributeName );
+            if ( SchemaConstants.POSTAL_ADDRESS_SYNTAX.equals( type.getSyntaxOid() ) )
             {
-                short cellNum = headerRowAttributeNameMap.get( attributeName ).shortValue();
-                Cell cell = row.getCellByIndex( cellNum );
-                cell.setValueType( ValueType.STRING.name() );
-                AttributeType type = browserConnection.getSchema().getAttributeTypeDescription( attributeName );
-                if ( SchemaConstants.POSTAL_ADDRESS_SYNTAX.equals( type.getSyntaxOid() ) )
-                {
-                    // https://docs.oasis-open.org/office/OpenDocument/v1.3/os/part4-formula/OpenDocument-v1.3-os-part4-formula.html#__RefHeading__1017970_715980110
-                    value = DECODER.translate( value );
-                    cell.setTextWrapped( true );
-                }
-                cell.setStringValue( value );
+                // https://docs.oasis-open.org/office/OpenDocument/v1.3/os/part4-formula/OpenDocument-v1.3-os-part4-formula.html#__RefHeading__1017970_715980110
+                value = DECODER.translate( value );
+                wrapped.set( cellNum );
             }
+            SpreadsheetStreamWriter.setCell( row, cellNum, value );
         }
+
+        odsWriter.writeRow( row, wrapped );
     }
 
 }
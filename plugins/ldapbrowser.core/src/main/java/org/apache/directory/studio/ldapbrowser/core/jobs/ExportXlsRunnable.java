@@ -23,7 +23,11 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -54,15 +58,25 @@ import org.eclipse.core.runtime.Preferences;
 
 
 /**
- * Runnable to export directory content to an XLS file.
+ * Runnable to export directory content to an XLSX file, or to an XLS file
+ * if the file name ends with .xls.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
 {
-    /** The maximum count limit */
+    /** The maximum count limit of XLS files */
     public static final int MAX_COUNT_LIMIT = 65000;
 
+    /** The extension of XLS files, other files are written in the XLSX format */
+    private static final String XLS_EXTENSION = ".xls"; //$NON-NLS-1$
+
+    /** The number of rows used to estimate the column widths of XLS files */
+    private static final int COLUMN_WIDTH_SAMPLE_SIZE = 1000;
+
+    /** The maximum column width of XLS files, in units of 1/256th of a character */
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+
     /** The postal address decoder. */
     private static CharSequenceTranslator DECODER = Utils.createPostalAddressDecoder( "\n" ); //$NON-NLS-1$;
 
@@ -148,18 +162,74 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
         String valueDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_XLS_VALUEDELIMITER );
         int binaryEncoding = coreStore.getInt( BrowserCoreConstants.PREFERENCE_FORMAT_XLS_BINARYENCODING );
 
-        HSSFWorkbook wb = new HSSFWorkbook();
-        HSSFSheet sheet = wb.createSheet( "Export" ); //$NON-NLS-1$
-
         // header
-        HSSFRow headerRow = sheet.createRow( 0 );
         LinkedHashMap<String, Integer> attributeNameMap = new LinkedHashMap<String, Integer>();
         if ( this.exportDn )
         {
-            int cellNum = 0;
-            attributeNameMap.put( "dn", cellNum ); //$NON-NLS-1$
-            createStringCell( headerRow, cellNum ).setCellValue( "dn" ); //$NON-NLS-1$
+            attributeNameMap.put( "dn", 0 ); //$NON-NLS-1$
+        }
+
+        if ( exportXlsFilename.toLowerCase( Locale.ROOT ).endsWith( XLS_EXTENSION ) )
+        {
+            exportToHssf( monitor, attributeNameMap, valueDelimiter, binaryEncoding );
+        }
+        else
+        {
+            exportToXlsx( monitor, attributeNameMap, valueDelimiter, binaryEncoding );
         }
+    }
+
+
+    /**
+     * Exports to an XLSX file. The rows are streamed to temporary files, so the
+     * number of rows is not limited by the available memory.
+     *
+     * @param monitor the monitor
+     * @param attributeNameMap the attribute name map
+     * @param valueDelimiter the value delimiter
+     * @param binaryEncoding the binary encoding
+     */
+    private void exportToXlsx( StudioProgressMonitor monitor, LinkedHashMap<String, Integer> attributeNameMap,
+        String valueDelimiter, int binaryEncoding )
+    {
+        try ( SpreadsheetStreamWriter xlsxWriter = new XlsxStreamWriter( "Export" ) ) //$NON-NLS-1$
+        {
+            int count = 0;
+            exportToXls( browserConnection, searchParameter, ( row, wrapped ) -> xlsxWriter.writeRow( row, wrapped ),
+                count, monitor, attributeNameMap, valueDelimiter, binaryEncoding, this.exportDn );
+
+            try ( FileOutputStream fileOut = new FileOutputStream( exportXlsFilename ) )
+            {
+                xlsxWriter.finish( fileOut, new ArrayList<String>( attributeNameMap.keySet() ) );
+            }
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
+    }
+
+
+    /**
+     * Exports to an XLS file. The workbook is built in memory and the XLS format
+     * is limited to 65536 rows, so the number of exported entries is limited to
+     * {@link #MAX_COUNT_LIMIT}.
+     *
+     * @param monitor the monitor
+     * @param attributeNameMap the attribute name map
+     * @param valueDelimiter the value delimiter
+     * @param binaryEncoding the binary encoding
+     */
+    private void exportToHssf( StudioProgressMonitor monitor, LinkedHashMap<String, Integer> attributeNameMap,
+        String valueDelimiter, int binaryEncoding )
+    {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        HSSFSheet sheet = wb.createSheet( "Export" ); //$NON-NLS-1$
+        HSSFRow headerRow = sheet.createRow( 0 );
+
+        // one style for all wrapped cells, the number of styles of a workbook is limited
+        CellStyle wrapStyle = wb.createCellStyle();
+        wrapStyle.setWrapText( true );
 
         // max export
         if ( searchParameter.getCountLimit() < 1 || searchParameter.getCountLimit() > MAX_COUNT_LIMIT )
@@ -168,33 +238,51 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
         }
 
         // export
+        List<Integer> columnWidths = new ArrayList<Integer>();
         try
         {
             int count = 0;
-            exportToXls( browserConnection, searchParameter, sheet, headerRow, count, monitor, attributeNameMap,
-                valueDelimiter, binaryEncoding, this.exportDn );
+            exportToXls( browserConnection, searchParameter, ( row, wrapped ) -> {
+                HSSFRow hssfRow = sheet.createRow( sheet.getLastRowNum() + 1 );
+                for ( int i = 0; i < row.size(); i++ )
+                {
+                    if ( row.get( i ) != null )
+                    {
+                        HSSFCell cell = createStringCell( hssfRow, i );
+                        if ( wrapped.get( i ) )
+                        {
+                            cell.setCellStyle( wrapStyle );
+                        }
+                        cell.setCellValue( row.get( i ) );
+                    }
+                }
+
+                // estimate the column widths from the first rows
+                if ( hssfRow.getRowNum() <= COLUMN_WIDTH_SAMPLE_SIZE )
+                {
+                    updateColumnWidths( columnWidths, row );
+                }
+            }, count, monitor, attributeNameMap, valueDelimiter, binaryEncoding, this.exportDn );
         }
         catch ( Exception e )
         {
             monitor.reportError( e );
         }
 
+        // header
+        List<String> header = new ArrayList<String>( attributeNameMap.keySet() );
+        for ( int i = 0; i < header.size(); i++ )
+        {
+            createStringCell( headerRow, i ).setCellValue( header.get( i ) );
+        }
+        updateColumnWidths( columnWidths, header );
+
         // column width
-        for ( int i = 0; i <= sheet.getLastRowNum(); i++ )
+        for ( int i = 0; i < columnWidths.size(); i++ )
         {
-            HSSFRow row = sheet.getRow( i );
-            for ( short j = 0; row != null && j <= row.getLastCellNum(); j++ )
+            if ( columnWidths.get( i ) > sheet.getColumnWidth( i ) )
             {
-                HSSFCell cell = row.getCell( j );
-                if ( cell != null && cell.getCellType() == HSSFCell.CELL_TYPE_STRING )
-                {
-                    String value = cell.getStringCellValue();
-
-                    if ( ( short ) ( value.length() * 256 * 1.1 ) > sheet.getColumnWidth( j ) )
-                    {
-                        sheet.setColumnWidth( j, ( short ) ( value.length() * 256 * 1.1 ) );
-                    }
-                }
+                sheet.setColumnWidth( i, columnWidths.get( i ) );
             }
         }
 
@@ -216,8 +304,7 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
      * 
      * @param browserConnection the browser connection
      * @param searchParameter the search parameter
-     * @param sheet the sheet
-     * @param headerRow the header row
+     * @param rowWriter the row writer
      * @param count the count
      * @param monitor the monitor
      * @param attributeNameMap the attribute name map
@@ -228,7 +315,7 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
      * @throws IOException Signals that an I/O exception has occurred.
      */
     private static void exportToXls( IBrowserConnection browserConnection, SearchParameter searchParameter,
-        HSSFSheet sheet, HSSFRow headerRow, int count, StudioProgressMonitor monitor,
+        RowWriter rowWriter, int count, StudioProgressMonitor monitor,
         LinkedHashMap<String, Integer> attributeNameMap, String valueDelimiter, int binaryEncoding, boolean exportDn )
         throws IOException
     {
@@ -242,7 +329,7 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
                 if ( container instanceof LdifContentRecord )
                 {
                     LdifContentRecord record = ( LdifContentRecord ) container;
-                    recordToHSSFRow( browserConnection, record, sheet, headerRow, attributeNameMap, valueDelimiter,
+                    recordToRow( browserConnection, record, rowWriter, attributeNameMap, valueDelimiter,
                         binaryEncoding, exportDn );
 
                     count++;
@@ -269,34 +356,31 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
 
 
     /**
-     * Transforms an LDIF record to an HSSF row.
+     * Transforms an LDIF record to a row and writes it.
      * 
      * @param browserConnection the browser connection
      * @param record the record
-     * @param sheet the sheet
-     * @param headerRow the header row
+     * @param rowWriter the row writer
      * @param headerRowAttributeNameMap the header row attribute name map
      * @param valueDelimiter the value delimiter
      * @param binaryEncoding the binary encoding
      * @param exportDn the export dn
+     * @throws IOException Signals that an I/O exception has occurred.
      */
-    private static void recordToHSSFRow( IBrowserConnection browserConnection, LdifContentRecord record,
-        HSSFSheet sheet, HSSFRow headerRow, Map<String, Integer> headerRowAttributeNameMap, String valueDelimiter,
-        int binaryEncoding, boolean exportDn )
+    private static void recordToRow( IBrowserConnection browserConnection, LdifContentRecord record,
+        RowWriter rowWriter, Map<String, Integer> headerRowAttributeNameMap, String valueDelimiter,
+        int binaryEncoding, boolean exportDn ) throws IOException
     {
         // group multi-valued attributes
         Map<String, String> attributeMap = ExportCsvRunnable.getAttributeMap( null, record, valueDelimiter, "UTF-16", //$NON-NLS-1$
             binaryEncoding );
 
-        CellStyle wrapStyle = sheet.getWorkbook().createCellStyle();
-        wrapStyle.setWrapText( true );
-
         // output attributes
-        HSSFRow row = sheet.createRow( sheet.getLastRowNum() + 1 );
+        List<String> row = new ArrayList<String>();
+        BitSet wrapped = new BitSet();
         if ( exportDn )
         {
-            HSSFCell cell = createStringCell(row, 0 );
-            cell.setCellValue( record.getDnLine().getValueAsString() );
+            SpreadsheetStreamWriter.setCell( row, 0, record.getDnLine().getValueAsString() );
         }
         for ( String attributeName : attributeMap.keySet() )
         {
@@ -304,27 +388,46 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
 
             if ( !headerRowAttributeNameMap.containsKey( attributeName ) )
             {
-                int cellNum = headerRowAttributeNameMap.size();
-                headerRowAttributeNameMap.put( attributeName, new Integer( cellNum ) );
-                HSSFCell cell = createStringCell( headerRow, cellNum );
-                cell.setCellValue( attributeName );
+                headerRowAttributeNameMap.put( attributeName, headerRowAttributeNameMap.size() );
             }
 
-            if ( headerRowAttributeNameMap.containsKey( attributeName ) )
+            int cellNum = headerRowAttributeNameMap.get( attributeName );
+            AttributeType type = browserConnection.getSchema().getAttributeTypeDescription( attributeName );
+            if ( SchemaConstants.POSTAL_ADDRESS_SYNTAX.equals( type.getSyntaxOid() ) )
             {
-                int cellNum = headerRowAttributeNameMap.get( attributeName ).shortValue();
-                HSSFCell cell = createStringCell( row, cellNum );
-                AttributeType type = browserConnection.getSchema().getAttributeTypeDescription( attributeName );
-                if ( SchemaConstants.POSTAL_ADDRESS_SYNTAX.equals( type.getSyntaxOid() ) )
+                // https://poi.apache.org/components/spreadsheet/quick-guide.html#NewLinesInCells
+                value = DECODER.translate( value );
+                wrapped.set( cellNum );
+            }
+            SpreadsheetStreamWriter.setCell( row, cellNum, value );
+        }
+
+        rowWriter.writeRow( row, wrapped );
+    }
+
+
+    /**
+     * Updates the column widths, in units of 1/256th of a character, with the given values.
+     */
+    private static void updateColumnWidths( List<Integer> columnWidths, List<String> values )
+    {
+        for ( int i = 0; i < values.size(); i++ )
+        {
+            while ( columnWidths.size() <= i )
+            {
+                columnWidths.add( 0 );
+            }
+
+            String value = values.get( i );
+            if ( value != null )
+            {
+                int width = Math.min( MAX_COLUMN_WIDTH, ( int ) ( value.length() * 256 * 1.1 ) );
+                if ( width > columnWidths.get( i ) )
                 {
-                    // https://poi.apache.org/components/spreadsheet/quick-guide.html#NewLinesInCells
-                    value = DECODER.translate( value );
-                    cell.setCellStyle( wrapStyle );
+                    columnWidths.set( i, width );
                 }
-                cell.setCellValue( value );
             }
         }
-
     }
 
 
@@ -335,4 +438,19 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
         return cell;
     }
 
+    /**
+     * Receives the rows of the export.
+     */
+    private interface RowWriter
+    {
+        /**
+         * Writes a row.
+         *
+         * @param row the cell values by column index, null for empty cells
+         * @param wrapped the columns whose cell text should be wrapped
+         * @throws IOException if an I/O error occurs
+         */
+        void writeRow( List<String> row, BitSet wrapped ) throws IOException;
+    }
+
 }
@@ -21,19 +21,21 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Deque;
 import java.util.List;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -51,9 +53,14 @@ import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.ConnectionCoreConstants;
 import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapperPool;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
+import org.apache.directory.studio.connection.core.io.api.StudioOperationFuture;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
@@ -75,7 +82,7 @@ import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifControlLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifModSpecTypeLine;
-import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
 
 
 /**
@@ -184,46 +191,52 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
         monitor.reportProgress( " " ); //$NON-NLS-1$
         monitor.worked( 1 );
 
-        try
+        try ( FileChannel ldifChannel = FileChannel.open( this.ldifFile.toPath(), StandardOpenOption.READ );
+            Writer logWriter = createLogWriter( this.logFile ) )
         {
-            Reader ldifReader = new BufferedReader( new FileReader( this.ldifFile ) );
-            LdifParser parser = new LdifParser();
-            LdifEnumeration enumeration = parser.parse( ldifReader );
+            // small files are parsed sequentially, LDIF files are UTF-8 encoded
+            ParallelLdifParser parser = new ParallelLdifParser();
+            LdifEnumeration enumeration = parser.parse( ldifChannel, StandardCharsets.UTF_8 );
 
-            Writer logWriter;
-            if ( this.logFile != null )
-            {
-                logWriter = new BufferedWriter( new FileWriter( this.logFile ) );
-            }
-            else
-            {
-                logWriter = new Writer()
-                {
-                    public void close() throws IOException
-                    {
-                    }
+            importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists, continueOnError, monitor );
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
+    }
 
 
-                    public void flush() throws IOException
-                    {
-                    }
+    /**
+     * Creates the writer of the log file.
+     *
+     * @param logFile the log file, may be null
+     * @return the writer of the log file, or a writer discarding the log if the log file is null
+     * @throws IOException if the log file can't be opened
+     */
+    private static Writer createLogWriter( File logFile ) throws IOException
+    {
+        if ( logFile != null )
+        {
+            return new BufferedWriter( new FileWriter( logFile ) );
+        }
 
+        return new Writer()
+        {
+            public void close() throws IOException
+            {
+            }
 
-                    public void write( char[] cbuf, int off, int len ) throws IOException
-                    {
-                    }
-                };
+
+            public void flush() throws IOException
+            {
             }
 
-            importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists, continueOnError, monitor );
 
-            logWriter.close();
-            ldifReader.close();
-        }
-        catch ( Exception e )
-        {
-            monitor.reportError( e );
-        }
+            public void write( char[] cbuf, int off, int len ) throws IOException
+            {
+            }
+        };
     }
 
 
@@ -237,7 +250,12 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
 
 
     /**
-     * Imports the LDIF enumeration
+     * Imports the LDIF enumeration. If the import should continue on errors
+     * several operations are sent without waiting for their responses,
+     * the maximum number of outstanding operations per connection is configured by the
+     * {@link BrowserCoreConstants#PREFERENCE_LDIF_IMPORT_WINDOW_SIZE} preference, the number
+     * of connections by the {@link BrowserCoreConstants#PREFERENCE_IMPORT_EXPORT_CONNECTIONS}
+     * preference.
      * 
      * @param browserConnection the browser connection
      * @param enumeration the LDIF enumeration
@@ -254,6 +272,26 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
             return;
         }
 
+        // without continue on error the import must stop at the failed record,
+        // that can't be guaranteed if subsequent records are already sent
+        int windowSize = getImportWindowSize();
+        int connections = getImportExportConnections();
+        if ( continueOnError && ( windowSize > 1 || connections > 1 ) )
+        {
+            ConnectionWrapperPool pool = new ConnectionWrapperPool( browserConnection.getConnection(), connections );
+            try
+            {
+                pool.connect( monitor );
+                new PipelinedImport( browserConnection, pool, logWriter, updateIfEntryExists,
+                    Math.max( windowSize, 1 ) * pool.size(), monitor ).run( enumeration );
+            }
+            finally
+            {
+                pool.close();
+            }
+            return;
+        }
+
         StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
         int importedCount = 0;
         int errorCount = 0;
@@ -286,72 +324,7 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
                         {
                             importedCount++;
                             logModification( browserConnection, logWriter, record, monitor );
-
-                            // update cache and adjust attribute/children initialization flags
-                            Dn dn = new Dn( record.getDnLine().getValueAsString() );
-                            IEntry entry = browserConnection.getEntryFromCache( dn );
-                            Dn parentDn = dn.getParent();
-                            IEntry parentEntry = null;
-                            while ( parentEntry == null && parentDn != null )
-                            {
-                                parentEntry = browserConnection.getEntryFromCache( parentDn );
-                                parentDn = parentDn.getParent();
-                            }
-
-                            if ( record instanceof LdifChangeDeleteRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                    browserConnection.uncacheEntryRecursive( entry );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                }
-                            }
-                            else if ( record instanceof LdifChangeModDnRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                    browserConnection.uncacheEntryRecursive( entry );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                }
-                                LdifChangeModDnRecord modDnRecord = ( LdifChangeModDnRecord ) record;
-                                if ( modDnRecord.getNewsuperiorLine() != null )
-                                {
-                                    Dn newSuperiorDn = new Dn( modDnRecord.getNewsuperiorLine()
-                                        .getValueAsString() );
-                                    IEntry newSuperiorEntry = browserConnection.getEntryFromCache( newSuperiorDn );
-                                    if ( newSuperiorEntry != null )
-                                    {
-                                        newSuperiorEntry.setChildrenInitialized( false );
-                                    }
-                                }
-                            }
-                            else if ( record instanceof LdifChangeAddRecord || record instanceof LdifContentRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                    parentEntry.setHasChildrenHint( true );
-                                }
-                            }
-                            else
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                }
-                            }
+                            updateCache( browserConnection, record );
                         }
                     }
                     catch ( Exception e )
@@ -390,6 +363,117 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
     }
 
 
+    /**
+     * Gets the maximum number of outstanding operations during an import.
+     * 
+     * @return the maximum number of outstanding operations
+     */
+    private static int getImportWindowSize()
+    {
+        if ( BrowserCorePlugin.getDefault() == null )
+        {
+            return 1;
+        }
+
+        return BrowserCorePlugin.getDefault().getPluginPreferences().getInt(
+            BrowserCoreConstants.PREFERENCE_LDIF_IMPORT_WINDOW_SIZE );
+    }
+
+
+    /**
+     * Gets the number of connections used for imports and exports.
+     * 
+     * @return the number of connections
+     */
+    static int getImportExportConnections()
+    {
+        if ( BrowserCorePlugin.getDefault() == null )
+        {
+            return 1;
+        }
+
+        return BrowserCorePlugin.getDefault().getPluginPreferences().getInt(
+            BrowserCoreConstants.PREFERENCE_IMPORT_EXPORT_CONNECTIONS );
+    }
+
+
+    /**
+     * Updates the cache and adjusts the attribute/children initialization flags
+     * after the given record was imported successfully.
+     * 
+     * @param browserConnection the browser connection
+     * @param record the imported record
+     * @throws LdapInvalidDnException
+     */
+    private static void updateCache( IBrowserConnection browserConnection, LdifRecord record )
+        throws LdapInvalidDnException
+    {
+        Dn dn = new Dn( record.getDnLine().getValueAsString() );
+        IEntry entry = browserConnection.getEntryFromCache( dn );
+        Dn parentDn = dn.getParent();
+        IEntry parentEntry = null;
+        while ( parentEntry == null && parentDn != null )
+        {
+            parentEntry = browserConnection.getEntryFromCache( parentDn );
+            parentDn = parentDn.getParent();
+        }
+
+        if ( record instanceof LdifChangeDeleteRecord )
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+                browserConnection.uncacheEntryRecursive( entry );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+            }
+        }
+        else if ( record instanceof LdifChangeModDnRecord )
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+                browserConnection.uncacheEntryRecursive( entry );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+            }
+            LdifChangeModDnRecord modDnRecord = ( LdifChangeModDnRecord ) record;
+            if ( modDnRecord.getNewsuperiorLine() != null )
+            {
+                Dn newSuperiorDn = new Dn( modDnRecord.getNewsuperiorLine().getValueAsString() );
+                IEntry newSuperiorEntry = browserConnection.getEntryFromCache( newSuperiorDn );
+                if ( newSuperiorEntry != null )
+                {
+                    newSuperiorEntry.setChildrenInitialized( false );
+                }
+            }
+        }
+        else if ( record instanceof LdifChangeAddRecord || record instanceof LdifContentRecord )
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+                parentEntry.setHasChildrenHint( true );
+            }
+        }
+        else
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+            }
+        }
+    }
+
+
     /**
      * Imports the LDIF record.
      * 
@@ -412,35 +496,17 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
 
         if ( record instanceof LdifContentRecord || record instanceof LdifChangeAddRecord )
         {
-            IEntry dummyEntry;
-            if ( record instanceof LdifContentRecord )
+            Entry entry;
+            try
             {
-                LdifContentRecord attrValRecord = ( LdifContentRecord ) record;
-                try
-                {
-                    dummyEntry = ModelConverter.ldifContentRecordToEntry( attrValRecord, browserConnection );
-                }
-                catch ( LdapInvalidDnException e )
-                {
-                    monitor.reportError( e );
-                    return;
-                }
+                entry = toEntry( browserConnection, record );
             }
-            else
+            catch ( LdapInvalidDnException e )
             {
-                LdifChangeAddRecord changeAddRecord = ( LdifChangeAddRecord ) record;
-                try
-                {
-                    dummyEntry = ModelConverter.ldifChangeAddRecordToEntry( changeAddRecord, browserConnection );
-                }
-                catch ( LdapInvalidDnException e )
-                {
-                    monitor.reportError( e );
-                    return;
-                }
+                monitor.reportError( e );
+                return;
             }
 
-            Entry entry = ModelConverter.toLdapApiEntry( dummyEntry );
             browserConnection.getConnection().getConnectionWrapper()
                 .createEntry( entry, getControls( record ), monitor, null );
 
@@ -464,41 +530,7 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
         else if ( record instanceof LdifChangeModifyRecord )
         {
             LdifChangeModifyRecord modifyRecord = ( LdifChangeModifyRecord ) record;
-            LdifModSpec[] modSpecs = modifyRecord.getModSpecs();
-            Collection<Modification> modifications = new ArrayList<>();
-            for ( int ii = 0; ii < modSpecs.length; ii++ )
-            {
-                LdifModSpecTypeLine modSpecType = modSpecs[ii].getModSpecType();
-                LdifAttrValLine[] attrVals = modSpecs[ii].getAttrVals();
-
-                DefaultAttribute attribute = new DefaultAttribute( modSpecType.getUnfoldedAttributeDescription() );
-                for ( int x = 0; x < attrVals.length; x++ )
-                {
-                    Object valueAsObject = attrVals[x].getValueAsObject();
-                    if ( valueAsObject instanceof String )
-                    {
-                        attribute.add( ( String ) valueAsObject );
-                    }
-                    else if ( valueAsObject instanceof byte[] )
-                    {
-                        attribute.add( ( byte[] ) valueAsObject );
-                    }
-                }
-
-                if ( modSpecType.isAdd() )
-                {
-                    modifications.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, attribute ) );
-                }
-                else if ( modSpecType.isDelete() )
-                {
-                    modifications.add( new DefaultModification( ModificationOperation.REMOVE_ATTRIBUTE, attribute ) );
-                }
-                else if ( modSpecType.isReplace() )
-                {
-                    modifications.add( new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, attribute ) );
-                }
-            }
-
+            Collection<Modification> modifications = toModifications( modifyRecord );
             browserConnection.getConnection().getConnectionWrapper()
                 .modifyEntry( new Dn( dn ), modifications, getControls( modifyRecord ), monitor, null );
         }
@@ -529,6 +561,125 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
     }
 
 
+    /**
+     * Sends the LDIF record without waiting for the response.
+     * Modify Dn records are not supported.
+     * 
+     * @param browserConnection the browser connection
+     * @param connectionWrapper the connection wrapper used to send the record
+     * @param record the LDIF record, an add, content, delete or modify record
+     * @param monitor the progress monitor
+     * 
+     * @return the future of the operation
+     * @throws LdapException if the record is invalid
+     */
+    static StudioOperationFuture importLdifRecordAsync( IBrowserConnection browserConnection,
+        ConnectionWrapper connectionWrapper, LdifRecord record, StudioProgressMonitor monitor ) throws LdapException
+    {
+        if ( !record.isValid() )
+        {
+            throw new LdapSchemaException( BrowserCoreMessages.bind( BrowserCoreMessages.model__invalid_record,
+                record.getInvalidString() ) );
+        }
+
+        Dn dn = new Dn( record.getDnLine().getValueAsString() );
+
+        if ( record instanceof LdifContentRecord || record instanceof LdifChangeAddRecord )
+        {
+            return connectionWrapper.createEntryAsync( toEntry( browserConnection, record ), getControls( record ),
+                monitor );
+        }
+        else if ( record instanceof LdifChangeDeleteRecord )
+        {
+            return connectionWrapper.deleteEntryAsync( dn, getControls( record ), monitor );
+        }
+        else if ( record instanceof LdifChangeModifyRecord )
+        {
+            return connectionWrapper.modifyEntryAsync( dn, toModifications( ( LdifChangeModifyRecord ) record ),
+                getControls( record ), monitor );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Unsupported record: " + record ); //$NON-NLS-1$
+        }
+    }
+
+
+    /**
+     * Converts the given add or content record to an entry.
+     * 
+     * @param browserConnection the browser connection
+     * @param record the add or content record
+     * 
+     * @return the entry
+     * @throws LdapException
+     */
+    private static Entry toEntry( IBrowserConnection browserConnection, LdifRecord record ) throws LdapException
+    {
+        IEntry dummyEntry;
+        if ( record instanceof LdifContentRecord )
+        {
+            dummyEntry = ModelConverter.ldifContentRecordToEntry( ( LdifContentRecord ) record, browserConnection );
+        }
+        else
+        {
+            dummyEntry = ModelConverter.ldifChangeAddRecordToEntry( ( LdifChangeAddRecord ) record,
+                browserConnection );
+        }
+
+        return ModelConverter.toLdapApiEntry( dummyEntry );
+    }
+
+
+    /**
+     * Converts the mod specs of the given modify record to modifications.
+     * 
+     * @param modifyRecord the modify record
+     * 
+     * @return the modifications
+     */
+    private static Collection<Modification> toModifications( LdifChangeModifyRecord modifyRecord )
+        throws LdapException
+    {
+        LdifModSpec[] modSpecs = modifyRecord.getModSpecs();
+        Collection<Modification> modifications = new ArrayList<>();
+        for ( int ii = 0; ii < modSpecs.length; ii++ )
+        {
+            LdifModSpecTypeLine modSpecType = modSpecs[ii].getModSpecType();
+            LdifAttrValLine[] attrVals = modSpecs[ii].getAttrVals();
+
+            DefaultAttribute attribute = new DefaultAttribute( modSpecType.getUnfoldedAttributeDescription() );
+            for ( int x = 0; x < attrVals.length; x++ )
+            {
+                Object valueAsObject = attrVals[x].getValueAsObject();
+                if ( valueAsObject instanceof String )
+                {
+                    attribute.add( ( String ) valueAsObject );
+                }
+                else if ( valueAsObject instanceof byte[] )
+                {
+                    attribute.add( ( byte[] ) valueAsObject );
+                }
+            }
+
+            if ( modSpecType.isAdd() )
+            {
+                modifications.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, attribute ) );
+            }
+            else if ( modSpecType.isDelete() )
+            {
+                modifications.add( new DefaultModification( ModificationOperation.REMOVE_ATTRIBUTE, attribute ) );
+            }
+            else if ( modSpecType.isReplace() )
+            {
+                modifications.add( new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, attribute ) );
+            }
+        }
+
+        return modifications;
+    }
+
+
     /**
      * Gets the controls.
      * 
@@ -624,4 +775,276 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
             monitor.reportError( BrowserCoreMessages.model__error_logging_modification, ioe );
         }
     }
+
+
+    /**
+     * Imports LDIF records with several outstanding asynchronous operations.
+     * <p>
+     * The records are sent round robin over the connections of a pool. The responses
+     * are processed in the order of the records, so the log file is the same as
+     * with a sequential import. A record is not sent before all outstanding
+     * operations of the same entry, its parents and its children are completed,
+     * i.e. a parent is always committed before its children, even if they are
+     * sent over different connections.
+     * Modify Dn records are performed synchronously after all outstanding
+     * operations are completed.
+     */
+    private static class PipelinedImport
+    {
+        /** The browser connection. */
+        private final IBrowserConnection browserConnection;
+
+        /** The connection pool. */
+        private final ConnectionWrapperPool pool;
+
+        /** The log writer. */
+        private final Writer logWriter;
+
+        /** The update if entry exists flag. */
+        private final boolean updateIfEntryExists;
+
+        /** The maximum number of outstanding operations. */
+        private final int windowSize;
+
+        /** The progress monitor. */
+        private final StudioProgressMonitor monitor;
+
+        /** The progress monitor for the single operations. */
+        private final StudioProgressMonitor dummyMonitor;
+
+        /** The outstanding operations and not yet logged containers, in LDIF order. */
+        private final Deque<PendingContainer> pendingContainers = new ArrayDeque<>();
+
+        private int sentCount = 0;
+        private int importedCount = 0;
+        private int errorCount = 0;
+
+
+        PipelinedImport( IBrowserConnection browserConnection, ConnectionWrapperPool pool, Writer logWriter,
+            boolean updateIfEntryExists, int windowSize, StudioProgressMonitor monitor )
+        {
+            this.browserConnection = browserConnection;
+            this.pool = pool;
+            this.logWriter = logWriter;
+            this.updateIfEntryExists = updateIfEntryExists;
+            this.windowSize = windowSize;
+            this.monitor = monitor;
+            this.dummyMonitor = new StudioProgressMonitor( monitor );
+        }
+
+
+        void run( LdifEnumeration enumeration )
+        {
+            try
+            {
+                while ( !monitor.isCanceled() && enumeration.hasNext() )
+                {
+                    submit( enumeration.next() );
+                }
+
+                while ( !monitor.isCanceled() && !pendingContainers.isEmpty() )
+                {
+                    complete( pendingContainers.poll() );
+                }
+
+                if ( errorCount > 0 )
+                {
+                    monitor.reportError( BrowserCoreMessages.bind( BrowserCoreMessages.ldif__n_errors_see_logfile,
+                        new String[]
+                            { "" + errorCount } ) ); //$NON-NLS-1$
+                }
+            }
+            catch ( Exception e )
+            {
+                monitor.reportError( e );
+            }
+            finally
+            {
+                // abandon outstanding operations after cancellation or errors
+                for ( PendingContainer pendingContainer : pendingContainers )
+                {
+                    if ( pendingContainer.future != null )
+                    {
+                        pendingContainer.future.cancel();
+                    }
+                }
+                pendingContainers.clear();
+            }
+        }
+
+
+        /**
+         * Sends the given container if it is a record, waits for outstanding
+         * operations if the window is full or the record depends on them.
+         */
+        private void submit( LdifContainer container ) throws IOException
+        {
+            PendingContainer pendingContainer = new PendingContainer( container );
+
+            if ( container instanceof LdifRecord )
+            {
+                LdifRecord record = ( LdifRecord ) container;
+
+                try
+                {
+                    if ( record instanceof LdifChangeModDnRecord )
+                    {
+                        // renames may affect any outstanding operation, perform them synchronously
+                        completeAll();
+                        dummyMonitor.reset();
+                        importLdifRecord( browserConnection, record, updateIfEntryExists, dummyMonitor );
+                        pendingContainer.exception = dummyMonitor.getException();
+                    }
+                    else
+                    {
+                        if ( record.isValid() )
+                        {
+                            pendingContainer.dn = new Dn( record.getDnLine().getValueAsString() );
+                            completeDependencies( pendingContainer.dn );
+                        }
+                        ConnectionWrapper connectionWrapper = pool.get( sentCount++ % pool.size() );
+                        pendingContainer.future = importLdifRecordAsync( browserConnection, connectionWrapper,
+                            record, dummyMonitor );
+                    }
+                }
+                catch ( Exception e )
+                {
+                    pendingContainer.exception = e;
+                }
+            }
+
+            while ( pendingContainers.size() >= windowSize )
+            {
+                complete( pendingContainers.poll() );
+            }
+            pendingContainers.add( pendingContainer );
+        }
+
+
+        /**
+         * Completes all outstanding operations.
+         */
+        private void completeAll() throws IOException
+        {
+            while ( !pendingContainers.isEmpty() )
+            {
+                complete( pendingContainers.poll() );
+            }
+        }
+
+
+        /**
+         * Completes outstanding operations until no operation of the same
+         * entry, a parent or a child of the given Dn is outstanding.
+         */
+        private void completeDependencies( Dn dn ) throws IOException
+        {
+            while ( hasOutstandingDependency( dn ) )
+            {
+                complete( pendingContainers.poll() );
+            }
+        }
+
+
+        private boolean hasOutstandingDependency( Dn dn )
+        {
+            for ( PendingContainer pendingContainer : pendingContainers )
+            {
+                Dn pendingDn = pendingContainer.dn;
+
+                if ( pendingDn != null && ( dn.isDescendantOf( pendingDn ) || pendingDn.isDescendantOf( dn ) ) )
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+
+        /**
+         * Waits for the response of the given container, logs it and updates
+         * the cache.
+         */
+        private void complete( PendingContainer pendingContainer ) throws IOException
+        {
+            LdifContainer container = pendingContainer.container;
+
+            if ( !( container instanceof LdifRecord ) )
+            {
+                logWriter.write( container.toRawString() );
+                return;
+            }
+
+            LdifRecord record = ( LdifRecord ) container;
+            try
+            {
+                Exception exception = pendingContainer.exception;
+
+                if ( exception == null && pendingContainer.future != null )
+                {
+                    exception = pendingContainer.future.get();
+
+                    if ( exception != null && updateIfEntryExists
+                        && StudioLdapException.isEntryAlreadyExistsException( exception ) )
+                    {
+                        // creation failed with Error 68, now try to update the existing entry
+                        dummyMonitor.reset();
+                        Collection<Modification> modifications = ModelConverter
+                            .toReplaceModifications( toEntry( browserConnection, record ) );
+                        browserConnection.getConnection().getConnectionWrapper().modifyEntry(
+                            pendingContainer.dn, modifications, getControls( record ), dummyMonitor, null );
+                        exception = dummyMonitor.getException();
+                    }
+                }
+
+                if ( exception != null )
+                {
+                    errorCount++;
+                    logModificationError( browserConnection, logWriter, record, exception, monitor );
+                }
+                else
+                {
+                    importedCount++;
+                    logModification( browserConnection, logWriter, record, monitor );
+                    updateCache( browserConnection, record );
+                }
+            }
+            catch ( Exception e )
+            {
+                logModificationError( browserConnection, logWriter, record, e, monitor );
+                errorCount++;
+            }
+
+            monitor.reportProgress( BrowserCoreMessages.bind(
+                BrowserCoreMessages.ldif__imported_n_entries_m_errors, new String[]
+                    { "" + importedCount, "" + errorCount } ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+
+    /**
+     * A container of the LDIF enumeration and, for records,
+     * the state of its operation.
+     */
+    private static class PendingContainer
+    {
+        /** The LDIF container. */
+        private final LdifContainer container;
+
+        /** The Dn of a sent record. */
+        private Dn dn;
+
+        /** The future of a sent record. */
+        private StudioOperationFuture future;
+
+        /** The exception if the record couldn't be sent or performed. */
+        private Exception exception;
+
+
+        PendingContainer( LdifContainer container )
+        {
+            this.container = container;
+        }
+    }
 }
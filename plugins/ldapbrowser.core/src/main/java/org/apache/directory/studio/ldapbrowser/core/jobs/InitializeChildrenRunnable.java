@@ -66,6 +66,15 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
     /** The paged search control, only used internally. */
     private PagedResults pagedSearchControl;
 
+    /** The page read ahead, only used internally. */
+    private PageReadAhead readAhead;
+
+    /** The virtual list view window, only used internally. */
+    private VirtualListViewWindow vlvWindow;
+
+    /** The value to position the children at, null to start at the first child. */
+    private String seekValue;
+
     /**
      * Creates a new instance of InitializeChildrenRunnable.
      * 
@@ -93,6 +102,51 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
     }
 
 
+    /**
+     * Creates a new instance of InitializeChildrenRunnable.
+     * 
+     * @param entry the entry
+     * @param vlvWindow the virtual list view window
+     */
+    private InitializeChildrenRunnable( IEntry entry, VirtualListViewWindow vlvWindow )
+    {
+        this.entries = new IEntry[]
+            { entry };
+        this.vlvWindow = vlvWindow;
+    }
+
+
+    /**
+     * Creates a new instance of InitializeChildrenRunnable that positions the children
+     * at the first child whose Rdn value is greater than or equal to the given value.
+     * The children are sorted and positioned by the server using the virtual list view
+     * control, if the connection doesn't support it the children are initialized
+     * from the first child.
+     * 
+     * @param entry the entry
+     * @param seekValue the value to position the children at
+     */
+    public InitializeChildrenRunnable( IEntry entry, String seekValue )
+    {
+        this.entries = new IEntry[]
+            { entry };
+        this.seekValue = seekValue;
+    }
+
+
+    /**
+     * Checks if the children of the given connection's entries can be positioned at
+     * a value, see {@link #InitializeChildrenRunnable(IEntry, String)}.
+     * 
+     * @param browserConnection the browser connection
+     * @return true if the connection browses with the virtual list view control
+     */
+    public static boolean isSeekSupported( IBrowserConnection browserConnection )
+    {
+        return VirtualListViewWindow.isSupported( browserConnection );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -200,16 +254,36 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
             new String[]
             { parent.getDn().getName() } ) );
 
+        // take the page read ahead, before the old next page runnable is discarded
+        PageReadAhead pageReadAhead = readAhead;
+        readAhead = null;
+
         // clear old children
         clearCaches( parent, purgeAllCaches );
 
-        // create search
-        ISearch search = createSearch( parent, pagedSearchControl, false, false, false );
-
-        // search
-        executeSearch( parent, search, monitor );
+        // search, or use the page read ahead
+        ISearch search = pageReadAhead != null ? pageReadAhead.take( monitor ) : null;
+        if ( search == null && pageReadAhead != null && pageReadAhead.getNextCookie() != null )
+        {
+            // the page was discarded after its cookie was consumed, continue with the next cookie
+            pagedSearchControl = Controls.newPagedResultsControl( pagedSearchControl.getSize(),
+                pageReadAhead.getNextCookie() );
+        }
+        VirtualListViewWindow window = null;
+        if ( search == null && ( pagedSearchControl == null || ArrayUtils.isEmpty( pagedSearchControl.getCookie() ) ) )
+        {
+            window = getWindow( parent, monitor );
+            search = window != null ? searchWindow( parent, window, monitor ) : null;
+            window = search != null ? window : null;
+        }
+        if ( search == null )
+        {
+            search = createSearch( parent, pagedSearchControl, false, false, false );
+            executeSearch( parent, search, monitor );
+        }
         ISearchResult[] srs = search.getSearchResults();
         SearchContinuation[] scs = search.getSearchContinuations();
+        int numberOfChildren = srs != null ? srs.length : 0;
 
         // fill children in search result
         if ( ( srs != null && srs.length > 0 ) || ( scs != null && scs.length > 0 ) )
@@ -266,7 +340,7 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
                         {
                             // create top page search runnable, same as original search
                             InitializeChildrenRunnable topPageChildrenRunnable = new InitializeChildrenRunnable(
-                                parent, null );
+                                parent, ( PagedResults ) null );
                             parent.setTopPageChildrenRunnable( topPageChildrenRunnable );
                         }
 
@@ -276,6 +350,12 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
                                 prResponseControl.getCookie() );
                             InitializeChildrenRunnable nextPageChildrenRunnable = new InitializeChildrenRunnable(
                                 parent, newPrc );
+                            if ( ArrayUtils.isNotEmpty( prRequestControl.getCookie() ) )
+                            {
+                                // the user scrolls through the pages, read the next page ahead
+                                nextPageChildrenRunnable.readAhead = PageReadAhead.start( createSearch( parent,
+                                    newPrc, false, false, false ) );
+                            }
                             parent.setNextPageChildrenRunnable( nextPageChildrenRunnable );
                         }
                     }
@@ -300,11 +380,26 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
             }
             while ( srs != null && srs.length > 0 );
         }
-        else
+        else if ( window == null || window.getTopWindow() == null )
         {
             parent.setHasChildrenHint( false );
         }
 
+        // virtual list view: create top and next window runnables
+        if ( window != null )
+        {
+            VirtualListViewWindow topWindow = window.getTopWindow();
+            if ( topWindow != null )
+            {
+                parent.setTopPageChildrenRunnable( new InitializeChildrenRunnable( parent, topWindow ) );
+            }
+            VirtualListViewWindow nextWindow = window.getNextWindow( numberOfChildren );
+            if ( nextWindow != null )
+            {
+                parent.setNextPageChildrenRunnable( new InitializeChildrenRunnable( parent, nextWindow ) );
+            }
+        }
+
         // get sub-entries
         ISearch subSearch = createSearch( parent, null, true, false, false );
         if ( parent.getBrowserConnection().isFetchSubentries() || parent.isFetchSubentries() )
@@ -329,6 +424,61 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
     }
 
 
+    /**
+     * Gets the virtual list view window to initialize.
+     * 
+     * @param parent the parent
+     * @param monitor the progress monitor
+     * @return the window, null if the connection doesn't browse with the virtual list view control
+     */
+    private VirtualListViewWindow getWindow( IEntry parent, StudioProgressMonitor monitor )
+    {
+        IBrowserConnection browserConnection = parent.getBrowserConnection();
+        if ( !VirtualListViewWindow.isSupported( browserConnection ) )
+        {
+            return null;
+        }
+        if ( vlvWindow != null )
+        {
+            return vlvWindow;
+        }
+
+        // sort the children by the Rdn attribute of the first child
+        String sortAttribute = VirtualListViewWindow.getChildrenRdnAttribute( parent, monitor );
+        if ( sortAttribute == null )
+        {
+            return null;
+        }
+        return seekValue != null ? VirtualListViewWindow.seek( sortAttribute,
+            browserConnection.getPagedSearchSize(), seekValue ) : VirtualListViewWindow.first( sortAttribute,
+            browserConnection.getPagedSearchSize() );
+    }
+
+
+    /**
+     * Searches the children of the given window.
+     * 
+     * @param parent the parent
+     * @param window the virtual list view window
+     * @param monitor the progress monitor
+     * @return the search, null if the window couldn't be read and paged search should be used instead
+     */
+    private static ISearch searchWindow( IEntry parent, VirtualListViewWindow window, StudioProgressMonitor monitor )
+    {
+        ISearch search = createSearch( parent, null, false, false, false );
+        window.addControls( search );
+
+        // errors are not reported, paged search is used instead
+        StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
+        executeSearch( parent, search, dummyMonitor );
+        if ( dummyMonitor.errorsReported() || !window.readResponse( search ) )
+        {
+            return null;
+        }
+        return search;
+    }
+
+
     private void executeSubSearch( IEntry parent, ISearch subSearch, StudioProgressMonitor monitor )
     {
         executeSearch( parent, subSearch, monitor );
@@ -426,6 +576,16 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
     }
 
 
+    private void discardReadAhead()
+    {
+        if ( readAhead != null )
+        {
+            readAhead.discard();
+            readAhead = null;
+        }
+    }
+
+
     static void clearCaches( IEntry entry, boolean purgeAllCaches )
     {
         // clear the parent-child relationship, recursively
@@ -444,12 +604,17 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
         entry.setChildrenInitialized( false );
 
         // reset paging runnables
+        if ( entry.getNextPageChildrenRunnable() instanceof InitializeChildrenRunnable )
+        {
+            ( ( InitializeChildrenRunnable ) entry.getNextPageChildrenRunnable() ).discardReadAhead();
+        }
         entry.setTopPageChildrenRunnable( null );
         entry.setNextPageChildrenRunnable( null );
 
         // reset attributes and additional flags
         if ( purgeAllCaches )
         {
+            VirtualListViewWindow.clearChildrenRdnAttribute( entry );
             entry.setAttributesInitialized( false );
             entry.setHasChildrenHint( true );
             entry.setHasMoreChildren( false );
@@ -0,0 +1,370 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
+import org.apache.directory.studio.ldapbrowser.core.utils.AttributeComparator;
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.LdifUtils;
+
+
+/**
+ * Writes entries as LDIF content records directly to a writer.
+ * <p>
+ * The attributes and values are sorted like
+ * {@link AttributeComparator} does, and the lines are folded like
+ * {@link org.apache.directory.studio.ldifparser.model.container.LdifContentRecord#toFormattedString(LdifFormatParameters)},
+ * but no intermediate records, entries or lines are created. Human-readable values are written as
+ * safe strings if possible, all other values are written base64 encoded with their raw bytes. The schema
+ * lookups are cached per attribute and object class, and the line buffers are reused for all entries.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class LdifStreamWriter
+{
+    /** The writer */
+    private Writer writer;
+
+    /** The schema */
+    private Schema schema;
+
+    /** The format parameters */
+    private LdifFormatParameters formatParameters;
+
+    /** The attribute type information, by attribute description */
+    private Map<String, AttributeInfo> attributeInfos = new HashMap<>();
+
+    /** The transitive must attribute types, by lower-cased object class name */
+    private Map<String, Collection<AttributeType>> mustAttributeTypes = new HashMap<>();
+
+    /** The must attribute types of the object classes of the current entry */
+    private List<Collection<AttributeType>> entryMustAttributeTypes = new ArrayList<>();
+
+    /** The sorted attributes of the current entry */
+    private List<SortedAttribute> sortedAttributes = new ArrayList<>();
+
+    /** The pool of sorted attributes */
+    private List<SortedAttribute> sortedAttributePool = new ArrayList<>();
+
+    /** The values of the current attribute */
+    private List<Value> values = new ArrayList<>();
+
+    /** The current unfolded line */
+    private StringBuilder line = new StringBuilder();
+
+    /** The buffer used to copy the line to the writer */
+    private char[] buffer = new char[256];
+
+
+    /**
+     * Creates a new instance of LdifStreamWriter.
+     *
+     * @param writer the writer
+     * @param schema the schema used to sort the attributes
+     * @param formatParameters the format parameters
+     */
+    LdifStreamWriter( Writer writer, Schema schema, LdifFormatParameters formatParameters )
+    {
+        this.writer = writer;
+        this.schema = schema;
+        this.formatParameters = formatParameters;
+    }
+
+
+    /**
+     * Writes the given entry as content record, followed by an empty line.
+     *
+     * @param entry the entry
+     * @throws IOException if an I/O error occurs
+     */
+    void write( Entry entry ) throws IOException
+    {
+        String dn = entry.getDn().getName();
+        if ( LdifUtils.mustEncode( dn ) )
+        {
+            writeLine( "dn", true, LdifUtils.base64encode( LdifUtils.utf8encode( dn ) ) ); //$NON-NLS-1$
+        }
+        else
+        {
+            writeLine( "dn", false, dn ); //$NON-NLS-1$
+        }
+
+        for ( SortedAttribute sortedAttribute : sortAttributes( entry ) )
+        {
+            writeValues( sortedAttribute );
+        }
+        sortedAttributePool.addAll( sortedAttributes );
+        sortedAttributes.clear();
+
+        writer.write( formatParameters.getLineSeparator() );
+    }
+
+
+    /**
+     * Sorts the attributes of the given entry: the object class attribute first, then the
+     * must attributes, then the may attributes, and finally the operational attributes.
+     * Within each group the attributes are sorted by their description.
+     */
+    private List<SortedAttribute> sortAttributes( Entry entry )
+    {
+        entryMustAttributeTypes.clear();
+        Attribute objectClassAttribute = entry.get( SchemaConstants.OBJECT_CLASS_AT );
+        if ( objectClassAttribute != null )
+        {
+            for ( Value value : objectClassAttribute )
+            {
+                entryMustAttributeTypes.add( getMustAttributeTypes( getString( value ) ) );
+            }
+        }
+
+        for ( Attribute attribute : entry )
+        {
+            AttributeInfo info = getAttributeInfo( attribute.getUpId() );
+
+            SortedAttribute sortedAttribute = sortedAttributePool.isEmpty() ? new SortedAttribute()
+                : sortedAttributePool.remove( sortedAttributePool.size() - 1 );
+            sortedAttribute.attribute = attribute;
+            sortedAttribute.info = info;
+            sortedAttribute.must = info.objectClass || isMustAttribute( info.attributeType );
+            sortedAttributes.add( sortedAttribute );
+        }
+
+        Collections.sort( sortedAttributes );
+        return sortedAttributes;
+    }
+
+
+    private boolean isMustAttribute( AttributeType attributeType )
+    {
+        for ( Collection<AttributeType> must : entryMustAttributeTypes )
+        {
+            if ( must.contains( attributeType ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Writes the values of the given attribute, sorted case-insensitive with empty values last.
+     */
+    private void writeValues( SortedAttribute sortedAttribute ) throws IOException
+    {
+        String description = sortedAttribute.info.description;
+
+        if ( sortedAttribute.attribute.size() == 1 )
+        {
+            writeValue( description, sortedAttribute.attribute.get() );
+            return;
+        }
+
+        values.clear();
+        for ( Value value : sortedAttribute.attribute )
+        {
+            values.add( value );
+        }
+        values.sort( Comparator.comparing( LdifStreamWriter::getString, AttributeComparator::compareValues ) );
+        for ( Value value : values )
+        {
+            writeValue( description, value );
+        }
+    }
+
+
+    /**
+     * Writes the given value, the decision whether to encode the value depends on the value only,
+     * so values that aren't human-readable are never decoded to strings.
+     */
+    private void writeValue( String description, Value value ) throws IOException
+    {
+        if ( value.isHumanReadable() )
+        {
+            writeStringValue( description, value.getString() );
+        }
+        else
+        {
+            writeLine( description, true, LdifUtils.base64encode( value.getBytes() ) );
+        }
+    }
+
+
+    private void writeStringValue( String description, String value ) throws IOException
+    {
+        if ( LdifUtils.mustEncode( value ) )
+        {
+            writeLine( description, true, LdifUtils.base64encode( LdifUtils.utf8encode( value ) ) );
+        }
+        else
+        {
+            writeLine( description, false, value );
+        }
+    }
+
+
+    /**
+     * Writes a line, folded like
+     * {@link org.apache.directory.studio.ldifparser.model.lines.LdifValueLineBase#toFormattedString(LdifFormatParameters)}.
+     */
+    private void writeLine( String name, boolean base64, String value ) throws IOException
+    {
+        String lineSeparator = formatParameters.getLineSeparator();
+
+        line.setLength( 0 );
+        line.append( name ).append( base64 ? "::" : ":" ); //$NON-NLS-1$ //$NON-NLS-2$
+        if ( formatParameters.isSpaceAfterColon() )
+        {
+            line.append( ' ' );
+        }
+        line.append( value ).append( lineSeparator );
+
+        int length = line.length();
+        int offset = formatParameters.getLineWidth();
+        int endIndex = offset;
+        while ( endIndex + lineSeparator.length() < length )
+        {
+            write( endIndex - offset, endIndex );
+            writer.write( lineSeparator );
+            writer.write( ' ' );
+            offset = formatParameters.getLineWidth() - 1;
+            endIndex += offset;
+        }
+        write( endIndex - offset, length );
+    }
+
+
+    private void write( int start, int end ) throws IOException
+    {
+        int length = end - start;
+        if ( buffer.length < length )
+        {
+            buffer = new char[Math.max( length, buffer.length * 2 )];
+        }
+        line.getChars( start, end, buffer, 0 );
+        writer.write( buffer, 0, length );
+    }
+
+
+    private AttributeInfo getAttributeInfo( String description )
+    {
+        AttributeInfo info = attributeInfos.get( description );
+        if ( info == null )
+        {
+            info = new AttributeInfo();
+            info.description = description;
+            info.attributeType = schema.getAttributeTypeDescription( description );
+            info.objectClass = SchemaConstants.OBJECT_CLASS_AT.equalsIgnoreCase( description );
+            info.operational = info.attributeType == null || SchemaUtils.isOperational( info.attributeType );
+            attributeInfos.put( description, info );
+        }
+        return info;
+    }
+
+
+    private Collection<AttributeType> getMustAttributeTypes( String objectClassName )
+    {
+        String key = Strings.toLowerCase( objectClassName );
+        Collection<AttributeType> must = mustAttributeTypes.get( key );
+        if ( must == null )
+        {
+            must = new HashSet<>();
+            ObjectClass ocd = schema.getObjectClassDescription( objectClassName );
+            for ( String name : SchemaUtils.getMustAttributeTypeDescriptionNamesTransitive( ocd, schema ) )
+            {
+                must.add( schema.getAttributeTypeDescription( name ) );
+            }
+            mustAttributeTypes.put( key, must );
+        }
+        return must;
+    }
+
+
+    private static String getString( Value value )
+    {
+        return value.isHumanReadable() ? value.getString() : LdifUtils.utf8decode( value.getBytes() );
+    }
+
+    /**
+     * The cached schema information of an attribute description.
+     */
+    private static class AttributeInfo
+    {
+        private String description;
+
+        private AttributeType attributeType;
+
+        private boolean objectClass;
+
+        private boolean operational;
+    }
+
+    /**
+     * An attribute of the current entry with its sort criteria.
+     */
+    private static class SortedAttribute implements Comparable<SortedAttribute>
+    {
+        private Attribute attribute;
+
+        private AttributeInfo info;
+
+        private boolean must;
+
+
+        public int compareTo( SortedAttribute other )
+        {
+            if ( info.objectClass != other.info.objectClass )
+            {
+                return info.objectClass ? -1 : 1;
+            }
+            if ( must != other.must )
+            {
+                return must ? -1 : 1;
+            }
+            if ( info.operational != other.info.operational )
+            {
+                return info.operational ? 1 : -1;
+            }
+            return info.description.compareToIgnoreCase( other.info.description );
+        }
+    }
+
+}
@@ -0,0 +1,816 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.ChangeType;
+import org.apache.directory.api.ldap.model.message.controls.EntryChange;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.events.AttributesInitializedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryAddedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryDeletedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryModificationEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryMovedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryRenamedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Entry;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+
+/**
+ * Keeps the cached entries, children and search results of a browser connection up to date
+ * while the connection is open, if the live update is enabled for the connection.
+ * <p>
+ * A persistent search on each base Dn notifies about the changes in the directory. The changes
+ * are collected into batches and only the affected cached entries are patched: added entries
+ * are inserted into the initialized children of their parent, deleted and renamed entries are
+ * removed from the cache, the children and the search results, and the attributes of modified
+ * entries are reloaded if they were initialized. Entries that are not cached are ignored.
+ * <p>
+ * The persistent searches run on a dedicated connection, so they don't interfere with the
+ * operations on the browser connection. If a persistent search fails, e.g. because the response
+ * timeout of the connection is reached, it is restarted; changes in the meantime are missed.
+ * If the bind of the dedicated connection fails the live update is stopped, a retry would
+ * fail again or prompt for the credentials again.
+ * <p>
+ * The batches are applied by a {@link StudioBrowserJob}, one after the other. The job doesn't
+ * lock the browser connection against other jobs: a job only waits for running jobs of the same
+ * runnable class that lock the same objects. So a batch may be applied while e.g. the children
+ * of the same entry are initialized by another job. Then a change may be lost, e.g. an added
+ * entry isn't shown if the initialization replaces the children afterwards with a result read
+ * before the add, or a deleted entry is shown again. The cache is consistent again after the
+ * next refresh of the affected entries.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LiveCacheUpdater
+{
+
+    /** The running live cache updaters */
+    private static final Map<IBrowserConnection, LiveCacheUpdater> UPDATERS = new ConcurrentHashMap<>();
+
+    /** The time to wait for further changes before a batch of changes is applied, in milliseconds */
+    private static final long BATCH_DELAY = 500;
+
+    /** The maximum number of changes in a batch */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /** The number of events from which a single bulk modification event is fired instead */
+    private static final int BULK_EVENT_THRESHOLD = 100;
+
+    /** The minimum time between two starts of a persistent search, in milliseconds */
+    private static final long RETRY_DELAY = 5000;
+
+    /** The browser connection */
+    private final IBrowserConnection browserConnection;
+
+    /** The dedicated connection of the persistent searches */
+    private final Connection connection;
+
+    /** The changes that weren't applied yet */
+    private final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+
+    /** The threads of the persistent searches and the thread applying the changes */
+    private final List<Thread> threads = new ArrayList<>();
+
+    /** The stopped flag, set before the dedicated connection is closed */
+    private volatile boolean stopped;
+
+
+    private LiveCacheUpdater( IBrowserConnection browserConnection )
+    {
+        this.browserConnection = browserConnection;
+        this.connection = ( Connection ) browserConnection.getConnection().clone();
+    }
+
+
+    /**
+     * Checks if the directory server supports the persistent search control.
+     *
+     * @param browserConnection the browser connection
+     * @return true if the persistent search control is supported
+     */
+    public static boolean isSupported( IBrowserConnection browserConnection )
+    {
+        return browserConnection.getRootDSE() != null
+            && browserConnection.getRootDSE().isControlSupported( Controls.PERSISTENT_SEARCH_OID );
+    }
+
+
+    /**
+     * Starts the live update of the given browser connection, if it is enabled
+     * and supported by the directory server. A running live update is stopped before.
+     *
+     * @param browserConnection the browser connection
+     */
+    public static void start( IBrowserConnection browserConnection )
+    {
+        stop( browserConnection );
+
+        if ( browserConnection.getConnection() != null && browserConnection.isLiveUpdate()
+            && isSupported( browserConnection ) )
+        {
+            List<Dn> baseDns = getBaseDns( browserConnection );
+            if ( !baseDns.isEmpty() )
+            {
+                LiveCacheUpdater updater = new LiveCacheUpdater( browserConnection );
+                UPDATERS.put( browserConnection, updater );
+                updater.startThreads( baseDns );
+            }
+        }
+    }
+
+
+    /**
+     * Stops the live update of the given browser connection.
+     *
+     * @param browserConnection the browser connection
+     */
+    public static void stop( IBrowserConnection browserConnection )
+    {
+        LiveCacheUpdater updater = UPDATERS.remove( browserConnection );
+        if ( updater != null )
+        {
+            updater.stopThreads();
+        }
+    }
+
+
+    /**
+     * Checks if the live update of the given browser connection is running.
+     *
+     * @param browserConnection the browser connection
+     * @return true if the live update is running
+     */
+    public static boolean isRunning( IBrowserConnection browserConnection )
+    {
+        return UPDATERS.containsKey( browserConnection );
+    }
+
+
+    /**
+     * Gets the base DNs to watch, either the specified base Dn or the naming contexts.
+     *
+     * @param browserConnection the browser connection
+     * @return the base DNs
+     */
+    private static List<Dn> getBaseDns( IBrowserConnection browserConnection )
+    {
+        List<Dn> baseDns = new ArrayList<>();
+
+        if ( !browserConnection.isFetchBaseDNs() && browserConnection.getBaseDN() != null
+            && !browserConnection.getBaseDN().isEmpty() )
+        {
+            baseDns.add( browserConnection.getBaseDN() );
+        }
+        else
+        {
+            IAttribute attribute = browserConnection.getRootDSE().getAttribute( SchemaConstants.NAMING_CONTEXTS_AT );
+            if ( attribute != null )
+            {
+                for ( String namingContext : attribute.getStringValues() )
+                {
+                    if ( namingContext.length() > 0 && namingContext.charAt( namingContext.length() - 1 ) == '\u0000' )
+                    {
+                        namingContext = namingContext.substring( 0, namingContext.length() - 1 );
+                    }
+
+                    try
+                    {
+                        Dn baseDn = new Dn( namingContext );
+                        if ( !baseDn.isEmpty() && !baseDns.contains( baseDn ) )
+                        {
+                            baseDns.add( baseDn );
+                        }
+                    }
+                    catch ( LdapInvalidDnException e )
+                    {
+                        // not watched
+                    }
+                }
+            }
+        }
+
+        return baseDns;
+    }
+
+
+    private void startThreads( List<Dn> baseDns )
+    {
+        for ( Dn baseDn : baseDns )
+        {
+            threads.add( new Thread( () -> consume( baseDn ), "LDAP Live Update " + baseDn.getName() ) ); //$NON-NLS-1$
+        }
+        threads.add( new Thread( this::applyBatches, "LDAP Live Update" ) ); //$NON-NLS-1$
+
+        for ( Thread thread : threads )
+        {
+            thread.setDaemon( true );
+            thread.start();
+        }
+    }
+
+
+    /**
+     * Stops the threads. Synchronized with {@link #connect(StudioProgressMonitor)},
+     * so the dedicated connection isn't opened again after it was closed.
+     */
+    private synchronized void stopThreads()
+    {
+        stopped = true;
+
+        // closing the connection ends the blocked persistent searches
+        connection.getConnectionWrapper().disconnect();
+        for ( Thread thread : threads )
+        {
+            thread.interrupt();
+        }
+    }
+
+
+    /**
+     * Runs the persistent search on the given base Dn and queues the notified changes,
+     * until this updater is stopped.
+     *
+     * @param baseDn the base Dn
+     */
+    private void consume( Dn baseDn )
+    {
+        StudioProgressMonitor monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+
+        while ( !stopped )
+        {
+            long start = System.currentTimeMillis();
+            monitor.reset();
+
+            StudioSearchResultEnumeration enumeration = null;
+            try
+            {
+                if ( connect( monitor ) )
+                {
+                    SearchParameter searchParameter = getSearchParameter( baseDn );
+                    enumeration = SearchRunnable.search( connection.getConnectionWrapper(), searchParameter, monitor );
+                    while ( !stopped && enumeration != null && enumeration.hasMore() )
+                    {
+                        Change change = Change.of( enumeration.next() );
+                        if ( change != null )
+                        {
+                            changes.offer( change );
+                        }
+                    }
+                }
+            }
+            catch ( LdapException e )
+            {
+                // e.g. the response timeout was reached or the connection was closed, restart the search
+            }
+            finally
+            {
+                close( enumeration );
+            }
+
+            long wait = start + RETRY_DELAY - System.currentTimeMillis();
+            if ( !stopped && wait > 0 )
+            {
+                try
+                {
+                    Thread.sleep( wait );
+                }
+                catch ( InterruptedException e )
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Opens and binds the dedicated connection, if not connected yet. If the bind fails
+     * this updater is stopped.
+     *
+     * @param monitor the progress monitor
+     * @return true if the connection is open
+     */
+    private synchronized boolean connect( StudioProgressMonitor monitor )
+    {
+        ConnectionWrapper connectionWrapper = connection.getConnectionWrapper();
+        if ( !stopped && !connectionWrapper.isConnected() )
+        {
+            connectionWrapper.connect( monitor );
+            if ( !monitor.errorsReported() )
+            {
+                connectionWrapper.bind( monitor );
+                if ( monitor.errorsReported() )
+                {
+                    // don't retry, e.g. the credentials would be requested again and again
+                    UPDATERS.remove( browserConnection, this );
+                    stopThreads();
+                }
+            }
+        }
+
+        return !stopped && !monitor.errorsReported() && connectionWrapper.isConnected();
+    }
+
+
+    private static void close( StudioSearchResultEnumeration enumeration )
+    {
+        if ( enumeration != null )
+        {
+            try
+            {
+                enumeration.close();
+            }
+            catch ( LdapException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+
+    private SearchParameter getSearchParameter( Dn baseDn )
+    {
+        SearchParameter searchParameter = new SearchParameter();
+        searchParameter.setSearchBase( baseDn );
+        searchParameter.setFilter( ISearch.FILTER_TRUE );
+        searchParameter.setReturningAttributes( new String[]
+            { SchemaConstants.OBJECT_CLASS_AT } );
+        searchParameter.setScope( SearchScope.SUBTREE );
+        searchParameter.setCountLimit( 0 );
+        searchParameter.setTimeLimit( 0 );
+        searchParameter.setAliasesDereferencingMethod( AliasDereferencingMethod.NEVER );
+        searchParameter.setReferralsHandlingMethod( ReferralHandlingMethod.IGNORE );
+        searchParameter.getControls().add( Controls.newPersistentSearchControl( true ) );
+        return searchParameter;
+    }
+
+
+    /**
+     * Takes the queued changes in batches and applies them, until this updater is stopped.
+     */
+    private void applyBatches()
+    {
+        while ( !stopped )
+        {
+            List<Change> batch = new ArrayList<>();
+            try
+            {
+                batch.add( changes.take() );
+
+                // wait a moment for further changes, to apply them together
+                long deadline = System.currentTimeMillis() + BATCH_DELAY;
+                while ( batch.size() < MAX_BATCH_SIZE )
+                {
+                    Change change = changes.poll( deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS );
+                    if ( change == null )
+                    {
+                        break;
+                    }
+                    batch.add( change );
+                }
+
+                if ( !stopped )
+                {
+                    // wait until the batch is applied, the next batch may depend on it
+                    StudioBrowserJob job = new StudioBrowserJob( new ApplyChangesRunnable( batch ) );
+                    job.setSystem( true );
+                    job.schedule();
+                    job.join();
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Applies the given changes to the cache.
+     *
+     * @param batch the changes
+     * @param events the events to fire afterwards
+     * @param updatedSearches the searches whose results were changed
+     * @param monitor the progress monitor
+     */
+    private void apply( List<Change> batch, List<EntryModificationEvent> events, Set<ISearch> updatedSearches,
+        StudioProgressMonitor monitor )
+    {
+        Set<IEntry> removedEntries = new HashSet<>();
+
+        // errors while reloading the attributes of a modified entry are ignored
+        StudioProgressMonitor changeMonitor = new StudioProgressMonitor( new NullProgressMonitor() );
+        for ( Change change : batch )
+        {
+            if ( stopped || monitor.isCanceled() )
+            {
+                break;
+            }
+
+            changeMonitor.reset();
+            switch ( change.changeType )
+            {
+                case ADD:
+                    IEntry addedEntry = addEntry( change, false );
+                    if ( addedEntry != null )
+                    {
+                        events.add( new EntryAddedEvent( browserConnection, addedEntry ) );
+                    }
+                    break;
+                case DELETE:
+                    IEntry deletedEntry = removeEntry( change.dn );
+                    if ( deletedEntry != null )
+                    {
+                        removedEntries.add( deletedEntry );
+                        events.add( new EntryDeletedEvent( browserConnection, deletedEntry ) );
+                    }
+                    break;
+                case MODIFY:
+                    IEntry modifiedEntry = browserConnection.getEntryFromCache( change.dn );
+                    if ( modifiedEntry != null && modifiedEntry.isAttributesInitialized() )
+                    {
+                        InitializeAttributesRunnable.initializeAttributes( modifiedEntry, changeMonitor );
+                        events.add( new AttributesInitializedEvent( modifiedEntry ) );
+                    }
+                    break;
+                case MODDN:
+                    moveEntry( change, removedEntries, events );
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        removeFromSearches( removedEntries, updatedSearches );
+    }
+
+
+    /**
+     * Fires one event per applied change, or a single bulk modification event if
+     * there are too many, and the search update events.
+     *
+     * @param events the events
+     * @param updatedSearches the searches whose results were changed
+     */
+    private void fireEvents( List<EntryModificationEvent> events, Set<ISearch> updatedSearches )
+    {
+        if ( events.size() > BULK_EVENT_THRESHOLD )
+        {
+            EventRegistry.fireEntryUpdated( new BulkModificationEvent( browserConnection ), this );
+        }
+        else
+        {
+            for ( EntryModificationEvent event : events )
+            {
+                EventRegistry.fireEntryUpdated( event, this );
+            }
+        }
+
+        for ( ISearch search : updatedSearches )
+        {
+            EventRegistry.fireSearchUpdated( new SearchUpdateEvent( search,
+                SearchUpdateEvent.EventDetail.SEARCH_PERFORMED ), this );
+        }
+    }
+
+
+    /**
+     * Adds the entry of the given change to the children of its parent, if the parent
+     * is cached and its children are initialized.
+     *
+     * @param change the change
+     * @param hasChildren the has children hint of the added entry
+     * @return the added entry, null if not added
+     */
+    private IEntry addEntry( Change change, boolean hasChildren )
+    {
+        if ( browserConnection.getEntryFromCache( change.dn ) != null )
+        {
+            // already known, e.g. created by this client
+            return null;
+        }
+
+        IEntry parent = browserConnection.getEntryFromCache( change.dn.getParent() );
+        if ( parent == null )
+        {
+            return null;
+        }
+
+        parent.setHasChildrenHint( true );
+        if ( !parent.isChildrenInitialized() )
+        {
+            return null;
+        }
+
+        Entry entry = new Entry( parent, change.dn.getRdn() );
+        entry.setDirectoryEntry( true );
+        entry.setHasChildrenHint( hasChildren && !change.alias && !change.referral );
+        entry.setAlias( change.alias );
+        entry.setReferral( change.referral );
+
+        boolean hasMoreChildren = parent.hasMoreChildren();
+        parent.addChild( entry );
+        parent.setHasMoreChildren( hasMoreChildren );
+        browserConnection.cacheEntry( entry );
+
+        return entry;
+    }
+
+
+    /**
+     * Removes the entry with the given Dn from the children of its parent and from the cache.
+     *
+     * @param dn the Dn
+     * @return the removed entry, null if the entry isn't cached
+     */
+    private IEntry removeEntry( Dn dn )
+    {
+        IEntry entry = browserConnection.getEntryFromCache( dn );
+        if ( entry == null )
+        {
+            return null;
+        }
+
+        IEntry parent = entry.getParententry();
+        if ( parent != null )
+        {
+            boolean hasMoreChildren = parent.hasMoreChildren();
+            parent.deleteChild( entry );
+            if ( hasMoreChildren )
+            {
+                parent.setHasMoreChildren( true );
+            }
+        }
+        browserConnection.uncacheEntryRecursive( entry );
+
+        return entry;
+    }
+
+
+    /**
+     * Removes the entry with the previous Dn of the given change and adds the entry with the new Dn.
+     *
+     * @param change the change
+     * @param removedEntries the removed entries, to be removed from the search results
+     * @param events the events to fire
+     */
+    private void moveEntry( Change change, Set<IEntry> removedEntries, List<EntryModificationEvent> events )
+    {
+        IEntry oldEntry = change.previousDn != null ? removeEntry( change.previousDn ) : null;
+        IEntry newEntry = addEntry( change, oldEntry == null || oldEntry.hasChildren() );
+
+        if ( oldEntry != null )
+        {
+            removedEntries.add( oldEntry );
+            if ( newEntry == null )
+            {
+                events.add( new EntryDeletedEvent( browserConnection, oldEntry ) );
+            }
+            else if ( change.dn.getParent().equals( change.previousDn.getParent() ) )
+            {
+                events.add( new EntryRenamedEvent( oldEntry, newEntry ) );
+            }
+            else
+            {
+                events.add( new EntryMovedEvent( oldEntry, newEntry ) );
+            }
+        }
+        else if ( newEntry != null )
+        {
+            events.add( new EntryAddedEvent( browserConnection, newEntry ) );
+        }
+    }
+
+
+    /**
+     * Removes the search results of the given entries from the searches.
+     *
+     * @param removedEntries the removed entries
+     * @param updatedSearches the updated searches
+     */
+    private void removeFromSearches( Set<IEntry> removedEntries, Set<ISearch> updatedSearches )
+    {
+        if ( removedEntries.isEmpty() )
+        {
+            return;
+        }
+
+        for ( ISearch search : browserConnection.getSearchManager().getSearches() )
+        {
+            ISearchResult[] searchResults = search.getSearchResults();
+            if ( searchResults != null )
+            {
+                List<ISearchResult> searchResultList = new ArrayList<>( searchResults.length );
+                for ( ISearchResult searchResult : searchResults )
+                {
+                    if ( !removedEntries.contains( searchResult.getEntry() ) )
+                    {
+                        searchResultList.add( searchResult );
+                    }
+                }
+
+                if ( searchResultList.size() < searchResults.length )
+                {
+                    search.setSearchResults( searchResultList.toArray( new ISearchResult[searchResultList.size()] ) );
+                    updatedSearches.add( search );
+                }
+            }
+        }
+    }
+
+    /**
+     * Runnable to apply a batch of changes. The model fires no events while the changes
+     * are applied, afterwards the events are fired.
+     */
+    private final class ApplyChangesRunnable implements StudioConnectionBulkRunnableWithProgress
+    {
+        /** The changes */
+        private final List<Change> batch;
+
+        /** The events to fire */
+        private final List<EntryModificationEvent> events = new ArrayList<>();
+
+        /** The searches whose results were changed */
+        private final Set<ISearch> updatedSearches = new HashSet<>();
+
+
+        private ApplyChangesRunnable( List<Change> batch )
+        {
+            this.batch = batch;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         *
+         * This implementation returns null, a closed connection isn't opened again.
+         */
+        public Connection[] getConnections()
+        {
+            return null;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public String getName()
+        {
+            return BrowserCoreMessages.jobs__live_update_name;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         *
+         * This implementation returns the browser connection, so only one batch of the
+         * browser connection is applied at a time. Jobs of other runnables aren't excluded.
+         */
+        public Object[] getLockedObjects()
+        {
+            return new Object[]
+                { browserConnection };
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public String getErrorMessage()
+        {
+            return BrowserCoreMessages.jobs__live_update_error;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run( StudioProgressMonitor monitor )
+        {
+            monitor.beginTask( BrowserCoreMessages.jobs__live_update_name, 2 );
+            monitor.worked( 1 );
+            apply( batch, events, updatedSearches, monitor );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void runNotification( StudioProgressMonitor monitor )
+        {
+            fireEvents( events, updatedSearches );
+        }
+    }
+
+    /**
+     * A change notified by the persistent search.
+     */
+    private static final class Change
+    {
+        private final ChangeType changeType;
+
+        private final Dn dn;
+
+        private final Dn previousDn;
+
+        private final boolean alias;
+
+        private final boolean referral;
+
+
+        private Change( ChangeType changeType, Dn dn, Dn previousDn, boolean alias, boolean referral )
+        {
+            this.changeType = changeType;
+            this.dn = dn;
+            this.previousDn = previousDn;
+            this.alias = alias;
+            this.referral = referral;
+        }
+
+
+        /**
+         * Gets the change of the given search result.
+         *
+         * @param searchResult the search result
+         * @return the change, null if the search result has no entry change notification control
+         */
+        private static Change of( StudioSearchResult searchResult )
+        {
+            EntryChange entryChange = ( EntryChange ) searchResult.getControl( Controls.ENTRY_CHANGE_OID );
+            if ( entryChange == null || searchResult.getDn() == null )
+            {
+                return null;
+            }
+
+            boolean alias = false;
+            boolean referral = false;
+            Attribute objectClass = searchResult.getEntry().get( SchemaConstants.OBJECT_CLASS_AT );
+            if ( objectClass != null )
+            {
+                for ( Value value : objectClass )
+                {
+                    alias |= SchemaConstants.ALIAS_OC.equalsIgnoreCase( value.getString() );
+                    referral |= SchemaConstants.REFERRAL_OC.equalsIgnoreCase( value.getString() );
+                }
+            }
+
+            return new Change( entryChange.getChangeType(), searchResult.getDn(), entryChange.getPreviousDn(), alias,
+                referral );
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+/**
+ * Writes an OpenDocument spreadsheet (ODS) with string cells. Wrapped cells
+ * share one automatic cell style.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class OdsStreamWriter extends SpreadsheetStreamWriter
+{
+    private static final String MIMETYPE = "application/vnd.oasis.opendocument.spreadsheet"; //$NON-NLS-1$
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"; //$NON-NLS-1$
+
+    /** The approximate width of a character, in centimeters */
+    private static final double CHARACTER_WIDTH_CM = 0.2;
+
+
+    /**
+     * Creates a new instance of OdsStreamWriter.
+     *
+     * @param sheetName the name of the first sheet
+     */
+    OdsStreamWriter( String sheetName )
+    {
+        super( sheetName );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void writeDocument( ZipOutputStream zip, List<String> header ) throws IOException
+    {
+        // the mimetype must be the first entry and must not be compressed
+        byte[] mimetype = MIMETYPE.getBytes( StandardCharsets.US_ASCII );
+        ZipEntry mimetypeEntry = new ZipEntry( "mimetype" ); //$NON-NLS-1$
+        mimetypeEntry.setMethod( ZipEntry.STORED );
+        mimetypeEntry.setSize( mimetype.length );
+        CRC32 crc = new CRC32();
+        crc.update( mimetype );
+        mimetypeEntry.setCrc( crc.getValue() );
+        zip.putNextEntry( mimetypeEntry );
+        zip.write( mimetype );
+
+        Writer writer = startEntry( zip, "META-INF/manifest.xml" ); //$NON-NLS-1$
+        writer.write( XML_DECLARATION );
+        writer.write( "<manifest:manifest xmlns:manifest=\"urn:oasis:names:tc:opendocument:xmlns:manifest:1.0\"" //$NON-NLS-1$
+            + " manifest:version=\"1.2\">" //$NON-NLS-1$
+            + "<manifest:file-entry manifest:full-path=\"/\" manifest:version=\"1.2\" manifest:media-type=\"" //$NON-NLS-1$
+            + MIMETYPE + "\"/>" //$NON-NLS-1$
+            + "<manifest:file-entry manifest:full-path=\"content.xml\" manifest:media-type=\"text/xml\"/>" //$NON-NLS-1$
+            + "</manifest:manifest>" ); //$NON-NLS-1$
+        writer.flush();
+
+        writer = startEntry( zip, "content.xml" ); //$NON-NLS-1$
+        writer.write( XML_DECLARATION );
+        writer.write( "<office:document-content" //$NON-NLS-1$
+            + " xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\"" //$NON-NLS-1$
+            + " xmlns:style=\"urn:oasis:names:tc:opendocument:xmlns:style:1.0\"" //$NON-NLS-1$
+            + " xmlns:text=\"urn:oasis:names:tc:opendocument:xmlns:text:1.0\"" //$NON-NLS-1$
+            + " xmlns:table=\"urn:oasis:names:tc:opendocument:xmlns:table:1.0\"" //$NON-NLS-1$
+            + " xmlns:fo=\"urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0\"" //$NON-NLS-1$
+            + " office:version=\"1.2\">" ); //$NON-NLS-1$
+
+        // one column style per column, one cell style for wrapped cells
+        List<Integer> columnWidths = getColumnWidths();
+        writer.write( "<office:automatic-styles>" ); //$NON-NLS-1$
+        for ( int i = 0; i < columnWidths.size(); i++ )
+        {
+            writer.write( "<style:style style:name=\"co" + ( i + 1 ) + "\" style:family=\"table-column\">" //$NON-NLS-1$ //$NON-NLS-2$
+                + "<style:table-column-properties style:column-width=\"" //$NON-NLS-1$
+                + String.format( Locale.ROOT, "%.2fcm", Math.max( 8, columnWidths.get( i ) ) * CHARACTER_WIDTH_CM ) //$NON-NLS-1$
+                + "\"/></style:style>" ); //$NON-NLS-1$
+        }
+        writer.write( "<style:style style:name=\"ce1\" style:family=\"table-cell\">" //$NON-NLS-1$
+            + "<style:table-cell-properties fo:wrap-option=\"wrap\"/></style:style>" //$NON-NLS-1$
+            + "</office:automatic-styles>" ); //$NON-NLS-1$
+
+        writer.write( "<office:body><office:spreadsheet>" ); //$NON-NLS-1$
+        for ( int i = 0; i < getSheetCount(); i++ )
+        {
+            writer.write( "<table:table table:name=\"" ); //$NON-NLS-1$
+            writeEscaped( writer, getSheetName( i ) );
+            writer.write( "\">" ); //$NON-NLS-1$
+            for ( int j = 0; j < columnWidths.size(); j++ )
+            {
+                writer.write( "<table:table-column table:style-name=\"co" + ( j + 1 ) + "\"/>" ); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            writeRow( writer, 1, header, null );
+            copyRows( i, writer, zip );
+            writer.write( "</table:table>" ); //$NON-NLS-1$
+        }
+        writer.write( "</office:spreadsheet></office:body></office:document-content>" ); //$NON-NLS-1$
+        writer.flush();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void writeRow( Writer writer, int rowNumber, List<String> values, BitSet wrapped ) throws IOException
+    {
+        writer.write( "<table:table-row>" ); //$NON-NLS-1$
+
+        int emptyCells = 0;
+        for ( int i = 0; i < values.size(); i++ )
+        {
+            String value = values.get( i );
+            if ( value == null )
+            {
+                emptyCells++;
+                continue;
+            }
+
+            writeEmptyCells( writer, emptyCells );
+            emptyCells = 0;
+
+            writer.write( "<table:table-cell office:value-type=\"string\"" ); //$NON-NLS-1$
+            if ( wrapped != null && wrapped.get( i ) )
+            {
+                writer.write( " table:style-name=\"ce1\"" ); //$NON-NLS-1$
+            }
+            writer.write( ">" ); //$NON-NLS-1$
+
+            // one paragraph per line
+            for ( String line : value.split( "\n", -1 ) ) //$NON-NLS-1$
+            {
+                writer.write( "<text:p>" ); //$NON-NLS-1$
+                writeText( writer, line );
+                writer.write( "</text:p>" ); //$NON-NLS-1$
+            }
+
+            writer.write( "</table:table-cell>" ); //$NON-NLS-1$
+        }
+
+        writer.write( "</table:table-row>\n" ); //$NON-NLS-1$
+    }
+
+
+    private static void writeEmptyCells( Writer writer, int count ) throws IOException
+    {
+        if ( count == 1 )
+        {
+            writer.write( "<table:table-cell/>" ); //$NON-NLS-1$
+        }
+        else if ( count > 1 )
+        {
+            writer.write( "<table:table-cell table:number-columns-repeated=\"" + count + "\"/>" ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+
+    /**
+     * Writes the text of a paragraph. White space would be collapsed in a
+     * paragraph, so tabs and consecutive spaces are written as elements.
+     */
+    private static void writeText( Writer writer, String text ) throws IOException
+    {
+        int start = 0;
+        for ( int i = 0; i < text.length(); i++ )
+        {
+            char c = text.charAt( i );
+            if ( c == '\t' )
+            {
+                writeEscaped( writer, text.subSequence( start, i ) );
+                writer.write( "<text:tab/>" ); //$NON-NLS-1$
+                start = i + 1;
+            }
+            else if ( c == ' ' && ( i == 0 || text.charAt( i - 1 ) == ' ' ) )
+            {
+                // a leading space or a space following another space
+                int end = i;
+                while ( end < text.length() && text.charAt( end ) == ' ' )
+                {
+                    end++;
+                }
+                writeEscaped( writer, text.subSequence( start, i ) );
+                writer.write( "<text:s text:c=\"" + ( end - i ) + "\"/>" ); //$NON-NLS-1$ //$NON-NLS-2$
+                start = end;
+                i = end - 1;
+            }
+        }
+        writeEscaped( writer, text.subSequence( start, text.length() ) );
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
+import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnableWithProgress;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.eclipse.core.runtime.jobs.Job;
+
+
+/**
+ * Reads the next page of a paged search in scroll mode in the background, while
+ * the current page is displayed.
+ * <p>
+ * The page is read without updating the browser model, the entries are created
+ * and added to the model when the page is taken by the job that displays it.
+ * <p>
+ * The number of pages read ahead at the same time is limited by the
+ * {@link BrowserCoreConstants#PREFERENCE_PAGED_SEARCH_READ_AHEAD_PAGES} preference
+ * and the sum of their page sizes by {@link #MAX_READ_AHEAD_ENTRIES}, over all
+ * connections. This bounds both the memory and the number of cookies the servers
+ * have to keep. If a limit is reached the oldest page that wasn't requested yet
+ * is discarded, otherwise the oldest page. Such pages most likely belong to a
+ * search the user doesn't scroll anymore. The cookie of a page that was already
+ * requested can't be sent again, so its next cookie is kept to continue the
+ * paged search, see {@link #getNextCookie()}.
+ * <p>
+ * The job that displays the page waits a limited time only, see {@link #START_TIMEOUT}
+ * and {@link #MAX_WAIT}. If the page isn't available then the job searches the page
+ * itself.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class PageReadAhead implements StudioConnectionRunnableWithProgress
+{
+    /** The maximum number of entries of all pages read ahead */
+    static final int MAX_READ_AHEAD_ENTRIES = 10000;
+
+    /** The interval to check for cancellation while waiting, in milliseconds */
+    private static final long WAIT_INTERVAL = 100L;
+
+    /** The maximum time to wait until the page is requested from the server, in milliseconds */
+    static final long START_TIMEOUT = 10000L;
+
+    /** The maximum time to wait until the page is read, in milliseconds */
+    static final long MAX_WAIT = 300000L;
+
+    /** The sequence of the read ahead numbers, used for unique lock identifiers */
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /** The pages read ahead that weren't taken or discarded yet, the oldest first */
+    private static final Deque<PageReadAhead> OUTSTANDING = new ArrayDeque<PageReadAhead>();
+
+    /** The sum of the page sizes of the outstanding pages */
+    private static int outstandingEntries;
+
+    /** The search of the next page, with the paged results control containing the cookie */
+    private final ISearch search;
+
+    /** The unique number of this read ahead */
+    private final long number = SEQUENCE.incrementAndGet();
+
+    /** The page size */
+    private final int pageSize;
+
+    /** Counted down when the page was read or the read was skipped */
+    private final CountDownLatch done = new CountDownLatch( 1 );
+
+    /** The search results read, dropped when the page is discarded */
+    private List<StudioSearchResult> results;
+
+    /** Flag indicating that the page was taken or discarded */
+    private volatile boolean released;
+
+    /** Flag indicating that the page was requested, its cookie can't be sent again */
+    private volatile boolean requested;
+
+    /** Flag indicating that the page was read without errors */
+    private volatile boolean successful;
+
+
+    private PageReadAhead( ISearch search, int pageSize )
+    {
+        this.search = search;
+        this.pageSize = pageSize;
+    }
+
+
+    /**
+     * Starts to read the page of the given search in the background.
+     *
+     * @param search the search of the next page, with a paged results control containing the cookie
+     * @return the page read ahead, null if read ahead is disabled, the search isn't paged
+     *         or the job wasn't scheduled
+     */
+    static PageReadAhead start( ISearch search )
+    {
+        int maxPages = getReadAheadPages();
+        int pageSize = getPageSize( search );
+        if ( maxPages <= 0 || pageSize <= 0 || pageSize > MAX_READ_AHEAD_ENTRIES )
+        {
+            return null;
+        }
+
+        PageReadAhead readAhead = new PageReadAhead( search, pageSize );
+        synchronized ( OUTSTANDING )
+        {
+            // discard the oldest pages to stay within the limits
+            while ( !OUTSTANDING.isEmpty()
+                && ( OUTSTANDING.size() >= maxPages || outstandingEntries + pageSize > MAX_READ_AHEAD_ENTRIES ) )
+            {
+                getOldestToDiscard().release();
+            }
+            OUTSTANDING.add( readAhead );
+            outstandingEntries += pageSize;
+        }
+
+        StudioBrowserJob job = new StudioBrowserJob( readAhead );
+        job.setSystem( true );
+        job.schedule();
+
+        // a job that finished already counted down, so a job without state wasn't scheduled at all
+        if ( job.getState() == Job.NONE && readAhead.done.getCount() > 0 )
+        {
+            readAhead.release();
+            return null;
+        }
+
+        return readAhead;
+    }
+
+
+    /**
+     * Gets the oldest outstanding page that wasn't requested yet, 
+     * or the oldest outstanding page if all pages were requested.
+     * Must be called while holding the lock of the outstanding pages.
+     *
+     * @return the page to discard
+     */
+    private static PageReadAhead getOldestToDiscard()
+    {
+        for ( Iterator<PageReadAhead> it = OUTSTANDING.iterator(); it.hasNext(); )
+        {
+            PageReadAhead page = it.next();
+            if ( !page.requested )
+            {
+                return page;
+            }
+        }
+        return OUTSTANDING.peek();
+    }
+
+
+    /**
+     * Gets the maximum number of pages read ahead, defined by the
+     * {@link BrowserCoreConstants#PREFERENCE_PAGED_SEARCH_READ_AHEAD_PAGES} preference.
+     *
+     * @return the maximum number of pages read ahead, 0 to disable read ahead
+     */
+    private static int getReadAheadPages()
+    {
+        if ( BrowserCorePlugin.getDefault() == null )
+        {
+            return 0;
+        }
+
+        return BrowserCorePlugin.getDefault().getPluginPreferences().getInt(
+            BrowserCoreConstants.PREFERENCE_PAGED_SEARCH_READ_AHEAD_PAGES );
+    }
+
+
+    private static int getPageSize( ISearch search )
+    {
+        for ( Control control : search.getControls() )
+        {
+            if ( control instanceof PagedResults )
+            {
+                return ( ( PagedResults ) control ).getSize();
+            }
+        }
+        return 0;
+    }
+
+
+    /**
+     * Waits until the page is read and takes it. The entries of the page are
+     * added to the browser model, so this must be called by the job that
+     * displays the page.
+     *
+     * @param monitor the progress monitor
+     * @return the search with the search results and response controls, null if the page
+     *         was discarded, couldn't be read in time or the monitor was canceled
+     */
+    ISearch take( StudioProgressMonitor monitor )
+    {
+        long start = System.nanoTime();
+        try
+        {
+            while ( !monitor.isCanceled() )
+            {
+                long waited = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+                if ( waited >= START_TIMEOUT )
+                {
+                    // the job didn't start in time, it skips the page when it starts later
+                    discardIfNotRequested();
+                }
+                if ( released && !requested )
+                {
+                    // discarded before it was requested
+                    return null;
+                }
+                if ( waited >= MAX_WAIT )
+                {
+                    break;
+                }
+                if ( done.await( WAIT_INTERVAL, TimeUnit.MILLISECONDS ) )
+                {
+                    List<StudioSearchResult> pageResults = release();
+                    if ( pageResults == null || !successful )
+                    {
+                        return null;
+                    }
+                    SearchRunnable.updateModel( search.getBrowserConnection(), search, pageResults, monitor );
+                    return search;
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        release();
+        return null;
+    }
+
+
+    /**
+     * Discards the page, if it wasn't requested yet it won't be read at all.
+     */
+    void discard()
+    {
+        release();
+    }
+
+
+    /**
+     * Gets the cookie to continue the paged search after {@link #take(StudioProgressMonitor)}
+     * returned null. If the page was already requested from the server its own cookie
+     * was consumed and can't be sent again, the cookie returned by the server must
+     * be used instead, the search results of the page are lost then.
+     *
+     * @return the next cookie, an empty cookie if this page was the last one, null if
+     *         the cookie of this page wasn't consumed or the page couldn't be read
+     */
+    byte[] getNextCookie()
+    {
+        if ( !requested || !successful || done.getCount() > 0 )
+        {
+            return null;
+        }
+
+        for ( Control control : search.getResponseControls() )
+        {
+            if ( control instanceof PagedResults )
+            {
+                byte[] cookie = ( ( PagedResults ) control ).getCookie();
+                return cookie != null ? cookie : new byte[0];
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Discards the page if it wasn't requested yet.
+     */
+    private void discardIfNotRequested()
+    {
+        synchronized ( OUTSTANDING )
+        {
+            if ( !requested )
+            {
+                release();
+            }
+        }
+    }
+
+
+    /**
+     * Removes this page from the outstanding pages and drops the search results.
+     *
+     * @return the search results if this page was outstanding and read, null otherwise
+     */
+    private List<StudioSearchResult> release()
+    {
+        synchronized ( OUTSTANDING )
+        {
+            if ( released )
+            {
+                return null;
+            }
+            released = true;
+            OUTSTANDING.remove( this );
+            outstandingEntries -= pageSize;
+
+            List<StudioSearchResult> pageResults = results;
+            results = null;
+            return pageResults;
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Connection[] getConnections()
+    {
+        return new Connection[]
+            { search.getBrowserConnection().getConnection() };
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName()
+    {
+        return BrowserCoreMessages.jobs__search_name;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object[] getLockedObjects()
+    {
+        // a unique lock, the job must not be vetoed by the read ahead of a previous page
+        return new Object[]
+            { this };
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getErrorMessage()
+    {
+        return BrowserCoreMessages.jobs__search_error_1;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run( StudioProgressMonitor monitor )
+    {
+        try
+        {
+            synchronized ( OUTSTANDING )
+            {
+                if ( released )
+                {
+                    return;
+                }
+                requested = true;
+            }
+
+            // errors are not reported, the page is read again when it is requested
+            StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
+            List<StudioSearchResult> pageResults = new ArrayList<StudioSearchResult>();
+            SearchRunnable.searchWithoutUpdatingModel( search.getBrowserConnection(), search, pageResults,
+                dummyMonitor );
+            successful = !dummyMonitor.errorsReported() && !dummyMonitor.isCanceled();
+
+            synchronized ( OUTSTANDING )
+            {
+                if ( !released )
+                {
+                    results = pageResults;
+                }
+            }
+        }
+        finally
+        {
+            done.countDown();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * The string is used as lock identifier, it is terminated so that it
+     * is never a prefix of the identifier of another read ahead.
+     */
+    public String toString()
+    {
+        return "PageReadAhead#" + number + "#"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
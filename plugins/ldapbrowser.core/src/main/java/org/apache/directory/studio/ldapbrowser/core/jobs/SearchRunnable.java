@@ -38,6 +38,8 @@ import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.message.controls.SortKey;
+import org.apache.directory.api.ldap.model.message.controls.SortRequest;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.url.LdapUrl;
 import org.apache.directory.api.util.Strings;
@@ -47,6 +49,7 @@ import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.StudioControl;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
@@ -77,12 +80,24 @@ import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
  */
 public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
 {
+    /** The minimum number of search results that are published at once in incremental mode. */
+    private static final int MIN_PUBLISH_BATCH_SIZE = 100;
+
+    /** The maximum interval in milliseconds between two publications in incremental mode. */
+    private static final long MAX_PUBLISH_INTERVAL = 1000;
+
     /** The searches. */
     protected ISearch[] searches;
 
     /** The searches to perform. */
     protected ISearch[] searchesToPerform;
 
+    /** The page read ahead, only used internally. */
+    private PageReadAhead readAhead;
+
+    /** The virtual list view window, only used internally. */
+    private VirtualListViewWindow vlvWindow;
+
 
     /**
      * Creates a new instance of SearchRunnable.
@@ -111,6 +126,19 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
     }
 
 
+    /**
+     * Creates a new instance of SearchRunnable.
+     * 
+     * @param search the search
+     * @param vlvWindow the virtual list view window
+     */
+    private SearchRunnable( ISearch search, VirtualListViewWindow vlvWindow )
+    {
+        this( search, search );
+        this.vlvWindow = vlvWindow;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -174,6 +202,14 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
 
             if ( search.getBrowserConnection() != null )
             {
+                // take the page read ahead, before the old next page runnable is discarded
+                PageReadAhead pageReadAhead = readAhead;
+                readAhead = null;
+                if ( search.getNextSearchRunnable() instanceof SearchRunnable )
+                {
+                    ( ( SearchRunnable ) search.getNextSearchRunnable() ).discardReadAhead();
+                }
+
                 // reset search results
                 search.setSearchResults( new ISearchResult[0] );
                 search.getResponseControls().clear();
@@ -184,25 +220,33 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                 searchToPerform.setTopPageSearchRunnable( null );
                 searchToPerform.getResponseControls().clear();
 
-                do
+                // virtual list view: read a window of the sorted search result instead of a page
+                if ( pageReadAhead == null && searchWindow( search, searchToPerform, monitor ) )
                 {
-                    // perform search
-                    searchAndUpdateModel( searchToPerform.getBrowserConnection(), searchToPerform, monitor );
+                    continue;
+                }
 
-                    if ( search != searchToPerform )
+                do
+                {
+                    ISearch readAheadSearch = pageReadAhead != null ? pageReadAhead.take( monitor ) : null;
+                    if ( readAheadSearch == null && pageReadAhead != null )
+                    {
+                        // the page was discarded after its cookie was consumed, continue with the next cookie
+                        setCookie( searchToPerform, pageReadAhead.getNextCookie() );
+                    }
+                    pageReadAhead = null;
+                    if ( readAheadSearch != null )
                     {
-                        // merge search results
-                        ISearchResult[] sr1 = search.getSearchResults();
-                        ISearchResult[] sr2 = searchToPerform.getSearchResults();
-                        ISearchResult[] sr = new ISearchResult[sr1.length + sr2.length];
-                        System.arraycopy( sr1, 0, sr, 0, sr1.length );
-                        System.arraycopy( sr2, 0, sr, sr1.length, sr2.length );
-                        search.setSearchResults( sr );
+                        // publish the page read ahead
+                        searchToPerform = readAheadSearch;
+                        search.addSearchResults( searchToPerform.getSearchResults() );
+                        searchToPerform.setSearchResults( new ISearchResult[0] );
                     }
                     else
                     {
-                        // set search results
-                        search.setSearchResults( searchToPerform.getSearchResults() );
+                        // perform search, the search results are published to the search incrementally
+                        searchAndUpdateModel( searchToPerform.getBrowserConnection(), searchToPerform, search,
+                            monitor );
                     }
 
                     // check response controls
@@ -251,6 +295,13 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                             {
                                 // create next page search runnable
                                 SearchRunnable nextPageSearchRunnable = new SearchRunnable( search, nextPageSearch );
+                                if ( ArrayUtils.isNotEmpty( prRequestControl.getCookie() ) )
+                                {
+                                    // the user scrolls through the pages, read the next page ahead
+                                    ISearch readAheadSearch = ( ISearch ) nextPageSearch.clone();
+                                    readAheadSearch.getResponseControls().clear();
+                                    nextPageSearchRunnable.readAhead = PageReadAhead.start( readAheadSearch );
+                                }
                                 search.setNextPageSearchRunnable( nextPageSearchRunnable );
                             }
                         }
@@ -285,6 +336,135 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
     }
 
 
+    /**
+     * Reads a window of the search result with the virtual list view control, if the
+     * search is in paged scroll mode and the server supports it.
+     * 
+     * @param search the search
+     * @param searchToPerform the search to perform
+     * @param monitor the progress monitor
+     * @return true if the window was read, false if paged search should be used instead
+     */
+    private boolean searchWindow( ISearch search, ISearch searchToPerform, StudioProgressMonitor monitor )
+    {
+        IBrowserConnection browserConnection = search.getBrowserConnection();
+        if ( !search.isPagedSearchScrollMode() || !VirtualListViewWindow.isSupported( browserConnection ) )
+        {
+            return false;
+        }
+
+        VirtualListViewWindow window = vlvWindow;
+        if ( window == null )
+        {
+            // only the first page, continued paged searches keep using paged search
+            for ( Control control : searchToPerform.getControls() )
+            {
+                if ( control instanceof PagedResults
+                    && ArrayUtils.isNotEmpty( ( ( PagedResults ) control ).getCookie() ) )
+                {
+                    return false;
+                }
+            }
+
+            // sort the search result by the requested sort key, or else by the first
+            // returning attribute, shown in the first column
+            SortRequest sortControl = searchToPerform.getSortRequestControl();
+            if ( sortControl != null && !sortControl.getSortKeys().isEmpty() )
+            {
+                SortKey sortKey = sortControl.getSortKeys().get( 0 );
+                window = VirtualListViewWindow.first( sortKey.getAttributeTypeDesc(), sortKey.isReverseOrder(),
+                    browserConnection.getPagedSearchSize() );
+            }
+            else
+            {
+                String sortAttribute = getSortAttribute( searchToPerform );
+                if ( sortAttribute == null )
+                {
+                    return false;
+                }
+                window = VirtualListViewWindow.first( sortAttribute, browserConnection.getPagedSearchSize() );
+            }
+        }
+
+        ISearch windowSearch = ( ISearch ) searchToPerform.clone();
+        windowSearch.getResponseControls().clear();
+        window.addControls( windowSearch );
+
+        // errors are not reported, paged search is used instead
+        StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
+        searchAndUpdateModel( browserConnection, windowSearch, dummyMonitor );
+        if ( dummyMonitor.errorsReported() || !window.readResponse( windowSearch ) )
+        {
+            return false;
+        }
+
+        ISearchResult[] searchResults = windowSearch.getSearchResults();
+        search.addSearchResults( searchResults );
+        search.setSearchContinuations( windowSearch.getSearchContinuations() );
+
+        VirtualListViewWindow topWindow = window.getTopWindow();
+        if ( topWindow != null )
+        {
+            search.setTopPageSearchRunnable( new SearchRunnable( search, topWindow ) );
+        }
+        VirtualListViewWindow nextWindow = window.getNextWindow( searchResults.length );
+        if ( nextWindow != null )
+        {
+            search.setNextPageSearchRunnable( new SearchRunnable( search, nextWindow ) );
+        }
+        return true;
+    }
+
+
+    private static String getSortAttribute( ISearch search )
+    {
+        if ( search.getReturningAttributes() != null )
+        {
+            for ( String attribute : search.getReturningAttributes() )
+            {
+                if ( !SchemaConstants.ALL_USER_ATTRIBUTES.equals( attribute )
+                    && !SchemaConstants.ALL_OPERATIONAL_ATTRIBUTES.equals( attribute )
+                    && !SchemaConstants.NO_ATTRIBUTE.equals( attribute ) && !attribute.startsWith( "@" ) ) //$NON-NLS-1$
+                {
+                    return attribute;
+                }
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Sets the cookie of the paged results control of the given search.
+     * 
+     * @param search the search
+     * @param cookie the cookie, null to keep the current cookie
+     */
+    private static void setCookie( ISearch search, byte[] cookie )
+    {
+        if ( cookie != null )
+        {
+            for ( Control control : search.getControls() )
+            {
+                if ( control instanceof PagedResults )
+                {
+                    ( ( PagedResults ) control ).setCookie( cookie );
+                }
+            }
+        }
+    }
+
+
+    private void discardReadAhead()
+    {
+        if ( readAhead != null )
+        {
+            readAhead.discard();
+            readAhead = null;
+        }
+    }
+
+
     /**
      * Searches the directory and updates the browser model.
      * 
@@ -294,12 +474,38 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
      */
     public static void searchAndUpdateModel( IBrowserConnection browserConnection, ISearch search,
         StudioProgressMonitor monitor )
+    {
+        searchAndUpdateModel( browserConnection, search, null, monitor );
+    }
+
+
+    /**
+     * Searches the directory and updates the browser model.
+     * 
+     * If a publish search is given the search results are not collected
+     * until the search is done, instead they are appended to the publish 
+     * search in batches as they arrive. The batch size grows with the number 
+     * of already published search results, so the first results are shown
+     * immediately while the total number of search update events stays small.
+     * 
+     * @param browserConnection the browser connection
+     * @param search the search
+     * @param publishSearch the search to publish the search results incrementally to, 
+     *                      null to set the search results of the search when done
+     * @param monitor the progress monitor
+     */
+    public static void searchAndUpdateModel( IBrowserConnection browserConnection, ISearch search,
+        ISearch publishSearch, StudioProgressMonitor monitor )
     {
         if ( browserConnection.getConnection() == null )
         {
             return;
         }
 
+        // the entries are pinned while the search is running, so that the attributes 
+        // of the search results are not evicted from the cache by the following results
+        List<IEntry> pinnedEntries = new ArrayList<IEntry>();
+
         try
         {
             if ( !monitor.isCanceled() )
@@ -308,6 +514,9 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                 SearchParameter searchParameter = getSearchParameter( search );
                 ArrayList<ISearchResult> searchResultList = new ArrayList<ISearchResult>();
                 ArrayList<SearchContinuation> searchContinuationList = new ArrayList<SearchContinuation>();
+                int searchResultCount = 0;
+                int publishedCount = 0;
+                long lastPublishTime = System.currentTimeMillis();
 
                 StudioSearchResultEnumeration enumeration = null;
                 // search
@@ -319,52 +528,34 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                     while ( !monitor.isCanceled() && enumeration != null && enumeration.hasMore() )
                     {
                         StudioSearchResult sr = enumeration.next();
-                        boolean isContinuedSearchResult = sr.isContinuedSearchResult();
                         LdapUrl searchContinuationUrl = sr.getSearchContinuationUrl();
 
                         if ( searchContinuationUrl == null )
                         {
-                            Dn dn = sr.getDn();
-                            IEntry entry = null;
-
-                            Connection resultConnection = sr.getConnection();
-                            IBrowserConnection resultBrowserConnection = BrowserCorePlugin.getDefault()
-                                .getConnectionManager().getBrowserConnection( resultConnection );
-                            if ( resultBrowserConnection == null )
-                            {
-                                resultBrowserConnection = browserConnection;
-                            }
+                            ISearchResult searchResult = createSearchResult( browserConnection, search,
+                                searchParameter, sr, pinnedEntries, monitor );
 
-                            // get entry from cache or create it
-                            entry = resultBrowserConnection.getEntryFromCache( dn );
-                            if ( entry == null )
+                            // If the entry is still null, we return
+                            // See https://issues.apache.org/jira/browse/DIRSTUDIO-865
+                            if ( searchResult == null )
                             {
-                                entry = createAndCacheEntry( resultBrowserConnection, dn, monitor );
-
-                                // If the entry is still null, we return
-                                // See https://issues.apache.org/jira/browse/DIRSTUDIO-865
-                                if ( entry == null )
-                                {
-                                    return;
-                                }
+                                return;
                             }
 
-                            // initialize special flags
-                            initFlags( entry, sr, searchParameter );
-
-                            // fill the attributes
-                            fillAttributes( entry, sr, search.getSearchParameter() );
+                            searchResultList.add( searchResult );
+                            searchResultCount++;
 
-                            if ( isContinuedSearchResult )
+                            // publish a batch of search results
+                            if ( publishSearch != null
+                                && ( searchResultList.size() >= Math.max( MIN_PUBLISH_BATCH_SIZE, publishedCount / 2 )
+                                || System.currentTimeMillis() - lastPublishTime > MAX_PUBLISH_INTERVAL ) )
                             {
-                                // the result is from a continued search
-                                // we create a special entry that displays the URL of the entry
-                                entry = new ContinuedSearchResultEntry( resultBrowserConnection, dn );
+                                publishedCount += searchResultList.size();
+                                publishSearch.addSearchResults( searchResultList
+                                    .toArray( new ISearchResult[searchResultList.size()] ) );
+                                searchResultList.clear();
+                                lastPublishTime = System.currentTimeMillis();
                             }
-
-                            searchResultList
-                                .add( new org.apache.directory.studio.ldapbrowser.core.model.impl.SearchResult( entry,
-                                    search ) );
                         }
                         else
                         {
@@ -375,66 +566,269 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                         }
 
                         monitor
-                            .reportProgress( searchResultList.size() == 1 ? BrowserCoreMessages.model__retrieved_1_entry
+                            .reportProgress( searchResultCount == 1 ? BrowserCoreMessages.model__retrieved_1_entry
                                 : BrowserCoreMessages.bind( BrowserCoreMessages.model__retrieved_n_entries,
                                     new String[]
-                                    { Integer.toString( searchResultList.size() ) } ) );
+                                    { Integer.toString( searchResultCount ) } ) );
                     }
                 }
                 catch ( Exception e )
                 {
-                    int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
-                    if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
-                    {
-                        search.setCountLimitExceeded( true );
-                    }
-                    else
-                    {
-                        monitor.reportError( e );
-                    }
+                    handleSearchException( search, e, monitor );
                 }
 
                 // check for response controls
-                try
+                readResponseControls( search, enumeration, monitor );
+
+                monitor.reportProgress( searchResultCount == 1 ? BrowserCoreMessages.model__retrieved_1_entry
+                    : BrowserCoreMessages.bind( BrowserCoreMessages.model__retrieved_n_entries, new String[]
+                    { Integer.toString( searchResultCount ) } ) );
+                monitor.worked( 1 );
+
+                if ( publishSearch != null )
                 {
-                    if ( enumeration != null )
+                    // publish the remaining search results
+                    publishSearch.addSearchResults( searchResultList
+                        .toArray( new ISearchResult[searchResultList.size()] ) );
+                    if ( search != publishSearch )
                     {
-                        for ( org.apache.directory.api.ldap.model.message.Control control : enumeration
-                            .getResponseControls() )
-                        {
-                            search.getResponseControls().add( control );
-                            if ( control instanceof PagedResults )
-                            {
-                                search.setCountLimitExceeded(
-                                    ArrayUtils.isNotEmpty( ( ( PagedResults ) control ).getCookie() ) );
-                            }
-                        }
+                        search.setSearchResults( new ISearchResult[0] );
                     }
                 }
-                catch ( Exception e )
+                else
                 {
-                    monitor.reportError( e );
+                    search.setSearchResults( ( ISearchResult[] ) searchResultList
+                        .toArray( new ISearchResult[searchResultList.size()] ) );
                 }
-
-                monitor.reportProgress( searchResultList.size() == 1 ? BrowserCoreMessages.model__retrieved_1_entry
-                    : BrowserCoreMessages.bind( BrowserCoreMessages.model__retrieved_n_entries, new String[]
-                    { Integer.toString( searchResultList.size() ) } ) );
-                monitor.worked( 1 );
-
-                search.setSearchResults( ( ISearchResult[] ) searchResultList
-                    .toArray( new ISearchResult[searchResultList.size()] ) );
                 search.setSearchContinuations( ( SearchContinuation[] ) searchContinuationList
                     .toArray( new SearchContinuation[searchContinuationList.size()] ) );
             }
         }
         catch ( Exception e )
         {
-            if ( search != null )
+            if ( search != null && search != publishSearch )
             {
                 search.setSearchResults( new ISearchResult[0] );
             }
             monitor.reportError( e );
         }
+        finally
+        {
+            // the published search results are pinned by the search itself
+            for ( IEntry entry : pinnedEntries )
+            {
+                entry.getBrowserConnection().unpinEntry( entry );
+            }
+        }
+    }
+
+
+    /**
+     * Searches the directory without updating the browser model. The search results are
+     * collected in the given list, the response controls and the count limit exceeded
+     * flag are set to the search. The model is updated later using
+     * {@link #updateModel(IBrowserConnection, ISearch, List, StudioProgressMonitor)}.
+     * 
+     * @param browserConnection the browser connection
+     * @param search the search
+     * @param results the list to add the search results to
+     * @param monitor the progress monitor
+     */
+    static void searchWithoutUpdatingModel( IBrowserConnection browserConnection, ISearch search,
+        List<StudioSearchResult> results, StudioProgressMonitor monitor )
+    {
+        if ( browserConnection.getConnection() == null || monitor.isCanceled() )
+        {
+            return;
+        }
+
+        StudioSearchResultEnumeration enumeration = null;
+        try
+        {
+            enumeration = search( browserConnection, getSearchParameter( search ), monitor );
+            while ( !monitor.isCanceled() && enumeration != null && enumeration.hasMore() )
+            {
+                results.add( enumeration.next() );
+            }
+        }
+        catch ( Exception e )
+        {
+            handleSearchException( search, e, monitor );
+        }
+
+        readResponseControls( search, enumeration, monitor );
+    }
+
+
+    /**
+     * Updates the browser model with the search results read by
+     * {@link #searchWithoutUpdatingModel(IBrowserConnection, ISearch, List, StudioProgressMonitor)}
+     * and sets them to the search.
+     * 
+     * @param browserConnection the browser connection
+     * @param search the search
+     * @param results the search results
+     * @param monitor the progress monitor
+     */
+    static void updateModel( IBrowserConnection browserConnection, ISearch search,
+        List<StudioSearchResult> results, StudioProgressMonitor monitor )
+    {
+        List<IEntry> pinnedEntries = new ArrayList<IEntry>();
+
+        try
+        {
+            SearchParameter searchParameter = getSearchParameter( search );
+            List<ISearchResult> searchResultList = new ArrayList<ISearchResult>();
+            List<SearchContinuation> searchContinuationList = new ArrayList<SearchContinuation>();
+
+            for ( StudioSearchResult sr : results )
+            {
+                if ( sr.getSearchContinuationUrl() == null )
+                {
+                    ISearchResult searchResult = createSearchResult( browserConnection, search, searchParameter, sr,
+                        pinnedEntries, monitor );
+                    if ( searchResult == null )
+                    {
+                        break;
+                    }
+                    searchResultList.add( searchResult );
+                }
+                else
+                {
+                    searchContinuationList.add( new SearchContinuation( search, sr.getSearchContinuationUrl() ) );
+                }
+            }
+
+            search.setSearchResults( searchResultList.toArray( new ISearchResult[searchResultList.size()] ) );
+            search.setSearchContinuations( searchContinuationList
+                .toArray( new SearchContinuation[searchContinuationList.size()] ) );
+        }
+        catch ( Exception e )
+        {
+            search.setSearchResults( new ISearchResult[0] );
+            monitor.reportError( e );
+        }
+        finally
+        {
+            // the search results are pinned by the search itself
+            for ( IEntry entry : pinnedEntries )
+            {
+                entry.getBrowserConnection().unpinEntry( entry );
+            }
+        }
+    }
+
+
+    /**
+     * Gets the entry of the given search result from the cache or creates it, 
+     * and fills the attributes of the search result into the entry.
+     * The entry is pinned and added to the list of pinned entries.
+     * 
+     * @param browserConnection the browser connection
+     * @param search the search
+     * @param searchParameter the search parameter with the added returning attributes
+     * @param sr the search result
+     * @param pinnedEntries the list of pinned entries
+     * @param monitor the progress monitor
+     * @return the search result, null if the entry couldn't be created
+     */
+    private static ISearchResult createSearchResult( IBrowserConnection browserConnection, ISearch search,
+        SearchParameter searchParameter, StudioSearchResult sr, List<IEntry> pinnedEntries,
+        StudioProgressMonitor monitor )
+    {
+        Dn dn = sr.getDn();
+
+        Connection resultConnection = sr.getConnection();
+        IBrowserConnection resultBrowserConnection = BrowserCorePlugin.getDefault().getConnectionManager()
+            .getBrowserConnection( resultConnection );
+        if ( resultBrowserConnection == null )
+        {
+            resultBrowserConnection = browserConnection;
+        }
+
+        // get entry from cache or create it
+        IEntry entry = resultBrowserConnection.getEntryFromCache( dn );
+        if ( entry == null )
+        {
+            entry = createAndCacheEntry( resultBrowserConnection, dn, monitor );
+            if ( entry == null )
+            {
+                return null;
+            }
+        }
+
+        resultBrowserConnection.pinEntry( entry );
+        pinnedEntries.add( entry );
+
+        // initialize special flags
+        initFlags( entry, sr, searchParameter );
+
+        // fill the attributes
+        fillAttributes( entry, sr, search.getSearchParameter() );
+
+        if ( sr.isContinuedSearchResult() )
+        {
+            // the result is from a continued search
+            // we create a special entry that displays the URL of the entry
+            entry = new ContinuedSearchResultEntry( resultBrowserConnection, dn );
+        }
+
+        return new org.apache.directory.studio.ldapbrowser.core.model.impl.SearchResult( entry, search );
+    }
+
+
+    /**
+     * Handles an exception thrown while searching: sets the count limit exceeded flag 
+     * of the search if a limit was exceeded, reports the error otherwise.
+     * 
+     * @param search the search
+     * @param e the exception
+     * @param monitor the progress monitor
+     */
+    private static void handleSearchException( ISearch search, Exception e, StudioProgressMonitor monitor )
+    {
+        int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
+        if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
+        {
+            search.setCountLimitExceeded( true );
+        }
+        else
+        {
+            monitor.reportError( e );
+        }
+    }
+
+
+    /**
+     * Adds the response controls of the enumeration to the search.
+     * 
+     * @param search the search
+     * @param enumeration the search result enumeration, may be null
+     * @param monitor the progress monitor
+     */
+    private static void readResponseControls( ISearch search, StudioSearchResultEnumeration enumeration,
+        StudioProgressMonitor monitor )
+    {
+        try
+        {
+            if ( enumeration != null )
+            {
+                for ( org.apache.directory.api.ldap.model.message.Control control : enumeration
+                    .getResponseControls() )
+                {
+                    search.getResponseControls().add( control );
+                    if ( control instanceof PagedResults )
+                    {
+                        search.setCountLimitExceeded(
+                            ArrayUtils.isNotEmpty( ( ( PagedResults ) control ).getCookie() ) );
+                    }
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
     }
 
 
@@ -446,6 +840,21 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
             return null;
         }
 
+        return search( browserConnection.getConnection().getConnectionWrapper(), parameter, monitor );
+    }
+
+
+    /**
+     * Performs the search using the given connection wrapper.
+     *
+     * @param connectionWrapper the connection wrapper
+     * @param parameter the search parameter
+     * @param monitor the progress monitor
+     * @return the search result enumeration
+     */
+    public static StudioSearchResultEnumeration search( ConnectionWrapper connectionWrapper,
+        SearchParameter parameter, StudioProgressMonitor monitor )
+    {
         String searchBase = parameter.getSearchBase().getName();
         SearchControls searchControls = new SearchControls();
         SearchScope scope = parameter.getScope();
@@ -483,9 +892,7 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
             controls = parameter.getControls().toArray( new Control[0] );
         }
 
-        StudioSearchResultEnumeration result = browserConnection
-            .getConnection()
-            .getConnectionWrapper()
+        StudioSearchResultEnumeration result = connectionWrapper
             .search( searchBase, filter, searchControls, aliasesDereferencingMethod, referralsHandlingMethod, controls,
                 monitor, null );
         return result;
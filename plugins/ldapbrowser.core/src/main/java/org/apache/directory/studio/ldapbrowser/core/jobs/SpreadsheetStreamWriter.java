@@ -0,0 +1,359 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+/**
+ * Writes a spreadsheet document row by row with bounded memory.
+ * <p>
+ * The header row is only known after all rows are written, because new attributes
+ * may appear in any entry. So the rows are spooled to temporary files as XML
+ * fragments, one file per sheet, and copied into the document by
+ * {@link #finish(OutputStream, List)}. If the maximum number of rows per sheet is
+ * reached, a new sheet is started. The column widths are estimated from the header
+ * and the first rows.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+abstract class SpreadsheetStreamWriter implements Closeable
+{
+    /** The maximum number of rows of a sheet, including the header row */
+    static final int MAX_ROWS_PER_SHEET = 1048576;
+
+    /** The number of rows used to estimate the column widths */
+    private static final int COLUMN_WIDTH_SAMPLE_SIZE = 1000;
+
+    /** The maximum column width, in characters */
+    private static final int MAX_COLUMN_WIDTH = 255;
+
+    /** The name of the first sheet */
+    private String sheetName;
+
+    /** The spool files, one per sheet */
+    private List<File> spoolFiles = new ArrayList<>();
+
+    /** The writer of the current spool file */
+    private Writer spoolWriter;
+
+    /** The number of rows in the current sheet, including the header row */
+    private int sheetRowCount;
+
+    /** The number of written rows */
+    private int rowCount;
+
+    /** The estimated column widths, in characters */
+    private List<Integer> columnWidths = new ArrayList<>();
+
+
+    /**
+     * Creates a new instance of SpreadsheetStreamWriter.
+     *
+     * @param sheetName the name of the first sheet, following sheets are numbered
+     */
+    protected SpreadsheetStreamWriter( String sheetName )
+    {
+        this.sheetName = sheetName;
+    }
+
+
+    /**
+     * Writes a row.
+     *
+     * @param values the cell values by column index, null for empty cells
+     * @param wrapped the columns whose cell text should be wrapped
+     * @throws IOException if an I/O error occurs
+     */
+    void writeRow( List<String> values, BitSet wrapped ) throws IOException
+    {
+        if ( spoolWriter == null || sheetRowCount >= MAX_ROWS_PER_SHEET )
+        {
+            startSpoolFile();
+        }
+
+        sheetRowCount++;
+        writeRow( spoolWriter, sheetRowCount, values, wrapped );
+
+        if ( rowCount < COLUMN_WIDTH_SAMPLE_SIZE )
+        {
+            updateColumnWidths( values );
+        }
+        rowCount++;
+    }
+
+
+    /**
+     * Writes the document with the given header row and all written rows.
+     *
+     * @param out the output stream, not closed by this method
+     * @param header the names of the columns
+     * @throws IOException if an I/O error occurs
+     */
+    void finish( OutputStream out, List<String> header ) throws IOException
+    {
+        if ( spoolWriter != null )
+        {
+            spoolWriter.close();
+            spoolWriter = null;
+        }
+        if ( spoolFiles.isEmpty() )
+        {
+            // always write one sheet with the header row
+            startSpoolFile();
+            spoolWriter.close();
+            spoolWriter = null;
+        }
+        updateColumnWidths( header );
+
+        ZipOutputStream zip = new ZipOutputStream( out );
+        writeDocument( zip, header );
+        zip.finish();
+    }
+
+
+    /**
+     * Deletes the temporary files.
+     */
+    public void close() throws IOException
+    {
+        if ( spoolWriter != null )
+        {
+            spoolWriter.close();
+            spoolWriter = null;
+        }
+
+        for ( File spoolFile : spoolFiles )
+        {
+            Files.deleteIfExists( spoolFile.toPath() );
+        }
+        spoolFiles.clear();
+    }
+
+
+    /**
+     * Writes all parts of the document.
+     *
+     * @param zip the zip stream of the document
+     * @param header the names of the columns
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract void writeDocument( ZipOutputStream zip, List<String> header ) throws IOException;
+
+
+    /**
+     * Writes a row as XML fragment.
+     *
+     * @param writer the writer
+     * @param rowNumber the 1-based number of the row within its sheet
+     * @param values the cell values by column index, null for empty cells
+     * @param wrapped the columns whose cell text should be wrapped, may be null
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract void writeRow( Writer writer, int rowNumber, List<String> values, BitSet wrapped )
+        throws IOException;
+
+
+    /**
+     * Gets the number of sheets.
+     *
+     * @return the number of sheets
+     */
+    protected int getSheetCount()
+    {
+        return spoolFiles.size();
+    }
+
+
+    /**
+     * Gets the name of the sheet with the given index.
+     *
+     * @param index the 0-based sheet index
+     * @return the name of the sheet
+     */
+    protected String getSheetName( int index )
+    {
+        return index == 0 ? sheetName : sheetName + " " + ( index + 1 ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Gets the estimated column widths.
+     *
+     * @return the column widths, in characters
+     */
+    protected List<Integer> getColumnWidths()
+    {
+        return columnWidths;
+    }
+
+
+    /**
+     * Copies the spooled rows of the given sheet.
+     *
+     * @param index the 0-based sheet index
+     * @param writer the writer of the document, flushed before the rows are copied
+     * @param out the underlying output stream of the writer
+     * @throws IOException if an I/O error occurs
+     */
+    protected void copyRows( int index, Writer writer, OutputStream out ) throws IOException
+    {
+        writer.flush();
+        Files.copy( spoolFiles.get( index ).toPath(), out );
+    }
+
+
+    /**
+     * Sets the value of a cell in the given row, empty cells are added before if needed.
+     *
+     * @param row the cell values by column index, null for empty cells
+     * @param cellNum the column index
+     * @param value the value
+     */
+    static void setCell( List<String> row, int cellNum, String value )
+    {
+        while ( row.size() <= cellNum )
+        {
+            row.add( null );
+        }
+        row.set( cellNum, value );
+    }
+
+
+    /**
+     * Starts a new zip entry.
+     *
+     * @param zip the zip stream
+     * @param name the name of the entry
+     * @return a writer for the entry, must be flushed but not closed
+     * @throws IOException if an I/O error occurs
+     */
+    protected static Writer startEntry( ZipOutputStream zip, String name ) throws IOException
+    {
+        zip.putNextEntry( new ZipEntry( name ) );
+        return new BufferedWriter( new OutputStreamWriter( zip, StandardCharsets.UTF_8 ) );
+    }
+
+
+    /**
+     * Escapes the given text for XML element content and attribute values. Characters
+     * that are not allowed in XML are replaced by the replacement character.
+     *
+     * @param writer the writer
+     * @param text the text
+     * @throws IOException if an I/O error occurs
+     */
+    protected static void writeEscaped( Writer writer, CharSequence text ) throws IOException
+    {
+        for ( int i = 0; i < text.length(); i++ )
+        {
+            char c = text.charAt( i );
+            switch ( c )
+            {
+                case '&':
+                    writer.write( "&amp;" ); //$NON-NLS-1$
+                    break;
+                case '<':
+                    writer.write( "&lt;" ); //$NON-NLS-1$
+                    break;
+                case '>':
+                    writer.write( "&gt;" ); //$NON-NLS-1$
+                    break;
+                case '"':
+                    writer.write( "&quot;" ); //$NON-NLS-1$
+                    break;
+                case '\r':
+                    writer.write( "&#13;" ); //$NON-NLS-1$
+                    break;
+                default:
+                    if ( ( c < 0x20 && c != '\t' && c != '\n' ) || c == 0xFFFE || c == 0xFFFF )
+                    {
+                        writer.write( '\uFFFD' );
+                    }
+                    else
+                    {
+                        writer.write( c );
+                    }
+            }
+        }
+    }
+
+
+    private void startSpoolFile() throws IOException
+    {
+        if ( spoolWriter != null )
+        {
+            spoolWriter.close();
+        }
+
+        File spoolFile = File.createTempFile( "studio-export-", ".xml" ); //$NON-NLS-1$ //$NON-NLS-2$
+        spoolFiles.add( spoolFile );
+        spoolWriter = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( spoolFile ),
+            StandardCharsets.UTF_8 ) );
+
+        // the first row of each sheet is the header row
+        sheetRowCount = 1;
+    }
+
+
+    private void updateColumnWidths( List<String> values )
+    {
+        for ( int i = 0; i < values.size(); i++ )
+        {
+            while ( columnWidths.size() <= i )
+            {
+                columnWidths.add( 0 );
+            }
+
+            String value = values.get( i );
+            if ( value != null )
+            {
+                // the longest line of a wrapped value determines the width
+                int length = 0;
+                for ( String line : value.split( "\n" ) ) //$NON-NLS-1$
+                {
+                    length = Math.max( length, line.length() );
+                }
+
+                int width = Math.min( MAX_COLUMN_WIDTH, ( int ) Math.ceil( length * 1.1 ) );
+                if ( width > columnWidths.get( i ) )
+                {
+                    columnWidths.set( i, width );
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,541 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.naming.directory.SearchControls;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Modification;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Ava;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.Rdn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.StudioPagedResultsControl;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
+import org.apache.directory.studio.connection.core.io.StudioLdapException;
+import org.apache.directory.studio.connection.core.io.api.StudioOperationFuture;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.jobs.EntryExistsCopyStrategyDialog.EntryExistsCopyStrategy;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExportLdifRunnable.DefaultLdifEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
+
+
+/**
+ * Copies entries and their children from a source to a target connection.
+ * <p>
+ * The children of a copied entry are read with one (paged) search, the search results
+ * are streamed while the entries are created asynchronously on the target connection
+ * with a bounded number of outstanding operations. An entry is only created after
+ * its parent was created, entries returned before their parent wait for it.
+ * If an entry already exists the dialog is asked for the copy strategy, the chosen
+ * Rdn of a renamed entry is used for all its children.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class SubtreeCopier
+{
+    /** The page size if the connection doesn't define one */
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /** The source browser connection */
+    private IBrowserConnection sourceBrowserConnection;
+
+    /** The target browser connection */
+    private IBrowserConnection targetBrowserConnection;
+
+    /** The connection wrapper of the target connection */
+    private ConnectionWrapper targetConnectionWrapper;
+
+    /** The copy scope, one of the SearchControls scopes */
+    private int scope;
+
+    /** The dialog to ask for the copy strategy, may be null */
+    private EntryExistsCopyStrategyDialog dialog;
+
+    /** The maximum number of outstanding create operations */
+    private int windowSize;
+
+    /** The monitor used for the single operations */
+    private StudioProgressMonitor dummyMonitor;
+
+    /** The progress monitor */
+    private StudioProgressMonitor monitor;
+
+    /** The cumulative number of copied entries */
+    private int numberOfCopiedEntries;
+
+    /** The copied entries, by normalized source Dn */
+    private Map<String, Node> nodes = new HashMap<String, Node>();
+
+    /** The entries waiting for the creation of their parent, by normalized source Dn of the parent */
+    private Map<String, List<Entry>> waiting = new HashMap<String, List<Entry>>();
+
+    /** The entries whose parent is known */
+    private Deque<Entry> ready = new ArrayDeque<Entry>();
+
+    /** The outstanding create operations, in the order they were sent */
+    private Deque<Node> window;
+
+
+    /**
+     * Creates a new instance of SubtreeCopier.
+     *
+     * @param sourceBrowserConnection the source browser connection
+     * @param targetBrowserConnection the target browser connection
+     * @param scope the copy scope, one of the SearchControls scopes
+     * @param numberOfCopiedEntries the number of already copied entries
+     * @param dialog the dialog to ask for the copy strategy, if null the user won't be
+     *        asked instead the exception is reported to the monitor
+     * @param dummyMonitor the monitor used for the single operations
+     * @param monitor the progress monitor
+     */
+    SubtreeCopier( IBrowserConnection sourceBrowserConnection, IBrowserConnection targetBrowserConnection,
+        int scope, int numberOfCopiedEntries, EntryExistsCopyStrategyDialog dialog,
+        StudioProgressMonitor dummyMonitor, StudioProgressMonitor monitor )
+    {
+        this.sourceBrowserConnection = sourceBrowserConnection;
+        this.targetBrowserConnection = targetBrowserConnection;
+        this.targetConnectionWrapper = targetBrowserConnection.getConnection().getConnectionWrapper();
+        this.scope = scope;
+        this.numberOfCopiedEntries = numberOfCopiedEntries;
+        this.dialog = dialog;
+        this.windowSize = Math.max( 1, getCopyWindowSize() );
+        this.window = new ArrayDeque<Node>( windowSize );
+        this.dummyMonitor = dummyMonitor;
+        this.monitor = monitor;
+    }
+
+
+    /**
+     * Gets the maximum number of outstanding create operations, defined by the
+     * {@link BrowserCoreConstants#PREFERENCE_COPY_WINDOW_SIZE} preference.
+     *
+     * @return the maximum number of outstanding create operations
+     */
+    private static int getCopyWindowSize()
+    {
+        if ( BrowserCorePlugin.getDefault() == null )
+        {
+            return 1;
+        }
+
+        return BrowserCorePlugin.getDefault().getPluginPreferences().getInt(
+            BrowserCoreConstants.PREFERENCE_COPY_WINDOW_SIZE );
+    }
+
+
+    /**
+     * Copies the given entries below the given parent. Depending on the scope
+     * the children of each entry are copied too. Errors are reported to the monitor.
+     *
+     * @param entries the source entries to copy
+     * @param parentDn the target parent Dn
+     * @param forceNewRdn the new Rdn, if null the original Rdn of each entry is used
+     */
+    void copy( StudioSearchResultEnumeration entries, Dn parentDn, Rdn forceNewRdn )
+    {
+        try
+        {
+            while ( !monitor.isCanceled() && entries.hasMore() )
+            {
+                // get next entry to copy
+                Entry entry = entries.next().getEntry();
+                Dn oldLdapDn = entry.getDn();
+                Rdn oldRdn = oldLdapDn.getRdn();
+
+                // compose new Dn
+                Rdn newRdn = forceNewRdn != null ? forceNewRdn : oldRdn;
+                entry.setDn( parentDn.add( newRdn ) );
+
+                // apply new Rdn to the attributes
+                applyNewRdn( entry, oldRdn, newRdn );
+
+                // create entry
+                dummyMonitor.reset();
+                targetConnectionWrapper.createEntry( entry, getControls( entry ), dummyMonitor, null );
+                Dn newLdapDn = handleErrors( entry, parentDn, newRdn );
+
+                if ( newLdapDn != null && !isStopped() )
+                {
+                    entryCopied();
+
+                    // copy recursively
+                    if ( scope == SearchControls.ONELEVEL_SCOPE || scope == SearchControls.SUBTREE_SCOPE )
+                    {
+                        copyChildren( oldLdapDn, newLdapDn );
+                    }
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
+    }
+
+
+    /**
+     * Gets the cumulative number of copied entries.
+     *
+     * @return the cumulative number of copied entries
+     */
+    int getNumberOfCopiedEntries()
+    {
+        return numberOfCopiedEntries;
+    }
+
+
+    /**
+     * Copies the children of the given entry, or the whole subtree if the scope is
+     * SearchControls.SUBTREE_SCOPE.
+     *
+     * @param oldLdapDn the source Dn of the entry
+     * @param newLdapDn the target Dn of the entry
+     */
+    private void copyChildren( Dn oldLdapDn, Dn newLdapDn ) throws LdapException
+    {
+        SearchParameter parameter = new SearchParameter();
+        parameter.setSearchBase( oldLdapDn );
+        parameter.setFilter( ISearch.FILTER_TRUE );
+        parameter.setScope( scope == SearchControls.SUBTREE_SCOPE ? SearchScope.SUBTREE : SearchScope.ONELEVEL );
+        parameter.setReturningAttributes( new String[]
+            { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.REF_AT } );
+        parameter.setAliasesDereferencingMethod( AliasDereferencingMethod.NEVER );
+        parameter.setReferralsHandlingMethod( ReferralHandlingMethod.IGNORE );
+
+        if ( sourceBrowserConnection.getRootDSE().isControlSupported( StudioPagedResultsControl.OID ) )
+        {
+            int pageSize = sourceBrowserConnection.getPagedSearchSize() > 0 ? sourceBrowserConnection
+                .getPagedSearchSize() : DEFAULT_PAGE_SIZE;
+            parameter.getControls().add( Controls.newPagedResultsControl( pageSize ) );
+        }
+
+        nodes.put( oldLdapDn.getNormName(), new Node( oldLdapDn.getNormName(), newLdapDn ) );
+        int depth = oldLdapDn.size();
+
+        ConnectionWrapper sourceConnectionWrapper = sourceBrowserConnection.getConnection().getConnectionWrapper();
+        StudioSearchResultEnumeration result = SearchRunnable.search( sourceConnectionWrapper, parameter, monitor );
+        DefaultLdifEnumeration enumeration = new DefaultLdifEnumeration( result, sourceConnectionWrapper,
+            parameter, monitor );
+        try
+        {
+            // the search results are received while the entries are created
+            while ( !isStopped() && enumeration.hasNext() )
+            {
+                Entry entry = enumeration.nextEntry();
+                if ( entry.getDn().size() > depth )
+                {
+                    ready.add( entry );
+                    sendReady();
+                }
+            }
+
+            while ( !isStopped() && ( !ready.isEmpty() || !window.isEmpty() ) )
+            {
+                if ( ready.isEmpty() )
+                {
+                    complete( window.poll() );
+                }
+                else
+                {
+                    sendReady();
+                }
+            }
+
+            // entries still waiting have a parent that wasn't returned by the search,
+            // they aren't copied like with a recursive one level copy
+        }
+        finally
+        {
+            // abandon the outstanding operations on cancel or error
+            for ( Node node : window )
+            {
+                node.future.cancel();
+            }
+            window.clear();
+            ready.clear();
+            waiting.clear();
+            nodes.clear();
+        }
+    }
+
+
+    /**
+     * Sends the create operations of the entries whose parent is known.
+     */
+    private void sendReady() throws LdapException
+    {
+        while ( !isStopped() && !ready.isEmpty() )
+        {
+            Entry entry = ready.poll();
+            String parentKey = entry.getDn().getParent().getNormName();
+            Node parent = nodes.get( parentKey );
+            if ( parent == null )
+            {
+                waiting.computeIfAbsent( parentKey, k -> new ArrayList<Entry>() ).add( entry );
+            }
+            else
+            {
+                send( entry, parent );
+            }
+        }
+    }
+
+
+    /**
+     * Sends the create operation of the given entry.
+     *
+     * @param entry the source entry
+     * @param parent the parent
+     */
+    private void send( Entry entry, Node parent ) throws LdapException
+    {
+        // the parent must exist before its children are created
+        while ( parent.future != null && !isStopped() )
+        {
+            complete( window.poll() );
+        }
+        if ( window.size() >= windowSize && !isStopped() )
+        {
+            complete( window.poll() );
+        }
+        if ( isStopped() )
+        {
+            return;
+        }
+
+        Dn oldLdapDn = entry.getDn();
+        Node node = new Node( oldLdapDn.getNormName(), parent.newDn.add( oldLdapDn.getRdn() ) );
+        entry.setDn( node.newDn );
+        node.entry = entry;
+        node.parentDn = parent.newDn;
+        node.future = targetConnectionWrapper.createEntryAsync( entry, getControls( entry ), dummyMonitor );
+        nodes.put( node.key, node );
+        window.add( node );
+    }
+
+
+    /**
+     * Waits for the create operation of the given node and releases the
+     * entries waiting for it.
+     *
+     * @param node the node
+     */
+    private void complete( Node node ) throws LdapException
+    {
+        StudioLdapException exception = node.future.get();
+        node.future = null;
+        if ( exception != null )
+        {
+            dummyMonitor.reset();
+            dummyMonitor.reportError( exception );
+            node.newDn = handleErrors( node.entry, node.parentDn, node.newDn.getRdn() );
+        }
+        node.entry = null;
+        node.parentDn = null;
+
+        if ( node.newDn != null && !isStopped() )
+        {
+            entryCopied();
+
+            List<Entry> children = waiting.remove( node.key );
+            if ( children != null )
+            {
+                ready.addAll( children );
+            }
+        }
+    }
+
+
+    /**
+     * Handles the errors of the create operation reported to the dummy monitor.
+     * If the entry already exists the dialog is asked for the copy strategy.
+     *
+     * @param entry the entry, with the target Dn
+     * @param parentDn the target parent Dn
+     * @param newRdn the Rdn of the entry
+     * @return the target Dn of the entry, null if the entry couldn't be copied or the copy was canceled
+     */
+    private Dn handleErrors( Entry entry, Dn parentDn, Rdn newRdn ) throws LdapException
+    {
+        while ( dummyMonitor.errorsReported() )
+        {
+            if ( dialog != null && StudioLdapException.isEntryAlreadyExistsException( dummyMonitor.getException() ) )
+            {
+                // open dialog
+                dialog.setExistingEntry( targetBrowserConnection, entry.getDn() );
+                dialog.open();
+                EntryExistsCopyStrategy strategy = dialog.getStrategy();
+
+                if ( strategy == null )
+                {
+                    monitor.reportError( dummyMonitor.getException() );
+                    return null;
+                }
+
+                dummyMonitor.reset();
+
+                switch ( strategy )
+                {
+                    case BREAK:
+                        monitor.setCanceled( true );
+                        return null;
+
+                    case IGNORE_AND_CONTINUE:
+                        break;
+
+                    case OVERWRITE_AND_CONTINUE:
+                        // create modifications
+                        Collection<Modification> modifications = ModelConverter.toReplaceModifications( entry );
+
+                        // modify entry
+                        targetConnectionWrapper.modifyEntry( entry.getDn(), modifications, null, dummyMonitor, null );
+
+                        // force reload of attributes
+                        IEntry newEntry = targetBrowserConnection.getEntryFromCache( entry.getDn() );
+                        if ( newEntry != null )
+                        {
+                            newEntry.setAttributesInitialized( false );
+                        }
+
+                        break;
+
+                    case RENAME_AND_CONTINUE:
+                        Rdn renamedRdn = dialog.getRdn();
+
+                        // apply renamed Rdn to the attributes
+                        applyNewRdn( entry, newRdn, renamedRdn );
+                        newRdn = renamedRdn;
+
+                        // compose new Dn
+                        entry.setDn( parentDn.add( renamedRdn ) );
+
+                        // create entry
+                        targetConnectionWrapper.createEntry( entry, getControls( entry ), dummyMonitor, null );
+
+                        break;
+                }
+            }
+            else
+            {
+                monitor.reportError( dummyMonitor.getException() );
+                return null;
+            }
+        }
+
+        return entry.getDn();
+    }
+
+
+    private boolean isStopped()
+    {
+        return monitor.isCanceled() || monitor.errorsReported();
+    }
+
+
+    private void entryCopied()
+    {
+        numberOfCopiedEntries++;
+        monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__copied_n_entries, new String[]
+            { Integer.toString( numberOfCopiedEntries ) } ) );
+    }
+
+
+    /**
+     * Gets the ManageDsaIT control for referral entries.
+     */
+    private static Control[] getControls( Entry entry )
+    {
+        if ( entry.hasObjectClass( SchemaConstants.REFERRAL_OC ) )
+        {
+            return new Control[]
+                { Controls.MANAGEDSAIT_CONTROL };
+        }
+        return null;
+    }
+
+
+    private static void applyNewRdn( Entry entry, Rdn oldRdn, Rdn newRdn ) throws LdapException
+    {
+        // remove old Rdn attributes and values
+        for ( Ava atav : oldRdn )
+        {
+            entry.remove( atav.getType(), atav.getValue() );
+        }
+
+        // add new Rdn attributes and values
+        for ( Ava atav : newRdn )
+        {
+            entry.add( atav.getType(), atav.getValue() );
+        }
+    }
+
+    /**
+     * A copied entry.
+     */
+    private static class Node
+    {
+        /** The normalized source Dn */
+        private final String key;
+
+        /** The target Dn, null if the entry couldn't be copied */
+        private Dn newDn;
+
+        /** The target parent Dn, only set while the create operation is outstanding */
+        private Dn parentDn;
+
+        /** The entry, only set while the create operation is outstanding */
+        private Entry entry;
+
+        /** The future of the outstanding create operation, null if completed */
+        private StudioOperationFuture future;
+
+
+        private Node( String key, Dn newDn )
+        {
+            this.key = key;
+            this.newDn = newDn;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.StudioPagedResultsControl;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
+import org.apache.directory.studio.connection.core.io.StudioLdapException;
+import org.apache.directory.studio.connection.core.io.api.StudioOperationFuture;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExportLdifRunnable.DefaultLdifEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
+
+
+/**
+ * Deletes all entries below an entry, used if the server doesn't support the
+ * tree delete control.
+ * <p>
+ * The subtree is listed with one (paged) subtree search and grouped by depth.
+ * The entries are deleted deepest level first, the entries of one level are
+ * deleted asynchronously with a bounded number of outstanding operations.
+ * A level is completed before the next level is started, so an entry is only
+ * deleted after all its children. If the listing was incomplete, e.g. because
+ * of a size limit, the subtree is listed again until it is empty.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class SubtreeDeleter
+{
+    /** The page size if the connection doesn't define one */
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /** The minimum interval between two progress reports, in milliseconds */
+    private static final long REPORT_INTERVAL = 250L;
+
+    /** The browser connection */
+    private IBrowserConnection browserConnection;
+
+    /** The connection wrapper */
+    private ConnectionWrapper connectionWrapper;
+
+    /** The maximum number of outstanding delete operations */
+    private int windowSize;
+
+    /** The monitor used for the single operations */
+    private StudioProgressMonitor dummyMonitor;
+
+    /** The progress monitor */
+    private StudioProgressMonitor monitor;
+
+    /** The cumulative number of deleted entries */
+    private int numberOfDeletedEntries;
+
+    /** The number of entries deleted by this deleter */
+    private int numberOfDeletedSubtreeEntries;
+
+    /** The start time, in milliseconds */
+    private long startTime;
+
+    /** The time of the last progress report, in milliseconds */
+    private long lastReportTime;
+
+
+    /**
+     * Creates a new instance of SubtreeDeleter.
+     *
+     * @param browserConnection the browser connection
+     * @param numberOfDeletedEntries the number of already deleted entries
+     * @param dummyMonitor the monitor used for the single operations
+     * @param monitor the progress monitor
+     */
+    SubtreeDeleter( IBrowserConnection browserConnection, int numberOfDeletedEntries,
+        StudioProgressMonitor dummyMonitor, StudioProgressMonitor monitor )
+    {
+        this.browserConnection = browserConnection;
+        this.connectionWrapper = browserConnection.getConnection().getConnectionWrapper();
+        this.windowSize = Math.max( 1, getDeleteWindowSize() );
+        this.numberOfDeletedEntries = numberOfDeletedEntries;
+        this.dummyMonitor = dummyMonitor;
+        this.monitor = monitor;
+    }
+
+
+    /**
+     * Gets the maximum number of outstanding delete operations, defined by the
+     * {@link BrowserCoreConstants#PREFERENCE_DELETE_WINDOW_SIZE} preference.
+     *
+     * @return the maximum number of outstanding delete operations
+     */
+    private static int getDeleteWindowSize()
+    {
+        if ( BrowserCorePlugin.getDefault() == null )
+        {
+            return 1;
+        }
+
+        return BrowserCorePlugin.getDefault().getPluginPreferences().getInt(
+            BrowserCoreConstants.PREFERENCE_DELETE_WINDOW_SIZE );
+    }
+
+
+    /**
+     * Deletes all entries below the given Dn, the entry itself is not deleted.
+     * Errors are reported to both monitors.
+     *
+     * @param dn the Dn
+     */
+    void deleteChildren( Dn dn )
+    {
+        startTime = System.currentTimeMillis();
+
+        while ( !monitor.isCanceled() && !dummyMonitor.errorsReported() )
+        {
+            NavigableMap<Integer, List<String>> levels = listSubtree( dn );
+            if ( levels == null || levels.isEmpty() )
+            {
+                return;
+            }
+
+            if ( deleteLevels( levels ) == 0 )
+            {
+                // no progress, the final delete of the entry reports the error
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Gets the cumulative number of deleted entries.
+     *
+     * @return the cumulative number of deleted entries
+     */
+    int getNumberOfDeletedEntries()
+    {
+        return numberOfDeletedEntries;
+    }
+
+
+    /**
+     * Lists the Dns below the given Dn, grouped by depth, the deepest level first.
+     *
+     * @param dn the Dn
+     * @return the Dns by depth, null if the search failed
+     */
+    private NavigableMap<Integer, List<String>> listSubtree( Dn dn )
+    {
+        SearchParameter parameter = new SearchParameter();
+        parameter.setSearchBase( dn );
+        parameter.setFilter( ISearch.FILTER_TRUE );
+        parameter.setScope( SearchScope.SUBTREE );
+        parameter.setReturningAttributes( new String[0] );
+
+        // do not follow referrals or dereference aliases when deleting entries
+        parameter.setAliasesDereferencingMethod( AliasDereferencingMethod.NEVER );
+        parameter.setReferralsHandlingMethod( ReferralHandlingMethod.IGNORE );
+
+        if ( browserConnection.getRootDSE().isControlSupported( StudioPagedResultsControl.OID ) )
+        {
+            int pageSize = browserConnection.getPagedSearchSize() > 0 ? browserConnection.getPagedSearchSize()
+                : DEFAULT_PAGE_SIZE;
+            parameter.getControls().add( Controls.newPagedResultsControl( pageSize ) );
+        }
+
+        NavigableMap<Integer, List<String>> levels = new TreeMap<Integer, List<String>>( Collections.reverseOrder() );
+        int depth = dn.size();
+
+        dummyMonitor.reset();
+        StudioSearchResultEnumeration result = SearchRunnable.search( connectionWrapper, parameter, dummyMonitor );
+        DefaultLdifEnumeration enumeration = new DefaultLdifEnumeration( result, connectionWrapper, parameter,
+            dummyMonitor );
+        try
+        {
+            while ( !monitor.isCanceled() && !dummyMonitor.errorsReported() && enumeration.hasNext() )
+            {
+                Dn childDn = enumeration.nextEntry().getDn();
+                if ( childDn.size() > depth )
+                {
+                    levels.computeIfAbsent( childDn.size(), d -> new ArrayList<String>() ).add( childDn.getName() );
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
+            if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
+            {
+                // limit exceeded, delete the listed entries and list again
+            }
+            else
+            {
+                dummyMonitor.reportError( e );
+                monitor.reportError( e );
+                return null;
+            }
+        }
+
+        return dummyMonitor.errorsReported() ? null : levels;
+    }
+
+
+    /**
+     * Deletes the given levels, the deepest level first.
+     *
+     * @param levels the Dns by depth
+     * @return the number of deleted entries
+     */
+    private int deleteLevels( NavigableMap<Integer, List<String>> levels )
+    {
+        int deleted = 0;
+        Deque<StudioOperationFuture> window = new ArrayDeque<StudioOperationFuture>( windowSize );
+
+        try
+        {
+            for ( List<String> level : levels.values() )
+            {
+                for ( String name : level )
+                {
+                    if ( monitor.isCanceled() || dummyMonitor.errorsReported() )
+                    {
+                        return deleted;
+                    }
+
+                    if ( window.size() >= windowSize )
+                    {
+                        deleted += complete( window.poll() );
+                    }
+                    window.add( connectionWrapper.deleteEntryAsync( new Dn( name ), new Control[0], dummyMonitor ) );
+                }
+
+                // the parents are deleted after all children
+                while ( !window.isEmpty() )
+                {
+                    deleted += complete( window.poll() );
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            dummyMonitor.reportError( e );
+            monitor.reportError( e );
+        }
+        finally
+        {
+            // abandon the outstanding operations on cancel or error
+            for ( StudioOperationFuture future : window )
+            {
+                future.cancel();
+            }
+        }
+
+        return deleted;
+    }
+
+
+    /**
+     * Waits for the given delete operation.
+     *
+     * @param future the future of the delete operation
+     * @return 1 if the entry was deleted, 0 otherwise
+     */
+    private int complete( StudioOperationFuture future )
+    {
+        StudioLdapException exception = future.get();
+        if ( exception == null )
+        {
+            numberOfDeletedEntries++;
+            numberOfDeletedSubtreeEntries++;
+            reportProgress();
+            return 1;
+        }
+        else if ( StudioLdapException.isContextNotEmptyException( exception ) )
+        {
+            // the children weren't listed, the entry is deleted in the next round
+            return 0;
+        }
+        else
+        {
+            dummyMonitor.reportError( exception );
+            monitor.reportError( exception );
+            return 0;
+        }
+    }
+
+
+    private void reportProgress()
+    {
+        long now = System.currentTimeMillis();
+        if ( now - lastReportTime >= REPORT_INTERVAL )
+        {
+            lastReportTime = now;
+            long elapsed = Math.max( 1L, now - startTime );
+            long rate = numberOfDeletedSubtreeEntries * 1000L / elapsed;
+            monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__deleted_n_entries_rate,
+                new String[]
+                    { Integer.toString( numberOfDeletedEntries ), Long.toString( rate ) } ) );
+        }
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.directory.api.ldap.extras.controls.vlv.VirtualListViewResponse;
+import org.apache.directory.api.ldap.extras.controls.vlv.VirtualListViewResultCode;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.message.controls.SortRequest;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.IRootDSE;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+
+
+/**
+ * A window of a search result sorted by the server, read with the virtual list view
+ * control. It is used instead of the paged results control in scroll mode if the
+ * server supports both the virtual list view and the server side sorting control.
+ * <p>
+ * The window is positioned by offset or by assertion value, so it is possible to jump
+ * to any position without reading the entries before it.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class VirtualListViewWindow
+{
+    /** The Rdn attribute of the children, by parent entry */
+    private static final Map<IEntry, String> CHILDREN_RDN_ATTRIBUTES = Collections
+        .synchronizedMap( new WeakHashMap<IEntry, String>() );
+
+    /** The attribute the entries are sorted by */
+    private final String sortAttribute;
+
+    /** The flag indicating that the entries are sorted in descending order */
+    private final boolean reverseOrder;
+
+    /** The number of entries of the window */
+    private final int size;
+
+    /** The offset of the first entry, starting at 1, 0 if positioned by assertion value */
+    private final int offset;
+
+    /** The assertion value, null if positioned by offset */
+    private final String assertionValue;
+
+    /** The estimated number of entries, 0 if unknown */
+    private final int contentCount;
+
+    /** The context ID of the previous response, may be null */
+    private final byte[] contextId;
+
+    /** The offset of the first entry, returned by the server */
+    private int targetPosition;
+
+    /** The number of entries, returned by the server */
+    private int responseContentCount;
+
+    /** The context ID, returned by the server */
+    private byte[] responseContextId;
+
+
+    private VirtualListViewWindow( String sortAttribute, boolean reverseOrder, int size, int offset,
+        String assertionValue, int contentCount, byte[] contextId )
+    {
+        this.sortAttribute = sortAttribute;
+        this.reverseOrder = reverseOrder;
+        this.size = size;
+        this.offset = offset;
+        this.assertionValue = assertionValue;
+        this.contentCount = contentCount;
+        this.contextId = contextId;
+    }
+
+
+    /**
+     * Creates the first window.
+     *
+     * @param sortAttribute the attribute the entries are sorted by
+     * @param size the number of entries of the window
+     * @return the first window
+     */
+    static VirtualListViewWindow first( String sortAttribute, int size )
+    {
+        return first( sortAttribute, false, size );
+    }
+
+
+    /**
+     * Creates the first window.
+     *
+     * @param sortAttribute the attribute the entries are sorted by
+     * @param reverseOrder true to sort the entries in descending order
+     * @param size the number of entries of the window
+     * @return the first window
+     */
+    static VirtualListViewWindow first( String sortAttribute, boolean reverseOrder, int size )
+    {
+        return new VirtualListViewWindow( sortAttribute, reverseOrder, size, 1, null, 0, null );
+    }
+
+
+    /**
+     * Creates a window starting at the first entry whose value of the sort attribute
+     * is greater than or equal to the given assertion value.
+     *
+     * @param sortAttribute the attribute the entries are sorted by
+     * @param size the number of entries of the window
+     * @param assertionValue the assertion value
+     * @return the window
+     */
+    static VirtualListViewWindow seek( String sortAttribute, int size, String assertionValue )
+    {
+        return new VirtualListViewWindow( sortAttribute, false, size, 0, assertionValue, 0, null );
+    }
+
+
+    /**
+     * Checks if the given connection browses with the virtual list view control, that is
+     * if it uses paged search in scroll mode and the server supports the virtual list view
+     * and the server side sorting control.
+     *
+     * @param browserConnection the browser connection
+     * @return true if the connection browses with the virtual list view control
+     */
+    static boolean isSupported( IBrowserConnection browserConnection )
+    {
+        IRootDSE rootDSE = browserConnection.getRootDSE();
+        return browserConnection.isPagedSearch() && browserConnection.isPagedSearchScrollMode()
+            && browserConnection.getPagedSearchSize() > 0 && rootDSE != null
+            && rootDSE.isControlSupported( Controls.VIRTUAL_LIST_VIEW_REQUEST_OID )
+            && rootDSE.isControlSupported( Controls.SORT_REQUEST_OID );
+    }
+
+
+    /**
+     * Gets the attribute of the Rdn of the first child of the given entry,
+     * used to sort the children. The attribute is cached per parent entry,
+     * so the first child is only searched once.
+     *
+     * @param parent the parent entry
+     * @param monitor the progress monitor
+     * @return the Rdn attribute, null if there are no children or the search failed
+     */
+    static String getChildrenRdnAttribute( IEntry parent, StudioProgressMonitor monitor )
+    {
+        String attribute = CHILDREN_RDN_ATTRIBUTES.get( parent );
+        if ( attribute == null )
+        {
+            attribute = searchChildrenRdnAttribute( parent, monitor );
+            if ( attribute != null )
+            {
+                CHILDREN_RDN_ATTRIBUTES.put( parent, attribute );
+            }
+        }
+        return attribute;
+    }
+
+
+    /**
+     * Removes the cached Rdn attribute of the children of the given entry.
+     *
+     * @param parent the parent entry
+     */
+    static void clearChildrenRdnAttribute( IEntry parent )
+    {
+        CHILDREN_RDN_ATTRIBUTES.remove( parent );
+    }
+
+
+    private static String searchChildrenRdnAttribute( IEntry parent, StudioProgressMonitor monitor )
+    {
+        SearchParameter parameter = new SearchParameter();
+        parameter.setSearchBase( parent.getDn() );
+        parameter.setFilter( parent.getChildrenFilter() != null ? parent.getChildrenFilter() : ISearch.FILTER_TRUE );
+        parameter.setScope( SearchScope.ONELEVEL );
+        parameter.setCountLimit( 1 );
+        parameter.setReturningAttributes( new String[]
+            { SchemaConstants.NO_ATTRIBUTE } );
+        parameter.setAliasesDereferencingMethod( AliasDereferencingMethod.NEVER );
+        parameter.setReferralsHandlingMethod( ReferralHandlingMethod.IGNORE );
+
+        StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
+        try
+        {
+            StudioSearchResultEnumeration enumeration = SearchRunnable.search( parent.getBrowserConnection(),
+                parameter, dummyMonitor );
+            if ( enumeration != null && enumeration.hasMore() )
+            {
+                return enumeration.next().getDn().getRdn().getType();
+            }
+        }
+        catch ( Exception e )
+        {
+            // no virtual list view, fall back to paged search
+        }
+        return null;
+    }
+
+
+    /**
+     * Replaces the paged results and sort control of the given search by the
+     * sort and virtual list view controls of this window.
+     *
+     * @param search the search
+     */
+    void addControls( ISearch search )
+    {
+        for ( Iterator<Control> it = search.getControls().iterator(); it.hasNext(); )
+        {
+            Control control = it.next();
+            if ( control instanceof PagedResults || control instanceof SortRequest )
+            {
+                it.remove();
+            }
+        }
+
+        search.getControls().add( Controls.newSortRequestControl( sortAttribute, reverseOrder ) );
+        if ( assertionValue != null )
+        {
+            search.getControls().add( Controls.newVirtualListViewControl( 0, size - 1,
+                Strings.getBytesUtf8( assertionValue ), contextId ) );
+        }
+        else
+        {
+            search.getControls().add( Controls.newVirtualListViewControl( 0, size - 1, offset, contentCount,
+                contextId ) );
+        }
+    }
+
+
+    /**
+     * Reads the virtual list view response control of the given search.
+     *
+     * @param search the performed search
+     * @return true if the window was returned, false if the server returned no or an unsuccessful response
+     */
+    boolean readResponse( ISearch search )
+    {
+        for ( Control control : search.getResponseControls() )
+        {
+            if ( control instanceof VirtualListViewResponse )
+            {
+                VirtualListViewResponse response = ( VirtualListViewResponse ) control;
+                if ( response.getVirtualListViewResult() == VirtualListViewResultCode.SUCCESS )
+                {
+                    setResponse( response.getTargetPosition(), response.getContentCount(),
+                        response.getContextId() );
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Sets the values of a successful virtual list view response.
+     *
+     * @param targetPosition the offset of the first entry, starting at 1
+     * @param contentCount the number of entries
+     * @param contextId the context ID, may be null
+     */
+    void setResponse( int targetPosition, int contentCount, byte[] contextId )
+    {
+        this.targetPosition = targetPosition;
+        this.responseContentCount = contentCount;
+        this.responseContextId = contextId;
+    }
+
+
+    /**
+     * Gets the window with the first entries, after the response was read.
+     *
+     * @return the first window, null if this window already starts with the first entry
+     */
+    VirtualListViewWindow getTopWindow()
+    {
+        return targetPosition > 1 ? new VirtualListViewWindow( sortAttribute, reverseOrder, size, 1, null,
+            responseContentCount, responseContextId ) : null;
+    }
+
+
+    /**
+     * Gets the window following this window, after the response was read.
+     *
+     * @param numberOfEntries the number of entries returned for this window
+     * @return the next window, null if this window contains the last entry
+     */
+    VirtualListViewWindow getNextWindow( int numberOfEntries )
+    {
+        int nextOffset = targetPosition + numberOfEntries;
+        return numberOfEntries > 0 && nextOffset <= responseContentCount ? new VirtualListViewWindow(
+            sortAttribute, reverseOrder, size, nextOffset, null, responseContentCount, responseContextId ) : null;
+    }
+
+
+    /**
+     * Gets the attribute the entries are sorted by.
+     *
+     * @return the sort attribute
+     */
+    String getSortAttribute()
+    {
+        return sortAttribute;
+    }
+
+
+    /**
+     * Gets the offset of the first entry.
+     *
+     * @return the offset of the first entry, starting at 1, 0 if positioned by assertion value
+     */
+    int getOffset()
+    {
+        return offset;
+    }
+
+
+    /**
+     * Gets the estimated number of entries sent with the request.
+     *
+     * @return the estimated number of entries, 0 if unknown
+     */
+    int getContentCount()
+    {
+        return contentCount;
+    }
+
+
+    /**
+     * Gets the context ID sent with the request.
+     *
+     * @return the context ID, may be null
+     */
+    byte[] getContextId()
+    {
+        return contextId;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.ZipOutputStream;
+
+
+/**
+ * Writes an Office Open XML spreadsheet (XLSX) with inline string cells.
+ * All cells share the default style, except wrapped cells that share a
+ * second style.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class XlsxStreamWriter extends SpreadsheetStreamWriter
+{
+    /** The maximum number of characters of a cell */
+    private static final int MAX_CELL_LENGTH = 32767;
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"; //$NON-NLS-1$
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main"; //$NON-NLS-1$
+    private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/package/2006/relationships"; //$NON-NLS-1$
+    private static final String DOCUMENT_RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships"; //$NON-NLS-1$
+
+
+    /**
+     * Creates a new instance of XlsxStreamWriter.
+     *
+     * @param sheetName the name of the first sheet
+     */
+    XlsxStreamWriter( String sheetName )
+    {
+        super( sheetName );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void writeDocument( ZipOutputStream zip, List<String> header ) throws IOException
+    {
+        int sheetCount = getSheetCount();
+
+        Writer writer = startEntry( zip, "[Content_Types].xml" ); //$NON-NLS-1$
+        writer.write( XML_DECLARATION );
+        writer.write( "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" //$NON-NLS-1$
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" //$NON-NLS-1$
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" //$NON-NLS-1$
+            + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" //$NON-NLS-1$
+            + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>" ); //$NON-NLS-1$
+        for ( int i = 1; i <= sheetCount; i++ )
+        {
+            writer.write( "<Override PartName=\"/xl/worksheets/sheet" + i //$NON-NLS-1$
+                + ".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" ); //$NON-NLS-1$
+        }
+        writer.write( "</Types>" ); //$NON-NLS-1$
+        writer.flush();
+
+        writer = startEntry( zip, "_rels/.rels" ); //$NON-NLS-1$
+        writer.write( XML_DECLARATION );
+        writer.write( "<Relationships xmlns=\"" + RELATIONSHIPS_NS + "\">" //$NON-NLS-1$ //$NON-NLS-2$
+            + "<Relationship Id=\"rId1\" Type=\"" + DOCUMENT_RELATIONSHIPS_NS //$NON-NLS-1$
+            + "/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>" ); //$NON-NLS-1$
+        writer.flush();
+
+        writer = startEntry( zip, "xl/workbook.xml" ); //$NON-NLS-1$
+        writer.write( XML_DECLARATION );
+        writer.write( "<workbook xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + DOCUMENT_RELATIONSHIPS_NS + "\"><sheets>" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for ( int i = 1; i <= sheetCount; i++ )
+        {
+            writer.write( "<sheet name=\"" ); //$NON-NLS-1$
+            writeEscaped( writer, getSheetName( i - 1 ) );
+            writer.write( "\" sheetId=\"" + i + "\" r:id=\"rId" + i + "\"/>" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        writer.write( "</sheets></workbook>" ); //$NON-NLS-1$
+        writer.flush();
+
+        writer = startEntry( zip, "xl/_rels/workbook.xml.rels" ); //$NON-NLS-1$
+        writer.write( XML_DECLARATION );
+        writer.write( "<Relationships xmlns=\"" + RELATIONSHIPS_NS + "\">" ); //$NON-NLS-1$ //$NON-NLS-2$
+        for ( int i = 1; i <= sheetCount; i++ )
+        {
+            writer.write( "<Relationship Id=\"rId" + i + "\" Type=\"" + DOCUMENT_RELATIONSHIPS_NS //$NON-NLS-1$ //$NON-NLS-2$
+                + "/worksheet\" Target=\"worksheets/sheet" + i + ".xml\"/>" ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        writer.write( "<Relationship Id=\"rId" + ( sheetCount + 1 ) + "\" Type=\"" + DOCUMENT_RELATIONSHIPS_NS //$NON-NLS-1$ //$NON-NLS-2$
+            + "/styles\" Target=\"styles.xml\"/></Relationships>" ); //$NON-NLS-1$
+        writer.flush();
+
+        // style 0 is the default style, style 1 wraps the text
+        writer = startEntry( zip, "xl/styles.xml" ); //$NON-NLS-1$
+        writer.write( XML_DECLARATION );
+        writer.write( "<styleSheet xmlns=\"" + MAIN_NS + "\">" //$NON-NLS-1$ //$NON-NLS-2$
+            + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>" //$NON-NLS-1$
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>" //$NON-NLS-1$
+            + "<fill><patternFill patternType=\"gray125\"/></fill></fills>" //$NON-NLS-1$
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>" //$NON-NLS-1$
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>" //$NON-NLS-1$
+            + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>" //$NON-NLS-1$
+            + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyAlignment=\"1\">" //$NON-NLS-1$
+            + "<alignment wrapText=\"1\"/></xf></cellXfs>" //$NON-NLS-1$
+            + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>" //$NON-NLS-1$
+            + "</styleSheet>" ); //$NON-NLS-1$
+        writer.flush();
+
+        for ( int i = 1; i <= sheetCount; i++ )
+        {
+            writer = startEntry( zip, "xl/worksheets/sheet" + i + ".xml" ); //$NON-NLS-1$ //$NON-NLS-2$
+            writer.write( XML_DECLARATION );
+            writer.write( "<worksheet xmlns=\"" + MAIN_NS + "\">" ); //$NON-NLS-1$ //$NON-NLS-2$
+            writeColumns( writer );
+            writer.write( "<sheetData>" ); //$NON-NLS-1$
+            writeRow( writer, 1, header, null );
+            copyRows( i - 1, writer, zip );
+            writer.write( "</sheetData></worksheet>" ); //$NON-NLS-1$
+            writer.flush();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void writeRow( Writer writer, int rowNumber, List<String> values, BitSet wrapped ) throws IOException
+    {
+        writer.write( "<row r=\"" + rowNumber + "\">" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        for ( int i = 0; i < values.size(); i++ )
+        {
+            String value = values.get( i );
+            if ( value != null )
+            {
+                if ( value.length() > MAX_CELL_LENGTH )
+                {
+                    int end = Character.isHighSurrogate( value.charAt( MAX_CELL_LENGTH - 1 ) ) ? MAX_CELL_LENGTH - 1
+                        : MAX_CELL_LENGTH;
+                    value = value.substring( 0, end );
+                }
+
+                writer.write( "<c r=\"" ); //$NON-NLS-1$
+                writer.write( getColumnName( i ) );
+                writer.write( Integer.toString( rowNumber ) );
+                if ( wrapped != null && wrapped.get( i ) )
+                {
+                    writer.write( "\" s=\"1" ); //$NON-NLS-1$
+                }
+                writer.write( "\" t=\"inlineStr\"><is><t xml:space=\"preserve\">" ); //$NON-NLS-1$
+                writeEscaped( writer, value );
+                writer.write( "</t></is></c>" ); //$NON-NLS-1$
+            }
+        }
+
+        writer.write( "</row>\n" ); //$NON-NLS-1$
+    }
+
+
+    private void writeColumns( Writer writer ) throws IOException
+    {
+        List<Integer> columnWidths = getColumnWidths();
+        if ( !columnWidths.isEmpty() )
+        {
+            writer.write( "<cols>" ); //$NON-NLS-1$
+            for ( int i = 0; i < columnWidths.size(); i++ )
+            {
+                writer.write( "<col min=\"" + ( i + 1 ) + "\" max=\"" + ( i + 1 ) + "\" width=\"" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    + Math.max( 8, columnWidths.get( i ) ) + "\" customWidth=\"1\"/>" ); //$NON-NLS-1$
+            }
+            writer.write( "</cols>" ); //$NON-NLS-1$
+        }
+    }
+
+
+    /**
+     * Gets the name of the given column, i.e. A to Z, AA to ZZ, and so on.
+     *
+     * @param index the 0-based column index
+     * @return the column name
+     */
+    private static String getColumnName( int index )
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = index + 1; i > 0; i = ( i - 1 ) / 26 )
+        {
+            sb.insert( 0, ( char ) ( 'A' + ( i - 1 ) % 26 ) );
+        }
+        return sb.toString();
+    }
+}
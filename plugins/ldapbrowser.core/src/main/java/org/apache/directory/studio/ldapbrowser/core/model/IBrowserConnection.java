@@ -191,6 +191,9 @@ public interface IBrowserConnection extends Serializable, IAdaptable, Connection
     /** The key for the connection parameter "Paged Search Scroll Mode". */
     String CONNECTION_PARAMETER_PAGED_SEARCH_SCROLL_MODE = "ldapbrowser.pagedSearchScrollMode"; //$NON-NLS-1$
 
+    /** The key for the connection parameter "Live Update". */
+    String CONNECTION_PARAMETER_LIVE_UPDATE = "ldapbrowser.liveUpdate"; //$NON-NLS-1$
+
     /** The key for the connection parameter "Modify Mode for attributes with equality matching rule". */
     String CONNECTION_PARAMETER_MODIFY_MODE = "ldapbrowser.modifyMode"; //$NON-NLS-1$
 
@@ -407,6 +410,24 @@ public interface IBrowserConnection extends Serializable, IAdaptable, Connection
     void setPagedSearchScrollMode( boolean pagedSearchScrollMode );
 
 
+    /**
+     * Checks if the cached entries and search results should be updated
+     * with the changes notified by a persistent search.
+     * 
+     * @return true if the cache should be updated live
+     */
+    boolean isLiveUpdate();
+
+
+    /**
+     * Sets if the cached entries and search results should be updated
+     * with the changes notified by a persistent search.
+     * 
+     * @param liveUpdate true to update the cache live
+     */
+    void setLiveUpdate( boolean liveUpdate );
+
+
     /**
      * Gets the modify mode for attributes.
      * 
@@ -545,6 +566,24 @@ public interface IBrowserConnection extends Serializable, IAdaptable, Connection
     void uncacheEntryRecursive( IEntry entry );
 
 
+    /**
+     * Pins the entry to the cache. Pinned entries, e.g. entries displayed in
+     * an editor or expanded in the tree, are never evicted from the cache.
+     * Each call must be balanced by a call to {@link #unpinEntry(IEntry)}.
+     * 
+     * @param entry the entry to pin
+     */
+    void pinEntry( IEntry entry );
+
+
+    /**
+     * Releases a pin of the entry.
+     * 
+     * @param entry the entry to unpin
+     */
+    void unpinEntry( IEntry entry );
+
+
     /**
      * Clears all caches.
      */
@@ -27,6 +27,7 @@ import java.util.List;
 import org.apache.directory.api.ldap.model.constants.LdapConstants;
 import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.SortRequest;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.url.LdapUrl;
 import org.apache.directory.studio.connection.core.Connection;
@@ -102,6 +103,26 @@ public interface ISearch extends Serializable, IAdaptable, SearchPropertyPagePro
     List<Control> getResponseControls();
 
 
+    /**
+     * Gets the server side sort request control.
+     * 
+     * @return the server side sort request control, null if the search
+     *         results should not be sorted by the server
+     */
+    SortRequest getSortRequestControl();
+
+
+    /**
+     * Checks if the search results are in the order requested with the
+     * server side sort request control. This is the case if the server
+     * supports the control and didn't respond with an unsuccessful
+     * sort response control.
+     * 
+     * @return true, if the search results are sorted by the server
+     */
+    boolean isServerSideSorted();
+
+
     /**
      * Gets the count limit, 0 means no limit.
      * 
@@ -285,6 +306,18 @@ public interface ISearch extends Serializable, IAdaptable, SearchPropertyPagePro
     void setSearchResults( ISearchResult[] searchResults );
 
 
+    /**
+     * Appends the given search results to the current search results.
+     * This is used to publish search results incrementally while the 
+     * search is still running.
+     * 
+     * Calling this method causes firing a search update event.
+     * 
+     * @param searchResults the search results to append
+     */
+    void addSearchResults( ISearchResult[] searchResults );
+
+
     /**
      * Checks if the count limit exceeded.
      * 
@@ -106,6 +106,10 @@ public class Bookmark implements IBookmark
     public void setDn( Dn dn )
     {
         this.bookmarkParameter.setDn( dn );
+        if ( this.connection != null )
+        {
+            this.connection.getBookmarkManager().bookmarkDnChanged();
+        }
         this.fireBookmarkUpdated( BookmarkUpdateEvent.Detail.BOOKMARK_UPDATED );
     }
 
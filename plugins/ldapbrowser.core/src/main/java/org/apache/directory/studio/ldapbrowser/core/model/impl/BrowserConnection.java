@@ -24,6 +24,10 @@ package org.apache.directory.studio.ldapbrowser.core.model.impl;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
 import org.apache.directory.api.ldap.model.name.Dn;
@@ -33,7 +37,11 @@ import org.apache.directory.studio.connection.core.Connection.AliasDereferencing
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.BookmarkManager;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.SearchManager;
+import org.apache.directory.studio.ldapbrowser.core.events.ChildrenInitializedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.internal.search.LdapSearchPageScoreComputer;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
@@ -64,6 +72,9 @@ public class BrowserConnection implements IBrowserConnection, Serializable
     /** The schema. */
     private Schema schema;
 
+    /** The loader of the cached schema, null if the schema is already loaded. */
+    private transient volatile Supplier<Schema> schemaLoader;
+
     /** The search manager. */
     private SearchManager searchManager;
 
@@ -79,11 +90,24 @@ public class BrowserConnection implements IBrowserConnection, Serializable
     /** The entry to children filter map. */
     private volatile Map<IEntry, String> entryToChildrenFilterMap;
 
-    /** The entry to attribute info map. */
-    private volatile Map<IEntry, AttributeInfo> entryToAttributeInfoMap;
+    /** The entry to attribute info cache. */
+    private volatile EntryInfoCache<AttributeInfo> entryToAttributeInfoMap;
+
+    /** The entry to children info cache. */
+    private volatile EntryInfoCache<ChildrenInfo> entryToChildrenInfoMap;
 
-    /** The entry to children info map. */
-    private volatile Map<IEntry, ChildrenInfo> entryToChildrenInfoMap;
+    /**
+     * The pinned entries with their pin count, pinned entries are never evicted from the caches.
+     * Modifications are synchronized on the map, lookups are not synchronized, so the caches
+     * may check for pinned entries while holding their own lock.
+     */
+    private final Map<IEntry, Integer> pinnedEntries = new ConcurrentHashMap<IEntry, Integer>();
+
+    /** The entry cache hit count. */
+    private final AtomicLong entryCacheHitCount = new AtomicLong();
+
+    /** The entry cache miss count. */
+    private final AtomicLong entryCacheMissCount = new AtomicLong();
 
 
     /**
@@ -124,10 +148,11 @@ public class BrowserConnection implements IBrowserConnection, Serializable
         this.searchManager = new SearchManager( this );
         this.bookmarkManager = new BookmarkManager( this );
 
+        int cacheSize = getEntryCacheSizePreference();
         this.entryToChildrenFilterMap = new HashMap<IEntry, String>();
         this.dnToEntryCache = new HashMap<String, IEntry>();
-        this.entryToAttributeInfoMap = new HashMap<IEntry, AttributeInfo>();
-        this.entryToChildrenInfoMap = new HashMap<IEntry, ChildrenInfo>();
+        this.entryToAttributeInfoMap = new AttributeInfoCache( cacheSize );
+        this.entryToChildrenInfoMap = new ChildrenInfoCache( cacheSize );
 
         this.schema = Schema.DEFAULT_SCHEMA;
         this.rootDSE = new RootDSE( this );
@@ -155,8 +180,14 @@ public class BrowserConnection implements IBrowserConnection, Serializable
         }
 
         dnToEntryCache.clear();
-        entryToAttributeInfoMap.clear();
-        entryToChildrenInfoMap.clear();
+
+        // the pins refer to the dropped entry instances, so they are released too
+        synchronized ( pinnedEntries )
+        {
+            pinnedEntries.clear();
+            entryToAttributeInfoMap.clear();
+            entryToChildrenInfoMap.clear();
+        }
         entryToChildrenFilterMap.clear();
         //        searchManager.setQuickSearch( null ); TODO
 
@@ -178,16 +209,189 @@ public class BrowserConnection implements IBrowserConnection, Serializable
         String oidDn = Utils.getNormalizedOidString( dn, getSchema() );
         if ( dnToEntryCache != null && dnToEntryCache.containsKey( oidDn ) )
         {
+            entryCacheHitCount.incrementAndGet();
             return dnToEntryCache.get( oidDn );
         }
         if ( getRootDSE().getDn().equals( dn ) )
         {
             return getRootDSE();
         }
+        entryCacheMissCount.incrementAndGet();
         return null;
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public void pinEntry( IEntry entry )
+    {
+        synchronized ( pinnedEntries )
+        {
+            Integer count = pinnedEntries.get( entry );
+            pinnedEntries.put( entry, count == null ? 1 : count + 1 );
+            if ( count == null )
+            {
+                entryToAttributeInfoMap.pin( entry );
+                entryToChildrenInfoMap.pin( entry );
+            }
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void unpinEntry( IEntry entry )
+    {
+        synchronized ( pinnedEntries )
+        {
+            Integer count = pinnedEntries.get( entry );
+            if ( count == null || count <= 1 )
+            {
+                pinnedEntries.remove( entry );
+                entryToAttributeInfoMap.unpin( entry );
+                entryToChildrenInfoMap.unpin( entry );
+            }
+            else
+            {
+                pinnedEntries.put( entry, count - 1 );
+            }
+        }
+    }
+
+
+    /**
+     * Checks if the given entry is pinned. An entry is pinned if it was
+     * explicitly pinned using {@link #pinEntry(IEntry)}, e.g. because it
+     * is displayed in an editor or is a search result, or if it is bookmarked.
+     * 
+     * @param entry the entry
+     * 
+     * @return true, if the entry is pinned
+     */
+    public boolean isPinned( IEntry entry )
+    {
+        return pinnedEntries.containsKey( entry ) || isRootDSEOrBookmarked( entry );
+    }
+
+
+    /**
+     * Checks if the given entry is the Root DSE or bookmarked, such entries
+     * are pinned without an explicit call of {@link #pinEntry(IEntry)}.
+     * 
+     * @param entry the entry
+     * 
+     * @return true, if the entry is the Root DSE or bookmarked
+     */
+    private boolean isRootDSEOrBookmarked( IEntry entry )
+    {
+        return isRootDSEOrBookmarked( entry, bookmarkManager.getBookmarkDns() );
+    }
+
+
+    /**
+     * Checks if the given entry is the Root DSE or one of the given bookmarked Dns.
+     * 
+     * @param entry the entry
+     * @param bookmarkDns the bookmarked Dns
+     * 
+     * @return true, if the entry is the Root DSE or bookmarked
+     */
+    private static boolean isRootDSEOrBookmarked( IEntry entry, Set<Dn> bookmarkDns )
+    {
+        return entry instanceof IRootDSE || bookmarkDns.contains( entry.getDn() );
+    }
+
+
+    /**
+     * Gets the number of entry cache hits, i.e. the number of successful
+     * lookups of {@link #getEntryFromCache(Dn)}.
+     * 
+     * @return the number of entry cache hits
+     */
+    public long getEntryCacheHitCount()
+    {
+        return entryCacheHitCount.get();
+    }
+
+
+    /**
+     * Gets the number of entry cache misses, i.e. the number of unsuccessful
+     * lookups of {@link #getEntryFromCache(Dn)}.
+     * 
+     * @return the number of entry cache misses
+     */
+    public long getEntryCacheMissCount()
+    {
+        return entryCacheMissCount.get();
+    }
+
+
+    /**
+     * Gets the number of entries whose attributes or children were
+     * evicted from the cache.
+     * 
+     * @return the number of evicted entries
+     */
+    public long getEntryCacheEvictionCount()
+    {
+        return entryToAttributeInfoMap.getEvictionCount() + entryToChildrenInfoMap.getEvictionCount();
+    }
+
+
+    /**
+     * Gets the cache of the entries' attributes.
+     * 
+     * @return the cache of the entries' attributes
+     */
+    public EntryInfoCache<AttributeInfo> getAttributeInfoCache()
+    {
+        return entryToAttributeInfoMap;
+    }
+
+
+    /**
+     * Gets the cache of the entries' children.
+     * 
+     * @return the cache of the entries' children
+     */
+    public EntryInfoCache<ChildrenInfo> getChildrenInfoCache()
+    {
+        return entryToChildrenInfoMap;
+    }
+
+
+    /**
+     * Sets the maximum number of entries whose attributes and children
+     * are kept in the caches, this also bounds the number of cached entries.
+     * 
+     * @param cacheSize the maximum number of entries, {@link EntryInfoCache#UNBOUNDED} for no limit
+     */
+    public void setEntryCacheSize( int cacheSize )
+    {
+        entryToAttributeInfoMap.setMaxSize( cacheSize );
+        entryToChildrenInfoMap.setMaxSize( cacheSize );
+    }
+
+
+    /**
+     * Gets the entry cache size from the preferences.
+     * 
+     * @return the entry cache size
+     */
+    private static int getEntryCacheSizePreference()
+    {
+        if ( BrowserCorePlugin.getDefault() == null )
+        {
+            return EntryInfoCache.UNBOUNDED;
+        }
+
+        return BrowserCorePlugin.getDefault().getPluginPreferences().getInt(
+            BrowserCoreConstants.PREFERENCE_ENTRY_CACHE_SIZE );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -435,6 +639,25 @@ public class BrowserConnection implements IBrowserConnection, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isLiveUpdate()
+    {
+        return connection.getConnectionParameter().getExtendedBoolProperty( CONNECTION_PARAMETER_LIVE_UPDATE );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setLiveUpdate( boolean liveUpdate )
+    {
+        connection.getConnectionParameter().setExtendedBoolProperty( CONNECTION_PARAMETER_LIVE_UPDATE, liveUpdate );
+        ConnectionEventRegistry.fireConnectionUpdated( connection, this );
+    }
+
+
     /** 
      * {@inheritDoc}
      */
@@ -531,19 +754,62 @@ public class BrowserConnection implements IBrowserConnection, Serializable
      */
     public Schema getSchema()
     {
+        if ( schemaLoader != null )
+        {
+            loadSchema();
+        }
         return schema;
     }
 
 
+    private synchronized void loadSchema()
+    {
+        Supplier<Schema> loader = schemaLoader;
+        if ( loader != null )
+        {
+            Schema loaded = loader.get();
+            if ( loaded != null )
+            {
+                schema = loaded;
+            }
+            schemaLoader = null;
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
-    public void setSchema( Schema schema )
+    public synchronized void setSchema( Schema schema )
     {
+        this.schemaLoader = null;
         this.schema = schema;
     }
 
 
+    /**
+     * Sets the loader of the cached schema. The loader is invoked on the first call
+     * of {@link #getSchema()}, if it returns null the current schema is kept.
+     *
+     * @param schemaLoader the schema loader
+     */
+    public synchronized void setSchemaLoader( Supplier<Schema> schemaLoader )
+    {
+        this.schemaLoader = schemaLoader;
+    }
+
+
+    /**
+     * Checks if the schema is loaded, i.e. if there is no pending schema loader.
+     *
+     * @return true if the schema is loaded
+     */
+    public boolean isSchemaLoaded()
+    {
+        return schemaLoader == null;
+    }
+
+
     /**
      * This implementation returns the connection name
      */
@@ -593,10 +859,36 @@ public class BrowserConnection implements IBrowserConnection, Serializable
 
     /**
      * {@inheritDoc}
+     * 
+     * The number of cached entries is bounded by the entry cache size: if it is 
+     * exceeded the children of the least recently used entries are evicted.
+     */
+    public void cacheEntry( IEntry entry )
+    {
+        int count;
+        synchronized ( this )
+        {
+            dnToEntryCache.put( Utils.getNormalizedOidString( entry.getDn(), getSchema() ), entry );
+            count = dnToEntryCache.size();
+        }
+
+        // evict outside of the lock, evicted children are uncached
+        int max = entryToChildrenInfoMap.getMaxSize();
+        while ( max > EntryInfoCache.UNBOUNDED && count > max && entryToChildrenInfoMap.evict( 1 ) > 0 )
+        {
+            count = getCachedEntryCount();
+        }
+    }
+
+
+    /**
+     * Gets the number of entries in the Dn to entry cache.
+     * 
+     * @return the number of cached entries
      */
-    public synchronized void cacheEntry( IEntry entry )
+    private synchronized int getCachedEntryCount()
     {
-        dnToEntryCache.put( Utils.getNormalizedOidString( entry.getDn(), getSchema() ), entry );
+        return dnToEntryCache.size();
     }
 
 
@@ -735,4 +1027,86 @@ public class BrowserConnection implements IBrowserConnection, Serializable
         return connection;
     }
 
+
+    /**
+     * The cache of the entries' attributes. Attributes of pinned entries
+     * are never evicted. Evicted entries simply become uninitialized, their
+     * attributes are fetched again when required.
+     */
+    private class AttributeInfoCache extends EntryInfoCache<AttributeInfo>
+    {
+        private static final long serialVersionUID = 2624526345498722305L;
+
+
+        private AttributeInfoCache( int maxSize )
+        {
+            super( maxSize );
+        }
+
+
+        @Override
+        protected boolean isEvictable( IEntry entry, AttributeInfo value )
+        {
+            return !isRootDSEOrBookmarked( entry );
+        }
+    }
+
+    /**
+     * The cache of the entries' children. To keep the entry tree consistent 
+     * the children are evicted bottom-up: the children of an entry are only 
+     * evicted if none of the children is pinned and none of the children has 
+     * cached children itself. The evicted children are removed from all caches.
+     */
+    private class ChildrenInfoCache extends EntryInfoCache<ChildrenInfo>
+    {
+        private static final long serialVersionUID = -1504532539384939716L;
+
+
+        private ChildrenInfoCache( int maxSize )
+        {
+            super( maxSize );
+        }
+
+
+        @Override
+        protected boolean isEvictable( IEntry entry, ChildrenInfo value )
+        {
+            Set<Dn> bookmarkDns = bookmarkManager.getBookmarkDns();
+            if ( isRootDSEOrBookmarked( entry, bookmarkDns ) )
+            {
+                return false;
+            }
+
+            if ( value.childrenSet != null )
+            {
+                for ( IEntry child : value.childrenSet )
+                {
+                    if ( contains( child ) || pinnedEntries.containsKey( child )
+                        || isRootDSEOrBookmarked( child, bookmarkDns ) )
+                    {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+
+        @Override
+        protected void evicted( IEntry entry, ChildrenInfo value )
+        {
+            if ( value.childrenSet != null && !value.childrenSet.isEmpty() )
+            {
+                for ( IEntry child : value.childrenSet.toArray( new IEntry[0] ) )
+                {
+                    uncacheEntry( child );
+                }
+                entry.setHasChildrenHint( true );
+            }
+
+            EventRegistry.fireEntryUpdated( new ChildrenInitializedEvent( entry ), BrowserConnection.this );
+        }
+    }
+
 }
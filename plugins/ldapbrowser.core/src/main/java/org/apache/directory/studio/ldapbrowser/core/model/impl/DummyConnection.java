@@ -387,6 +387,23 @@ public class DummyConnection implements IBrowserConnection
     }
 
 
+    /** 
+     * {@inheritDoc}
+     */
+    public boolean isLiveUpdate()
+    {
+        return false;
+    }
+
+
+    /** 
+     * {@inheritDoc}
+     */
+    public void setLiveUpdate( boolean liveUpdate )
+    {
+    }
+
+
     /** 
      * {@inheritDoc}
      */
@@ -438,6 +455,22 @@ public class DummyConnection implements IBrowserConnection
     }
 
 
+    /** 
+     * {@inheritDoc}
+     */
+    public void pinEntry( IEntry entry )
+    {
+    }
+
+
+    /** 
+     * {@inheritDoc}
+     */
+    public void unpinEntry( IEntry entry )
+    {
+    }
+
+
     /** 
      * {@inheritDoc}
      */
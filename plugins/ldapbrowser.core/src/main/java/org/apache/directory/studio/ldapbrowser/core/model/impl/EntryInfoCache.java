@@ -0,0 +1,438 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model.impl;
+
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+
+
+/**
+ * A size-bounded cache that maps entries to cached information, e.g.
+ * the {@link AttributeInfo} or {@link ChildrenInfo} of an entry.
+ * <p>
+ * The cache is kept in access order. When the maximum size is exceeded
+ * the least recently used entries are evicted, entries that are not
+ * evictable (see {@link #isEvictable(IEntry, Object)}) are skipped.
+ * Values of pinned entries (see {@link #pin(IEntry)}) are kept apart
+ * from the access order, so they are never evicted and never scanned
+ * when looking for values to evict.
+ * <p>
+ * The cache counts hits, misses and evictions so it could be sized
+ * according to the browsed directories.
+ *
+ * @param <V> the type of the cached values
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class EntryInfoCache<V> implements Serializable
+{
+
+    private static final long serialVersionUID = -5262146472856624394L;
+
+    /** The value to indicate an unbounded cache. */
+    public static final int UNBOUNDED = 0;
+
+    /** The entry to value map of the unpinned entries, in access order. */
+    private final LinkedHashMap<IEntry, V> map = new LinkedHashMap<IEntry, V>( 16, 0.75f, true );
+
+    /** The entry to value map of the pinned entries. */
+    private final Map<IEntry, V> pinnedMap = new HashMap<IEntry, V>();
+
+    /** The pinned entries, with or without cached value. */
+    private final Set<IEntry> pinnedEntries = new HashSet<IEntry>();
+
+    /** The maximum number of cached values, UNBOUNDED for no limit. */
+    private volatile int maxSize;
+
+    /** The hit count. */
+    private long hitCount;
+
+    /** The miss count. */
+    private long missCount;
+
+    /** The eviction count. */
+    private long evictionCount;
+
+
+    /**
+     * Creates a new instance of EntryInfoCache.
+     *
+     * @param maxSize the maximum number of cached values, UNBOUNDED for no limit
+     */
+    public EntryInfoCache( int maxSize )
+    {
+        this.maxSize = maxSize;
+    }
+
+
+    /**
+     * Gets the cached value of the given entry and marks it
+     * as recently used.
+     *
+     * @param entry the entry
+     *
+     * @return the cached value, null if no value is cached
+     */
+    public synchronized V get( IEntry entry )
+    {
+        V value = pinnedEntries.contains( entry ) ? pinnedMap.get( entry ) : map.get( entry );
+
+        if ( value != null )
+        {
+            hitCount++;
+        }
+        else
+        {
+            missCount++;
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Checks if a value of the given entry is cached. In contrast
+     * to {@link #get(IEntry)} the access order and the counters
+     * are not changed.
+     *
+     * @param entry the entry
+     *
+     * @return true, if a value of the given entry is cached
+     */
+    public synchronized boolean contains( IEntry entry )
+    {
+        return map.containsKey( entry ) || pinnedMap.containsKey( entry );
+    }
+
+
+    /**
+     * Puts the value of the given entry to the cache. If the
+     * maximum size is exceeded afterwards least recently
+     * used values are evicted.
+     *
+     * @param entry the entry
+     * @param value the value
+     */
+    public void put( IEntry entry, V value )
+    {
+        List<Map.Entry<IEntry, V>> evicted;
+
+        synchronized ( this )
+        {
+            if ( pinnedEntries.contains( entry ) )
+            {
+                pinnedMap.put( entry, value );
+            }
+            else
+            {
+                map.put( entry, value );
+            }
+            if ( maxSize > UNBOUNDED )
+            {
+                evicted = collectEvicted( entry, size() - maxSize );
+            }
+            else
+            {
+                evicted = new ArrayList<Map.Entry<IEntry, V>>( 0 );
+            }
+        }
+
+        // notify outside of the lock, the eviction hook may modify other caches
+        for ( Map.Entry<IEntry, V> e : evicted )
+        {
+            evicted( e.getKey(), e.getValue() );
+        }
+    }
+
+
+    /**
+     * Removes the value of the given entry from the cache.
+     *
+     * @param entry the entry
+     *
+     * @return the removed value, null if no value was cached
+     */
+    public synchronized V remove( IEntry entry )
+    {
+        V value = map.remove( entry );
+        return value != null ? value : pinnedMap.remove( entry );
+    }
+
+
+    /**
+     * Removes all values and pins from the cache. The counters
+     * are not reset.
+     */
+    public synchronized void clear()
+    {
+        map.clear();
+        pinnedMap.clear();
+        pinnedEntries.clear();
+    }
+
+
+    /**
+     * Pins the given entry. The value of a pinned entry is never
+     * evicted, this also applies to values put to the cache later.
+     *
+     * @param entry the entry
+     */
+    public synchronized void pin( IEntry entry )
+    {
+        if ( pinnedEntries.add( entry ) && map.containsKey( entry ) )
+        {
+            pinnedMap.put( entry, map.remove( entry ) );
+        }
+    }
+
+
+    /**
+     * Unpins the given entry. Its value becomes the most recently
+     * used one and may be evicted again.
+     *
+     * @param entry the entry
+     */
+    public synchronized void unpin( IEntry entry )
+    {
+        if ( pinnedEntries.remove( entry ) && pinnedMap.containsKey( entry ) )
+        {
+            map.put( entry, pinnedMap.remove( entry ) );
+        }
+    }
+
+
+    /**
+     * Checks if the given entry is pinned.
+     *
+     * @param entry the entry
+     *
+     * @return true, if the entry is pinned
+     */
+    public synchronized boolean isPinned( IEntry entry )
+    {
+        return pinnedEntries.contains( entry );
+    }
+
+
+    /**
+     * Gets the number of cached values.
+     *
+     * @return the number of cached values
+     */
+    public synchronized int size()
+    {
+        return map.size() + pinnedMap.size();
+    }
+
+
+    /**
+     * Gets the maximum number of cached values.
+     *
+     * @return the maximum number of cached values, UNBOUNDED for no limit
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+
+    /**
+     * Sets the maximum number of cached values. Exceeding values are
+     * evicted the next time a value is put to the cache.
+     *
+     * @param maxSize the maximum number of cached values, UNBOUNDED for no limit
+     */
+    public void setMaxSize( int maxSize )
+    {
+        this.maxSize = maxSize;
+    }
+
+
+    /**
+     * Gets the number of cache hits.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+
+    /**
+     * Gets the number of cache misses.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+
+    /**
+     * Gets the number of evicted values.
+     *
+     * @return the number of evicted values
+     */
+    public synchronized long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+
+    /**
+     * Resets the hit, miss and eviction counters.
+     */
+    public synchronized void resetCounters()
+    {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+
+    /**
+     * Evicts the given number of least recently used evictable values,
+     * independent of the maximum size. This also applies to an unbounded cache.
+     *
+     * @param count the number of values to evict
+     *
+     * @return the number of evicted values, less than count if no
+     *         more values could be evicted
+     */
+    public int evict( int count )
+    {
+        List<Map.Entry<IEntry, V>> evicted;
+
+        synchronized ( this )
+        {
+            evicted = collectEvicted( null, count );
+        }
+
+        for ( Map.Entry<IEntry, V> e : evicted )
+        {
+            evicted( e.getKey(), e.getValue() );
+        }
+
+        return evicted.size();
+    }
+
+
+    /**
+     * Checks if the value of the given entry may be evicted. Values
+     * of pinned entries are never passed to this method.
+     * This is called while holding the cache lock, implementations
+     * must not modify this cache.
+     * <p>
+     * This default implementation always returns true.
+     *
+     * @param entry the entry
+     * @param value the cached value
+     *
+     * @return true, if the value may be evicted
+     */
+    protected boolean isEvictable( IEntry entry, V value )
+    {
+        return true;
+    }
+
+
+    /**
+     * Called after the value of the given entry was evicted.
+     * This is called without holding the cache lock.
+     * <p>
+     * This default implementation does nothing.
+     *
+     * @param entry the entry
+     * @param value the evicted value
+     */
+    protected void evicted( IEntry entry, V value )
+    {
+    }
+
+
+    /**
+     * Removes the given number of least recently used evictable values,
+     * or less if no more values could be evicted. The just added entry
+     * is never evicted. Skipped values are moved to the end of the
+     * access order, so they are not scanned again on the next put.
+     *
+     * @param added the just added entry, may be null
+     * @param toEvict the number of values to evict
+     *
+     * @return the removed entries and values
+     */
+    private List<Map.Entry<IEntry, V>> collectEvicted( IEntry added, int toEvict )
+    {
+        if ( toEvict <= 0 )
+        {
+            return new ArrayList<Map.Entry<IEntry, V>>( 0 );
+        }
+
+        List<Map.Entry<IEntry, V>> evicted = new ArrayList<Map.Entry<IEntry, V>>( toEvict );
+        List<Map.Entry<IEntry, V>> skipped = new ArrayList<Map.Entry<IEntry, V>>();
+        Iterator<Map.Entry<IEntry, V>> it = map.entrySet().iterator();
+
+        while ( toEvict > 0 && it.hasNext() )
+        {
+            Map.Entry<IEntry, V> e = it.next();
+
+            if ( e.getKey() == added )
+            {
+                continue;
+            }
+
+            Map.Entry<IEntry, V> copy = new AbstractMap.SimpleImmutableEntry<IEntry, V>( e );
+            it.remove();
+
+            if ( isEvictable( e.getKey(), e.getValue() ) )
+            {
+                evicted.add( copy );
+                toEvict--;
+                evictionCount++;
+            }
+            else
+            {
+                skipped.add( copy );
+            }
+        }
+
+        for ( Map.Entry<IEntry, V> e : skipped )
+        {
+            map.put( e.getKey(), e.getValue() );
+        }
+
+        return evicted;
+    }
+
+}
@@ -27,16 +27,21 @@ import java.util.List;
 
 import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.SortRequest;
+import org.apache.directory.api.ldap.model.message.controls.SortResponse;
+import org.apache.directory.api.ldap.model.message.controls.SortResultCode;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.url.LdapUrl;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent;
 import org.apache.directory.studio.ldapbrowser.core.internal.search.LdapSearchPageScoreComputer;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
@@ -76,6 +81,9 @@ public class Search implements ISearch
     /** The search continuations. */
     protected SearchContinuation[] searchContinuations;
 
+    /** The flag whether the entries of the search results are pinned in the connection's cache. */
+    private boolean searchResultsPinned;
+
 
     /**
      * Creates a new search with the following parameters:
@@ -230,6 +238,49 @@ public class Search implements ISearch
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public SortRequest getSortRequestControl()
+    {
+        for ( Control control : getControls() )
+        {
+            if ( control instanceof SortRequest )
+            {
+                return ( SortRequest ) control;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isServerSideSorted()
+    {
+        IBrowserConnection browserConnection = getBrowserConnection();
+        if ( getSortRequestControl() == null || browserConnection == null || browserConnection.getRootDSE() == null
+            || !browserConnection.getRootDSE().isControlSupported( Controls.SORT_REQUEST_OID ) )
+        {
+            return false;
+        }
+
+        // the control isn't critical, the server returns the unsorted search results if it can't sort them
+        for ( Control control : getResponseControls() )
+        {
+            if ( control instanceof SortResponse
+                && ( ( SortResponse ) control ).getSortResult() != SortResultCode.SUCCESS )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -415,7 +466,10 @@ public class Search implements ISearch
      */
     public void setSearchResults( ISearchResult[] searchResults )
     {
+        // pin the entries of managed searches so that they are not evicted from cache
+        setSearchResultsPinned( false );
         this.searchResults = searchResults;
+        updateSearchResultsPinned();
         if ( searchResults != null && getName() != null )
         {
             fireSearchUpdated( SearchUpdateEvent.EventDetail.SEARCH_PERFORMED );
@@ -423,6 +477,122 @@ public class Search implements ISearch
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public void addSearchResults( ISearchResult[] addedSearchResults )
+    {
+        if ( addedSearchResults == null || addedSearchResults.length == 0 )
+        {
+            return;
+        }
+
+        if ( searchResults == null )
+        {
+            searchResults = new ISearchResult[0];
+        }
+
+        ISearchResult[] newSearchResults = new ISearchResult[searchResults.length + addedSearchResults.length];
+        System.arraycopy( searchResults, 0, newSearchResults, 0, searchResults.length );
+        System.arraycopy( addedSearchResults, 0, newSearchResults, searchResults.length, addedSearchResults.length );
+
+        if ( searchResultsPinned )
+        {
+            pinEntries( addedSearchResults, true );
+        }
+        this.searchResults = newSearchResults;
+        updateSearchResultsPinned();
+
+        if ( getName() != null )
+        {
+            fireSearchUpdated( SearchUpdateEvent.EventDetail.SEARCH_RESULTS_ADDED );
+        }
+    }
+
+
+    /**
+     * Pins the entries of the search results if this search is managed by the
+     * search manager of its connection, otherwise unpins them. This is called
+     * by the search manager when the search is added or removed.
+     */
+    public void updateSearchResultsPinned()
+    {
+        setSearchResultsPinned( isManaged() );
+    }
+
+
+    /**
+     * Checks if this search instance is managed by the search manager of its connection.
+     *
+     * @return true, if this search is managed by the search manager
+     */
+    private boolean isManaged()
+    {
+        IBrowserConnection browserConnection = getBrowserConnection();
+        if ( browserConnection == null || browserConnection.getSearchManager() == null )
+        {
+            return false;
+        }
+
+        for ( ISearch search : browserConnection.getSearchManager().getSearches() )
+        {
+            if ( search == this )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Pins or unpins the entries of the current search results.
+     *
+     * @param pinned true to pin the entries, false to unpin them
+     */
+    private void setSearchResultsPinned( boolean pinned )
+    {
+        if ( searchResultsPinned == pinned )
+        {
+            return;
+        }
+
+        if ( searchResults != null )
+        {
+            pinEntries( searchResults, pinned );
+        }
+
+        searchResultsPinned = pinned;
+    }
+
+
+    /**
+     * Pins or unpins the entries of the given search results.
+     *
+     * @param results the search results
+     * @param pinned true to pin the entries, false to unpin them
+     */
+    private static void pinEntries( ISearchResult[] results, boolean pinned )
+    {
+        for ( ISearchResult searchResult : results )
+        {
+            IEntry entry = searchResult != null ? searchResult.getEntry() : null;
+            if ( entry != null && entry.getBrowserConnection() != null )
+            {
+                if ( pinned )
+                {
+                    entry.getBrowserConnection().pinEntry( entry );
+                }
+                else
+                {
+                    entry.getBrowserConnection().unpinEntry( entry );
+                }
+            }
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
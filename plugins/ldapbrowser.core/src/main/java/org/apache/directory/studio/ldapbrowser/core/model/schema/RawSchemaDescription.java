@@ -0,0 +1,264 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model.schema;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The numeric OID, the names and a few single-valued fields of a schema description
+ * (RFC 4512, section 4.1), scanned without parsing the whole description. The scanner
+ * is lenient like the parsers in quirks mode, quoted OIDs, lower-case keywords and a syntax
+ * length are accepted.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class RawSchemaDescription
+{
+    /** The keywords without value */
+    private static final String[] FLAGS =
+        { "OBSOLETE", "SINGLE-VALUE", "COLLECTIVE", "NO-USER-MODIFICATION", "ABSTRACT", "STRUCTURAL", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+            "AUXILIARY" }; //$NON-NLS-1$
+
+    private String oid;
+
+    private List<String> names = new ArrayList<String>( 1 );
+
+    private String syntax;
+
+    private String equality;
+
+    private String ordering;
+
+    private String substr;
+
+
+    /**
+     * Scans the given schema description.
+     *
+     * @param description the schema description
+     * @return the scanned fields, the OID is null if the description doesn't start with an OID
+     */
+    static RawSchemaDescription scan( String description )
+    {
+        RawSchemaDescription raw = new RawSchemaDescription();
+        List<String> tokens = new ArrayList<String>();
+        List<Boolean> quoted = new ArrayList<Boolean>();
+        tokenize( description, tokens, quoted );
+
+        if ( tokens.size() < 2 || !"(".equals( tokens.get( 0 ) ) || quoted.get( 0 ) ) //$NON-NLS-1$
+        {
+            return raw;
+        }
+        raw.oid = tokens.get( 1 );
+
+        int i = 2;
+        while ( i < tokens.size() )
+        {
+            String keyword = tokens.get( i );
+            boolean isKeyword = !quoted.get( i ) && !"(".equals( keyword ) && !")".equals( keyword ) //$NON-NLS-1$ //$NON-NLS-2$
+                && !keyword.startsWith( "{" ) && !isFlag( keyword ); //$NON-NLS-1$
+            i++;
+            if ( !isKeyword )
+            {
+                continue;
+            }
+
+            // the value of the keyword, a single word or quoted string or a list in parentheses
+            List<String> values = new ArrayList<String>( 1 );
+            if ( i < tokens.size() && "(".equals( tokens.get( i ) ) && !quoted.get( i ) ) //$NON-NLS-1$
+            {
+                for ( i++; i < tokens.size() && ( quoted.get( i ) || !")".equals( tokens.get( i ) ) ); i++ ) //$NON-NLS-1$
+                {
+                    if ( quoted.get( i ) || !"$".equals( tokens.get( i ) ) ) //$NON-NLS-1$
+                    {
+                        values.add( tokens.get( i ) );
+                    }
+                }
+                i++;
+            }
+            else if ( i < tokens.size() )
+            {
+                values.add( tokens.get( i ) );
+                i++;
+            }
+
+            if ( "NAME".equalsIgnoreCase( keyword ) ) //$NON-NLS-1$
+            {
+                raw.names.addAll( values );
+            }
+            else if ( values.isEmpty() )
+            {
+                continue;
+            }
+            else if ( "SYNTAX".equalsIgnoreCase( keyword ) ) //$NON-NLS-1$
+            {
+                String value = values.get( 0 );
+                int brace = value.indexOf( '{' );
+                raw.syntax = brace > -1 ? value.substring( 0, brace ) : value;
+            }
+            else if ( "EQUALITY".equalsIgnoreCase( keyword ) ) //$NON-NLS-1$
+            {
+                raw.equality = values.get( 0 );
+            }
+            else if ( "ORDERING".equalsIgnoreCase( keyword ) ) //$NON-NLS-1$
+            {
+                raw.ordering = values.get( 0 );
+            }
+            else if ( "SUBSTR".equalsIgnoreCase( keyword ) ) //$NON-NLS-1$
+            {
+                raw.substr = values.get( 0 );
+            }
+        }
+
+        return raw;
+    }
+
+
+    /**
+     * Checks if the given keyword is a flag without value.
+     */
+    private static boolean isFlag( String keyword )
+    {
+        for ( String flag : FLAGS )
+        {
+            if ( flag.equalsIgnoreCase( keyword ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Splits the description into parentheses, quoted strings (without quotes) and words.
+     */
+    private static void tokenize( String description, List<String> tokens, List<Boolean> quoted )
+    {
+        int length = description.length();
+        int i = 0;
+        while ( i < length )
+        {
+            char c = description.charAt( i );
+            if ( Character.isWhitespace( c ) )
+            {
+                i++;
+            }
+            else if ( c == '(' || c == ')' )
+            {
+                tokens.add( String.valueOf( c ) );
+                quoted.add( Boolean.FALSE );
+                i++;
+            }
+            else if ( c == '\'' )
+            {
+                int end = description.indexOf( '\'', i + 1 );
+                if ( end == -1 )
+                {
+                    end = length;
+                }
+                tokens.add( description.substring( i + 1, end ) );
+                quoted.add( Boolean.TRUE );
+                i = end + 1;
+            }
+            else
+            {
+                int start = i;
+                while ( i < length && !Character.isWhitespace( description.charAt( i ) )
+                    && description.charAt( i ) != '(' && description.charAt( i ) != ')' )
+                {
+                    i++;
+                }
+                tokens.add( description.substring( start, i ) );
+                quoted.add( Boolean.FALSE );
+            }
+        }
+    }
+
+
+    /**
+     * Gets the numeric OID, may be null.
+     *
+     * @return the numeric OID, may be null
+     */
+    String getOid()
+    {
+        return oid;
+    }
+
+
+    /**
+     * Gets the names.
+     *
+     * @return the names, may be empty
+     */
+    List<String> getNames()
+    {
+        return names;
+    }
+
+
+    /**
+     * Gets the syntax OID without length, may be null.
+     *
+     * @return the syntax OID, may be null
+     */
+    String getSyntax()
+    {
+        return syntax;
+    }
+
+
+    /**
+     * Gets the equality matching rule, may be null.
+     *
+     * @return the equality matching rule, may be null
+     */
+    String getEquality()
+    {
+        return equality;
+    }
+
+
+    /**
+     * Gets the ordering matching rule, may be null.
+     *
+     * @return the ordering matching rule, may be null
+     */
+    String getOrdering()
+    {
+        return ordering;
+    }
+
+
+    /**
+     * Gets the substring matching rule, may be null.
+     *
+     * @return the substring matching rule, may be null
+     */
+    String getSubstr()
+    {
+        return substr;
+    }
+}
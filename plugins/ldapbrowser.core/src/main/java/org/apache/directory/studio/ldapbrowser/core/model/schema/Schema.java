@@ -21,21 +21,26 @@
 package org.apache.directory.studio.ldapbrowser.core.model.schema;
 
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
@@ -50,6 +55,8 @@ import org.apache.directory.api.ldap.model.schema.parsers.MatchingRuleUseDescrip
 import org.apache.directory.api.ldap.model.schema.parsers.ObjectClassDescriptionSchemaParser;
 import org.apache.directory.api.util.Strings;
 import org.apache.directory.studio.connection.core.Utils;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
@@ -57,6 +64,8 @@ import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
 import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 
 
 /**
@@ -73,6 +82,36 @@ public class Schema
 
     public static final String DN_SYNTAX_OID = "1.3.6.1.4.1.1466.115.121.1.12"; //$NON-NLS-1$
 
+    /** The version of the binary format written by {@link #saveToBinary(OutputStream)} */
+    private static final int BINARY_FORMAT_VERSION = 2;
+
+    /** The parsers of the schema descriptions, initialized before the default schema is loaded */
+    private static final ThreadLocal<ObjectClassDescriptionSchemaParser> OCD_PARSER = ThreadLocal.withInitial( () -> {
+        ObjectClassDescriptionSchemaParser parser = new ObjectClassDescriptionSchemaParser();
+        parser.setQuirksMode( true );
+        return parser;
+    } );
+    private static final ThreadLocal<AttributeTypeDescriptionSchemaParser> ATD_PARSER = ThreadLocal.withInitial( () -> {
+        AttributeTypeDescriptionSchemaParser parser = new AttributeTypeDescriptionSchemaParser();
+        parser.setQuirksMode( true );
+        return parser;
+    } );
+    private static final ThreadLocal<LdapSyntaxDescriptionSchemaParser> LSD_PARSER = ThreadLocal.withInitial( () -> {
+        LdapSyntaxDescriptionSchemaParser parser = new LdapSyntaxDescriptionSchemaParser();
+        parser.setQuirksMode( true );
+        return parser;
+    } );
+    private static final ThreadLocal<MatchingRuleDescriptionSchemaParser> MRD_PARSER = ThreadLocal.withInitial( () -> {
+        MatchingRuleDescriptionSchemaParser parser = new MatchingRuleDescriptionSchemaParser();
+        parser.setQuirksMode( true );
+        return parser;
+    } );
+    private static final ThreadLocal<MatchingRuleUseDescriptionSchemaParser> MRUD_PARSER = ThreadLocal.withInitial( () -> {
+        MatchingRuleUseDescriptionSchemaParser parser = new MatchingRuleUseDescriptionSchemaParser();
+        parser.setQuirksMode( true );
+        return parser;
+    } );
+
     public static final LdapSyntax DUMMY_LDAP_SYNTAX;
     static
     {
@@ -121,21 +160,24 @@ public class Schema
 
     private LdifContentRecord schemaRecord;
 
+    /** The schema record in LDIF format, parsed on demand if the schema was loaded from the binary format */
+    private String schemaRecordLdif;
+
     private Dn dn;
 
     private String createTimestamp;
 
     private String modifyTimestamp;
 
-    private Map<String, ObjectClass> ocdMapByNameOrNumericOid;
+    private SchemaObjectMap<ObjectClass> ocdMapByNameOrNumericOid;
 
-    private Map<String, AttributeType> atdMapByNameOrNumericOid;
+    private SchemaObjectMap<AttributeType> atdMapByNameOrNumericOid;
 
-    private Map<String, LdapSyntax> lsdMapByNumericOid;
+    private SchemaObjectMap<LdapSyntax> lsdMapByNumericOid;
 
-    private Map<String, MatchingRule> mrdMapByNameOrNumericOid;
+    private SchemaObjectMap<MatchingRule> mrdMapByNameOrNumericOid;
 
-    private Map<String, MatchingRuleUse> mrudMapByNameOrNumericOid;
+    private SchemaObjectMap<MatchingRuleUse> mrudMapByNameOrNumericOid;
 
 
     /**
@@ -147,11 +189,11 @@ public class Schema
         this.dn = null;
         this.createTimestamp = null;
         this.modifyTimestamp = null;
-        this.ocdMapByNameOrNumericOid = new HashMap<String, ObjectClass>();
-        this.atdMapByNameOrNumericOid = new HashMap<String, AttributeType>();
-        this.lsdMapByNumericOid = new HashMap<String, LdapSyntax>();
-        this.mrdMapByNameOrNumericOid = new HashMap<String, MatchingRule>();
-        this.mrudMapByNameOrNumericOid = new HashMap<String, MatchingRuleUse>();
+        this.ocdMapByNameOrNumericOid = new SchemaObjectMap<ObjectClass>( this::parseObjectClass );
+        this.atdMapByNameOrNumericOid = new SchemaObjectMap<AttributeType>( this::parseAttributeType );
+        this.lsdMapByNumericOid = new SchemaObjectMap<LdapSyntax>( this::parseLdapSyntax );
+        this.mrdMapByNameOrNumericOid = new SchemaObjectMap<MatchingRule>( this::parseMatchingRule );
+        this.mrudMapByNameOrNumericOid = new SchemaObjectMap<MatchingRuleUse>( this::parseMatchingRuleUse );
     }
 
 
@@ -166,7 +208,7 @@ public class Schema
         try
         {
             LdifParser parser = new LdifParser();
-            LdifEnumeration enumeration = parser.parse( reader );
+            LdifEnumeration enumeration = parser.parseStream( reader );
             while ( enumeration.hasNext() )
             {
                 LdifContainer container = enumeration.next();
@@ -224,7 +266,77 @@ public class Schema
 
 
     /**
-     * Parses the schema record.
+     * Saves the schema in a binary format to the given output stream.
+     * Loading the binary format is much faster than parsing the LDIF, because
+     * the schema record doesn't have to be parsed and the schema descriptions
+     * don't have to be indexed again. Pending schema descriptions are saved 
+     * as they are, so they are still parsed on first access.
+     * 
+     * @param out the output stream, not closed by this method
+     * @throws IOException if an I/O error occurs
+     */
+    public void saveToBinary( OutputStream out ) throws IOException
+    {
+        LdifContentRecord record = getSchemaRecord();
+
+        ObjectOutputStream oos = new ObjectOutputStream( out );
+        oos.writeInt( BINARY_FORMAT_VERSION );
+        oos.writeObject( dn != null ? dn.getName() : null );
+        oos.writeObject( createTimestamp );
+        oos.writeObject( modifyTimestamp );
+        oos.writeObject( record != null ? record.toFormattedString( LdifFormatParameters.DEFAULT ) : null );
+        ocdMapByNameOrNumericOid.writeTo( oos );
+        atdMapByNameOrNumericOid.writeTo( oos );
+        lsdMapByNumericOid.writeTo( oos );
+        mrdMapByNameOrNumericOid.writeTo( oos );
+        mrudMapByNameOrNumericOid.writeTo( oos );
+        oos.flush();
+    }
+
+
+    /**
+     * Loads a schema from the binary format written by {@link #saveToBinary(OutputStream)}.
+     * The schema record is only parsed when it is requested, the schema descriptions
+     * on first access.
+     * 
+     * @param in the input stream, not closed by this method
+     * @return the schema
+     * @throws IOException if an I/O error occurs or the input is not a valid schema
+     */
+    public static Schema loadFromBinary( InputStream in ) throws IOException
+    {
+        ObjectInputStream ois = new SchemaObjectInputStream( in );
+
+        try
+        {
+            if ( ois.readInt() != BINARY_FORMAT_VERSION )
+            {
+                throw new IOException( "Unsupported schema format version" ); //$NON-NLS-1$
+            }
+
+            Schema schema = new Schema();
+            String dn = ( String ) ois.readObject();
+            schema.dn = dn != null ? new Dn( dn ) : null;
+            schema.createTimestamp = ( String ) ois.readObject();
+            schema.modifyTimestamp = ( String ) ois.readObject();
+            schema.schemaRecordLdif = ( String ) ois.readObject();
+            schema.ocdMapByNameOrNumericOid.readFrom( ois );
+            schema.atdMapByNameOrNumericOid.readFrom( ois );
+            schema.lsdMapByNumericOid.readFrom( ois );
+            schema.mrdMapByNameOrNumericOid.readFrom( ois );
+            schema.mrudMapByNameOrNumericOid.readFrom( ois );
+            return schema;
+        }
+        catch ( ClassNotFoundException | ClassCastException | LdapInvalidDnException e )
+        {
+            throw new IOException( e );
+        }
+    }
+
+
+    /**
+     * Parses the schema record. The schema descriptions are only indexed by
+     * their names and numeric OID, each description is parsed on first access.
      * 
      * @param schemaRecord the schema record
      * 
@@ -235,16 +347,7 @@ public class Schema
         setSchemaRecord( schemaRecord );
         setDn( new Dn( schemaRecord.getDnLine().getValueAsString() ) );
 
-        ObjectClassDescriptionSchemaParser ocdPparser = new ObjectClassDescriptionSchemaParser();
-        ocdPparser.setQuirksMode( true );
-        AttributeTypeDescriptionSchemaParser atdParser = new AttributeTypeDescriptionSchemaParser();
-        atdParser.setQuirksMode( true );
-        LdapSyntaxDescriptionSchemaParser lsdParser = new LdapSyntaxDescriptionSchemaParser();
-        lsdParser.setQuirksMode( true );
-        MatchingRuleDescriptionSchemaParser mrdParser = new MatchingRuleDescriptionSchemaParser();
-        mrdParser.setQuirksMode( true );
-        MatchingRuleUseDescriptionSchemaParser mrudParser = new MatchingRuleUseDescriptionSchemaParser();
-        mrudParser.setQuirksMode( true );
+        List<RawSchemaDescription> rawAtds = new ArrayList<RawSchemaDescription>();
 
         LdifAttrValLine[] lines = schemaRecord.getAttrVals();
         for ( int i = 0; i < lines.length; i++ )
@@ -252,67 +355,43 @@ public class Schema
             LdifAttrValLine line = lines[i];
             String attributeName = line.getUnfoldedAttributeDescription();
             String value = line.getValueAsString();
-            List<String> ldifValues = new ArrayList<String>( 1 );
-            ldifValues.add( value );
 
-            try
+            if ( attributeName.equalsIgnoreCase( SchemaConstants.OBJECT_CLASSES_AT ) )
             {
-                if ( attributeName.equalsIgnoreCase( SchemaConstants.OBJECT_CLASSES_AT ) )
-                {
-                    ObjectClass ocd = ocdPparser.parse( value );
-                    ocd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addObjectClass( ocd );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.ATTRIBUTE_TYPES_AT ) )
-                {
-                    AttributeType atd = atdParser.parse( value );
-                    atd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addAttributeType( atd );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.LDAP_SYNTAXES_AT ) )
-                {
-                    LdapSyntax lsd = lsdParser.parse( value );
-                    if ( StringUtils.isEmpty( lsd.getDescription() )
-                        && Utils.getOidDescription( lsd.getOid() ) != null )
-                    {
-                        lsd.setDescription( Utils.getOidDescription( lsd.getOid() ) );
-                    }
-                    lsd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addLdapSyntax( lsd );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.MATCHING_RULES_AT ) )
-                {
-                    MatchingRule mrd = mrdParser.parse( value );
-                    mrd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addMatchingRule( mrd );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.MATCHING_RULE_USE_AT ) )
-                {
-                    MatchingRuleUse mrud = mrudParser.parse( value );
-                    mrud.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, ldifValues );
-                    addMatchingRuleUse( mrud );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.CREATE_TIMESTAMP_AT ) )
-                {
-                    setCreateTimestamp( value );
-                }
-                else if ( attributeName.equalsIgnoreCase( SchemaConstants.MODIFY_TIMESTAMP_AT ) )
-                {
-                    setModifyTimestamp( value );
-                }
+                ocdMapByNameOrNumericOid.add( value, RawSchemaDescription.scan( value ) );
             }
-            catch ( Exception e )
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.ATTRIBUTE_TYPES_AT ) )
+            {
+                RawSchemaDescription rawAtd = RawSchemaDescription.scan( value );
+                atdMapByNameOrNumericOid.add( value, rawAtd );
+                rawAtds.add( rawAtd );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.LDAP_SYNTAXES_AT ) )
             {
-                // TODO: exception handling
-                System.out.println( "Error reading schema: " + attributeName + " = " + value ); //$NON-NLS-1$ //$NON-NLS-2$
-                System.out.println( e.getMessage() );
+                lsdMapByNumericOid.add( value, RawSchemaDescription.scan( value ) );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.MATCHING_RULES_AT ) )
+            {
+                mrdMapByNameOrNumericOid.add( value, RawSchemaDescription.scan( value ) );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.MATCHING_RULE_USE_AT ) )
+            {
+                mrudMapByNameOrNumericOid.add( value, RawSchemaDescription.scan( value ) );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.CREATE_TIMESTAMP_AT ) )
+            {
+                setCreateTimestamp( value );
+            }
+            else if ( attributeName.equalsIgnoreCase( SchemaConstants.MODIFY_TIMESTAMP_AT ) )
+            {
+                setModifyTimestamp( value );
             }
         }
 
-        for ( AttributeType atd : getAttributeTypeDescriptions() )
+        for ( RawSchemaDescription rawAtd : rawAtds )
         {
             // assume all received syntaxes in attributes are valid -> create pseudo syntaxes if missing
-            String syntaxOid = atd.getSyntaxOid();
+            String syntaxOid = rawAtd.getSyntax();
             if ( syntaxOid != null && !hasLdapSyntaxDescription( syntaxOid ) )
             {
                 LdapSyntax lsd = new LdapSyntax( syntaxOid );
@@ -321,18 +400,86 @@ public class Schema
             }
 
             // assume all received matching rules in attributes are valid -> create pseudo matching rules if missing
-            String emr = atd.getEqualityOid();
-            String omr = atd.getOrderingOid();
-            String smr = atd.getSubstringOid();
-            checkMatchingRules( emr, omr, smr );
+            checkMatchingRules( rawAtd.getEquality(), rawAtd.getOrdering(), rawAtd.getSubstr() );
         }
+    }
+
+
+    private List<String> getRawSchemaDefinition( String description )
+    {
+        List<String> ldifValues = new ArrayList<String>( 1 );
+        ldifValues.add( description );
+        return ldifValues;
+    }
+
+
+    private ObjectClass parseObjectClass( String description ) throws Exception
+    {
+        ObjectClass ocd = OCD_PARSER.get().parse( description );
+        ocd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, getRawSchemaDefinition( description ) );
+
+        if ( isExtensibleObject( ocd ) )
+        {
+            // set extensibleObject may attributes
+            Collection<AttributeType> userAtds = SchemaUtils.getUserAttributeDescriptions( this );
+            Collection<String> atdNames = SchemaUtils.getNames( userAtds );
+            List<String> atdNames2 = new ArrayList<String>( atdNames );
+            ocd.setMayAttributeTypeOids( atdNames2 );
+        }
+
+        return ocd;
+    }
+
+
+    private static boolean isExtensibleObject( ObjectClass ocd )
+    {
+        if ( ocd.getNames() != null )
+        {
+            for ( String name : ocd.getNames() )
+            {
+                if ( SchemaConstants.EXTENSIBLE_OBJECT_OC.equalsIgnoreCase( name ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    private AttributeType parseAttributeType( String description ) throws Exception
+    {
+        AttributeType atd = ATD_PARSER.get().parse( description );
+        atd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, getRawSchemaDefinition( description ) );
+        return atd;
+    }
+
+
+    private LdapSyntax parseLdapSyntax( String description ) throws Exception
+    {
+        LdapSyntax lsd = LSD_PARSER.get().parse( description );
+        if ( StringUtils.isEmpty( lsd.getDescription() ) && Utils.getOidDescription( lsd.getOid() ) != null )
+        {
+            lsd.setDescription( Utils.getOidDescription( lsd.getOid() ) );
+        }
+        lsd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, getRawSchemaDefinition( description ) );
+        return lsd;
+    }
+
+
+    private MatchingRule parseMatchingRule( String description ) throws Exception
+    {
+        MatchingRule mrd = MRD_PARSER.get().parse( description );
+        mrd.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, getRawSchemaDefinition( description ) );
+        return mrd;
+    }
+
 
-        // set extensibleObject may attributes
-        ObjectClass extensibleObjectOcd = this.getObjectClassDescription( SchemaConstants.EXTENSIBLE_OBJECT_OC );
-        Collection<AttributeType> userAtds = SchemaUtils.getUserAttributeDescriptions( this );
-        Collection<String> atdNames = SchemaUtils.getNames( userAtds );
-        List<String> atdNames2 = new ArrayList<String>( atdNames );
-        extensibleObjectOcd.setMayAttributeTypeOids( atdNames2 );
+    private MatchingRuleUse parseMatchingRuleUse( String description ) throws Exception
+    {
+        MatchingRuleUse mrud = MRUD_PARSER.get().parse( description );
+        mrud.addExtension( RAW_SCHEMA_DEFINITION_LDIF_VALUE, getRawSchemaDefinition( description ) );
+        return mrud;
     }
 
 
@@ -358,10 +505,48 @@ public class Schema
      */
     public LdifContentRecord getSchemaRecord()
     {
+        if ( schemaRecord == null && schemaRecordLdif != null )
+        {
+            LdifEnumeration enumeration = new LdifParser().parseStream( new StringReader( schemaRecordLdif ) );
+            try
+            {
+                while ( schemaRecord == null && enumeration.hasNext() )
+                {
+                    LdifContainer container = enumeration.next();
+                    if ( container instanceof LdifContentRecord )
+                    {
+                        schemaRecord = ( LdifContentRecord ) container;
+                    }
+                }
+            }
+            catch ( Exception e )
+            {
+                logError( "Unable to parse the schema record of the cached schema", e ); //$NON-NLS-1$
+            }
+            schemaRecordLdif = null;
+        }
+
         return schemaRecord;
     }
 
 
+    /**
+     * Logs the given message and exception with the ERROR status level
+     * to the plugin log, if the plugin is running.
+     * 
+     * @param message the message
+     * @param e the exception
+     */
+    static void logError( String message, Throwable e )
+    {
+        if ( BrowserCorePlugin.getDefault() != null )
+        {
+            BrowserCorePlugin.getDefault().getLog().log(
+                new Status( IStatus.ERROR, BrowserCoreConstants.PLUGIN_ID, message, e ) );
+        }
+    }
+
+
     /**
      * Sets the schema record.
      * 
@@ -370,6 +555,7 @@ public class Schema
     public void setSchemaRecord( LdifContentRecord schemaRecord )
     {
         this.schemaRecord = schemaRecord;
+        this.schemaRecordLdif = null;
     }
 
 
@@ -441,27 +627,6 @@ public class Schema
 
     ////////////////////// Object Class Description //////////////////////
 
-    /**
-     * Adds the object class description.
-     * 
-     * @param ocd the object class description
-     */
-    private void addObjectClass( ObjectClass ocd )
-    {
-        if ( ocd.getOid() != null )
-        {
-            ocdMapByNameOrNumericOid.put( Strings.toLowerCase( ocd.getOid() ), ocd );
-        }
-        if ( ocd.getNames() != null && !ocd.getNames().isEmpty() )
-        {
-            for ( String ocdName : ocd.getNames() )
-            {
-                ocdMapByNameOrNumericOid.put( Strings.toLowerCase( ocdName ), ocd );
-            }
-        }
-    }
-
-
     /**
      * Gets the object class descriptions.
      * 
@@ -469,8 +634,7 @@ public class Schema
      */
     public Collection<ObjectClass> getObjectClassDescriptions()
     {
-        Set<ObjectClass> set = new HashSet<ObjectClass>( ocdMapByNameOrNumericOid.values() );
-        return set;
+        return ocdMapByNameOrNumericOid.values();
     }
 
 
@@ -486,7 +650,7 @@ public class Schema
     {
         if ( nameOrOid != null )
         {
-            return ocdMapByNameOrNumericOid.containsKey( Strings.toLowerCase( nameOrOid ) );
+            return ocdMapByNameOrNumericOid.contains( Strings.toLowerCase( nameOrOid ) );
         }
 
         return false;
@@ -504,9 +668,10 @@ public class Schema
      */
     public ObjectClass getObjectClassDescription( String nameOrOid )
     {
-        if ( ocdMapByNameOrNumericOid.containsKey( Strings.toLowerCase( nameOrOid ) ) )
+        ObjectClass objectClass = ocdMapByNameOrNumericOid.get( Strings.toLowerCase( nameOrOid ) );
+        if ( objectClass != null )
         {
-            return ocdMapByNameOrNumericOid.get( Strings.toLowerCase( nameOrOid ) );
+            return objectClass;
         }
         else if ( !isDefault() )
         {
@@ -527,27 +692,6 @@ public class Schema
 
     ////////////////////// Attribute Type Description //////////////////////
 
-    /**
-     * Adds the attribute type description.
-     * 
-     * @param atd the attribute type description
-     */
-    private void addAttributeType( AttributeType atd )
-    {
-        if ( atd.getOid() != null )
-        {
-            atdMapByNameOrNumericOid.put( Strings.toLowerCase( atd.getOid() ), atd );
-        }
-        if ( atd.getNames() != null && !atd.getNames().isEmpty() )
-        {
-            for ( String atdName : atd.getNames() )
-            {
-                atdMapByNameOrNumericOid.put( Strings.toLowerCase( atdName ), atd );
-            }
-        }
-    }
-
-
     /**
      * Gets the attribute type descriptions.
      * 
@@ -555,8 +699,7 @@ public class Schema
      */
     public Collection<AttributeType> getAttributeTypeDescriptions()
     {
-        Set<AttributeType> set = new HashSet<AttributeType>( atdMapByNameOrNumericOid.values() );
-        return set;
+        return atdMapByNameOrNumericOid.values();
     }
 
 
@@ -572,7 +715,7 @@ public class Schema
     {
         if ( nameOrOid != null )
         {
-            return atdMapByNameOrNumericOid.containsKey( Strings.toLowerCase( nameOrOid ) );
+            return atdMapByNameOrNumericOid.contains( Strings.toLowerCase( nameOrOid ) );
         }
 
         return false;
@@ -593,9 +736,10 @@ public class Schema
         AttributeDescription ad = new AttributeDescription( nameOrOid );
         String attributeType = ad.getParsedAttributeType();
 
-        if ( atdMapByNameOrNumericOid.containsKey( Strings.toLowerCase( attributeType ) ) )
+        AttributeType atd = atdMapByNameOrNumericOid.get( Strings.toLowerCase( attributeType ) );
+        if ( atd != null )
         {
-            return atdMapByNameOrNumericOid.get( Strings.toLowerCase( attributeType ) );
+            return atd;
         }
         else if ( !isDefault() )
         {
@@ -625,10 +769,7 @@ public class Schema
      */
     private void addLdapSyntax( LdapSyntax lsd )
     {
-        if ( lsd.getOid() != null )
-        {
-            lsdMapByNumericOid.put( Strings.toLowerCase( lsd.getOid() ), lsd );
-        }
+        lsdMapByNumericOid.add( lsd );
     }
 
 
@@ -639,8 +780,7 @@ public class Schema
      */
     public Collection<LdapSyntax> getLdapSyntaxDescriptions()
     {
-        Set<LdapSyntax> set = new HashSet<LdapSyntax>( lsdMapByNumericOid.values() );
-        return set;
+        return lsdMapByNumericOid.values();
     }
 
 
@@ -655,7 +795,7 @@ public class Schema
     {
         if ( numericOid != null )
         {
-            return lsdMapByNumericOid.containsKey( Strings.toLowerCase( numericOid ) );
+            return lsdMapByNumericOid.contains( Strings.toLowerCase( numericOid ) );
         }
 
         return false;
@@ -676,9 +816,11 @@ public class Schema
         {
             return DUMMY_LDAP_SYNTAX;
         }
-        else if ( lsdMapByNumericOid.containsKey( Strings.toLowerCase( numericOid ) ) )
+
+        LdapSyntax ldapSyntax = lsdMapByNumericOid.get( Strings.toLowerCase( numericOid ) );
+        if ( ldapSyntax != null )
         {
-            return lsdMapByNumericOid.get( Strings.toLowerCase( numericOid ) );
+            return ldapSyntax;
         }
         else if ( !isDefault() )
         {
@@ -703,17 +845,7 @@ public class Schema
      */
     private void addMatchingRule( MatchingRule mrd )
     {
-        if ( mrd.getOid() != null )
-        {
-            mrdMapByNameOrNumericOid.put( Strings.toLowerCase( mrd.getOid() ), mrd );
-        }
-        if ( mrd.getNames() != null && !mrd.getNames().isEmpty() )
-        {
-            for ( String mrdName : mrd.getNames() )
-            {
-                mrdMapByNameOrNumericOid.put( Strings.toLowerCase( mrdName ), mrd );
-            }
-        }
+        mrdMapByNameOrNumericOid.add( mrd );
     }
 
 
@@ -724,8 +856,7 @@ public class Schema
      */
     public Collection<MatchingRule> getMatchingRuleDescriptions()
     {
-        Set<MatchingRule> set = new HashSet<MatchingRule>( mrdMapByNameOrNumericOid.values() );
-        return set;
+        return mrdMapByNameOrNumericOid.values();
     }
 
 
@@ -741,7 +872,7 @@ public class Schema
     {
         if ( nameOrOid != null )
         {
-            return mrdMapByNameOrNumericOid.containsKey( Strings.toLowerCase( nameOrOid ) );
+            return mrdMapByNameOrNumericOid.contains( Strings.toLowerCase( nameOrOid ) );
         }
 
         return false;
@@ -759,9 +890,10 @@ public class Schema
      */
     public MatchingRule getMatchingRuleDescription( String nameOrOid )
     {
-        if ( mrdMapByNameOrNumericOid.containsKey( Strings.toLowerCase( nameOrOid ) ) )
+        MatchingRule matchingRule = mrdMapByNameOrNumericOid.get( Strings.toLowerCase( nameOrOid ) );
+        if ( matchingRule != null )
         {
-            return mrdMapByNameOrNumericOid.get( Strings.toLowerCase( nameOrOid ) );
+            return matchingRule;
         }
         else if ( !isDefault() )
         {
@@ -779,27 +911,6 @@ public class Schema
 
     //////////////////////// Matching Rule Use Description ////////////////////////
 
-    /**
-     * Adds the matching rule use description.
-     * 
-     * @param mrud the matching rule use description
-     */
-    private void addMatchingRuleUse( MatchingRuleUse mrud )
-    {
-        if ( mrud.getOid() != null )
-        {
-            mrudMapByNameOrNumericOid.put( Strings.toLowerCase( mrud.getOid() ), mrud );
-        }
-        if ( mrud.getNames() != null && !mrud.getNames().isEmpty() )
-        {
-            for ( String mrudName : mrud.getNames() )
-            {
-                mrudMapByNameOrNumericOid.put( Strings.toLowerCase( mrudName ), mrud );
-            }
-        }
-    }
-
-
     /**
      * Gets the matching rule use descriptions.
      * 
@@ -807,9 +918,7 @@ public class Schema
      */
     public Collection<MatchingRuleUse> getMatchingRuleUseDescriptions()
     {
-        Set<MatchingRuleUse> set = new HashSet<MatchingRuleUse>( mrudMapByNameOrNumericOid
-            .values() );
-        return set;
+        return mrudMapByNameOrNumericOid.values();
     }
 
 
@@ -825,7 +934,7 @@ public class Schema
     {
         if ( nameOrOid != null )
         {
-            return mrudMapByNameOrNumericOid.containsKey( Strings.toLowerCase( nameOrOid ) );
+            return mrudMapByNameOrNumericOid.contains( Strings.toLowerCase( nameOrOid ) );
         }
 
         return false;
@@ -843,9 +952,10 @@ public class Schema
      */
     public MatchingRuleUse getMatchingRuleUseDescription( String nameOrOid )
     {
-        if ( mrudMapByNameOrNumericOid.containsKey( Strings.toLowerCase( nameOrOid ) ) )
+        MatchingRuleUse matchingRuleUse = mrudMapByNameOrNumericOid.get( Strings.toLowerCase( nameOrOid ) );
+        if ( matchingRuleUse != null )
         {
-            return mrudMapByNameOrNumericOid.get( Strings.toLowerCase( nameOrOid ) );
+            return matchingRuleUse;
         }
         else if ( !isDefault() )
         {
@@ -860,4 +970,36 @@ public class Schema
         }
     }
 
+
+    /**
+     * An object input stream that only resolves the strings and schema objects
+     * written by {@link Schema#saveToBinary(OutputStream)}.
+     */
+    private static class SchemaObjectInputStream extends ObjectInputStream
+    {
+        private SchemaObjectInputStream( InputStream in ) throws IOException
+        {
+            super( in );
+        }
+
+
+        protected Class<?> resolveClass( ObjectStreamClass desc ) throws IOException, ClassNotFoundException
+        {
+            String name = desc.getName();
+            int start = name.lastIndexOf( '[' ) + 1;
+            if ( start > 0 )
+            {
+                // array, check the component type
+                name = name.charAt( start ) == 'L' ? name.substring( start + 1 ) : "java.lang."; //$NON-NLS-1$
+            }
+
+            if ( !name.startsWith( "java.lang." ) && !name.startsWith( "java.util." ) //$NON-NLS-1$ //$NON-NLS-2$
+                && !name.startsWith( "org.apache.directory.api.ldap.model.schema." ) ) //$NON-NLS-1$
+            {
+                throw new InvalidClassException( name, "Unexpected class in schema cache" ); //$NON-NLS-1$
+            }
+
+            return Class.forName( desc.getName(), false, Schema.class.getClassLoader() );
+        }
+    }
 }
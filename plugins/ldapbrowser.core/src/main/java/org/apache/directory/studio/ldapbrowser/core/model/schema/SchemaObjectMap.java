@@ -0,0 +1,270 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model.schema;
+
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * Schema objects of one kind, by lower-cased name and numeric OID.
+ * <p>
+ * Schema descriptions are only indexed when they are added. Each description
+ * is parsed when its object is requested the first time, the collection
+ * accessor parses all pending descriptions in parallel. The binary format
+ * written by {@link #writeTo(ObjectOutputStream)} contains the descriptions,
+ * so they are neither parsed when written nor when read.
+ *
+ * @param <T> the type of the schema objects
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class SchemaObjectMap<T extends SchemaObject>
+{
+    /**
+     * Parses a schema description.
+     *
+     * @param <T> the type of the schema object
+     */
+    interface DescriptionParser<T>
+    {
+        /**
+         * Parses the given schema description.
+         *
+         * @param description the schema description
+         * @return the schema object
+         * @throws Exception if the description can't be parsed
+         */
+        T parse( String description ) throws Exception;
+    }
+
+    /** The parser of the schema descriptions */
+    private final DescriptionParser<T> parser;
+
+    /** The holders, by lower-cased name and numeric OID */
+    private final Map<String, Holder<T>> holders = new ConcurrentHashMap<String, Holder<T>>();
+
+
+    /**
+     * Creates a new instance of SchemaObjectMap.
+     *
+     * @param parser the parser of the schema descriptions
+     */
+    SchemaObjectMap( DescriptionParser<T> parser )
+    {
+        this.parser = parser;
+    }
+
+
+    /**
+     * Adds the given schema object by its numeric OID and all its names.
+     *
+     * @param object the schema object
+     */
+    void add( T object )
+    {
+        Holder<T> holder = new Holder<T>( null, object );
+        if ( object.getOid() != null )
+        {
+            holders.put( Strings.toLowerCase( object.getOid() ), holder );
+        }
+        if ( object.getNames() != null )
+        {
+            for ( String name : object.getNames() )
+            {
+                holders.put( Strings.toLowerCase( name ), holder );
+            }
+        }
+    }
+
+
+    /**
+     * Adds the given schema description, it is parsed on first access.
+     *
+     * @param description the schema description
+     * @param raw the scanned OID and names of the description
+     */
+    void add( String description, RawSchemaDescription raw )
+    {
+        Holder<T> holder = new Holder<T>( description, null );
+        if ( raw.getOid() != null )
+        {
+            holders.put( Strings.toLowerCase( raw.getOid() ), holder );
+        }
+        for ( String name : raw.getNames() )
+        {
+            holders.put( Strings.toLowerCase( name ), holder );
+        }
+    }
+
+
+    /**
+     * Gets the schema object, the description is parsed if necessary.
+     *
+     * @param key the lower-cased name or numeric OID
+     * @return the schema object, null if there is no such object or its description is invalid
+     */
+    T get( String key )
+    {
+        Holder<T> holder = key != null ? holders.get( key ) : null;
+        return holder != null ? holder.get( parser ) : null;
+    }
+
+
+    /**
+     * Checks if a valid schema object exists, the description is parsed if necessary.
+     *
+     * @param key the lower-cased name or numeric OID
+     * @return true if a valid schema object exists
+     */
+    boolean contains( String key )
+    {
+        return get( key ) != null;
+    }
+
+
+    /**
+     * Gets all valid schema objects, the pending descriptions are parsed in parallel.
+     *
+     * @return the schema objects
+     */
+    Set<T> values()
+    {
+        Set<Holder<T>> distinct = Collections.newSetFromMap( new IdentityHashMap<Holder<T>, Boolean>() );
+        distinct.addAll( holders.values() );
+        return distinct.parallelStream().map( holder -> holder.get( parser ) ).filter( Objects::nonNull )
+            .collect( Collectors.toCollection( HashSet::new ) );
+    }
+
+
+    /**
+     * Writes the schema objects in a binary format, pending descriptions are not parsed.
+     * The descriptions are written as they are, objects without description are serialized.
+     *
+     * @param out the object output stream
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo( ObjectOutputStream out ) throws IOException
+    {
+        // objects with several keys share one holder
+        Map<Holder<T>, List<String>> keysByHolder = new IdentityHashMap<Holder<T>, List<String>>();
+        for ( Map.Entry<String, Holder<T>> entry : holders.entrySet() )
+        {
+            keysByHolder.computeIfAbsent( entry.getValue(), h -> new ArrayList<String>( 2 ) ).add( entry.getKey() );
+        }
+
+        out.writeInt( keysByHolder.size() );
+        for ( Map.Entry<Holder<T>, List<String>> entry : keysByHolder.entrySet() )
+        {
+            Holder<T> holder = entry.getKey();
+            out.writeObject( entry.getValue().toArray( new String[entry.getValue().size()] ) );
+            out.writeObject( holder.description );
+            out.writeObject( holder.description == null ? holder.object : null );
+        }
+    }
+
+
+    /**
+     * Adds the schema objects read from the binary format written by {@link #writeTo(ObjectOutputStream)}.
+     * The descriptions are parsed on first access.
+     *
+     * @param in the object input stream
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if the class of a serialized object can't be found
+     * @throws ClassCastException if the input doesn't contain schema objects of this kind
+     */
+    @SuppressWarnings("unchecked")
+    void readFrom( ObjectInputStream in ) throws IOException, ClassNotFoundException
+    {
+        int count = in.readInt();
+        for ( int i = 0; i < count; i++ )
+        {
+            String[] keys = ( String[] ) in.readObject();
+            String description = ( String ) in.readObject();
+            T object = ( T ) in.readObject();
+
+            Holder<T> holder = new Holder<T>( description, object );
+            for ( String key : keys )
+            {
+                holders.put( key, holder );
+            }
+        }
+    }
+
+
+    /**
+     * Holds a schema object or its description until it is parsed.
+     */
+    private static class Holder<T>
+    {
+        private final String description;
+
+        private volatile T object;
+
+        private volatile boolean parsed;
+
+
+        private Holder( String description, T object )
+        {
+            this.description = description;
+            this.object = object;
+            this.parsed = description == null;
+        }
+
+
+        private T get( DescriptionParser<T> parser )
+        {
+            if ( !parsed )
+            {
+                synchronized ( this )
+                {
+                    if ( !parsed )
+                    {
+                        try
+                        {
+                            object = parser.parse( description );
+                        }
+                        catch ( Exception e )
+                        {
+                            Schema.logError( "Error reading schema: " + description, e ); //$NON-NLS-1$
+                        }
+                        parsed = true;
+                    }
+                }
+            }
+            return object;
+        }
+    }
+}
@@ -168,21 +168,28 @@ public class AttributeComparator implements Comparator<Object>
 
     private int compareValues( IValue value1, IValue value2 )
     {
-        if ( value1.isEmpty() && value2.isEmpty() )
-        {
-            return equal();
-        }
+        int result = compareValues( value1.isEmpty() ? "" : value1.getStringValue(), //$NON-NLS-1$
+            value2.isEmpty() ? "" : value2.getStringValue() ); //$NON-NLS-1$
+        return getSortOrderOrDefault() == BrowserCoreConstants.SORT_ORDER_ASCENDING ? result : -result;
+    }
 
-        if ( value1.isEmpty() && !value2.isEmpty() )
-        {
-            return greaterThan();
-        }
-        if ( !value1.isEmpty() && value2.isEmpty() )
+
+    /**
+     * Compares the two string values in ascending order, case-insensitive.
+     * Empty values are sorted after all other values.
+     *
+     * @param value1 the first value to compare
+     * @param value2 the second value to compare
+     * @return a negative integer, zero, or a positive integer
+     */
+    public static int compareValues( String value1, String value2 )
+    {
+        if ( value1.isEmpty() || value2.isEmpty() )
         {
-            return lessThan();
+            return Boolean.compare( value1.isEmpty(), value2.isEmpty() );
         }
 
-        return compare( value1.getStringValue(), value2.getStringValue() );
+        return value1.compareToIgnoreCase( value2 );
     }
 
     /**
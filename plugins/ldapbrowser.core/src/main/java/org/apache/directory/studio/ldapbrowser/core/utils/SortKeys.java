@@ -0,0 +1,106 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+
+
+/**
+ * Sorts elements by precomputed sort keys (decorate-sort-undecorate).
+ * <p>
+ * The sort key of each element is computed once, before sorting, instead of on every
+ * comparison. The comparator of the keys must not access the model, so the keys are
+ * sorted with {@link Arrays#parallelSort(Object[], Comparator)}, which uses multiple
+ * threads for large arrays. The sort is stable.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class SortKeys
+{
+    private SortKeys()
+    {
+    }
+
+
+    /**
+     * Sorts the given elements by their sort keys.
+     *
+     * @param elements the elements to sort, sorted in place
+     * @param keyExtractor the function computing the sort key of an element, called once per element
+     * @param keyComparator the comparator of the sort keys
+     */
+    public static <K> void sort( Object[] elements, Function<Object, K> keyExtractor,
+        Comparator<? super K> keyComparator )
+    {
+        @SuppressWarnings("unchecked")
+        Keyed<K>[] keyed = new Keyed[elements.length];
+        for ( int i = 0; i < elements.length; i++ )
+        {
+            keyed[i] = new Keyed<K>( keyExtractor.apply( elements[i] ), elements[i] );
+        }
+
+        Arrays.parallelSort( keyed, ( k1, k2 ) -> keyComparator.compare( k1.key, k2.key ) );
+
+        for ( int i = 0; i < keyed.length; i++ )
+        {
+            elements[i] = keyed[i].element;
+        }
+    }
+
+
+    /**
+     * Gets the case insensitive sort key of the given string. Comparing the sort keys with
+     * {@link String#compareTo(String)} gives the same result as comparing the strings with
+     * {@link String#compareToIgnoreCase(String)}.
+     *
+     * @param s the string
+     * @return the case insensitive sort key
+     */
+    public static String ignoreCase( String s )
+    {
+        char[] chars = s.toCharArray();
+        for ( int i = 0; i < chars.length; i++ )
+        {
+            chars[i] = Character.toLowerCase( Character.toUpperCase( chars[i] ) );
+        }
+        return new String( chars );
+    }
+
+    /**
+     * An element with its sort key.
+     */
+    private static final class Keyed<K>
+    {
+        private final K key;
+
+        private final Object element;
+
+
+        private Keyed( K key, Object element )
+        {
+            this.key = key;
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.utils.AttributeComparator;
+import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.LdifUtils;
+import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class LdifStreamWriterTest
+{
+    private static final String CHARS = "abcXYZ 019:<=,+\u00E4\u00F6\u00FC\u00DF\u20AC";
+
+    private Random random;
+
+
+    @BeforeEach
+    public void setup()
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        random = new Random( 42 );
+    }
+
+
+    @Test
+    public void testSameOutputAsLdifContentRecord() throws Exception
+    {
+        for ( int i = 0; i < 500; i++ )
+        {
+            Entry entry = new DefaultEntry( "cn=test" + i + ",ou=users,dc=example,dc=org" );
+            entry.add( "objectClass", "top", "person", "organizationalPerson", "inetOrgPerson" );
+            entry.add( "sn", randomString( 1, 10 ) );
+            entry.add( "cn", randomString( 1, 10 ), randomString( 1, 10 ) );
+            for ( int j = random.nextInt( 4 ); j > 0; j-- )
+            {
+                entry.add( "description", randomString( 0, 200 ) );
+            }
+            for ( int j = random.nextInt( 3 ); j > 0; j-- )
+            {
+                entry.add( "jpegPhoto", randomBytes( 0, 200 ) );
+            }
+            entry.add( "createTimestamp", "20200101000000Z" );
+
+            LdifFormatParameters formatParameters = new LdifFormatParameters( random.nextBoolean(),
+                10 + random.nextInt( 90 ), random.nextBoolean() ? "\n" : "\r\n" );
+
+            assertEquals( formatAsLdifContentRecord( entry, formatParameters ), write( entry, formatParameters ) );
+        }
+    }
+
+
+    @Test
+    public void testValuesAreEncodedDependingOnTheValue() throws Exception
+    {
+        byte[] bytes = new byte[]
+            { ( byte ) 0xFF, 0x00, 'a' };
+        Entry entry = new DefaultEntry( "cn=test,dc=example,dc=org" );
+        entry.add( "objectClass", "top", "person" );
+        entry.add( "cn", "test" );
+        entry.add( "sn", "test" );
+        entry.add( "description", bytes );
+        entry.add( "jpegPhoto", "not binary" );
+
+        String ldif = write( entry, new LdifFormatParameters( true, 76, "\n" ) );
+
+        // the raw bytes of a value that isn't human-readable are kept, even for a string attribute
+        assertTrue( ldif.contains( "description:: " + LdifUtils.base64encode( bytes ) + "\n" ), ldif );
+
+        // a human-readable value is written as string, even for a binary attribute
+        assertTrue( ldif.contains( "jpegPhoto: not binary\n" ), ldif );
+    }
+
+
+    @Test
+    public void testEmptyValuesAreWrittenLast() throws Exception
+    {
+        Entry entry = new DefaultEntry( "cn=test,dc=example,dc=org" );
+        entry.add( "objectClass", "top", "person" );
+        entry.add( "cn", "test" );
+        entry.add( "sn", "test" );
+        entry.add( "description", "", "b", "A" );
+
+        LdifFormatParameters formatParameters = new LdifFormatParameters( true, 76, "\n" );
+        String ldif = write( entry, formatParameters );
+
+        assertTrue( ldif.contains( "description: A\ndescription: b\ndescription: \n" ), ldif );
+        assertEquals( formatAsLdifContentRecord( entry, formatParameters ), ldif );
+    }
+
+
+    private String write( Entry entry, LdifFormatParameters formatParameters ) throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        new LdifStreamWriter( writer, Schema.DEFAULT_SCHEMA, formatParameters ).write( entry );
+        return writer.toString();
+    }
+
+
+    /**
+     * Formats the entry the way the export did before the LdifStreamWriter was introduced:
+     * the entry is converted to a content record, sorted with the AttributeComparator and
+     * formatted with LdifContentRecord.toFormattedString().
+     */
+    private String formatAsLdifContentRecord( Entry entry, LdifFormatParameters formatParameters )
+        throws Exception
+    {
+        LdifContentRecord record = LdifContentRecord.create( entry.getDn().getName() );
+        for ( Attribute attribute : entry )
+        {
+            for ( Value value : attribute )
+            {
+                if ( value.isHumanReadable() )
+                {
+                    record.addAttrVal( LdifAttrValLine.create( attribute.getUpId(), value.getString() ) );
+                }
+                else
+                {
+                    record.addAttrVal( LdifAttrValLine.create( attribute.getUpId(), value.getBytes() ) );
+                }
+            }
+        }
+        record.finish( LdifSepLine.create() );
+
+        DummyEntry dummyEntry = ModelConverter.ldifContentRecordToEntry( record,
+            new DummyConnection( Schema.DEFAULT_SCHEMA ) );
+        LdifContentRecord sortedRecord = new LdifContentRecord( record.getDnLine() );
+        for ( IValue value : AttributeComparator.toSortedValues( dummyEntry ) )
+        {
+            sortedRecord.addAttrVal( ModelConverter.valueToLdifAttrValLine( value ) );
+        }
+        sortedRecord.finish( record.getSepLine() );
+
+        return sortedRecord.toFormattedString( formatParameters );
+    }
+
+
+    private String randomString( int minLength, int maxLength )
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = minLength + random.nextInt( maxLength - minLength + 1 ); i > 0; i-- )
+        {
+            sb.append( CHARS.charAt( random.nextInt( CHARS.length() ) ) );
+        }
+        return sb.toString();
+    }
+
+
+    private byte[] randomBytes( int minLength, int maxLength )
+    {
+        byte[] bytes = new byte[minLength + random.nextInt( maxLength - minLength + 1 )];
+        random.nextBytes( bytes );
+        return bytes;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link OdsStreamWriter}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class OdsStreamWriterTest
+{
+
+    @Test
+    public void testWriteRow() throws Exception
+    {
+        BitSet wrapped = new BitSet();
+        wrapped.set( 1 );
+
+        assertEquals( "<table:table-row>"
+            + "<table:table-cell office:value-type=\"string\"><text:p>a &amp; b</text:p></table:table-cell>"
+            + "<table:table-cell office:value-type=\"string\" table:style-name=\"ce1\">"
+            + "<text:p>&lt;c&gt;</text:p></table:table-cell>"
+            + "</table:table-row>\n", writeRow( Arrays.asList( "a & b", "<c>" ), wrapped ) );
+    }
+
+
+    @Test
+    public void testEmptyCellsAreRepeated() throws Exception
+    {
+        assertEquals( "<table:table-row>"
+            + "<table:table-cell/>"
+            + "<table:table-cell office:value-type=\"string\"><text:p>b</text:p></table:table-cell>"
+            + "<table:table-cell table:number-columns-repeated=\"3\"/>"
+            + "<table:table-cell office:value-type=\"string\"><text:p>f</text:p></table:table-cell>"
+            + "</table:table-row>\n", writeRow( Arrays.asList( null, "b", null, null, null, "f", null ), null ) );
+    }
+
+
+    @Test
+    public void testLinesAreSplitIntoParagraphs() throws Exception
+    {
+        assertEquals( "<table:table-row><table:table-cell office:value-type=\"string\">"
+            + "<text:p>line1</text:p><text:p></text:p><text:p>line3</text:p><text:p></text:p>"
+            + "</table:table-cell></table:table-row>\n",
+            writeRow( Collections.singletonList( "line1\n\nline3\n" ), null ) );
+    }
+
+
+    @Test
+    public void testWhiteSpaceIsPreserved() throws Exception
+    {
+        // the first space following a non-space character is kept as is
+        assertEquals( "<table:table-row><table:table-cell office:value-type=\"string\">"
+            + "<text:p><text:s text:c=\"1\"/>a b <text:s text:c=\"2\"/>c<text:tab/>d <text:s text:c=\"1\"/></text:p>"
+            + "</table:table-cell></table:table-row>\n",
+            writeRow( Collections.singletonList( " a b   c\td  " ), null ) );
+    }
+
+
+    @Test
+    public void testFinish() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( OdsStreamWriter writer = new OdsStreamWriter( "Export" ) )
+        {
+            writer.writeRow( Arrays.asList( "cn=a", "a" ), null );
+            writer.finish( out, Arrays.asList( "dn", "cn" ) );
+        }
+
+        // the mimetype must be the first entry and must not be compressed
+        try ( ZipInputStream zip = new ZipInputStream( new ByteArrayInputStream( out.toByteArray() ) ) )
+        {
+            ZipEntry entry = zip.getNextEntry();
+            assertEquals( "mimetype", entry.getName() );
+            assertEquals( ZipEntry.STORED, entry.getMethod() );
+        }
+
+        Map<String, String> entries = XlsxStreamWriterTest.unzip( out.toByteArray() );
+        assertEquals( Arrays.asList( "mimetype", "META-INF/manifest.xml", "content.xml" ),
+            new ArrayList<>( entries.keySet() ) );
+        assertEquals( "application/vnd.oasis.opendocument.spreadsheet", entries.get( "mimetype" ) );
+
+        String content = entries.get( "content.xml" );
+        assertTrue( content.contains( "<table:table table:name=\"Export\">"
+            + "<table:table-column table:style-name=\"co1\"/><table:table-column table:style-name=\"co2\"/>"
+            + "<table:table-row><table:table-cell office:value-type=\"string\"><text:p>dn</text:p>" ) );
+        assertTrue( content.contains( "<text:p>cn=a</text:p>" ) );
+        assertTrue( content.endsWith( "</table:table-row>\n</table:table>"
+            + "</office:spreadsheet></office:body></office:document-content>" ) );
+    }
+
+
+    private static String writeRow( List<String> values, BitSet wrapped ) throws IOException
+    {
+        StringWriter writer = new StringWriter();
+        try ( OdsStreamWriter odsWriter = new OdsStreamWriter( "Export" ) )
+        {
+            odsWriter.writeRow( writer, 1, values, wrapped );
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link SpreadsheetStreamWriter}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SpreadsheetStreamWriterTest
+{
+
+    @Test
+    public void testWriteEscaped() throws Exception
+    {
+        assertEquals( "a &amp; b &lt;c&gt; &quot;d&quot; 'e'", escape( "a & b <c> \"d\" 'e'" ) );
+        assertEquals( "line1\nline2&#13;\n\tend", escape( "line1\nline2\r\n\tend" ) );
+        assertEquals( "\u00E4\u20AC\uD83D\uDE00", escape( "\u00E4\u20AC\uD83D\uDE00" ) );
+    }
+
+
+    @Test
+    public void testWriteEscapedReplacesInvalidCharacters() throws Exception
+    {
+        assertEquals( "a\uFFFDb\uFFFDc\uFFFD\uFFFD", escape( "a\u0000b\u001Fc\uFFFE\uFFFF" ) );
+    }
+
+
+    @Test
+    public void testSetCell()
+    {
+        List<String> row = new ArrayList<>();
+
+        SpreadsheetStreamWriter.setCell( row, 2, "c" );
+        assertEquals( Arrays.asList( null, null, "c" ), row );
+
+        SpreadsheetStreamWriter.setCell( row, 0, "a" );
+        assertEquals( Arrays.asList( "a", null, "c" ), row );
+
+        SpreadsheetStreamWriter.setCell( row, 2, "d" );
+        assertEquals( Arrays.asList( "a", null, "d" ), row );
+    }
+
+
+    @Test
+    public void testSheetRollover() throws Exception
+    {
+        List<String> values = Collections.singletonList( "x" );
+
+        try ( TestWriter writer = new TestWriter() )
+        {
+            // the header row is the first row of each sheet
+            for ( int i = 1; i < SpreadsheetStreamWriter.MAX_ROWS_PER_SHEET; i++ )
+            {
+                writer.writeRow( values, null );
+            }
+            assertEquals( 1, writer.getSheetCount() );
+            assertEquals( SpreadsheetStreamWriter.MAX_ROWS_PER_SHEET, writer.lastRowNumber );
+
+            writer.writeRow( values, null );
+            assertEquals( 2, writer.getSheetCount() );
+            assertEquals( 2, writer.lastRowNumber );
+
+            writer.writeRow( values, null );
+            assertEquals( 2, writer.getSheetCount() );
+            assertEquals( 3, writer.lastRowNumber );
+        }
+    }
+
+
+    @Test
+    public void testSheetNames() throws Exception
+    {
+        try ( TestWriter writer = new TestWriter() )
+        {
+            assertEquals( "Export", writer.getSheetName( 0 ) );
+            assertEquals( "Export 2", writer.getSheetName( 1 ) );
+            assertEquals( "Export 3", writer.getSheetName( 2 ) );
+        }
+    }
+
+
+    @Test
+    public void testFinishWithoutRowsWritesOneSheet() throws Exception
+    {
+        try ( TestWriter writer = new TestWriter() )
+        {
+            writer.finish( new ByteArrayOutputStream(), Arrays.asList( "dn", "cn" ) );
+            assertEquals( 1, writer.getSheetCount() );
+            assertEquals( Arrays.asList( "dn", "cn" ), writer.documentHeader );
+        }
+    }
+
+
+    @Test
+    public void testColumnWidths() throws Exception
+    {
+        try ( TestWriter writer = new TestWriter() )
+        {
+            writer.writeRow( Arrays.asList( "1234567890", null, "12\n12345" ), null );
+            writer.finish( new ByteArrayOutputStream(), Arrays.asList( "dn", "description", "street" ) );
+
+            // the longest line of the header and the values, plus 10 percent
+            assertEquals( Arrays.asList( 11, 13, 7 ), writer.getColumnWidths() );
+        }
+    }
+
+
+    @Test
+    public void testCloseDeletesSpoolFiles() throws Exception
+    {
+        TestWriter writer = new TestWriter();
+        writer.writeRow( Collections.singletonList( "x" ), null );
+        writer.close();
+
+        assertEquals( 0, writer.getSheetCount() );
+    }
+
+
+    private static String escape( String text ) throws IOException
+    {
+        StringWriter writer = new StringWriter();
+        SpreadsheetStreamWriter.writeEscaped( writer, text );
+        return writer.toString();
+    }
+
+
+    /**
+     * Writes each row as line with its number.
+     */
+    private static class TestWriter extends SpreadsheetStreamWriter
+    {
+        private int lastRowNumber;
+
+        private List<String> documentHeader;
+
+
+        TestWriter()
+        {
+            super( "Export" );
+        }
+
+
+        protected void writeDocument( ZipOutputStream zip, List<String> header ) throws IOException
+        {
+            documentHeader = header;
+        }
+
+
+        protected void writeRow( Writer writer, int rowNumber, List<String> values, BitSet wrapped )
+            throws IOException
+        {
+            lastRowNumber = rowNumber;
+            writer.write( rowNumber + "\n" );
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the offset and content count arithmetic of the {@link VirtualListViewWindow}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class VirtualListViewWindowTest
+{
+    private static final byte[] CONTEXT_ID = new byte[]
+        { 1, 2, 3 };
+
+
+    @Test
+    public void testFirstWindow()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.first( "cn", 100 );
+
+        assertEquals( "cn", window.getSortAttribute() );
+        assertEquals( 1, window.getOffset() );
+        assertEquals( 0, window.getContentCount() );
+        assertNull( window.getContextId() );
+    }
+
+
+    @Test
+    public void testSeekWindow()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.seek( "uid", 100, "m" );
+
+        assertEquals( "uid", window.getSortAttribute() );
+        assertEquals( 0, window.getOffset() );
+        assertEquals( 0, window.getContentCount() );
+    }
+
+
+    @Test
+    public void testNoTopWindowForFirstWindow()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.first( "cn", 100 );
+        window.setResponse( 1, 250, CONTEXT_ID );
+
+        assertNull( window.getTopWindow() );
+    }
+
+
+    @Test
+    public void testTopWindow()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.seek( "cn", 100, "m" );
+        window.setResponse( 120, 250, CONTEXT_ID );
+
+        VirtualListViewWindow topWindow = window.getTopWindow();
+        assertNotNull( topWindow );
+        assertEquals( "cn", topWindow.getSortAttribute() );
+        assertEquals( 1, topWindow.getOffset() );
+        assertEquals( 250, topWindow.getContentCount() );
+        assertSame( CONTEXT_ID, topWindow.getContextId() );
+    }
+
+
+    @Test
+    public void testNextWindows()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.first( "cn", 100 );
+        window.setResponse( 1, 250, CONTEXT_ID );
+
+        // entries 1 to 100 were returned
+        VirtualListViewWindow next = window.getNextWindow( 100 );
+        assertNotNull( next );
+        assertEquals( 101, next.getOffset() );
+        assertEquals( 250, next.getContentCount() );
+        assertSame( CONTEXT_ID, next.getContextId() );
+
+        // entries 101 to 200 were returned
+        next.setResponse( 101, 250, CONTEXT_ID );
+        VirtualListViewWindow last = next.getNextWindow( 100 );
+        assertNotNull( last );
+        assertEquals( 201, last.getOffset() );
+
+        // entries 201 to 250 were returned
+        last.setResponse( 201, 250, CONTEXT_ID );
+        assertNull( last.getNextWindow( 50 ) );
+    }
+
+
+    @Test
+    public void testNextWindowStartsAtLastEntry()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.first( "cn", 50 );
+        window.setResponse( 200, 250, CONTEXT_ID );
+
+        // entries 200 to 249 were returned, entry 250 is left
+        VirtualListViewWindow next = window.getNextWindow( 50 );
+        assertNotNull( next );
+        assertEquals( 250, next.getOffset() );
+
+        next.setResponse( 250, 250, CONTEXT_ID );
+        assertNull( next.getNextWindow( 1 ) );
+    }
+
+
+    @Test
+    public void testNextWindowUsesLatestContentCount()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.first( "cn", 100 );
+        window.setResponse( 1, 150, null );
+
+        VirtualListViewWindow next = window.getNextWindow( 100 );
+        assertEquals( 150, next.getContentCount() );
+
+        // entries were added meanwhile
+        next.setResponse( 101, 400, CONTEXT_ID );
+        VirtualListViewWindow after = next.getNextWindow( 100 );
+        assertEquals( 201, after.getOffset() );
+        assertEquals( 400, after.getContentCount() );
+        assertSame( CONTEXT_ID, after.getContextId() );
+    }
+
+
+    @Test
+    public void testNextWindowAfterSeek()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.seek( "cn", 100, "m" );
+        window.setResponse( 42, 250, CONTEXT_ID );
+
+        assertEquals( 142, window.getNextWindow( 100 ).getOffset() );
+    }
+
+
+    @Test
+    public void testNoNextWindowWithoutEntries()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.first( "cn", 100 );
+        window.setResponse( 1, 250, CONTEXT_ID );
+
+        assertNull( window.getNextWindow( 0 ) );
+    }
+
+
+    @Test
+    public void testNoNextWindowWithUnknownContentCount()
+    {
+        VirtualListViewWindow window = VirtualListViewWindow.first( "cn", 100 );
+        window.setResponse( 1, 0, CONTEXT_ID );
+
+        assertNull( window.getNextWindow( 100 ) );
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link XlsxStreamWriter}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class XlsxStreamWriterTest
+{
+
+    @Test
+    public void testWriteRow() throws Exception
+    {
+        BitSet wrapped = new BitSet();
+        wrapped.set( 2 );
+
+        assertEquals( "<row r=\"3\">"
+            + "<c r=\"A3\" t=\"inlineStr\"><is><t xml:space=\"preserve\">a &amp; b</t></is></c>"
+            + "<c r=\"C3\" s=\"1\" t=\"inlineStr\"><is><t xml:space=\"preserve\">line1\nline2</t></is></c>"
+            + "</row>\n", writeRow( 3, Arrays.asList( "a & b", null, "line1\nline2" ), wrapped ) );
+    }
+
+
+    @Test
+    public void testColumnNames() throws Exception
+    {
+        List<String> values = new ArrayList<>();
+        SpreadsheetStreamWriter.setCell( values, 25, "z" );
+        SpreadsheetStreamWriter.setCell( values, 26, "aa" );
+        SpreadsheetStreamWriter.setCell( values, 701, "zz" );
+        SpreadsheetStreamWriter.setCell( values, 702, "aaa" );
+
+        String row = writeRow( 1, values, null );
+        assertTrue( row.contains( "<c r=\"Z1\"" ) );
+        assertTrue( row.contains( "<c r=\"AA1\"" ) );
+        assertTrue( row.contains( "<c r=\"ZZ1\"" ) );
+        assertTrue( row.contains( "<c r=\"AAA1\"" ) );
+    }
+
+
+    @Test
+    public void testLongValueIsTruncated() throws Exception
+    {
+        String value = repeat( 'x', 40000 );
+
+        String row = writeRow( 1, Collections.singletonList( value ), null );
+        assertEquals( 32767, getText( row ).length() );
+    }
+
+
+    @Test
+    public void testLongValueIsNotTruncatedWithinSurrogatePair() throws Exception
+    {
+        String value = repeat( 'x', 32766 ) + "\uD83D\uDE00" + "x";
+
+        String row = writeRow( 1, Collections.singletonList( value ), null );
+        assertEquals( repeat( 'x', 32766 ), getText( row ) );
+    }
+
+
+    @Test
+    public void testValueOfMaximumLengthIsNotTruncated() throws Exception
+    {
+        String value = repeat( 'x', 32765 ) + "\uD83D\uDE00";
+
+        String row = writeRow( 1, Collections.singletonList( value ), null );
+        assertEquals( value, getText( row ) );
+    }
+
+
+    @Test
+    public void testFinish() throws Exception
+    {
+        Map<String, String> entries;
+        try ( XlsxStreamWriter writer = new XlsxStreamWriter( "Export <1>" ) )
+        {
+            writer.writeRow( Arrays.asList( "cn=a", "a" ), null );
+            writer.writeRow( Arrays.asList( "cn=b", null, "b" ), null );
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.finish( out, Arrays.asList( "dn", "cn", "sn" ) );
+            entries = unzip( out.toByteArray() );
+        }
+
+        assertEquals( Arrays.asList( "[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+            "xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml" ),
+            new ArrayList<>( entries.keySet() ) );
+        assertTrue( entries.get( "xl/workbook.xml" ).contains( "<sheet name=\"Export &lt;1&gt;\" sheetId=\"1\"" ) );
+
+        String sheet = entries.get( "xl/worksheets/sheet1.xml" );
+        assertTrue( sheet.contains( "<sheetData><row r=\"1\">" ) );
+        assertTrue( sheet.contains( "<c r=\"A1\" t=\"inlineStr\"><is><t xml:space=\"preserve\">dn</t>" ) );
+        assertTrue( sheet.contains( "<row r=\"2\"><c r=\"A2\"" ) );
+        assertTrue( sheet.contains( "<row r=\"3\"><c r=\"A3\"" ) );
+        assertTrue( sheet.contains( "<c r=\"C3\" t=\"inlineStr\"><is><t xml:space=\"preserve\">b</t>" ) );
+        assertTrue( sheet.endsWith( "</row>\n</sheetData></worksheet>" ) );
+    }
+
+
+    private static String writeRow( int rowNumber, List<String> values, BitSet wrapped ) throws IOException
+    {
+        StringWriter writer = new StringWriter();
+        try ( XlsxStreamWriter xlsxWriter = new XlsxStreamWriter( "Export" ) )
+        {
+            xlsxWriter.writeRow( writer, rowNumber, values, wrapped );
+        }
+        return writer.toString();
+    }
+
+
+    private static String getText( String row )
+    {
+        String start = "<t xml:space=\"preserve\">";
+        return row.substring( row.indexOf( start ) + start.length(), row.indexOf( "</t>" ) );
+    }
+
+
+    private static String repeat( char c, int count )
+    {
+        char[] chars = new char[count];
+        Arrays.fill( chars, c );
+        return new String( chars );
+    }
+
+
+    static Map<String, String> unzip( byte[] bytes ) throws IOException
+    {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try ( ZipInputStream zip = new ZipInputStream( new ByteArrayInputStream( bytes ) ) )
+        {
+            for ( ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry() )
+            {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                for ( int n = zip.read( buffer ); n != -1; n = zip.read( buffer ) )
+                {
+                    out.write( buffer, 0, n );
+                }
+                entries.put( entry.getName(), new String( out.toByteArray(), StandardCharsets.UTF_8 ) );
+            }
+        }
+        return entries;
+    }
+}
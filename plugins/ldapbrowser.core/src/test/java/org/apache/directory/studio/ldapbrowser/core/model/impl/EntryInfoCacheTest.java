@@ -0,0 +1,248 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model.impl;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class EntryInfoCacheTest
+{
+    private IEntry entry1;
+    private IEntry entry2;
+    private IEntry entry3;
+    private IEntry entry4;
+
+    private Set<IEntry> pinned;
+    private List<IEntry> evicted;
+    private EntryInfoCache<String> cache;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        IBrowserConnection connection = new DummyConnection( Schema.DEFAULT_SCHEMA );
+        entry1 = new DummyEntry( new Dn( "cn=1" ), connection );
+        entry2 = new DummyEntry( new Dn( "cn=2" ), connection );
+        entry3 = new DummyEntry( new Dn( "cn=3" ), connection );
+        entry4 = new DummyEntry( new Dn( "cn=4" ), connection );
+
+        pinned = new HashSet<IEntry>();
+        evicted = new ArrayList<IEntry>();
+        cache = new EntryInfoCache<String>( 3 )
+        {
+            private static final long serialVersionUID = 1L;
+
+
+            @Override
+            protected boolean isEvictable( IEntry entry, String value )
+            {
+                return !pinned.contains( entry );
+            }
+
+
+            @Override
+            protected void evicted( IEntry entry, String value )
+            {
+                evicted.add( entry );
+            }
+        };
+    }
+
+
+    @Test
+    public void testEvictLeastRecentlyUsed()
+    {
+        cache.put( entry1, "1" );
+        cache.put( entry2, "2" );
+        cache.put( entry3, "3" );
+        cache.get( entry1 );
+        cache.put( entry4, "4" );
+
+        assertEquals( 3, cache.size() );
+        assertEquals( "1", cache.get( entry1 ) );
+        assertNull( cache.get( entry2 ) );
+        assertEquals( 1, evicted.size() );
+        assertEquals( entry2, evicted.get( 0 ) );
+        assertEquals( 1, cache.getEvictionCount() );
+    }
+
+
+    @Test
+    public void testPinnedEntriesAreNotEvicted()
+    {
+        pinned.add( entry1 );
+        pinned.add( entry2 );
+        cache.put( entry1, "1" );
+        cache.put( entry2, "2" );
+        cache.put( entry3, "3" );
+        cache.put( entry4, "4" );
+
+        assertTrue( cache.contains( entry1 ) );
+        assertTrue( cache.contains( entry2 ) );
+        assertFalse( cache.contains( entry3 ) );
+        assertTrue( cache.contains( entry4 ) );
+    }
+
+
+    @Test
+    public void testAddedEntryIsNeverEvicted()
+    {
+        pinned.add( entry1 );
+        pinned.add( entry2 );
+        pinned.add( entry3 );
+        cache.put( entry1, "1" );
+        cache.put( entry2, "2" );
+        cache.put( entry3, "3" );
+        cache.put( entry4, "4" );
+
+        assertEquals( 4, cache.size() );
+        assertTrue( cache.contains( entry4 ) );
+        assertTrue( evicted.isEmpty() );
+    }
+
+
+    @Test
+    public void testExplicitlyPinnedEntriesAreNotEvicted()
+    {
+        cache.pin( entry1 );
+        cache.put( entry1, "1" );
+        cache.put( entry2, "2" );
+        cache.pin( entry2 );
+        cache.put( entry3, "3" );
+        cache.put( entry4, "4" );
+
+        assertEquals( 3, cache.size() );
+        assertTrue( cache.isPinned( entry1 ) );
+        assertEquals( "1", cache.get( entry1 ) );
+        assertEquals( "2", cache.get( entry2 ) );
+        assertFalse( cache.contains( entry3 ) );
+        assertEquals( 1, evicted.size() );
+
+        // the unpinned entry becomes the most recently used one
+        cache.unpin( entry1 );
+        cache.put( entry3, "3" );
+
+        assertEquals( 3, cache.size() );
+        assertTrue( cache.contains( entry1 ) );
+        assertFalse( cache.contains( entry4 ) );
+        assertEquals( entry4, evicted.get( 1 ) );
+    }
+
+
+    @Test
+    public void testSkippedEntriesAreMovedToEnd()
+    {
+        pinned.add( entry1 );
+        cache.put( entry1, "1" );
+        cache.put( entry2, "2" );
+        cache.put( entry3, "3" );
+        cache.put( entry4, "4" );
+        pinned.remove( entry1 );
+        cache.put( entry2, "2" );
+        cache.put( entry4, "4" );
+
+        // entry1 was skipped when entry2 was evicted, so entry3 is older
+        assertTrue( cache.contains( entry1 ) );
+        assertFalse( cache.contains( entry3 ) );
+        assertEquals( 2, evicted.size() );
+    }
+
+
+    @Test
+    public void testEvict()
+    {
+        pinned.add( entry2 );
+        cache.put( entry1, "1" );
+        cache.put( entry2, "2" );
+        cache.put( entry3, "3" );
+
+        assertEquals( 2, cache.evict( 5 ) );
+        assertEquals( 1, cache.size() );
+        assertTrue( cache.contains( entry2 ) );
+    }
+
+
+    @Test
+    public void testUnbounded()
+    {
+        cache.setMaxSize( EntryInfoCache.UNBOUNDED );
+        cache.put( entry1, "1" );
+        cache.put( entry2, "2" );
+        cache.put( entry3, "3" );
+        cache.put( entry4, "4" );
+
+        assertEquals( 4, cache.size() );
+        assertEquals( 0, cache.getEvictionCount() );
+    }
+
+
+    @Test
+    public void testEvictUnbounded()
+    {
+        cache.setMaxSize( EntryInfoCache.UNBOUNDED );
+        pinned.add( entry2 );
+        cache.put( entry1, "1" );
+        cache.put( entry2, "2" );
+        cache.put( entry3, "3" );
+        cache.put( entry4, "4" );
+
+        assertEquals( 1, cache.evict( 1 ) );
+        assertFalse( cache.contains( entry1 ) );
+        assertEquals( 2, cache.evict( 5 ) );
+        assertEquals( 1, cache.size() );
+        assertTrue( cache.contains( entry2 ) );
+        assertEquals( 3, cache.getEvictionCount() );
+    }
+
+
+    @Test
+    public void testCounters()
+    {
+        cache.put( entry1, "1" );
+        cache.get( entry1 );
+        cache.get( entry1 );
+        cache.get( entry2 );
+        cache.contains( entry2 );
+
+        assertEquals( 2, cache.getHitCount() );
+        assertEquals( 1, cache.getMissCount() );
+
+        cache.resetCounters();
+        assertEquals( 0, cache.getHitCount() );
+        assertEquals( 0, cache.getMissCount() );
+    }
+}
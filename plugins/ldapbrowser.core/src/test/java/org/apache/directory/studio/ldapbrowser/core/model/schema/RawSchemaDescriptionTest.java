@@ -0,0 +1,123 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model.schema;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+
+public class RawSchemaDescriptionTest
+{
+
+    @Test
+    public void testScanAttributeType()
+    {
+        RawSchemaDescription raw = RawSchemaDescription.scan( "( 2.5.4.3 NAME ( 'cn' 'commonName' ) "
+            + "DESC 'RFC4519: common name(s) for which the entity is known by' SUP name "
+            + "EQUALITY caseIgnoreMatch ORDERING caseIgnoreOrderingMatch SUBSTR caseIgnoreSubstringsMatch "
+            + "SYNTAX 1.3.6.1.4.1.1466.115.121.1.15{32768} )" );
+
+        assertEquals( "2.5.4.3", raw.getOid() );
+        assertEquals( Arrays.asList( "cn", "commonName" ), raw.getNames() );
+        assertEquals( "1.3.6.1.4.1.1466.115.121.1.15", raw.getSyntax() );
+        assertEquals( "caseIgnoreMatch", raw.getEquality() );
+        assertEquals( "caseIgnoreOrderingMatch", raw.getOrdering() );
+        assertEquals( "caseIgnoreSubstringsMatch", raw.getSubstr() );
+    }
+
+
+    @Test
+    public void testScanSingleName()
+    {
+        RawSchemaDescription raw = RawSchemaDescription.scan( "( 2.5.6.6 NAME 'person' SUP top STRUCTURAL "
+            + "MUST ( sn $ cn ) MAY ( userPassword $ telephoneNumber ) )" );
+
+        assertEquals( "2.5.6.6", raw.getOid() );
+        assertEquals( Collections.singletonList( "person" ), raw.getNames() );
+        assertNull( raw.getSyntax() );
+    }
+
+
+    @Test
+    public void testScanWithoutNames()
+    {
+        RawSchemaDescription raw = RawSchemaDescription
+            .scan( "( 1.3.6.1.4.1.1466.115.121.1.15 DESC 'Directory String' )" );
+
+        assertEquals( "1.3.6.1.4.1.1466.115.121.1.15", raw.getOid() );
+        assertTrue( raw.getNames().isEmpty() );
+    }
+
+
+    @Test
+    public void testScanIgnoresKeywordsInQuotedStrings()
+    {
+        RawSchemaDescription raw = RawSchemaDescription
+            .scan( "( 1.2.3 NAME 'test' DESC 'NAME SYNTAX 9.9.9' SYNTAX 1.3.6.1.4.1.1466.115.121.1.26 )" );
+
+        assertEquals( Collections.singletonList( "test" ), raw.getNames() );
+        assertEquals( "1.3.6.1.4.1.1466.115.121.1.26", raw.getSyntax() );
+    }
+
+
+    @Test
+    public void testScanIgnoresKeywordsInValues()
+    {
+        RawSchemaDescription raw = RawSchemaDescription.scan( "( 1.2.3 NAME 'test' SUP name SINGLE-VALUE "
+            + "X-ORIGIN ( 'syntax' 'equality' ) USAGE userApplications )" );
+
+        assertEquals( Collections.singletonList( "test" ), raw.getNames() );
+        assertNull( raw.getSyntax() );
+        assertNull( raw.getEquality() );
+    }
+
+
+    @Test
+    public void testScanQuirks()
+    {
+        // quoted OID, lower-case keywords and no whitespace around the parentheses
+        RawSchemaDescription raw = RawSchemaDescription.scan( "('1.2.3' name('a' 'b') equality caseExactMatch "
+            + "syntax '1.3.6.1.4.1.1466.115.121.1.15'{64})" );
+
+        assertEquals( "1.2.3", raw.getOid() );
+        assertEquals( Arrays.asList( "a", "b" ), raw.getNames() );
+        assertEquals( "caseExactMatch", raw.getEquality() );
+        assertEquals( "1.3.6.1.4.1.1466.115.121.1.15", raw.getSyntax() );
+    }
+
+
+    @Test
+    public void testScanInvalid()
+    {
+        assertNull( RawSchemaDescription.scan( "" ).getOid() );
+        assertNull( RawSchemaDescription.scan( "2.5.4.3 NAME 'cn'" ).getOid() );
+        assertNull( RawSchemaDescription.scan( "( " ).getOid() );
+        assertTrue( RawSchemaDescription.scan( "( 1.2.3 NAME" ).getNames().isEmpty() );
+        assertEquals( 2, RawSchemaDescription.scan( "( 1.2.3 NAME ( 'a' 'b'" ).getNames().size() );
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model.schema;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.api.ldap.model.schema.LdapSyntax;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class SchemaObjectMapTest
+{
+    private static final String SYNTAX1 = "( 1.1.1 NAME ( 'one' 'first' ) )";
+
+    private static final String SYNTAX2 = "( 1.1.2 NAME 'two' )";
+
+    private static final String INVALID = "( 1.1.3 NAME 'invalid' )";
+
+    private AtomicInteger parseCount;
+
+    private SchemaObjectMap<LdapSyntax> map;
+
+
+    @BeforeEach
+    public void setup()
+    {
+        parseCount = new AtomicInteger();
+        map = new SchemaObjectMap<LdapSyntax>( this::parse );
+    }
+
+
+    private LdapSyntax parse( String description ) throws Exception
+    {
+        parseCount.incrementAndGet();
+        RawSchemaDescription raw = RawSchemaDescription.scan( description );
+        if ( raw.getNames().contains( "invalid" ) )
+        {
+            throw new Exception( "invalid description" );
+        }
+        LdapSyntax syntax = new LdapSyntax( raw.getOid() );
+        syntax.setNames( raw.getNames() );
+        return syntax;
+    }
+
+
+    private void addDescriptions( SchemaObjectMap<LdapSyntax> map )
+    {
+        map.add( SYNTAX1, RawSchemaDescription.scan( SYNTAX1 ) );
+        map.add( SYNTAX2, RawSchemaDescription.scan( SYNTAX2 ) );
+        map.add( INVALID, RawSchemaDescription.scan( INVALID ) );
+    }
+
+
+    @Test
+    public void testDescriptionsAreParsedOnFirstAccess()
+    {
+        addDescriptions( map );
+        assertEquals( 0, parseCount.get() );
+
+        LdapSyntax one = map.get( "one" );
+        assertEquals( "1.1.1", one.getOid() );
+        assertEquals( 1, parseCount.get() );
+
+        // all keys share the parsed object
+        assertSame( one, map.get( "first" ) );
+        assertSame( one, map.get( "1.1.1" ) );
+        assertEquals( 1, parseCount.get() );
+    }
+
+
+    @Test
+    public void testInvalidDescription()
+    {
+        addDescriptions( map );
+
+        assertNull( map.get( "invalid" ) );
+        assertFalse( map.contains( "1.1.3" ) );
+        assertTrue( map.contains( "two" ) );
+        assertFalse( map.contains( "unknown" ) );
+        assertNull( map.get( null ) );
+
+        // an invalid description is parsed only once
+        assertEquals( 2, parseCount.get() );
+    }
+
+
+    @Test
+    public void testValues()
+    {
+        addDescriptions( map );
+        LdapSyntax three = new LdapSyntax( "1.1.4" );
+        map.add( three );
+
+        Set<LdapSyntax> values = map.values();
+        assertEquals( 3, values.size() );
+        assertTrue( values.contains( three ) );
+        assertTrue( values.contains( map.get( "1.1.1" ) ) );
+        assertTrue( values.contains( map.get( "two" ) ) );
+        assertEquals( 3, parseCount.get() );
+    }
+
+
+    @Test
+    public void testWriteAndReadWithoutParsing() throws Exception
+    {
+        addDescriptions( map );
+        LdapSyntax three = new LdapSyntax( "1.1.4" );
+        three.addName( "three" );
+        map.add( three );
+        map.get( "two" );
+        assertEquals( 1, parseCount.get() );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+        {
+            map.writeTo( out );
+        }
+        assertEquals( 1, parseCount.get() );
+
+        SchemaObjectMap<LdapSyntax> read = new SchemaObjectMap<LdapSyntax>( this::parse );
+        try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+        {
+            read.readFrom( in );
+        }
+        assertEquals( 1, parseCount.get() );
+
+        // the object without description is read as it is
+        assertEquals( "1.1.4", read.get( "three" ).getOid() );
+        assertSame( read.get( "three" ), read.get( "1.1.4" ) );
+        assertEquals( 1, parseCount.get() );
+
+        // the descriptions are parsed on first access
+        assertEquals( "1.1.1", read.get( "first" ).getOid() );
+        assertSame( read.get( "first" ), read.get( "one" ) );
+        assertEquals( "1.1.2", read.get( "two" ).getOid() );
+        assertNull( read.get( "invalid" ) );
+        assertEquals( 4, parseCount.get() );
+        assertEquals( 3, read.values().size() );
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+public class SortKeysTest
+{
+
+    @Test
+    public void testIgnoreCaseKeyComparesLikeCompareToIgnoreCase()
+    {
+        String[] strings =
+            { "", "a", "A", "b", "B", "ab", "aB", "Ab", "abc", "\u00E4", "\u00C4", "\u0130", "i", "I", "\u0131",
+                "\u00DF", "SS", "Z", "_", "1", "10", "9" };
+
+        for ( String s1 : strings )
+        {
+            for ( String s2 : strings )
+            {
+                assertEquals( Integer.signum( s1.compareToIgnoreCase( s2 ) ),
+                    Integer.signum( SortKeys.ignoreCase( s1 ).compareTo( SortKeys.ignoreCase( s2 ) ) ), s1 + " " + s2 );
+            }
+        }
+    }
+
+
+    @Test
+    public void testSortGivesSameOrderAsComparator()
+    {
+        Random random = new Random( 42 );
+        String[] elements = new String[20000];
+        for ( int i = 0; i < elements.length; i++ )
+        {
+            elements[i] = Integer.toString( random.nextInt( 1000 ), 36 ) + ( random.nextBoolean() ? "X" : "x" );
+        }
+
+        String[] expected = elements.clone();
+        Arrays.sort( expected, String.CASE_INSENSITIVE_ORDER );
+
+        Object[] actual = elements.clone();
+        SortKeys.sort( actual, o -> SortKeys.ignoreCase( ( String ) o ), Comparator.naturalOrder() );
+
+        // both sorts are stable, so the equal elements keep their order
+        assertArrayEquals( expected, actual );
+    }
+
+}
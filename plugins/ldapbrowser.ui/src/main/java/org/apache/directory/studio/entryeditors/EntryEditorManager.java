@@ -122,6 +122,9 @@ public class EntryEditorManager
     /** The shared working copies for auto-save editors; original entry -> working copy */
     private Map<IEntry, IEntry> autoSaveSharedWorkingCopies = new HashMap<>();
 
+    /** The original entries of the open editors, pinned in the browser connection's cache */
+    private Set<IEntry> pinnedEntries = new HashSet<>();
+
     /** The comparator for entry editors */
     private Comparator<EntryEditorExtension> entryEditorComparator = new Comparator<EntryEditorExtension>()
     {
@@ -1106,6 +1109,8 @@ public class EntryEditorManager
             }
         }
         
+        updatePinnedEntries( oscEntries, autoSaveEntries );
+        
         for ( Iterator<IEntry> it = oscSharedReferenceCopies.keySet().iterator(); it.hasNext(); )
         {
             IEntry entry = it.next();
@@ -1147,4 +1152,37 @@ public class EntryEditorManager
             }
         }
     }
+
+
+    /**
+     * Pins the entries of the open editors in the browser connection's cache,
+     * and unpins the entries of closed editors.
+     *
+     * @param oscEntries the entries of the open-save-close editors
+     * @param autoSaveEntries the entries of the auto-save editors
+     */
+    private void updatePinnedEntries( Set<IEntry> oscEntries, Set<IEntry> autoSaveEntries )
+    {
+        Set<IEntry> openEntries = new HashSet<>( oscEntries );
+        openEntries.addAll( autoSaveEntries );
+        
+        for ( Iterator<IEntry> it = pinnedEntries.iterator(); it.hasNext(); )
+        {
+            IEntry entry = it.next();
+            
+            if ( !openEntries.contains( entry ) )
+            {
+                entry.getBrowserConnection().unpinEntry( entry );
+                it.remove();
+            }
+        }
+        
+        for ( IEntry entry : openEntries )
+        {
+            if ( pinnedEntries.add( entry ) )
+            {
+                entry.getBrowserConnection().pinEntry( entry );
+            }
+        }
+    }
 }
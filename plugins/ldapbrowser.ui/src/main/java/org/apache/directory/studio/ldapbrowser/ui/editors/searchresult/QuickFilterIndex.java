@@ -0,0 +1,467 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+
+
+/**
+ * A trigram index over the upper-cased string values of the search results, used by the
+ * quick filter of the search result editor.
+ * <p>
+ * The text of each row is built once; a quick filter value with at least three characters
+ * is only checked against the rows containing its rarest trigram. The index is immutable
+ * and built in background, see {@link QuickFilterRunnable}. It must be built from a copy of
+ * the search results, the search result editor sorts them in place.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class QuickFilterIndex
+{
+
+    /** The separator between the values of a row, it can't be part of a trigram of the quick filter value */
+    private static final char SEPARATOR = '\u0000';
+
+    /** The number of rows between two checks of the monitor */
+    private static final int CHECK_INTERVAL = 1000;
+
+    /** The indexed elements */
+    private final Object[] elements;
+
+    /** The show Dn flag */
+    private final boolean showDn;
+
+    /** The upper-cased text of each row, null if the row is not a search result */
+    private final String[] texts;
+
+    /** The rows containing a trigram, in ascending order */
+    private final Map<Long, IntList> postings;
+
+    /** The rows without text, they always go through the quick filter, in ascending order */
+    private final int[] unindexed;
+
+
+    private QuickFilterIndex( Object[] elements, boolean showDn, String[] texts, Map<Long, IntList> postings,
+        int[] unindexed )
+    {
+        this.elements = elements;
+        this.showDn = showDn;
+        this.texts = texts;
+        this.postings = postings;
+        this.unindexed = unindexed;
+    }
+
+
+    /**
+     * Builds the index of the given elements. The texts of the rows are taken over
+     * from the previous index if the elements start with its elements, that is the
+     * case while the results of a search are still arriving.
+     *
+     * @param previous the previous index, may be null
+     * @param elements the elements, must not be modified afterwards
+     * @param showDn the show Dn flag
+     * @param monitor the progress monitor
+     * @return the index, null if canceled
+     */
+    static QuickFilterIndex build( QuickFilterIndex previous, Object[] elements, boolean showDn,
+        StudioProgressMonitor monitor )
+    {
+        String[] texts = new String[elements.length];
+        int reused = 0;
+        if ( previous != null && previous.isPrefixOf( elements, showDn ) )
+        {
+            reused = previous.elements.length;
+            System.arraycopy( previous.texts, 0, texts, 0, reused );
+        }
+
+        for ( int i = reused; i < elements.length; i++ )
+        {
+            if ( i % CHECK_INTERVAL == 0 && monitor.isCanceled() )
+            {
+                return null;
+            }
+            texts[i] = getText( elements[i], showDn );
+        }
+
+        Map<Long, IntList> postings = new HashMap<Long, IntList>();
+        IntList unindexed = new IntList();
+        for ( int i = 0; i < texts.length; i++ )
+        {
+            if ( i % CHECK_INTERVAL == 0 && monitor.isCanceled() )
+            {
+                return null;
+            }
+
+            String text = texts[i];
+            if ( text != null )
+            {
+                for ( int k = 0; k + 2 < text.length(); k++ )
+                {
+                    Long trigram = getTrigram( text, k );
+                    if ( trigram != null )
+                    {
+                        IntList rows = postings.get( trigram );
+                        if ( rows == null )
+                        {
+                            rows = new IntList();
+                            postings.put( trigram, rows );
+                        }
+                        rows.addOnce( i );
+                    }
+                }
+            }
+            else
+            {
+                unindexed.add( i );
+            }
+        }
+
+        return new QuickFilterIndex( elements, showDn, texts, postings, unindexed.toArray() );
+    }
+
+
+    /**
+     * Checks if this index was built for the given elements, that is the same
+     * elements in the same order.
+     *
+     * @param elements the elements
+     * @param showDn the show Dn flag
+     * @return true if this index was built for the given elements
+     */
+    boolean isIndexOf( Object[] elements, boolean showDn )
+    {
+        return this.showDn == showDn && isSame( this.elements, elements );
+    }
+
+
+    /**
+     * Finds the rows that go through the given quick filter value.
+     *
+     * @param quickFilterValue the quick filter value, not empty
+     * @param candidates the rows to check in ascending order, null to check all rows
+     * @param monitor the progress monitor
+     * @return the matching rows in ascending order, null if canceled
+     */
+    int[] match( String quickFilterValue, int[] candidates, StudioProgressMonitor monitor )
+    {
+        String value = quickFilterValue.toUpperCase();
+
+        // the rows containing the rarest trigram of the value
+        IntList rarest = null;
+        for ( int k = 0; k + 2 < value.length(); k++ )
+        {
+            Long trigram = getTrigram( value, k );
+            if ( trigram == null )
+            {
+                continue;
+            }
+            IntList rows = postings.get( trigram );
+            if ( rows == null )
+            {
+                // only the rows without text go through
+                rarest = new IntList();
+                break;
+            }
+            if ( rarest == null || rows.size < rarest.size )
+            {
+                rarest = rows;
+            }
+        }
+
+        int[] rows;
+        int count;
+        if ( rarest != null && ( candidates == null || rarest.size + unindexed.length < candidates.length ) )
+        {
+            rows = union( rarest.toArray(), unindexed );
+            count = rows.length;
+        }
+        else if ( candidates != null )
+        {
+            rows = candidates;
+            count = candidates.length;
+        }
+        else
+        {
+            rows = null;
+            count = texts.length;
+        }
+
+        IntList matches = new IntList();
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( i % CHECK_INTERVAL == 0 && monitor.isCanceled() )
+            {
+                return null;
+            }
+
+            int row = rows != null ? rows[i] : i;
+            if ( texts[row] == null || texts[row].indexOf( value ) > -1 )
+            {
+                matches.add( row );
+            }
+        }
+
+        int[] result = matches.toArray();
+        if ( candidates != null && rows != candidates )
+        {
+            result = intersect( result, candidates );
+        }
+        return result;
+    }
+
+
+    /**
+     * Gets the elements of the given rows.
+     *
+     * @param rows the rows
+     * @return a new array with the elements
+     */
+    Object[] getElements( int[] rows )
+    {
+        Object[] result = new Object[rows.length];
+        for ( int i = 0; i < rows.length; i++ )
+        {
+            result[i] = elements[rows[i]];
+        }
+        return result;
+    }
+
+
+    /**
+     * Checks if the given arrays contain the same elements in the same order.
+     *
+     * @param elements1 the first elements
+     * @param elements2 the second elements
+     * @return true if the arrays contain the same elements in the same order
+     */
+    static boolean isSame( Object[] elements1, Object[] elements2 )
+    {
+        return elements1.length == elements2.length && isPrefix( elements1, elements2 );
+    }
+
+
+    /**
+     * Checks if this index was built for the first of the given elements,
+     * or for the same elements.
+     *
+     * @param elements the elements
+     * @param showDn the show Dn flag
+     * @return true if this index was built for the first of the given elements
+     */
+    boolean isPrefixOf( Object[] elements, boolean showDn )
+    {
+        return this.showDn == showDn && isPrefix( this.elements, elements );
+    }
+
+
+    /**
+     * Checks if the given prefix contains the first of the given elements in the same order.
+     *
+     * @param prefix the prefix
+     * @param elements the elements
+     * @return true if the prefix contains the first of the given elements in the same order
+     */
+    static boolean isPrefix( Object[] prefix, Object[] elements )
+    {
+        if ( prefix.length > elements.length )
+        {
+            return false;
+        }
+        for ( int i = 0; i < prefix.length; i++ )
+        {
+            if ( prefix[i] != elements[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Gets the upper-cased text of the given element, the same values as
+     * {@link SearchResultEditorFilter#select(org.eclipse.jface.viewers.Viewer, Object, Object)}
+     * checks, separated by {@link #SEPARATOR}.
+     *
+     * @param element the element
+     * @param showDn the show Dn flag
+     * @return the text, null if the element always goes through the quick filter
+     */
+    private static String getText( Object element, boolean showDn )
+    {
+        if ( !( element instanceof ISearchResult ) )
+        {
+            return null;
+        }
+
+        ISearchResult searchResult = ( ISearchResult ) element;
+        StringBuilder sb = new StringBuilder();
+        for ( String ra : searchResult.getSearch().getReturningAttributes() )
+        {
+            AttributeHierarchy ah = searchResult.getAttributeWithSubtypes( ra );
+            if ( ah != null )
+            {
+                for ( IAttribute attribute : ah.getAttributes() )
+                {
+                    for ( IValue value : attribute.getValues() )
+                    {
+                        if ( value.isString() )
+                        {
+                            sb.append( value.getStringValue().toUpperCase() ).append( SEPARATOR );
+                        }
+                        else if ( !value.isBinary() )
+                        {
+                            return null;
+                        }
+                    }
+                }
+            }
+        }
+
+        if ( showDn )
+        {
+            sb.append( searchResult.getDn().getName().toUpperCase() );
+        }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Gets the key of the trigram starting at the given index.
+     *
+     * @param text the text
+     * @param index the index
+     * @return the key of the trigram, null if it contains the separator
+     */
+    private static Long getTrigram( String text, int index )
+    {
+        char c0 = text.charAt( index );
+        char c1 = text.charAt( index + 1 );
+        char c2 = text.charAt( index + 2 );
+        if ( c0 == SEPARATOR || c1 == SEPARATOR || c2 == SEPARATOR )
+        {
+            return null;
+        }
+        return Long.valueOf( ( ( long ) c0 << 32 ) | ( ( long ) c1 << 16 ) | c2 );
+    }
+
+
+    private static int[] union( int[] rows1, int[] rows2 )
+    {
+        if ( rows2.length == 0 )
+        {
+            return rows1;
+        }
+
+        IntList result = new IntList();
+        int i = 0;
+        int k = 0;
+        while ( i < rows1.length || k < rows2.length )
+        {
+            if ( k == rows2.length || ( i < rows1.length && rows1[i] < rows2[k] ) )
+            {
+                result.add( rows1[i++] );
+            }
+            else if ( i == rows1.length || rows1[i] > rows2[k] )
+            {
+                result.add( rows2[k++] );
+            }
+            else
+            {
+                result.add( rows1[i] );
+                i++;
+                k++;
+            }
+        }
+        return result.toArray();
+    }
+
+
+    private static int[] intersect( int[] rows1, int[] rows2 )
+    {
+        IntList result = new IntList();
+        int i = 0;
+        int k = 0;
+        while ( i < rows1.length && k < rows2.length )
+        {
+            if ( rows1[i] < rows2[k] )
+            {
+                i++;
+            }
+            else if ( rows1[i] > rows2[k] )
+            {
+                k++;
+            }
+            else
+            {
+                result.add( rows1[i] );
+                i++;
+                k++;
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * A growable list of rows.
+     */
+    private static final class IntList
+    {
+        private int[] values = new int[4];
+
+        private int size;
+
+
+        private void add( int value )
+        {
+            if ( size == values.length )
+            {
+                values = Arrays.copyOf( values, size * 2 );
+            }
+            values[size++] = value;
+        }
+
+
+        private void addOnce( int value )
+        {
+            if ( size == 0 || values[size - 1] != value )
+            {
+                add( value );
+            }
+        }
+
+
+        private int[] toArray()
+        {
+            return Arrays.copyOf( values, size );
+        }
+    }
+}
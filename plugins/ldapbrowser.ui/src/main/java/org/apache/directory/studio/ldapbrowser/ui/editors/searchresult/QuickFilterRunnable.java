@@ -0,0 +1,163 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
+
+
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnableWithProgress;
+
+
+/**
+ * Runnable to apply the quick filter of the search result editor in background. It builds
+ * or extends the {@link QuickFilterIndex} of the elements and looks up the matching rows.
+ * The result is handed over to the filter, unless the runnable was canceled because the
+ * quick filter value was changed in the meantime.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class QuickFilterRunnable implements StudioConnectionRunnableWithProgress
+{
+
+    /** The filter. */
+    private SearchResultEditorFilter filter;
+
+    /** The index of the previous run, may be null. */
+    private QuickFilterIndex index;
+
+    /** A copy of all elements, unfiltered. */
+    private Object[] elements;
+
+    /** The show Dn flag. */
+    private boolean showDn;
+
+    /** The quick filter value. */
+    private String quickFilterValue;
+
+    /** The rows to check, null to check all rows. */
+    private int[] candidates;
+
+
+    /**
+     * Creates a new instance of QuickFilterRunnable.
+     * 
+     * @param filter the filter
+     * @param index the index of the previous run, may be null
+     * @param elements a copy of the elements, unfiltered, not modified by the caller afterwards
+     * @param showDn the show Dn flag
+     * @param quickFilterValue the quick filter value
+     * @param candidates the rows to check, null to check all rows
+     */
+    QuickFilterRunnable( SearchResultEditorFilter filter, QuickFilterIndex index, Object[] elements, boolean showDn,
+        String quickFilterValue, int[] candidates )
+    {
+        this.filter = filter;
+        this.index = index;
+        this.elements = elements;
+        this.showDn = showDn;
+        this.quickFilterValue = quickFilterValue;
+        this.candidates = candidates;
+    }
+
+
+    /**
+     * Checks if this runnable filters the given elements, or the first of the given
+     * elements, with the given quick filter value.
+     *
+     * @param elements the elements
+     * @param showDn the show Dn flag
+     * @param quickFilterValue the quick filter value
+     * @return true if this runnable filters the given elements or their first elements
+     *         with the given quick filter value
+     */
+    boolean appliesToPrefixOf( Object[] elements, boolean showDn, String quickFilterValue )
+    {
+        return this.showDn == showDn && this.quickFilterValue.equals( quickFilterValue )
+            && QuickFilterIndex.isPrefix( this.elements, elements );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName()
+    {
+        return Messages.getString( "QuickFilterRunnable.QuickFilter" ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object[] getLockedObjects()
+    {
+        return new Object[0];
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run( StudioProgressMonitor monitor )
+    {
+        monitor.beginTask( Messages.getString( "QuickFilterRunnable.QuickFilter" ), 2 ); //$NON-NLS-1$
+        monitor.worked( 1 );
+
+        if ( index == null || !index.isIndexOf( elements, showDn ) )
+        {
+            monitor.reportProgress( Messages.getString( "QuickFilterRunnable.Indexing" ) ); //$NON-NLS-1$
+            index = QuickFilterIndex.build( index, elements, showDn, monitor );
+            if ( index == null )
+            {
+                return;
+            }
+        }
+
+        monitor.reportProgress( Messages.getString( "FilterAndSortRunnable.Filtering" ) ); //$NON-NLS-1$
+        int[] matches = index.match( quickFilterValue, candidates, monitor );
+        if ( matches == null || monitor.isCanceled() )
+        {
+            return;
+        }
+        monitor.worked( 1 );
+
+        filter.quickFilterDone( this, index, quickFilterValue, matches );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Connection[] getConnections()
+    {
+        return null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getErrorMessage()
+    {
+        return Messages.getString( "QuickFilterRunnable.ErrorQuickFilter" ); //$NON-NLS-1$
+    }
+
+}
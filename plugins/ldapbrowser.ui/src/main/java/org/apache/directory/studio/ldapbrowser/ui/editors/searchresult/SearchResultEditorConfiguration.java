@@ -108,6 +108,11 @@ public class SearchResultEditorConfiguration
                 cursor.dispose();
                 cursor = null;
             }
+            if ( filter != null )
+            {
+                filter.dispose();
+                filter = null;
+            }
             disposed = true;
         }
     }
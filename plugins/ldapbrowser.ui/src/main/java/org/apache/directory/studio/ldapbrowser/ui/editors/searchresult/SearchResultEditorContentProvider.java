@@ -101,6 +101,17 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
     {
         filteredAndSortedElements = elements;
 
+        // update the input of the filter and the sorter first, the filter must not use state of a previous search
+        if ( input instanceof ISearch )
+        {
+            ISearch search = ( ISearch ) input;
+            boolean showDn = BrowserUIPlugin.getDefault().getPreferenceStore().getBoolean(
+                BrowserUIConstants.PREFERENCE_SEARCHRESULTEDITOR_SHOW_DN )
+                || search.getReturningAttributes().length == 0;
+            configuration.getFilter().inputChanged( search, showDn );
+            configuration.getSorter().inputChanged( search, showDn );
+        }
+
         // filter and sort, use Job if too much elements
         if ( configuration.getFilter().isFiltered() || configuration.getSorter().isSorted() )
         {
@@ -108,10 +119,11 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
                 .getInt( BrowserUIConstants.PREFERENCE_SEARCHRESULTEDITOR_SORT_FILTER_LIMIT )
                 && mainWidget.getViewer() != null && !mainWidget.getViewer().getTable().isDisposed() )
             {
-                // deactivate fitering and sorting for large data set
+                // deactivate sorting for large data set, the quick filter runs in background
                 // FilterAndSortRunnable runnable = new FilterAndSortRunnable( configuration, mainWidget, elements );
                 // RunnableContextRunner.execute( runnable, null, true );
                 // filteredAndSortedElements = runnable.getFilteredAndSortedElements();
+                filteredAndSortedElements = configuration.getFilter().filter( mainWidget.getViewer(), "", elements ); //$NON-NLS-1$
             }
             else if ( elements.length > 0 && mainWidget.getViewer() != null
                 && !mainWidget.getViewer().getTable().isDisposed() )
@@ -156,12 +168,6 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
             // url += search.getURL();
             url += Messages.getString( "SearchResultEditorContentProvider.SearchBase" ) + search.getSearchBase().getName() + "  -  "; //$NON-NLS-1$ //$NON-NLS-2$
             url += Messages.getString( "SearchResultEditorContentProvider.Filter" ) + search.getFilter(); //$NON-NLS-1$
-
-            boolean showDn = BrowserUIPlugin.getDefault().getPreferenceStore().getBoolean(
-                BrowserUIConstants.PREFERENCE_SEARCHRESULTEDITOR_SHOW_DN )
-                || search.getReturningAttributes().length == 0;
-            configuration.getFilter().inputChanged( search, showDn );
-            configuration.getSorter().inputChanged( search, showDn );
         }
         else
         {
@@ -23,6 +23,11 @@ package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
 
 import java.util.ArrayList;
 
+import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryModificationEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryUpdateListener;
+import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.jobs.StudioBrowserJob;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
@@ -30,25 +35,64 @@ import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerFilter;
+import org.eclipse.swt.widgets.Display;
 
 
 /**
  * The SearchResultEditorFilter implements the filter for the search result editor.
+ * <p>
+ * Large search results are filtered in background using a {@link QuickFilterIndex}
+ * of a copy of the search results. While the background filter runs the previous
+ * matches are shown, if they were found in the first elements of the same search.
+ * While the search results are still coming in, the background filter isn't restarted
+ * for each added page, the added elements are filtered when the running filter is done.
+ * The index is rebuilt when an entry of the search's connection is modified, so the
+ * values are indexed again.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
-public class SearchResultEditorFilter extends ViewerFilter
+public class SearchResultEditorFilter extends ViewerFilter implements EntryUpdateListener
 {
 
+    /** The number of elements from which the quick filter is applied in background. */
+    private static final int QUICK_FILTER_INDEX_THRESHOLD = 1000;
+
     /** The content provider. */
     protected SearchResultEditorContentProvider contentProvider;
 
     /** The quick filter value. */
     protected String quickFilterValue;
 
+    /** The search. */
+    private ISearch search;
+
     /** The show Dn flag. */
     private boolean showDn;
 
+    /** The quick filter index, may be built for previous elements, null if none. */
+    private QuickFilterIndex quickFilterIndex;
+
+    /** Flag indicating that the values of the quick filter index are outdated and must be indexed again. */
+    private boolean quickFilterIndexOutdated;
+
+    /** The rows of the quick filter index that go through the quick filter, null if none. */
+    private int[] matches;
+
+    /** The elements that went through the quick filter, kept until the next result of the background filter. */
+    private Object[] matchedElements;
+
+    /** The quick filter value the matches were computed for. */
+    private String matchesQuickFilterValue;
+
+    /** The running quick filter runnable, null if none. */
+    private QuickFilterRunnable quickFilterRunnable;
+
+    /** The job of the running quick filter runnable. */
+    private StudioBrowserJob quickFilterJob;
+
+    /** The display to hand over the result of the quick filter runnable. */
+    private Display display;
+
 
     /**
      * Creates a new instance of SearchResultEditorFilter.
@@ -66,6 +110,10 @@ public class SearchResultEditorFilter extends ViewerFilter
      */
     public void connect( SearchResultEditorContentProvider contentProvider )
     {
+        if ( this.contentProvider == null )
+        {
+            EventRegistry.addEntryUpdateListener( this, BrowserCommonActivator.getDefault().getEventRunner() );
+        }
         this.contentProvider = contentProvider;
     }
 
@@ -78,10 +126,47 @@ public class SearchResultEditorFilter extends ViewerFilter
      */
     public void inputChanged( ISearch newSearch, boolean showDn )
     {
+        if ( newSearch != this.search )
+        {
+            // the matches of the previous search must not be shown
+            cancelQuickFilter();
+            quickFilterIndex = null;
+            quickFilterIndexOutdated = false;
+            matches = null;
+            matchedElements = null;
+            matchesQuickFilterValue = null;
+        }
+
+        this.search = newSearch;
         this.showDn = showDn;
     }
 
 
+    /**
+     * {@inheritDoc}
+     *
+     * This implementation marks the quick filter index as outdated if an entry
+     * of the search's connection was modified, and filters the elements again.
+     * The previous matches are shown until the index is rebuilt.
+     */
+    public void entryUpdated( EntryModificationEvent event )
+    {
+        if ( ( quickFilterIndex == null && quickFilterRunnable == null ) || search == null
+            || event.getConnection() != search.getBrowserConnection() )
+        {
+            return;
+        }
+
+        cancelQuickFilter();
+        quickFilterIndexOutdated = true;
+        matches = null;
+        if ( isFiltered() && contentProvider != null )
+        {
+            contentProvider.refresh();
+        }
+    }
+
+
     /**
      * Checks if is filtered.
      * 
@@ -98,7 +183,25 @@ public class SearchResultEditorFilter extends ViewerFilter
      */
     public Object[] filter( Viewer viewer, Object parent, Object[] elements )
     {
-        if ( isFiltered() )
+        if ( isFiltered() && elements.length >= QUICK_FILTER_INDEX_THRESHOLD )
+        {
+            if ( matches != null && quickFilterIndex.isIndexOf( elements, showDn )
+                && quickFilterValue.equals( matchesQuickFilterValue ) )
+            {
+                return matchedElements.clone();
+            }
+
+            scheduleQuickFilter( viewer, elements );
+
+            // show the previous matches until the background filter is done,
+            // if they were found in the first elements, e.g. before more search results were added
+            if ( matchedElements != null && quickFilterIndex.isPrefixOf( elements, showDn ) )
+            {
+                return matchedElements.clone();
+            }
+            return elements.clone();
+        }
+        else if ( isFiltered() )
         {
             int size = elements.length;
             ArrayList<Object> out = new ArrayList<Object>( size );
@@ -120,6 +223,93 @@ public class SearchResultEditorFilter extends ViewerFilter
     }
 
 
+    /**
+     * Schedules the quick filter runnable for a copy of the given elements, unless it is already running
+     * for the given elements or for their first elements. In the latter case the remaining elements are
+     * filtered when the running filter is done, so the filter isn't restarted for each page of search
+     * results that is added while the search is running.
+     * If only characters were added to the quick filter value only the previous matches are checked.
+     *
+     * @param viewer the viewer
+     * @param elements the elements
+     */
+    private void scheduleQuickFilter( Viewer viewer, Object[] elements )
+    {
+        if ( quickFilterRunnable != null
+            && quickFilterRunnable.appliesToPrefixOf( elements, showDn, quickFilterValue ) )
+        {
+            return;
+        }
+        cancelQuickFilter();
+
+        int[] candidates = null;
+        if ( matches != null && quickFilterIndex.isIndexOf( elements, showDn )
+            && quickFilterValue.toUpperCase().contains( matchesQuickFilterValue.toUpperCase() ) )
+        {
+            candidates = matches;
+        }
+
+        display = viewer.getControl().getDisplay();
+        quickFilterRunnable = new QuickFilterRunnable( this, quickFilterIndexOutdated ? null : quickFilterIndex,
+            elements.clone(), showDn, quickFilterValue, candidates );
+        quickFilterJob = new StudioBrowserJob( quickFilterRunnable );
+        quickFilterJob.setSystem( true );
+        quickFilterJob.schedule();
+    }
+
+
+    /**
+     * Called by the quick filter runnable when it is done, hands over
+     * the result to the UI thread and refreshes the viewer.
+     *
+     * @param runnable the quick filter runnable
+     * @param index the quick filter index
+     * @param quickFilterValue the quick filter value
+     * @param matches the rows of the index that go through the quick filter
+     */
+    void quickFilterDone( final QuickFilterRunnable runnable, final QuickFilterIndex index,
+        final String quickFilterValue, final int[] matches )
+    {
+        if ( display == null || display.isDisposed() )
+        {
+            return;
+        }
+
+        display.asyncExec( new Runnable()
+        {
+            public void run()
+            {
+                // ignore the result if the quick filter value was changed in the meantime
+                if ( runnable == quickFilterRunnable && contentProvider != null )
+                {
+                    quickFilterRunnable = null;
+                    quickFilterJob = null;
+                    quickFilterIndex = index;
+                    quickFilterIndexOutdated = false;
+                    SearchResultEditorFilter.this.matches = matches;
+                    matchedElements = index.getElements( matches );
+                    matchesQuickFilterValue = quickFilterValue;
+                    contentProvider.refresh();
+                }
+            }
+        } );
+    }
+
+
+    /**
+     * Cancels the running quick filter runnable.
+     */
+    private void cancelQuickFilter()
+    {
+        if ( quickFilterJob != null )
+        {
+            quickFilterJob.cancel();
+        }
+        quickFilterRunnable = null;
+        quickFilterJob = null;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -193,7 +383,16 @@ public class SearchResultEditorFilter extends ViewerFilter
      */
     public void dispose()
     {
+        if ( contentProvider != null )
+        {
+            EventRegistry.removeEntryUpdateListener( this );
+        }
+        cancelQuickFilter();
         contentProvider = null;
+        search = null;
+        quickFilterIndex = null;
+        matches = null;
+        matchedElements = null;
     }
 
 
@@ -218,6 +417,10 @@ public class SearchResultEditorFilter extends ViewerFilter
         if ( !this.quickFilterValue.equals( quickFilterValue ) )
         {
             this.quickFilterValue = quickFilterValue;
+            if ( !isFiltered() )
+            {
+                cancelQuickFilter();
+            }
             if ( contentProvider != null )
             {
                 contentProvider.refresh();
@@ -21,17 +21,20 @@
 package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
 
 
-import java.util.Arrays;
-import java.util.Comparator;
-
+import org.apache.directory.api.ldap.model.message.controls.SortKey;
+import org.apache.directory.api.ldap.model.message.controls.SortRequest;
+import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.jobs.SearchRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.StudioBrowserJob;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.apache.directory.studio.ldapbrowser.core.utils.SortKeys;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerSorter;
@@ -42,6 +45,12 @@ import org.eclipse.swt.widgets.TableColumn;
 
 /**
  * The SearchResultEditorSorter implements the Sorter for the search result editor.
+ * 
+ * If the search results are sorted by the server with the server side sort control 
+ * the order of the server is kept. When the user selects another sort column the new 
+ * sort key is pushed to the server and the search is performed again. The search 
+ * results are only sorted here if the server doesn't support the control or if 
+ * they are sorted by Dn.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -127,6 +136,7 @@ public class SearchResultEditorSorter extends ViewerSorter implements SelectionL
             setSortColumn( 0 );
             setSortColumn( 0 );
             setSortColumn( 0 );
+            contentProvider.refresh();
         }
     }
 
@@ -167,6 +177,11 @@ public class SearchResultEditorSorter extends ViewerSorter implements SelectionL
         {
             int index = contentProvider.getViewer().getTable().indexOf( ( ( TableColumn ) e.widget ) );
             setSortColumn( index );
+
+            if ( !pushSortKey() )
+            {
+                contentProvider.refresh();
+            }
         }
     }
 
@@ -218,8 +233,92 @@ public class SearchResultEditorSorter extends ViewerSorter implements SelectionL
         {
             ( columns[index] ).setImage( null );
         }
+    }
+
+
+    /**
+     * Pushes the sort key of the sort column to the server if the search results
+     * are sorted by the server and not yet in the requested order. The search 
+     * is performed again.
+     * 
+     * @return true, if the search is performed again
+     */
+    private boolean pushSortKey()
+    {
+        if ( search == null || !search.isServerSideSorted() || isServerSorted() )
+        {
+            return false;
+        }
+
+        String attributeName = getSortAttribute();
+
+        if ( attributeName == BrowserUIConstants.DN )
+        {
+            return false;
+        }
+
+        search.getControls().remove( search.getSortRequestControl() );
+        search.getControls().add(
+            Controls.newSortRequestControl( attributeName, sortOrder == BrowserCoreConstants.SORT_ORDER_DESCENDING ) );
+        new StudioBrowserJob( new SearchRunnable( new ISearch[]
+            { search } ) ).execute();
+
+        return true;
+    }
+
+
+    /**
+     * Checks if the search results are sorted by the server in the order
+     * of the sort column.
+     * 
+     * @return true, if the search results are sorted by the server
+     */
+    private boolean isServerSorted()
+    {
+        if ( search == null || !search.isServerSideSorted() )
+        {
+            return false;
+        }
 
-        contentProvider.refresh();
+        if ( sortOrder == BrowserCoreConstants.SORT_ORDER_NONE )
+        {
+            return true;
+        }
+
+        SortRequest sortControl = search.getSortRequestControl();
+        String attributeName = getSortAttribute();
+
+        if ( sortControl.getSortKeys().isEmpty() || attributeName == BrowserUIConstants.DN )
+        {
+            return false;
+        }
+
+        SortKey sortKey = sortControl.getSortKeys().get( 0 );
+
+        return attributeName.equalsIgnoreCase( sortKey.getAttributeTypeDesc() )
+            && sortKey.isReverseOrder() == ( sortOrder == BrowserCoreConstants.SORT_ORDER_DESCENDING );
+    }
+
+
+    /**
+     * Gets the attribute of the sort column.
+     * 
+     * @return the attribute of the sort column, BrowserUIConstants.DN for the Dn column
+     */
+    private String getSortAttribute()
+    {
+        if ( showDn && ( sortBy == 0 ) )
+        {
+            return BrowserUIConstants.DN;
+        }
+        else if ( showDn && ( sortBy > 0 ) )
+        {
+            return search.getReturningAttributes()[sortBy - 1];
+        }
+        else
+        {
+            return search.getReturningAttributes()[sortBy];
+        }
     }
 
 
@@ -230,27 +329,90 @@ public class SearchResultEditorSorter extends ViewerSorter implements SelectionL
      */
     public boolean isSorted()
     {
-        // return sortOrder != SORT_ORDER_NONE;
-        return true;
+        // keep the order of the server
+        return !isServerSorted();
     }
 
 
     /**
      * {@inheritDoc}
+     * 
+     * The sort key of each search result is computed once before sorting, 
+     * the order is the same as defined by {@link #compare(Viewer, Object, Object)}.
      */
     public void sort( final Viewer viewer, Object[] elements )
     {
-        if ( isSorted() )
+        if ( isSorted() && search != null )
+        {
+            String attributeName = getSortAttribute();
+            SortKeys.sort( elements, element -> getSortKey( ( ISearchResult ) element, attributeName ),
+                this::compareSortKeys );
+        }
+    }
+
+
+    /**
+     * Gets the sort key of the given search result.
+     * 
+     * @param searchResult the search result
+     * @param attributeName the attribute of the sort column
+     * 
+     * @return the sort key
+     */
+    private ResultSortKey getSortKey( ISearchResult searchResult, String attributeName )
+    {
+        IEntry entry = searchResult.getEntry();
+
+        if ( entry == null )
         {
-            Arrays.sort( elements, new Comparator<Object>()
+            return new ResultSortKey( ResultSortKey.NO_ENTRY, null );
+        }
+        else if ( attributeName == BrowserUIConstants.DN )
+        {
+            return new ResultSortKey( ResultSortKey.VALUE, SortKeys.ignoreCase( entry.getDn().getNormName() ) );
+        }
+        else
+        {
+            AttributeHierarchy ah = entry.getAttributeWithSubtypes( attributeName );
+
+            if ( ah == null )
             {
-                public int compare( Object a, Object b )
-                {
-                    return SearchResultEditorSorter.this.compare( viewer, a, b );
-                }
-            } );
+                return new ResultSortKey( ResultSortKey.NO_ATTRIBUTE, null );
+            }
+            else
+            {
+                return new ResultSortKey( ResultSortKey.VALUE, SortKeys.ignoreCase( getValue( ah.getAttribute() ) ) );
+            }
+        }
+    }
+
+
+    /**
+     * Compares two sort keys, pays attention for the sort order.
+     * 
+     * @param key1 the 1st sort key
+     * @param key2 the 2nd sort key
+     * 
+     * @return the compare result
+     */
+    private int compareSortKeys( ResultSortKey key1, ResultSortKey key2 )
+    {
+        int result;
+
+        if ( key1.rank != key2.rank )
+        {
+            result = key1.rank - key2.rank;
+        }
+        else if ( key1.rank == ResultSortKey.VALUE )
+        {
+            result = key1.value.compareTo( key2.value );
+        }
+        else
+        {
+            return equal();
         }
 
+        return sortOrder == BrowserCoreConstants.SORT_ORDER_ASCENDING ? result : -result;
     }
 
 
@@ -287,20 +449,7 @@ public class SearchResultEditorSorter extends ViewerSorter implements SelectionL
         }
         else
         {
-            String attributeName;
-
-            if ( showDn && ( sortBy == 0 ) )
-            {
-                attributeName = BrowserUIConstants.DN;
-            }
-            else if ( showDn && ( sortBy > 0 ) )
-            {
-                attributeName = search.getReturningAttributes()[sortBy - 1];
-            }
-            else
-            {
-                attributeName = search.getReturningAttributes()[sortBy];
-            }
+            String attributeName = getSortAttribute();
 
             if ( attributeName == BrowserUIConstants.DN )
             {
@@ -408,4 +557,32 @@ public class SearchResultEditorSorter extends ViewerSorter implements SelectionL
             .compareToIgnoreCase( s1 );
     }
 
+    /**
+     * The precomputed sort key of a search result.
+     */
+    private static final class ResultSortKey
+    {
+        /** The rank of a search result without entry */
+        private static final int NO_ENTRY = 0;
+
+        /** The rank of a search result without the sort attribute */
+        private static final int NO_ATTRIBUTE = 1;
+
+        /** The rank of a search result with a value */
+        private static final int VALUE = 2;
+
+        /** The rank */
+        private final int rank;
+
+        /** The case insensitive sort key of the value, null if there is no value */
+        private final String value;
+
+
+        private ResultSortKey( int rank, String value )
+        {
+            this.rank = rank;
+            this.value = value;
+        }
+    }
+
 }
@@ -395,6 +395,10 @@ public class BrowserViewActionGroup extends BrowserActionGroup
         {
             menuManager.add( browserActionMap.get( UNFILTER_CHILDREN_ACTION ) );
         }
+        if ( ( browserActionMap.get( GO_TO_CHILDREN_ACTION ) ).isEnabled() )
+        {
+            menuManager.add( browserActionMap.get( GO_TO_CHILDREN_ACTION ) );
+        }
         menuManager.add( browserActionMap.get( OPEN_QUICK_SEARCH_ACTION ) );
         menuManager.add( new Separator() );
 
@@ -476,6 +476,8 @@ public class BrowserViewUniversalListener extends BrowserUniversalListener imple
                     viewer.setSelection( ( ISelection ) connectionToSelectedElementMap.get( connection ), true );
                 }
             }
+
+            schedulePinnedEntriesUpdate();
         }
     }
 
@@ -511,6 +513,8 @@ public class BrowserViewUniversalListener extends BrowserUniversalListener imple
         {
             viewer.expandToLevel( rootDSE, 2 );
         }
+
+        schedulePinnedEntriesUpdate();
     }
 
 
@@ -536,6 +540,7 @@ public class BrowserViewUniversalListener extends BrowserUniversalListener imple
         connectionToExpandedElementsMap.remove( browserConnection );
         connectionToSelectedElementMap.remove( browserConnection );
         viewer.refresh( browserConnection );
+        schedulePinnedEntriesUpdate();
     }
 
 
@@ -548,6 +553,13 @@ public class BrowserViewUniversalListener extends BrowserUniversalListener imple
     {
         ISearch search = searchUpdateEvent.getSearch();
 
+        if ( searchUpdateEvent.getDetail() == EventDetail.SEARCH_RESULTS_ADDED )
+        {
+            // search is still running, just update the search results
+            viewer.refresh( search );
+            return;
+        }
+
         if ( ( search instanceof IQuickSearch ) && ( searchUpdateEvent.getDetail() == EventDetail.SEARCH_REMOVED ) )
         {
             if ( search.getBrowserConnection().getQuickSearch() == search )
@@ -581,6 +593,8 @@ public class BrowserViewUniversalListener extends BrowserUniversalListener imple
                 viewer.setSelection( new StructuredSelection( searchCategory ), true );
             }
         }
+
+        schedulePinnedEntriesUpdate();
     }
 
 
@@ -684,6 +698,8 @@ public class BrowserViewUniversalListener extends BrowserUniversalListener imple
         {
             viewer.refresh( event.getModifiedEntry(), true );
         }
+
+        schedulePinnedEntriesUpdate();
     }
 
 }
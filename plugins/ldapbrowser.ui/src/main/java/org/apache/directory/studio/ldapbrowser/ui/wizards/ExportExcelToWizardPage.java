@@ -42,7 +42,7 @@ public class ExportExcelToWizardPage extends ExportBaseToPage
 
     /** The extensions used by Excel files */
     private static final String[] EXTENSIONS = new String[]
-        { "*.xls", "*" }; //$NON-NLS-1$ //$NON-NLS-2$
+        { "*.xlsx", "*.xls", "*" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
 
     /**
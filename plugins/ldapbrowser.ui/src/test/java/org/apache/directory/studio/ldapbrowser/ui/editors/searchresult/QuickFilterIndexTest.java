@@ -0,0 +1,239 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.SearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Value;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class QuickFilterIndexTest
+{
+    private StudioProgressMonitor monitor;
+    private DummyConnection connection;
+    private ISearch search;
+    private Object[] elements;
+    private QuickFilterIndex index;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+        connection = new DummyConnection( Schema.DEFAULT_SCHEMA );
+        SearchParameter searchParameter = new SearchParameter();
+        searchParameter.setReturningAttributes( new String[]
+            { "cn" } );
+        search = new Search( connection, searchParameter );
+
+        elements = new Object[]
+            {
+                createSearchResult( "uid=alice,dc=example,dc=org", "Alice Smith" ),
+                createSearchResult( "uid=bob,dc=example,dc=org", "Bob Smith", "Bobby" ),
+                createSearchResult( "uid=carol,dc=example,dc=org", "Carol Jones" ),
+                "not a search result",
+                createSearchResult( "uid=dave,dc=example,dc=org", "Dave Smithers" ) };
+        index = QuickFilterIndex.build( null, elements.clone(), false, monitor );
+    }
+
+
+    @Test
+    public void testMatch()
+    {
+        assertArrayEquals( new int[]
+            { 0, 1, 3, 4 }, index.match( "smith", null, monitor ) );
+        assertArrayEquals( new int[]
+            { 3, 4 }, index.match( "SMITHERS", null, monitor ) );
+        assertArrayEquals( new int[]
+            { 1, 3 }, index.match( "bobby", null, monitor ) );
+        assertArrayEquals( new int[]
+            { 3 }, index.match( "unknown", null, monitor ) );
+    }
+
+
+    @Test
+    public void testMatchDoesNotSpanValues()
+    {
+        // the values "Bob Smith" and "Bobby" are separated, a match must not span both
+        assertArrayEquals( new int[]
+            { 3 }, index.match( "smithbobby", null, monitor ) );
+        assertArrayEquals( new int[]
+            { 3 }, index.match( "h b", null, monitor ) );
+    }
+
+
+    @Test
+    public void testMatchShortValueChecksAllRows()
+    {
+        // values with less than three characters have no trigram
+        assertArrayEquals( new int[]
+            { 1, 2, 3 }, index.match( "o", null, monitor ) );
+        assertArrayEquals( new int[]
+            { 1, 3 }, index.match( "bo", null, monitor ) );
+    }
+
+
+    @Test
+    public void testMatchShowDn()
+    {
+        assertArrayEquals( new int[]
+            { 3 }, index.match( "uid=carol", null, monitor ) );
+
+        QuickFilterIndex showDnIndex = QuickFilterIndex.build( index, elements.clone(), true, monitor );
+        assertArrayEquals( new int[]
+            { 2, 3 }, showDnIndex.match( "uid=carol", null, monitor ) );
+    }
+
+
+    @Test
+    public void testMatchNarrowsCandidates()
+    {
+        // only the previous matches are checked when characters were added to the quick filter value
+        int[] candidates = index.match( "smith", null, monitor );
+        assertArrayEquals( new int[]
+            { 3, 4 }, index.match( "smithe", candidates, monitor ) );
+        assertArrayEquals( new int[]
+            { 1, 3 }, index.match( "b", new int[]
+            { 1, 3, 4 }, monitor ) );
+
+        // rows that aren't candidates are never returned, even if they match
+        assertArrayEquals( new int[]
+            { 0, 3 }, index.match( "smith", new int[]
+            { 0, 2, 3 }, monitor ) );
+        assertArrayEquals( new int[0], index.match( "smith", new int[]
+            { 2 }, monitor ) );
+    }
+
+
+    @Test
+    public void testIsIndexOf()
+    {
+        assertTrue( index.isIndexOf( elements, false ) );
+        assertTrue( index.isIndexOf( elements.clone(), false ) );
+        assertFalse( index.isIndexOf( elements, true ) );
+
+        // sorting the elements in place invalidates the index
+        Object[] sorted = elements.clone();
+        sorted[0] = elements[1];
+        sorted[1] = elements[0];
+        assertFalse( index.isIndexOf( sorted, false ) );
+
+        Object[] more = new Object[elements.length + 1];
+        System.arraycopy( elements, 0, more, 0, elements.length );
+        more[elements.length] = "another element";
+        assertFalse( index.isIndexOf( more, false ) );
+    }
+
+
+    @Test
+    public void testIsPrefixOf()
+    {
+        assertTrue( index.isPrefixOf( elements, false ) );
+        assertFalse( index.isPrefixOf( elements, true ) );
+
+        // more search results were added
+        Object[] more = new Object[elements.length + 1];
+        System.arraycopy( elements, 0, more, 0, elements.length );
+        more[elements.length] = "another element";
+        assertTrue( index.isPrefixOf( more, false ) );
+
+        // the search was performed again
+        Object[] other = elements.clone();
+        other[0] = createSearchResult( "uid=alice,dc=example,dc=org", "Alice Smith" );
+        assertFalse( index.isPrefixOf( other, false ) );
+
+        Object[] less = new Object[elements.length - 1];
+        System.arraycopy( elements, 0, less, 0, less.length );
+        assertFalse( index.isPrefixOf( less, false ) );
+    }
+
+
+    @Test
+    public void testBuildReusesPrefix()
+    {
+        Object[] more = new Object[elements.length + 1];
+        System.arraycopy( elements, 0, more, 0, elements.length );
+        more[elements.length] = createSearchResult( "uid=eve,dc=example,dc=org", "Eve Smith" );
+
+        QuickFilterIndex moreIndex = QuickFilterIndex.build( index, more, false, monitor );
+        assertTrue( moreIndex.isIndexOf( more, false ) );
+        assertArrayEquals( new int[]
+            { 0, 1, 3, 4, 5 }, moreIndex.match( "smith", null, monitor ) );
+    }
+
+
+    @Test
+    public void testGetElementsReturnsCopy()
+    {
+        int[] rows = index.match( "smith", null, monitor );
+        Object[] matched = index.getElements( rows );
+        assertArrayEquals( new Object[]
+            { elements[0], elements[1], elements[3], elements[4] }, matched );
+
+        matched[0] = null;
+        Object[] matchedAgain = index.getElements( rows );
+        assertNotSame( matched, matchedAgain );
+        assertSame( elements[0], matchedAgain[0] );
+    }
+
+
+    private SearchResult createSearchResult( String dn, String... cns )
+    {
+        try
+        {
+            DummyEntry entry = new DummyEntry( new Dn( dn ), connection );
+            Attribute attribute = new Attribute( entry, "cn" );
+            for ( String cn : cns )
+            {
+                attribute.addValue( new Value( attribute, cn ) );
+            }
+            entry.addAttribute( attribute );
+            return new SearchResult( entry, search );
+        }
+        catch ( Exception e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+}
@@ -41,6 +41,7 @@ import org.apache.directory.studio.ldifparser.model.LdifFile;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
 import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -138,15 +139,23 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
             // changeOffset+replacedTextLength, check end of record)
             List<LdifContainer> oldContainerList = new ArrayList<LdifContainer>();
             List<LdifContainer> containers = ldifModel.getContainers();
-            
-            for ( int i = 0; i < containers.size(); i++ )
+
+            // find the first overlapping container by binary search
+            int i = LdifFile.getFirstContainerIndex( containers, changeRegion.getOffset() );
+            boolean changeOffsetAtEOF = false;
+
+            if ( i == containers.size() && i > 0 )
             {
-                LdifContainer ldifContainer = containers.get( i );
+                i--;
+                LdifContainer lastContainer = containers.get( i );
+                changeOffsetAtEOF = changeOffset >= lastContainer.getOffset() + lastContainer.getLength();
+            }
 
-                Region containerRegion = new Region( containers.get( i ).getOffset(), containers.get( i ).getLength() );
+            if ( i < containers.size() )
+            {
+                LdifContainer ldifContainer = containers.get( i );
 
-                boolean changeOffsetAtEOF = i == containers.size() - 1
-                    && changeOffset >= containerRegion.getOffset() + containerRegion.getLength();
+                Region containerRegion = new Region( ldifContainer.getOffset(), ldifContainer.getLength() );
 
                 if ( TextUtilities.overlaps( containerRegion, changeRegion ) || changeOffsetAtEOF )
                 {
@@ -338,8 +347,8 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
         // setup document partitioning
         ldifDocumentSetupParticipant.setup( document );
 
-        // initial parsing of whole document
-        this.ldifModel = this.ldifParser.parse( document.get() );
+        // initial parsing of whole document, large documents are parsed on several cores
+        this.ldifModel = new ParallelLdifParser().parse( document.get() );
 
         // add listener for incremental parsing
         document.addDocumentListener( this );
@@ -0,0 +1,291 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.model;
+
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+
+
+/**
+ * The list of containers of a {@link LdifFile}.
+ * <p>
+ * The containers are stored in blocks. Each block has an offset adjustment that
+ * is not yet applied to its containers, so shifting the offsets of all containers
+ * after an edit only touches the containers of one block and the adjustments of
+ * the following blocks. The pending adjustment of a block is applied when one of
+ * its containers is accessed through this list, so containers retrieved from
+ * this list always have up-to-date offsets.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class LdifContainerList extends AbstractList<LdifContainer> implements RandomAccess, Serializable
+{
+    private static final long serialVersionUID = -2958410447386478417L;
+
+    /** The nominal number of containers per block, blocks are split if they reach twice this size */
+    private static final int BLOCK_SIZE = 128;
+
+    /** The blocks */
+    private final List<Block> blocks = new ArrayList<Block>();
+
+    /** The index of the first container of each block, null if it must be recomputed */
+    private transient int[] blockStarts;
+
+    /** The number of containers */
+    private int size;
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public LdifContainer get( int index )
+    {
+        checkIndex( index, size );
+        int blockIndex = getBlockIndex( index );
+        Block block = blocks.get( blockIndex );
+        block.applyAdjustment();
+
+        return block.containers.get( index - blockStarts[blockIndex] );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public LdifContainer set( int index, LdifContainer container )
+    {
+        checkIndex( index, size );
+        int blockIndex = getBlockIndex( index );
+        Block block = blocks.get( blockIndex );
+        block.applyAdjustment();
+
+        return block.containers.set( index - blockStarts[blockIndex], container );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void add( int index, LdifContainer container )
+    {
+        checkIndex( index, size + 1 );
+
+        Block block;
+        int blockIndex;
+        if ( index == size )
+        {
+            // append to the last block, this doesn't change the start of any block
+            if ( blocks.isEmpty() )
+            {
+                blocks.add( new Block() );
+                blockStarts = null;
+            }
+            blockIndex = blocks.size() - 1;
+            block = blocks.get( blockIndex );
+            block.applyAdjustment();
+            block.containers.add( container );
+        }
+        else
+        {
+            blockIndex = getBlockIndex( index );
+            block = blocks.get( blockIndex );
+            block.applyAdjustment();
+            block.containers.add( index - blockStarts[blockIndex], container );
+            blockStarts = null;
+        }
+
+        if ( block.containers.size() >= 2 * BLOCK_SIZE )
+        {
+            Block newBlock = new Block();
+            List<LdifContainer> tail = block.containers.subList( BLOCK_SIZE, block.containers.size() );
+            newBlock.containers.addAll( tail );
+            tail.clear();
+            blocks.add( blockIndex + 1, newBlock );
+            blockStarts = null;
+        }
+
+        size++;
+        modCount++;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public LdifContainer remove( int index )
+    {
+        checkIndex( index, size );
+        int blockIndex = getBlockIndex( index );
+        Block block = blocks.get( blockIndex );
+        block.applyAdjustment();
+        LdifContainer removed = block.containers.remove( index - blockStarts[blockIndex] );
+
+        if ( block.containers.isEmpty() )
+        {
+            blocks.remove( blockIndex );
+        }
+
+        blockStarts = null;
+        size--;
+        modCount++;
+
+        return removed;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void clear()
+    {
+        blocks.clear();
+        blockStarts = null;
+        size = 0;
+        modCount++;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Adjusts the offsets of all containers starting with the given index. Only
+     * the containers of the block of the given index are adjusted immediately,
+     * the adjustment of the following blocks is deferred until they are accessed.
+     *
+     * @param fromIndex the index of the first container to adjust
+     * @param adjust the adjustment
+     */
+    void adjustOffsets( int fromIndex, int adjust )
+    {
+        if ( adjust == 0 || fromIndex >= size )
+        {
+            return;
+        }
+
+        int blockIndex = getBlockIndex( fromIndex );
+        Block block = blocks.get( blockIndex );
+        block.applyAdjustment();
+
+        for ( int i = fromIndex - blockStarts[blockIndex]; i < block.containers.size(); i++ )
+        {
+            block.containers.get( i ).adjustOffset( adjust );
+        }
+
+        for ( int i = blockIndex + 1; i < blocks.size(); i++ )
+        {
+            blocks.get( i ).adjustment += adjust;
+        }
+    }
+
+
+    private int getBlockIndex( int index )
+    {
+        ensureBlockStarts();
+
+        // find the last block that starts at or before the index
+        int low = 0;
+        int high = blockStarts.length - 1;
+
+        while ( low < high )
+        {
+            int mid = ( low + high + 1 ) >>> 1;
+
+            if ( blockStarts[mid] <= index )
+            {
+                low = mid;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+
+    private void ensureBlockStarts()
+    {
+        if ( blockStarts == null )
+        {
+            blockStarts = new int[blocks.size()];
+            int start = 0;
+
+            for ( int i = 0; i < blocks.size(); i++ )
+            {
+                blockStarts[i] = start;
+                start += blocks.get( i ).containers.size();
+            }
+        }
+    }
+
+
+    private static void checkIndex( int index, int bound )
+    {
+        if ( index < 0 || index >= bound )
+        {
+            throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + bound ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+
+    /**
+     * A block of containers with a pending offset adjustment.
+     */
+    private static class Block implements Serializable
+    {
+        private static final long serialVersionUID = 5040367467335325906L;
+
+        /** The containers of the block */
+        private final List<LdifContainer> containers = new ArrayList<LdifContainer>( 2 * BLOCK_SIZE );
+
+        /** The offset adjustment not yet applied to the containers */
+        private int adjustment;
+
+
+        private void applyAdjustment()
+        {
+            if ( adjustment != 0 )
+            {
+                for ( LdifContainer container : containers )
+                {
+                    container.adjustOffset( adjustment );
+                }
+
+                adjustment = 0;
+            }
+        }
+    }
+
+}
@@ -44,7 +44,7 @@ public class LdifFile implements Serializable
     private static final long serialVersionUID = 846864138240517008L;
 
     /** The list of container constituting this LDIF file */
-    private List<LdifContainer> containerList = new ArrayList<LdifContainer>();
+    private LdifContainerList containerList = new LdifContainerList();
     
     /** A flag which is set if a LdifChange is added into the LdifFile */
     private boolean hasChanges = false;
@@ -194,17 +194,11 @@ public class LdifFile implements Serializable
         }
 
         List<LdifContainer> containers = model.getContainers();
+        int index = getFirstContainerIndex( containers, offset );
 
-        if ( containers.size() > 0 )
+        if ( index < containers.size() && containers.get( index ).getOffset() <= offset )
         {
-            for ( LdifContainer ldifContainer : containers )
-            {
-                if ( ( ldifContainer.getOffset() <= offset ) &&
-                    ( offset < ldifContainer.getOffset() + ldifContainer.getLength() ) )
-                {
-                    return ldifContainer;
-                }
-            }
+            return containers.get( index );
         }
 
         return null;
@@ -252,17 +246,17 @@ public class LdifFile implements Serializable
         List<LdifContainer> containerList = new ArrayList<LdifContainer>();
         List<LdifContainer> containers = model.getContainers();
 
-        if ( containers.size() > 0 )
+        for ( int i = getFirstContainerIndex( containers, offset ); i < containers.size(); i++ )
         {
-            for ( LdifContainer container : containers )
-            {
-                int containerOffset = container.getOffset();
+            LdifContainer container = containers.get( i );
 
-                if ( ( offset < containerOffset + container.getLength() ) &&
-                    ( offset + length > containerOffset ) )
-                {
-                    containerList.add( container );
-                }
+            if ( offset + length > container.getOffset() )
+            {
+                containerList.add( container );
+            }
+            else
+            {
+                break;
             }
         }
 
@@ -284,6 +278,14 @@ public class LdifFile implements Serializable
     }
 
 
+    /**
+     * Gets the parts within the given range.
+     *
+     * @param containers the containers, sorted by offset and not overlapping
+     * @param offset the offset of the range
+     * @param length the length of the range
+     * @return the parts within the range
+     */
     public static LdifPart[] getParts( List<LdifContainer> containers, int offset, int length )
     {
         if ( ( containers == null ) || ( offset < 0 ) )
@@ -293,12 +295,16 @@ public class LdifFile implements Serializable
 
         List<LdifPart> partList = new ArrayList<LdifPart>();
 
-        for ( LdifContainer ldifContainer : containers )
+        for ( int i = getFirstContainerIndex( containers, offset ); i < containers.size(); i++ )
         {
+            LdifContainer ldifContainer = containers.get( i );
             int ldifContainerOffset = ldifContainer.getOffset();
 
-            if ( ( offset < ldifContainerOffset + ldifContainer.getLength() )
-                && ( offset + length >= ldifContainerOffset ) )
+            if ( offset + length < ldifContainerOffset )
+            {
+                break;
+            }
+            else
             {
                 LdifPart[] ldifParts = ldifContainer.getParts();
                 LdifPart previousLdifPart = null;
@@ -381,7 +387,12 @@ public class LdifFile implements Serializable
 
         if ( oldContainers.length > 0 )
         {
-            index = containerList.indexOf( oldContainers[0] );
+            index = getFirstContainerIndex( containerList, oldContainers[0].getOffset() );
+
+            if ( index >= containerList.size() || containerList.get( index ) != oldContainers[0] )
+            {
+                index = containerList.indexOf( oldContainers[0] );
+            }
         }
 
         // remove old containers
@@ -394,9 +405,10 @@ public class LdifFile implements Serializable
 
             for ( int i = 0; i < oldContainers.length; i++ )
             {
-                containerList.remove( index );
                 removeLength += oldContainers[i].getLength();
             }
+
+            containerList.subList( index, index + oldContainers.length ).clear();
         }
 
         // add new containers
@@ -413,11 +425,40 @@ public class LdifFile implements Serializable
 
         // adjust offset of following containers
         int adjust = insertLength - removeLength;
+        containerList.adjustOffsets( index + newContainers.size(), adjust );
+    }
+
+
+    /**
+     * Gets the index of the first container that ends after the given offset
+     * using binary search. The containers must be sorted by offset and must
+     * not overlap, this is the case for the containers of a LdifFile.
+     *
+     * @param containers the containers
+     * @param offset the offset
+     * @return the index of the first container that ends after the given offset,
+     *         the number of containers if no container ends after the offset
+     */
+    public static int getFirstContainerIndex( List<LdifContainer> containers, int offset )
+    {
+        int low = 0;
+        int high = containers.size();
 
-        for ( int i = index + newContainers.size(); i < containerList.size(); i++ )
+        while ( low < high )
         {
-            LdifContainer container = containerList.get( i );
-            container.adjustOffset( adjust );
+            int mid = ( low + high ) >>> 1;
+            LdifContainer container = containers.get( mid );
+
+            if ( container.getOffset() + container.getLength() <= offset )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
         }
+
+        return low;
     }
 }
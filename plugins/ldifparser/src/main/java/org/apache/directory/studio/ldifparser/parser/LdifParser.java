@@ -103,7 +103,39 @@ public class LdifParser
     }
 
 
+    /**
+     * Parses LDIF from the given reader. The containers are parsed on demand
+     * when requested from the returned enumeration, their offsets are relative
+     * to the beginning of the input.
+     *
+     * @param ldifReader the reader
+     * @return the enumeration of the parsed containers
+     */
     public LdifEnumeration parse( Reader ldifReader )
+    {
+        return parse( ldifReader, false );
+    }
+
+
+    /**
+     * Parses LDIF from the given reader in streaming mode, to be used to process
+     * inputs of arbitrary size, e.g. for import. Like with {@link #parse(Reader)}
+     * the containers are parsed on demand, additionally the parser doesn't retain
+     * any input or state of already returned containers. Therefore the offsets of
+     * the containers are not relative to the beginning of the input but to the
+     * position where the parser resumed parsing, they must not be used to locate
+     * the containers within the input.
+     *
+     * @param ldifReader the reader
+     * @return the enumeration of the parsed containers
+     */
+    public LdifEnumeration parseStream( Reader ldifReader )
+    {
+        return parse( ldifReader, true );
+    }
+
+
+    private LdifEnumeration parse( Reader ldifReader, final boolean streaming )
     {
         scanner.setLdif( ldifReader );
 
@@ -123,6 +155,12 @@ public class LdifParser
             {
                 if ( containerList.isEmpty() )
                 {
+                    if ( streaming )
+                    {
+                        // restart offsets to avoid int overflows on huge inputs
+                        scanner.resetOffset();
+                    }
+
                     LdifFile model = new LdifFile();
 
                     // parse header
@@ -131,13 +131,24 @@ import java.io.Reader;
 public class LdifScanner
 {
 
+    /** The initial size of the character window */
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
     private Reader ldifReader;
 
-    private char[] buffer = new char[256];
+    /**
+     * The sliding character window. It contains the characters between bufferStart
+     * (inclusive) and bufferEnd (exclusive), the character at bufferStart has the
+     * absolute position bufferOffset. Consumed characters are discarded by
+     * flushBuffer(), the window is compacted or grown when it runs full.
+     */
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+
+    private int bufferStart;
 
-    private StringBuffer ldifBuffer;
+    private int bufferEnd;
 
-    private int ldifBufferOffset;
+    private int bufferOffset;
 
     private int pos;
 
@@ -154,53 +165,86 @@ public class LdifScanner
         this.ldifReader = ldifReader;
         this.pos = -1;
 
-        this.ldifBuffer = new StringBuffer();
-        this.ldifBufferOffset = 0;
+        if ( this.buffer.length > INITIAL_BUFFER_SIZE )
+        {
+            this.buffer = new char[INITIAL_BUFFER_SIZE];
+        }
+        this.bufferStart = 0;
+        this.bufferEnd = 0;
+        this.bufferOffset = 0;
     }
 
 
     char currentChar() throws EOFException
     {
-
         // check and fill buffer
-        try
+        while ( bufferOffset + bufferEnd - bufferStart <= pos )
         {
-            int num = 0;
-            while ( ldifBufferOffset + ldifBuffer.length() <= pos && num > -1 )
+            if ( !fillBuffer() )
             {
-                num = this.ldifReader.read( buffer );
-                if ( num > -1 )
-                {
-                    ldifBuffer.append( buffer, 0, num );
-                }
+                break;
             }
         }
-        catch ( IOException e )
+
+        if ( bufferOffset <= pos && pos < bufferOffset + bufferEnd - bufferStart )
+        {
+            return buffer[bufferStart + pos - bufferOffset];
+        }
+        else
         {
+            throw new EOFException();
         }
+    }
 
-        if ( 0 <= pos && pos < ldifBufferOffset + ldifBuffer.length() )
+
+    /**
+     * Reads the next chunk from the reader into the character window. Discarded
+     * characters at the beginning of the window are reused before the window
+     * is grown.
+     *
+     * @return true if characters were read, false on end of input
+     */
+    private boolean fillBuffer()
+    {
+        if ( bufferEnd == buffer.length )
         {
-            try
+            int length = bufferEnd - bufferStart;
+            if ( bufferStart > 0 )
             {
-                return ldifBuffer.charAt( pos - ldifBufferOffset );
+                System.arraycopy( buffer, bufferStart, buffer, 0, length );
             }
-            catch ( RuntimeException e )
+            else
             {
-                e.printStackTrace();
-                throw e;
+                char[] newBuffer = new char[buffer.length * 2];
+                System.arraycopy( buffer, 0, newBuffer, 0, length );
+                buffer = newBuffer;
             }
+            bufferStart = 0;
+            bufferEnd = length;
         }
-        else
+
+        try
+        {
+            int num = 0;
+            while ( num == 0 )
+            {
+                num = ldifReader.read( buffer, bufferEnd, buffer.length - bufferEnd );
+            }
+            if ( num > 0 )
+            {
+                bufferEnd += num;
+                return true;
+            }
+        }
+        catch ( IOException e )
         {
-            throw new EOFException();
         }
 
-        // return 0<=pos&&pos<ldif.length() ? ldif.charAt(pos) : '\u0000';
+        return false;
     }
 
 
-    void addFolding( StringBuffer sb )
+    void addFolding( StringBuilder sb )
     {
 
         int oldPos = pos;
@@ -211,7 +255,7 @@ public class LdifScanner
             char c = currentChar();
             if ( c == '\n' || c == '\r' )
             {
-                StringBuffer temp = new StringBuffer( 3 );
+                StringBuilder temp = new StringBuilder( 3 );
                 temp.append( c );
                 if ( c == '\r' )
                 {
@@ -273,18 +317,18 @@ public class LdifScanner
 
     /**
      * Reads the next character from input stram if available. If read was
-     * possible the character is appended to the given StringBuffer and
+     * possible the character is appended to the given StringBuilder and
      * returned. Otherwise throws a EOFException. Additionally this method
      * checks folding sequence SEP + SPACE. If any folding sequence was
-     * found the sequence is appended to the given StringBuffer. So it is
-     * possible the StringBuffer doesn't end with the read character after
+     * found the sequence is appended to the given StringBuilder. So it is
+     * possible the StringBuilder doesn't end with the read character after
      * calling this method but with a folding sequence
      * 
      * @param sb
      * @return the next character if available
      * @throws EOFException
      */
-    public char read( StringBuffer sb ) throws EOFException
+    public char read( StringBuilder sb ) throws EOFException
     {
         try
         {
@@ -312,7 +356,7 @@ public class LdifScanner
     }
 
 
-    void removeFolding( StringBuffer sb )
+    void removeFolding( StringBuilder sb )
     {
 
         int oldPos = pos;
@@ -323,7 +367,7 @@ public class LdifScanner
             pos--;
             if ( c == ' ' )
             {
-                StringBuffer temp = new StringBuffer();
+                StringBuilder temp = new StringBuilder();
                 temp.insert( 0, c );
                 c = currentChar();
                 pos--;
@@ -386,7 +430,7 @@ public class LdifScanner
      * @param sb
      * @throws EOFException
      */
-    public void unread( StringBuffer sb )
+    public void unread( StringBuilder sb )
     {
         removeFolding( sb );
 
@@ -420,7 +464,7 @@ public class LdifScanner
     private String getContent( boolean allowEmptyContent )
     {
 
-        StringBuffer sb = new StringBuffer( 256 );
+        StringBuilder sb = new StringBuilder( 256 );
 
         try
         {
@@ -442,7 +486,7 @@ public class LdifScanner
 
     private String getWord( String word )
     {
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
 
         // read
         try
@@ -487,7 +531,7 @@ public class LdifScanner
         String line = getWord( wordWithColon );
         if ( line != null )
         {
-            StringBuffer sb = new StringBuffer( line );
+            StringBuilder sb = new StringBuilder( line );
             unread( sb );
             return sb.toString();
         }
@@ -496,7 +540,7 @@ public class LdifScanner
         line = getWord( word );
         if ( line != null )
         {
-            StringBuffer sb = new StringBuffer( line );
+            StringBuilder sb = new StringBuilder( line );
             try
             {
                 char c = read( sb );
@@ -526,16 +570,40 @@ public class LdifScanner
 
     private void flushBuffer()
     {
-        if ( this.ldifBufferOffset < this.pos && this.ldifBuffer.length() > 0 )
+        // discard consumed characters, keep the previous character for unread()
+        int delta = Math.min( pos - bufferOffset, bufferEnd - bufferStart ) - 1;
+        if ( delta > 0 )
         {
-            int delta = Math.min( pos - this.ldifBufferOffset, this.ldifBuffer.length() );
-            delta--;
-            this.ldifBuffer.delete( 0, delta );
-            this.ldifBufferOffset += delta;
+            bufferStart += delta;
+            bufferOffset += delta;
         }
     }
 
 
+    /**
+     * Discards the consumed characters and restarts counting positions close
+     * to 0. Also gives back memory if the character window was grown for a
+     * very long line.
+     */
+    void resetOffset()
+    {
+        flushBuffer();
+
+        int length = bufferEnd - bufferStart;
+        if ( buffer.length > INITIAL_BUFFER_SIZE && length <= INITIAL_BUFFER_SIZE / 2 )
+        {
+            char[] newBuffer = new char[INITIAL_BUFFER_SIZE];
+            System.arraycopy( buffer, bufferStart, newBuffer, 0, length );
+            buffer = newBuffer;
+            bufferStart = 0;
+            bufferEnd = length;
+        }
+
+        pos -= bufferOffset;
+        bufferOffset = 0;
+    }
+
+
     public LdifToken matchCleanupLine()
     {
         this.flushBuffer();
@@ -579,7 +647,7 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        StringBuffer sb = new StringBuffer( 1 );
+        StringBuilder sb = new StringBuilder( 1 );
         try
         {
             read( sb );
@@ -600,7 +668,7 @@ public class LdifScanner
 
         try
         {
-            StringBuffer sb = new StringBuffer();
+            StringBuilder sb = new StringBuilder();
             char c = read( sb );
             if ( c == '\n' || c == '\r' )
             {
@@ -752,7 +820,7 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
 
         String s = getWord( " " ); //$NON-NLS-1$
         while ( s != null )
@@ -793,7 +861,7 @@ public class LdifScanner
 
         try
         {
-            StringBuffer sb = new StringBuffer();
+            StringBuilder sb = new StringBuilder();
             char c = read( sb );
             if ( '0' <= c && c <= '9' )
             {
@@ -831,7 +899,7 @@ public class LdifScanner
 
         try
         {
-            StringBuffer sb = new StringBuffer();
+            StringBuilder sb = new StringBuilder();
             char c = read( sb );
             if ( '0' <= c && c <= '9' )
             {
@@ -869,7 +937,7 @@ public class LdifScanner
 
         try
         {
-            StringBuffer sb = new StringBuffer();
+            StringBuilder sb = new StringBuilder();
             char c = read( sb );
             if ( 'a' <= c && c <= 'z' || 'A' <= c && c <= 'Z' || '0' <= c && c <= '9' )
             {
@@ -899,7 +967,7 @@ public class LdifScanner
         }
 
         // // a-z,A-Z,0-9,.,-,;
-        // StringBuffer sb = new StringBuffer();
+        // StringBuilder sb = new StringBuilder();
         // char c = nextChar(sb);
         // if('a'<=c&&c<='z' || 'A'<=c&&c<='Z' || '0'<=c&&c<='9') {
         // while('a'<=c&&c<='z' || 'A'<=c&&c<='Z' || '0'<=c&&c<='9' || c=='.' ||
@@ -969,7 +1037,7 @@ public class LdifScanner
 
         try
         {
-            StringBuffer sb = new StringBuffer();
+            StringBuilder sb = new StringBuilder();
             char c = read( sb );
             if ( c == ':' )
             {
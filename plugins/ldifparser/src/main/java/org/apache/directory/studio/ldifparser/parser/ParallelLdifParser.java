@@ -0,0 +1,339 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+
+
+/**
+ * Parses large LDIF inputs on several cores.
+ * <p>
+ * The input is split into chunks at record boundaries, i.e. after an empty
+ * line that is followed by the start of a new line. The chunks are parsed
+ * by {@link LdifParser}s on the common {@link ForkJoinPool}, the containers
+ * are returned in the original order and their offsets are adjusted to be
+ * relative to the beginning of the input. Inputs smaller than one chunk
+ * are parsed by a single parser.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ParallelLdifParser
+{
+
+    /** The default chunk size, in characters or bytes */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /** The size of the windows mapped to search for record boundaries */
+    private static final int SEARCH_WINDOW_SIZE = 64 * 1024;
+
+    private final int chunkSize;
+
+    private final ForkJoinPool pool;
+
+
+    /**
+     * Creates a new instance of ParallelLdifParser with the default chunk size
+     * that uses the common pool.
+     */
+    public ParallelLdifParser()
+    {
+        this( DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool() );
+    }
+
+
+    /**
+     * Creates a new instance of ParallelLdifParser.
+     *
+     * @param chunkSize the minimum size of a chunk, in characters or bytes
+     * @param pool the pool to parse the chunks
+     */
+    public ParallelLdifParser( int chunkSize, ForkJoinPool pool )
+    {
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+
+    /**
+     * Parses the given LDIF. The result is the same as with {@link LdifParser#parse(String)}.
+     *
+     * @param ldif the LDIF to parse
+     * @return the resulting LdifFile
+     */
+    public LdifFile parse( final String ldif )
+    {
+        if ( ldif == null || ldif.length() <= chunkSize )
+        {
+            return new LdifParser().parse( ldif );
+        }
+
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<ForkJoinTask<Chunk>>();
+        int start = 0;
+        while ( start < ldif.length() )
+        {
+            final int chunkStart = start;
+            final int chunkEnd = findChunkEnd( ldif, start );
+            tasks.add( pool.submit( () -> parseChunk( ldif.substring( chunkStart, chunkEnd ) ) ) );
+            start = chunkEnd;
+        }
+
+        LdifFile model = new LdifFile();
+        int offset = 0;
+        for ( ForkJoinTask<Chunk> task : tasks )
+        {
+            Chunk chunk = task.join();
+            for ( LdifContainer container : chunk.containers )
+            {
+                container.adjustOffset( offset );
+                model.addContainer( container );
+            }
+            offset += chunk.length;
+        }
+
+        return model;
+    }
+
+
+    /**
+     * Parses the LDIF of the given file channel, the file is memory-mapped chunk
+     * by chunk. The chunks are parsed ahead of the returned enumeration, the
+     * number of parsed chunks not yet returned is limited by the parallelism of
+     * the pool. The caller must close the channel after the enumeration was
+     * processed.
+     * <p>
+     * If the remaining file isn't larger than the chunk size, or if the charset
+     * isn't ASCII compatible, so that record boundaries can't be found on bytes,
+     * the file is parsed sequentially like {@link LdifParser#parseStream(java.io.Reader)}.
+     * For inputs of more than 2^31 characters the offsets of the containers overflow.
+     *
+     * @param channel the file channel
+     * @param charset the charset of the file
+     * @return the enumeration of the parsed containers
+     * @throws IOException if the size of the file can't be determined
+     */
+    public LdifEnumeration parse( final FileChannel channel, final Charset charset ) throws IOException
+    {
+        final long size = channel.size();
+        if ( size - channel.position() <= chunkSize || !Arrays.equals( "\n\r ".getBytes( charset ), new byte[]
+            { '\n', '\r', ' ' } ) )
+        {
+            return new LdifParser().parseStream( Channels.newReader( channel, charset.newDecoder(), -1 ) );
+        }
+
+        final int maxPending = pool.getParallelism() + 1;
+
+        return new LdifEnumeration()
+        {
+            private Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<ForkJoinTask<Chunk>>();
+
+            private Deque<LdifContainer> containerList = new ArrayDeque<LdifContainer>();
+
+            private long nextChunkStart = channel.position();
+
+            private int offset = 0;
+
+
+            public boolean hasNext() throws LdapException
+            {
+                while ( containerList.isEmpty() )
+                {
+                    try
+                    {
+                        while ( pending.size() < maxPending && nextChunkStart < size )
+                        {
+                            final long chunkStart = nextChunkStart;
+                            final long chunkEnd = findChunkEnd( channel, chunkStart, size );
+                            pending.add( pool.submit( () -> parseChunk( charset.decode(
+                                channel.map( FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart ) )
+                                .toString() ) ) );
+                            nextChunkStart = chunkEnd;
+                        }
+
+                        if ( pending.isEmpty() )
+                        {
+                            return false;
+                        }
+
+                        Chunk chunk = pending.poll().get();
+                        for ( LdifContainer container : chunk.containers )
+                        {
+                            container.adjustOffset( offset );
+                        }
+                        containerList.addAll( chunk.containers );
+                        offset += chunk.length;
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                        cancel();
+                        throw new LdapException( e.getMessage(), e );
+                    }
+                    catch ( ExecutionException e )
+                    {
+                        cancel();
+                        throw new LdapException( e.getCause().getMessage(), e.getCause() );
+                    }
+                    catch ( IOException e )
+                    {
+                        cancel();
+                        throw new LdapException( e.getMessage(), e );
+                    }
+                }
+
+                return true;
+            }
+
+
+            public LdifContainer next() throws LdapException
+            {
+                if ( hasNext() )
+                {
+                    return containerList.poll();
+                }
+                else
+                {
+                    return null;
+                }
+            }
+
+
+            private void cancel()
+            {
+                for ( ForkJoinTask<Chunk> task : pending )
+                {
+                    task.cancel( true );
+                }
+                pending.clear();
+                nextChunkStart = size;
+            }
+        };
+    }
+
+
+    private static Chunk parseChunk( String ldif )
+    {
+        LdifFile model = new LdifParser().parse( ldif );
+        return new Chunk( model.getContainers(), ldif.length() );
+    }
+
+
+    /**
+     * Finds the end of the chunk that starts at the given position.
+     *
+     * @param ldif the LDIF
+     * @param start the start of the chunk
+     * @return the end of the chunk, exclusive
+     */
+    private int findChunkEnd( String ldif, int start )
+    {
+        for ( int pos = start + chunkSize; pos < ldif.length(); pos++ )
+        {
+            if ( isRecordBoundary( ldif.charAt( pos - 3 ), ldif.charAt( pos - 2 ), ldif.charAt( pos - 1 ),
+                ldif.charAt( pos ) ) )
+            {
+                return pos;
+            }
+        }
+
+        return ldif.length();
+    }
+
+
+    /**
+     * Finds the end of the chunk that starts at the given position.
+     *
+     * @param channel the file channel
+     * @param start the start of the chunk
+     * @param size the size of the file
+     * @return the end of the chunk, exclusive
+     * @throws IOException if the file can't be mapped
+     */
+    private long findChunkEnd( FileChannel channel, long start, long size ) throws IOException
+    {
+        long from = start + chunkSize;
+        while ( from < size )
+        {
+            // map the three preceding bytes too
+            long windowEnd = Math.min( size, from + SEARCH_WINDOW_SIZE );
+            ByteBuffer window = channel.map( FileChannel.MapMode.READ_ONLY, from - 3, windowEnd - from + 3 );
+            for ( int i = 3; i < window.limit(); i++ )
+            {
+                if ( isRecordBoundary( ( char ) window.get( i - 3 ), ( char ) window.get( i - 2 ),
+                    ( char ) window.get( i - 1 ), ( char ) window.get( i ) ) )
+                {
+                    return from - 3 + i;
+                }
+            }
+            from = windowEnd;
+        }
+
+        return size;
+    }
+
+
+    /**
+     * Checks if a record boundary is between c1 and c, i.e. if c1 is the
+     * end of an empty line and c starts a new line that is neither an
+     * empty line nor a folded line.
+     */
+    private static boolean isRecordBoundary( char c3, char c2, char c1, char c )
+    {
+        boolean emptyLine = c1 == '\n' && ( c2 == '\n' || ( c2 == '\r' && c3 == '\n' ) );
+        return emptyLine && c != ' ' && c != '\n' && c != '\r';
+    }
+
+
+    /**
+     * The containers of a parsed chunk.
+     */
+    private static class Chunk
+    {
+        private final List<LdifContainer> containers;
+
+        private final int length;
+
+
+        private Chunk( List<LdifContainer> containers, int length )
+        {
+            this.containers = containers;
+            this.length = length;
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.model;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class LdifFileTest
+{
+
+    private String ldif;
+
+    private LdifFile model;
+
+
+    @BeforeEach
+    public void setup()
+    {
+        ldif = ""
+            + "version: 1\n"
+            + "# comment\n"
+            + "dn: cn=foo,ou=users,ou=system\n"
+            + "cn: foo\n"
+            + "\n"
+            + "\n"
+            + "invalid\n"
+            + "dn: cn=bar,ou=users,ou=system\n"
+            + "changetype: modify\n"
+            + "replace: cn\n"
+            + "cn: bar\n"
+            + "-\n"
+            + "\n"
+            + "dn: cn=baz,ou=users,ou=system\n"
+            + "changetype: delete\n";
+        model = new LdifParser().parse( ldif );
+    }
+
+
+    @Test
+    public void testGetContainer()
+    {
+        for ( int offset = 0; offset <= ldif.length() + 1; offset++ )
+        {
+            assertSame( getContainerLinear( offset ), LdifFile.getContainer( model, offset ) );
+        }
+
+        assertNull( LdifFile.getContainer( model, -1 ) );
+        assertNull( LdifFile.getContainer( new LdifFile(), 0 ) );
+    }
+
+
+    @Test
+    public void testGetContainers()
+    {
+        for ( int offset = 0; offset <= ldif.length() + 1; offset++ )
+        {
+            for ( int length = 0; length < 40; length++ )
+            {
+                assertArrayEquals( getContainersLinear( offset, length ),
+                    LdifFile.getContainers( model, offset, length ) );
+            }
+        }
+    }
+
+
+    @Test
+    public void testGetContainerAfterReplace()
+    {
+        // replace the second record by two records
+        LdifContainer[] oldContainers = LdifFile.getContainers( model, ldif.indexOf( "dn: cn=bar" ), 1 );
+        String newLdif = ""
+            + "dn: cn=bar1,ou=users,ou=system\n"
+            + "changetype: delete\n"
+            + "\n"
+            + "dn: cn=bar2,ou=users,ou=system\n"
+            + "changetype: delete\n"
+            + "\n";
+        model.replace( oldContainers, new LdifParser().parse( newLdif ).getContainers() );
+        ldif = model.toRawString();
+
+        assertEquals( ldif.indexOf( "dn: cn=bar2" ),
+            LdifFile.getContainer( model, ldif.indexOf( "dn: cn=bar2" ) ).getOffset() );
+        for ( int offset = 0; offset <= ldif.length() + 1; offset++ )
+        {
+            assertSame( getContainerLinear( offset ), LdifFile.getContainer( model, offset ) );
+        }
+    }
+
+
+    @Test
+    public void testReplayKeystrokes()
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 5000; i++ )
+        {
+            sb.append( "dn: cn=user" ).append( i ).append( ",ou=users,ou=system\n" );
+            sb.append( "cn: user" ).append( i ).append( "\n" );
+            sb.append( "description: foo\n" );
+            sb.append( "\n" );
+        }
+        StringBuilder document = new StringBuilder( sb );
+        model = new LdifParser().parse( document.toString() );
+
+        // type and delete characters at random positions, reparse the affected records only
+        Random random = new Random( 42 );
+        for ( int i = 0; i < 2000; i++ )
+        {
+            int offset = random.nextInt( document.length() );
+            int oldLength = 0;
+            String text = "";
+            if ( random.nextBoolean() )
+            {
+                text = random.nextBoolean() ? "x" : "\n";
+            }
+            else
+            {
+                oldLength = 1;
+            }
+            document.replace( offset, offset + oldLength, text );
+
+            LdifContainer[] oldContainers = LdifFile.getContainers( model, Math.max( 0, offset - 1 ),
+                oldLength + 2 );
+            int start = oldContainers.length > 0 ? oldContainers[0].getOffset() : 0;
+            int end = oldContainers.length > 0 ? oldContainers[oldContainers.length - 1].getOffset()
+                + oldContainers[oldContainers.length - 1].getLength() : 0;
+            String textToParse = document.substring( start, end - oldLength + text.length() );
+            model.replace( oldContainers, new LdifParser().parse( textToParse ).getContainers() );
+        }
+
+        assertEquals( document.toString(), model.toRawString() );
+        int offset = 0;
+        for ( LdifContainer container : model.getContainers() )
+        {
+            assertEquals( offset, container.getOffset() );
+            offset += container.getLength();
+        }
+        assertEquals( document.length(), offset );
+    }
+
+
+    private LdifContainer getContainerLinear( int offset )
+    {
+        for ( LdifContainer container : model.getContainers() )
+        {
+            if ( container.getOffset() <= offset && offset < container.getOffset() + container.getLength() )
+            {
+                return container;
+            }
+        }
+
+        return null;
+    }
+
+
+    private LdifContainer[] getContainersLinear( int offset, int length )
+    {
+        List<LdifContainer> containers = new ArrayList<LdifContainer>();
+
+        for ( LdifContainer container : model.getContainers() )
+        {
+            if ( offset < container.getOffset() + container.getLength() && offset + length > container.getOffset() )
+            {
+                containers.add( container );
+            }
+        }
+
+        return containers.toArray( new LdifContainer[containers.size()] );
+    }
+
+}
@@ -22,9 +22,16 @@ package org.apache.directory.studio.ldifparser.parser;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 
 import org.junit.jupiter.api.Test;
 
@@ -87,4 +94,123 @@ public class LdifParserTest
         assertEquals( ldif, formatted );
     }
 
+
+
+    @Test
+    public void testParseLargeLdif()
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            sb.append( "dn: cn=user" ).append( i ).append( ",ou=users,ou=system\n" );
+            sb.append( "cn: user" ).append( i ).append( "\n" );
+            sb.append( "description: 12345678901234567890123456789012345678901234567890123456789012345\n" );
+            sb.append( " 678901234567890\n" );
+            sb.append( "\n" );
+        }
+        String ldif = sb.toString();
+
+        LdifParser parser = new LdifParser();
+        LdifFile model = parser.parse( ldif );
+
+        assertEquals( 1000, model.getRecords().length );
+        assertEquals( ldif, model.toRawString() );
+    }
+
+
+    @Test
+    public void testParseLineLongerThanBuffer()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "dn: cn=foo,ou=users,ou=system\n" );
+        sb.append( "cn: foo\n" );
+        sb.append( "description: " );
+        for ( int i = 0; i < 2000; i++ )
+        {
+            sb.append( "1234567890123456789012345678901234567890123456789012345678901234567890\n " );
+        }
+        sb.append( "end\n" );
+        String ldif = sb.toString();
+
+        LdifParser parser = new LdifParser();
+        LdifFile model = parser.parse( ldif );
+
+        assertEquals( 1, model.getRecords().length );
+        assertEquals( ldif, model.toRawString() );
+    }
+
+
+    @Test
+    public void testParseFromSingleCharReader() throws Exception
+    {
+        String ldif = ""
+            + "version: 1\r\n"
+            + "dn: cn=foo,ou=users,ou=system\r\n"
+            + "cn: foo\r\n"
+            + "description: 12345678901234567890123456789012345678901234567890123456789012345\r\n"
+            + " 678901234567890\r\n"
+            + "\r\n"
+            + "dn: cn=bar,ou=users,ou=system\r\n"
+            + "changetype: delete\r\n";
+
+        // a reader that returns one character per read to test all window boundaries
+        Reader reader = new StringReader( ldif )
+        {
+            @Override
+            public int read( char[] cbuf, int off, int len ) throws IOException
+            {
+                return super.read( cbuf, off, Math.min( len, 1 ) );
+            }
+        };
+
+        LdifParser parser = new LdifParser();
+        LdifEnumeration enumeration = parser.parse( reader );
+        LdifFile model = new LdifFile();
+        while ( enumeration.hasNext() )
+        {
+            LdifContainer container = enumeration.next();
+            model.addContainer( container );
+        }
+
+        assertEquals( 2, model.getRecords().length );
+        assertEquals( ldif, model.toRawString() );
+    }
+
+
+
+    @Test
+    public void testParseStream() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "version: 1\n" );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            sb.append( "dn: cn=user" ).append( i ).append( ",ou=users,ou=system\n" );
+            sb.append( "changetype: modify\n" );
+            sb.append( "replace: description\n" );
+            sb.append( "description: 12345678901234567890123456789012345678901234567890123456789012345\n" );
+            sb.append( " 678901234567890\n" );
+            sb.append( "-\n" );
+            sb.append( "\n" );
+        }
+        String ldif = sb.toString();
+
+        LdifParser parser = new LdifParser();
+        LdifEnumeration enumeration = parser.parseStream( new StringReader( ldif ) );
+        StringBuilder raw = new StringBuilder();
+        int count = 0;
+        while ( enumeration.hasNext() )
+        {
+            LdifContainer container = enumeration.next();
+            raw.append( container.toRawString() );
+            count++;
+
+            // offsets are restarted for each parsed chunk
+            assertTrue( container.getOffset() < 1000 );
+        }
+
+        assertEquals( 1001, count );
+        assertEquals( ldif, raw.toString() );
+    }
+
 }
@@ -0,0 +1,147 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+public class ParallelLdifParserTest
+{
+
+    private static ForkJoinPool pool;
+
+    private static String ldif;
+
+    @TempDir
+    File tempDir;
+
+
+    @BeforeAll
+    public static void setup()
+    {
+        pool = new ForkJoinPool( 4 );
+
+        StringBuilder sb = new StringBuilder();
+        sb.append( "version: 1\r\n" );
+        sb.append( "# comment\r\n" );
+        for ( int i = 0; i < 100; i++ )
+        {
+            sb.append( "dn: cn=\u00e4user" ).append( i ).append( ",ou=users,ou=system\r\n" );
+            sb.append( "cn: user" ).append( i ).append( "\r\n" );
+            sb.append( "description: 12345678901234567890123456789012345678901234567890123456789012345\r\n" );
+            sb.append( " 678901234567890\r\n" );
+            sb.append( "\r\n" );
+            if ( i % 10 == 0 )
+            {
+                sb.append( "\r\n" );
+                sb.append( "dn: cn=user" ).append( i ).append( ",ou=users,ou=system\n" );
+                sb.append( "changetype: modify\n" );
+                sb.append( "replace: description\n" );
+                sb.append( "description: foo\n" );
+                sb.append( "-\n" );
+                sb.append( "\n" );
+                sb.append( "# comment\n" );
+                sb.append( "invalid\n" );
+                sb.append( "\n" );
+            }
+        }
+        ldif = sb.toString();
+    }
+
+
+    @AfterAll
+    public static void tearDown()
+    {
+        pool.shutdown();
+    }
+
+
+    @Test
+    public void testParseString()
+    {
+        List<LdifContainer> expected = new LdifParser().parse( ldif ).getContainers();
+
+        for ( int chunkSize : new int[]
+            { 3, 100, 1000, ldif.length() } )
+        {
+            LdifFile model = new ParallelLdifParser( chunkSize, pool ).parse( ldif );
+            assertContainersEqual( expected, model.getContainers() );
+        }
+    }
+
+
+    @Test
+    public void testParseFile() throws Exception
+    {
+        File file = new File( tempDir, "test.ldif" );
+        Files.write( file.toPath(), ldif.getBytes( StandardCharsets.UTF_8 ) );
+        List<LdifContainer> expected = new LdifParser().parse( ldif ).getContainers();
+
+        // files not larger than the chunk size are parsed sequentially
+        for ( int chunkSize : new int[]
+            { 3, 100, 1000, ldif.length(), ldif.length() * 2 } )
+        {
+            List<LdifContainer> containers = new ArrayList<LdifContainer>();
+            try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+            {
+                LdifEnumeration enumeration = new ParallelLdifParser( chunkSize, pool ).parse( channel,
+                    StandardCharsets.UTF_8 );
+                while ( enumeration.hasNext() )
+                {
+                    containers.add( enumeration.next() );
+                }
+            }
+            assertContainersEqual( expected, containers );
+        }
+    }
+
+
+    private static void assertContainersEqual( List<LdifContainer> expected, List<LdifContainer> actual )
+    {
+        assertEquals( expected.size(), actual.size() );
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            assertEquals( expected.get( i ).getClass(), actual.get( i ).getClass() );
+            assertEquals( expected.get( i ).getOffset(), actual.get( i ).getOffset() );
+            assertEquals( expected.get( i ).getLength(), actual.get( i ).getLength() );
+            assertEquals( expected.get( i ).toRawString(), actual.get( i ).toRawString() );
+        }
+    }
+
+}
@@ -43,7 +43,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
 import java.net.ConnectException;
+import java.nio.file.Files;
 import java.nio.channels.UnresolvedAddressException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -87,6 +89,7 @@ import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.exception.LdapLoopDetectedException;
 import org.apache.directory.api.ldap.model.message.ExtendedResponse;
 import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.util.Strings;
 import org.apache.directory.ldap.client.api.exception.InvalidConnectionException;
@@ -105,9 +108,14 @@ import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry
 import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.connection.core.io.api.DirectoryApiConnectionWrapper;
+import org.apache.directory.studio.connection.core.io.api.StudioOperationFuture;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExportLdifRunnable;
 import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeRootDSERunnable;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.BrowserConnection;
 import org.apache.directory.studio.test.integration.junit5.LdapServerType;
 import org.apache.directory.studio.test.integration.junit5.LdapServersSource;
@@ -118,6 +126,7 @@ import org.apache.directory.studio.test.integration.junit5.TestFixture;
 import org.apache.directory.studio.test.integration.junit5.TestLdapServer;
 import org.apache.mina.util.AvailablePortFinder;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Preferences;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -1245,6 +1254,73 @@ public class DirectoryApiConnectionWrapperTest
     }
 
 
+    @ParameterizedTest
+    @LdapServersSource
+    public void testAddAsync( TestLdapServer ldapServer ) throws Exception
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        ConnectionWrapper connectionWrapper = getConnectionWrapper( monitor, ldapServer );
+
+        // send several add requests before waiting for the responses
+        List<StudioOperationFuture> futures = new ArrayList<>();
+        for ( int i = 1; i <= 10; i++ )
+        {
+            Entry entry = new DefaultEntry( "uid=user.X" + i + "," + USERS_DN, "objectClass: inetOrgPerson",
+                "sn: X", "cn: X", "uid: user.X" + i );
+            futures.add( connectionWrapper.createEntryAsync( entry, null, monitor ) );
+        }
+
+        // should have created the entries
+        for ( StudioOperationFuture future : futures )
+        {
+            assertNull( future.get() );
+        }
+        assertFalse( monitor.isCanceled() );
+        assertFalse( monitor.errorsReported() );
+        for ( int i = 1; i <= 10; i++ )
+        {
+            String dn = "uid=user.X" + i + "," + USERS_DN;
+            assertTrue( ldapServer.withAdminConnectionAndGet( connection -> connection.exists( dn ) ) );
+        }
+    }
+
+
+    @ParameterizedTest
+    @LdapServersSource
+    public void testAddAsyncEntryAlreadyExists( TestLdapServer ldapServer ) throws Exception
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        Entry entry = new DefaultEntry( USER1_DN, "objectClass: inetOrgPerson", "sn: X", "cn: X", "uid: user.1" );
+        StudioOperationFuture future = getConnectionWrapper( monitor, ldapServer ).createEntryAsync( entry, null,
+            monitor );
+
+        // should report the error by the future only
+        StudioLdapException exception = future.get();
+        assertTrue( StudioLdapException.isEntryAlreadyExistsException( exception ) );
+        assertFalse( monitor.errorsReported() );
+    }
+
+
+    @ParameterizedTest
+    @LdapServersSource
+    public void testAddAsyncFollowsReferral_DirectReferral( TestLdapServer ldapServer ) throws Exception
+    {
+        Dn targetDn = dn( "uid=user.X", USERS_DN );
+        Dn referralDn = dn( "uid=user.X", REFERRAL_TO_USERS_DN );
+
+        // create entry under referral
+        StudioProgressMonitor monitor = getProgressMonitor();
+        Entry entry = new DefaultEntry( referralDn, "objectClass: inetOrgPerson", "sn: X", "cn: X", "uid: user.X" );
+        StudioOperationFuture future = getConnectionWrapper( monitor, ldapServer ).createEntryAsync( entry, null,
+            monitor );
+
+        // should have created target entry
+        assertNull( future.get() );
+        assertFalse( monitor.isCanceled() );
+        assertTrue( ldapServer.withAdminConnectionAndGet( connection -> connection.exists( targetDn ) ) );
+    }
+
+
     @ParameterizedTest
     @LdapServersSource
     public void testAddFollowsReferral_DirectReferral( TestLdapServer ldapServer ) throws Exception
@@ -1330,6 +1406,33 @@ public class DirectoryApiConnectionWrapperTest
     }
 
 
+    @ParameterizedTest
+    @LdapServersSource
+    public void testModifyAsync( TestLdapServer ldapServer ) throws Exception
+    {
+        String dn = "uid=user.X," + USERS_DN;
+
+        // create entry
+        ldapServer.withAdminConnection( connection -> connection.add( new DefaultEntry( dn,
+            "objectClass: inetOrgPerson", "sn: X", "cn: X", "uid: user.X" ) ) );
+
+        // modify entry
+        StudioProgressMonitor monitor = getProgressMonitor();
+        List<Modification> modifications = Collections.singletonList(
+            new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE,
+                new DefaultAttribute( "sn", "modified" ) ) );
+        StudioOperationFuture future = getConnectionWrapper( monitor, ldapServer ).modifyEntryAsync( new Dn( dn ),
+            modifications, null, monitor );
+
+        // should have modified the entry
+        assertNull( future.get() );
+        assertFalse( monitor.isCanceled() );
+        assertFalse( monitor.errorsReported() );
+        Entry entry = ldapServer.withAdminConnectionAndGet( connection -> connection.lookup( new Dn( dn ) ) );
+        assertEquals( "modified", entry.get( "sn" ).getString() );
+    }
+
+
     @ParameterizedTest
     @LdapServersSource
     public void testModifyFollowsReferral_DirectReferral( TestLdapServer ldapServer ) throws Exception
@@ -1435,6 +1538,29 @@ public class DirectoryApiConnectionWrapperTest
     }
 
 
+    @ParameterizedTest
+    @LdapServersSource
+    public void testDeleteAsync( TestLdapServer ldapServer ) throws Exception
+    {
+        String dn = "uid=user.X," + USERS_DN;
+
+        // create entry
+        ldapServer.withAdminConnection( connection -> connection.add( new DefaultEntry( dn,
+            "objectClass: inetOrgPerson", "sn: X", "cn: X", "uid: user.X" ) ) );
+
+        // delete entry
+        StudioProgressMonitor monitor = getProgressMonitor();
+        StudioOperationFuture future = getConnectionWrapper( monitor, ldapServer ).deleteEntryAsync( new Dn( dn ),
+            null, monitor );
+
+        // should have deleted the entry
+        assertNull( future.get() );
+        assertFalse( monitor.isCanceled() );
+        assertFalse( monitor.errorsReported() );
+        assertFalse( ldapServer.withAdminConnectionAndGet( connection -> connection.exists( dn ) ) );
+    }
+
+
     @ParameterizedTest
     @LdapServersSource
     public void testDeleteFollowsReferral_DirectReferral( TestLdapServer ldapServer ) throws Exception
@@ -1528,6 +1654,55 @@ public class DirectoryApiConnectionWrapperTest
     }
 
 
+    /**
+     * Tests that a parallel LDIF export decodes the values of all connections
+     * with the binary attributes of the browser connection.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testExportLdifParallelUsesBinaryAttributes( TestLdapServer ldapServer ) throws Exception
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        Connection connection = getConnection( monitor, ldapServer, ldapServer.getAdminDn(),
+            ldapServer.getAdminPassword() );
+        connectionWrapper.connect( monitor );
+        connectionWrapper.bind( monitor );
+        BrowserConnection browserConnection = new BrowserConnection( connection );
+
+        // sn isn't binary by default, its values are only decoded as binary
+        // by the additional connections if the binary attributes are copied to them
+        connectionWrapper.setBinaryAttributes( Collections.singletonList( "sn" ) );
+
+        Preferences preferences = BrowserCorePlugin.getDefault().getPluginPreferences();
+        int connections = preferences.getInt( BrowserCoreConstants.PREFERENCE_IMPORT_EXPORT_CONNECTIONS );
+        File file = File.createTempFile( "export", ".ldif" );
+        try
+        {
+            preferences.setValue( BrowserCoreConstants.PREFERENCE_IMPORT_EXPORT_CONNECTIONS, 4 );
+
+            SearchParameter searchParameter = new SearchParameter();
+            searchParameter.setSearchBase( USERS_DN );
+            searchParameter.setScope( SearchScope.SUBTREE );
+            searchParameter.setReturningAttributes( new String[]
+                { "sn" } );
+            searchParameter.setAliasesDereferencingMethod( AliasDereferencingMethod.NEVER );
+            searchParameter.setReferralsHandlingMethod( ReferralHandlingMethod.IGNORE );
+            new ExportLdifRunnable( file.getAbsolutePath(), browserConnection, searchParameter ).run( monitor );
+
+            assertFalse( monitor.errorsReported() );
+            String ldif = new String( Files.readAllBytes( file.toPath() ) );
+            assertTrue( ldif.contains( USER8_DN.getName() ), ldif );
+            assertTrue( ldif.matches( "(?ms).*^sn:: .*" ), ldif );
+            assertFalse( ldif.matches( "(?ms).*^sn: .*" ), ldif );
+        }
+        finally
+        {
+            preferences.setValue( BrowserCoreConstants.PREFERENCE_IMPORT_EXPORT_CONNECTIONS, connections );
+            file.delete();
+        }
+    }
+
+
     /**
      * DIRSTUDIO-1039
      */
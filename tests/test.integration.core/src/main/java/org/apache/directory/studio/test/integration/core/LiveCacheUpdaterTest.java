@@ -0,0 +1,226 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.test.integration.core;
+
+
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USER1_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USER2_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USER3_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.USERS_DN;
+import static org.apache.directory.studio.test.integration.junit5.TestFixture.dn;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.DefaultModification;
+import org.apache.directory.api.ldap.model.entry.ModificationOperation;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.Rdn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.ConnectionParameter;
+import org.apache.directory.studio.connection.core.ConnectionParameter.AuthenticationMethod;
+import org.apache.directory.studio.connection.core.ConnectionParameter.EncryptionMethod;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeAttributesRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeChildrenRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.InitializeRootDSERunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.LiveCacheUpdater;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ReadEntryRunnable;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.BrowserConnection;
+import org.apache.directory.studio.test.integration.junit5.LdapServerType;
+import org.apache.directory.studio.test.integration.junit5.LdapServersSource;
+import org.apache.directory.studio.test.integration.junit5.SkipTestIfLdapServerIsNotAvailableInterceptor;
+import org.apache.directory.studio.test.integration.junit5.TestLdapServer;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+
+
+/**
+ * Tests the {@link LiveCacheUpdater}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@ExtendWith(SkipTestIfLdapServerIsNotAvailableInterceptor.class)
+public class LiveCacheUpdaterTest
+{
+
+    /** The time to wait for a change to be applied, in milliseconds */
+    private static final long TIMEOUT = 10000;
+
+    /** The time to wait for a probe change to be applied before it is repeated, in milliseconds */
+    private static final long PROBE_TIMEOUT = 1000;
+
+    private BrowserConnection browserConnection;
+
+
+    @BeforeAll
+    public static void suspendEventFiringInCurrentThread()
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        ConnectionCorePlugin.getDefault().setCertificateHandler( null );
+    }
+
+
+    @AfterAll
+    public static void resumeEventFiringInCurrentThread()
+    {
+        ConnectionEventRegistry.resumeEventFiringInCurrentThread();
+    }
+
+
+    @AfterEach
+    public void tearDown() throws Exception
+    {
+        if ( browserConnection != null )
+        {
+            LiveCacheUpdater.stop( browserConnection );
+            browserConnection.getConnection().getConnectionWrapper().disconnect();
+        }
+    }
+
+
+    /**
+     * Tests that added, deleted, modified and renamed entries are patched into the cache.
+     */
+    @ParameterizedTest
+    @LdapServersSource(only = LdapServerType.ApacheDS, reason = "Persistent search is only supported by ApacheDS")
+    public void testCachedEntriesAreUpdated( TestLdapServer ldapServer ) throws Exception
+    {
+        StudioProgressMonitor monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+        ConnectionParameter connectionParameter = new ConnectionParameter( null, ldapServer.getHost(),
+            ldapServer.getPort(), EncryptionMethod.NONE, AuthenticationMethod.SIMPLE,
+            ldapServer.getAdminDn(), ldapServer.getAdminPassword(), null, true, null, 30000L );
+        Connection connection = new Connection( connectionParameter );
+        browserConnection = new BrowserConnection( connection );
+        browserConnection.setLiveUpdate( true );
+
+        connection.getConnectionWrapper().connect( monitor );
+        connection.getConnectionWrapper().bind( monitor );
+        InitializeRootDSERunnable.loadRootDSE( browserConnection, monitor );
+
+        // cache the users, their children and the attributes of user.1
+        ReadEntryRunnable readEntryRunnable = new ReadEntryRunnable( browserConnection, USERS_DN );
+        readEntryRunnable.run( monitor );
+        IEntry usersEntry = readEntryRunnable.getReadEntry();
+        assertNotNull( usersEntry );
+        new InitializeChildrenRunnable( false, usersEntry ).run( monitor );
+        IEntry user1Entry = browserConnection.getEntryFromCache( USER1_DN );
+        assertNotNull( user1Entry );
+        InitializeAttributesRunnable.initializeAttributes( user1Entry, monitor );
+        assertNotNull( browserConnection.getEntryFromCache( USER2_DN ) );
+        assertNotNull( browserConnection.getEntryFromCache( USER3_DN ) );
+        assertFalse( monitor.errorsReported() );
+
+        LiveCacheUpdater.start( browserConnection );
+        assertTrue( LiveCacheUpdater.isRunning( browserConnection ) );
+
+        // there is no notification when the persistent search is registered, wait for a probe change
+        waitUntilActive( ldapServer, user1Entry );
+
+        // add
+        Dn addedDn = dn( "uid=live.update", USERS_DN );
+        ldapServer.withAdminConnection( ldapConnection -> ldapConnection.add( new DefaultEntry( addedDn,
+            "objectClass: inetOrgPerson", "uid: live.update", "cn: Live Update", "sn: Update" ) ) );
+        waitUntil( () -> isCachedChild( usersEntry, addedDn ) );
+
+        // delete
+        ldapServer.withAdminConnection( ldapConnection -> ldapConnection.delete( USER2_DN ) );
+        waitUntil( () -> browserConnection.getEntryFromCache( USER2_DN ) == null
+            && Arrays.stream( usersEntry.getChildren() ).noneMatch( e -> e.getDn().equals( USER2_DN ) ) );
+
+        // modify
+        ldapServer.withAdminConnection( ldapConnection -> ldapConnection.modify( USER1_DN,
+            new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, "description", "live update" ) ) );
+        waitUntil( () -> {
+            IAttribute description = user1Entry.getAttribute( "description" );
+            return description != null && "live update".equals( description.getStringValue() );
+        } );
+
+        // rename
+        Dn renamedDn = dn( "uid=user.3.renamed", USERS_DN );
+        ldapServer.withAdminConnection( ldapConnection -> ldapConnection.rename( USER3_DN,
+            new Rdn( "uid=user.3.renamed" ), true ) );
+        waitUntil( () -> browserConnection.getEntryFromCache( USER3_DN ) == null
+            && isCachedChild( usersEntry, renamedDn ) );
+
+        LiveCacheUpdater.stop( browserConnection );
+        assertFalse( LiveCacheUpdater.isRunning( browserConnection ) );
+    }
+
+
+    private boolean isCachedChild( IEntry parent, Dn dn )
+    {
+        IEntry entry = browserConnection.getEntryFromCache( dn );
+        return entry != null && Arrays.asList( parent.getChildren() ).contains( entry );
+    }
+
+
+    private static void waitUntil( BooleanSupplier condition ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while ( !condition.getAsBoolean() )
+        {
+            assertTrue( System.currentTimeMillis() < deadline, "Change not applied within " + TIMEOUT + " ms" );
+            Thread.sleep( 100 );
+        }
+    }
+
+
+    /**
+     * Modifies the given entry until the modification is applied to the cache. A modification
+     * made before the persistent search is registered isn't notified, so it is repeated.
+     */
+    private static void waitUntilActive( TestLdapServer ldapServer, IEntry entry ) throws Exception
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        for ( int i = 0;; i++ )
+        {
+            assertTrue( System.currentTimeMillis() < deadline, "Live update not active within " + TIMEOUT + " ms" );
+
+            String probe = "probe " + i;
+            ldapServer.withAdminConnection( ldapConnection -> ldapConnection.modify( entry.getDn(),
+                new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, "description", probe ) ) );
+
+            long probeDeadline = System.currentTimeMillis() + PROBE_TIMEOUT;
+            while ( System.currentTimeMillis() < probeDeadline )
+            {
+                IAttribute description = entry.getAttribute( "description" );
+                if ( description != null && probe.equals( description.getStringValue() ) )
+                {
+                    return;
+                }
+                Thread.sleep( 100 );
+            }
+        }
+    }
+}